@@ -0,0 +1,138 @@
+package titanVault.async;
+
+import titanVault.model.Decision;
+import titanVault.service.BlockingRateLimiter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission for callers that must not block: a request that cannot be admitted at once
+ * gets a future that completes when it is, or when its timeout passes, and no thread
+ * waits meanwhile.
+ * <p>
+ * Every decision runs on the executor, never on the calling thread, so a caller such as
+ * an event loop neither takes nor waits for the limiter's locks; the executor also
+ * completes the futures, so their dependent stages never run on the caller or the wheel
+ * thread. A request that has to wait is handed to the {@link TimerWheel}, which passes it
+ * back to the executor at the time the limiter reported, and again until it is admitted
+ * or its deadline passes. A request whose wait is beyond its deadline is denied at once.
+ * <p>
+ * Waiting requests retry independently: they are not queued behind each other nor behind
+ * threads parked in {@link BlockingRateLimiter#acquire}, and a request that misses its
+ * retry because another took the permits first waits for the next one.
+ */
+public class AsyncRateLimiter {
+
+    private final BlockingRateLimiter limiter; // Limiter deciding the requests
+    private final TimerWheel timerWheel; // Schedules the retries of waiting requests
+    private final Executor executor; // Makes the decisions and completes the futures
+
+    /**
+     * Constructor to initialize the AsyncRateLimiter, deciding on the common fork-join pool.
+     *
+     * @param limiter    Limiter deciding the requests.
+     * @param timerWheel Timer wheel running the retries, usually shared by every limiter.
+     */
+    public AsyncRateLimiter(BlockingRateLimiter limiter, TimerWheel timerWheel) {
+        this(limiter, timerWheel, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor to initialize the AsyncRateLimiter.
+     *
+     * @param limiter    Limiter deciding the requests.
+     * @param timerWheel Timer wheel running the retries, usually shared by every limiter.
+     * @param executor   Executor making the decisions and completing the futures.
+     */
+    public AsyncRateLimiter(BlockingRateLimiter limiter, TimerWheel timerWheel, Executor executor) {
+        this.limiter = limiter;
+        this.timerWheel = timerWheel;
+        this.executor = executor;
+    }
+
+    /**
+     * Take permits for a key, waiting for them without a thread.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @param timeout The longest time to wait; zero decides at once.
+     * @return A future completing with the decision; a denial says when to retry. It
+     *         completes exceptionally if the limiter fails or the executor rejects the request.
+     */
+    public CompletableFuture<Decision> acquire(String userId, long permits, Duration timeout) {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        PendingRequest request = new PendingRequest(userId, permits, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout.toMillis()));
+        request.submit();
+        return request.future;
+    }
+
+    /**
+     * Validate a request at once, without waiting.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return A future completing with the decision; a denial says when to retry. It
+     *         completes exceptionally if the limiter fails or the executor rejects the request.
+     */
+    public CompletableFuture<Decision> validateRequest(String userId, long permits) {
+        return acquire(userId, permits, Duration.ZERO);
+    }
+
+    public BlockingRateLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * A request being decided on the executor or waiting for its retry on the timer wheel.
+     */
+    private final class PendingRequest implements Runnable {
+        private final String userId; // Key of the request
+        private final long permits; // Permits the request costs
+        private final long deadlineNanos; // Time after which the request is denied
+        private final CompletableFuture<Decision> future = new CompletableFuture<>(); // Completed with the decision
+
+        private PendingRequest(String userId, long permits, long deadlineNanos) {
+            this.userId = userId;
+            this.permits = permits;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Hand the next attempt to the executor; the wheel thread calls this when a retry is due.
+         */
+        private void submit() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Try the request, on the executor.
+         */
+        @Override
+        public void run() {
+            try {
+                long waitMillis = limiter.tryAcquire(userId, permits);
+                if (waitMillis == 0) {
+                    future.complete(Decision.ALLOWED);
+                } else if (timerWheel.isClosed()
+                        || TimeUnit.MILLISECONDS.toNanos(waitMillis) > deadlineNanos - System.nanoTime()) {
+                    future.complete(Decision.denied(waitMillis));
+                } else {
+                    timerWheel.schedule(this::submit, waitMillis, TimeUnit.MILLISECONDS);
+                }
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package titanVault.async;
+
+import titanVault.service.BlockingRateLimiter;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Reactive stage that lets the items of a stream through as the limiter admits their keys,
+ * one permit per item, with backpressure in both directions.
+ * <p>
+ * Items wait in a queue per key. A key whose first item is refused is set aside on the
+ * {@link TimerWheel} until the limiter says it may be admitted, so a throttled key holds
+ * back its own items and nobody else's: items of one key keep their order, items of
+ * different keys may overtake each other. Admission only happens against downstream
+ * demand, so no permit is spent on an item the subscriber cannot take, and at most
+ * {@code maxPending} items are requested from upstream ahead of being emitted.
+ * <p>
+ * All signals go through one drain loop that a single thread runs at a time, whichever
+ * thread signalled; no thread blocks. A key woken by the timer wheel is drained on the
+ * executor, so the wheel thread only hands the key over and never runs the limiter or
+ * the subscriber. An upstream error is passed on at once, dropping
+ * the held items; completion is passed on once every held item has been emitted. Items
+ * of a key the limiter can never admit are held until the subscription is cancelled. If
+ * the executor refuses a woken key, the stream ends with that refusal as its error.
+ *
+ * @param <T> The type of the items.
+ */
+public class ThrottleProcessor<T> implements Flow.Processor<T, T> {
+
+    private final BlockingRateLimiter limiter; // Admits the items of each key
+    private final Function<? super T, String> keyOf; // Key an item is limited under
+    private final TimerWheel timerWheel; // Wakes throttled keys when they may be admitted
+    private final Executor executor; // Drains the keys the timer wheel wakes
+    private final int maxPending; // Items requested from upstream and not yet emitted
+    private final Queue<T> arrivals = new ConcurrentLinkedQueue<>(); // Items received, not yet sorted by key
+    private final Queue<String> wokenKeys = new ConcurrentLinkedQueue<>(); // Throttled keys whose wait is over
+    private final AtomicBoolean subscribed = new AtomicBoolean(); // Set by the first subscriber
+    private final AtomicInteger drainRequests = new AtomicInteger(); // Signals not yet handled by the drain loop
+    private final AtomicLong demand = new AtomicLong(); // Items requested by the subscriber and not yet emitted
+    private final Map<String, ArrayDeque<T>> heldByKey = new HashMap<>(); // Held items per key, owned by the drain loop
+    private final Set<String> dueKeys = new LinkedHashSet<>(); // Keys with items and no wait, owned by the drain loop
+    private volatile Flow.Subscription upstream; // Subscription to the source, null until subscribed
+    private volatile Flow.Subscriber<? super T> downstream; // Single subscriber, null until subscribed
+    private volatile boolean upstreamDone; // Set when the source completed or failed
+    private volatile Throwable upstreamError; // Failure of the source or of the stage itself
+    private volatile boolean cancelled; // Set when the subscriber cancelled
+    private int held; // Items received and not yet emitted, owned by the drain loop
+    private long upstreamOutstanding; // Items requested from upstream and not yet received, owned by the drain loop
+    private boolean terminated; // Set once the subscriber got its last signal, owned by the drain loop
+
+    /**
+     * Constructor to initialize the ThrottleProcessor.
+     *
+     * @param limiter    Limiter admitting the items of each key, one permit per item.
+     * @param keyOf      Key an item is limited under.
+     * @param timerWheel Timer wheel waking throttled keys, usually shared by every stage.
+     * @param maxPending Items requested from upstream ahead of being emitted.
+     */
+    public ThrottleProcessor(BlockingRateLimiter limiter, Function<? super T, String> keyOf,
+                             TimerWheel timerWheel, int maxPending) {
+        this(limiter, keyOf, timerWheel, maxPending, ForkJoinPool.commonPool()::execute);
+    }
+
+    /**
+     * Constructor to initialize the ThrottleProcessor with the executor draining woken keys.
+     *
+     * @param limiter    Limiter admitting the items of each key, one permit per item.
+     * @param keyOf      Key an item is limited under.
+     * @param timerWheel Timer wheel waking throttled keys, usually shared by every stage.
+     * @param maxPending Items requested from upstream ahead of being emitted.
+     * @param executor   Executor draining the keys the timer wheel wakes.
+     */
+    public ThrottleProcessor(BlockingRateLimiter limiter, Function<? super T, String> keyOf,
+                             TimerWheel timerWheel, int maxPending, Executor executor) {
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("Pending items must be positive: " + maxPending);
+        }
+        this.limiter = limiter;
+        this.keyOf = keyOf;
+        this.timerWheel = timerWheel;
+        this.maxPending = maxPending;
+        this.executor = executor;
+    }
+
+    /**
+     * Attach the single subscriber; a second one is refused with an error.
+     *
+     * @param subscriber The subscriber.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Throttle stage already has a subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    upstreamError = new IllegalArgumentException("Demand must be positive: " + n);
+                    upstreamDone = true;
+                    cancelUpstream();
+                } else {
+                    demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                drain();
+            }
+        });
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel(); // One source only
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(T item) {
+        arrivals.add(item);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    /**
+     * Run the drain loop unless another thread is running it, in which case that thread
+     * handles this signal too before it stops.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            try {
+                drainOnce();
+            } catch (RuntimeException e) {
+                upstreamError = e; // A failing key function or limiter ends the stream
+                upstreamDone = true;
+                cancelUpstream();
+                continue;
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainOnce() {
+        if (terminated) {
+            arrivals.clear();
+            wokenKeys.clear();
+            return;
+        }
+        if (cancelled) {
+            terminate();
+            return;
+        }
+        sortArrivals();
+        String key;
+        while ((key = wokenKeys.poll()) != null) {
+            dueKeys.add(key);
+        }
+        Flow.Subscriber<? super T> subscriber = downstream;
+        if (subscriber == null) {
+            requestUpstream();
+            return;
+        }
+        Throwable error = upstreamError;
+        if (error != null) {
+            terminate();
+            subscriber.onError(error);
+            return;
+        }
+        emitAdmitted(subscriber);
+        if (cancelled || terminated) {
+            return;
+        }
+        if (upstreamDone && held == 0 && arrivals.isEmpty()) {
+            terminate();
+            subscriber.onComplete();
+            return;
+        }
+        requestUpstream();
+    }
+
+    /**
+     * Move the received items to the queues of their keys; a key that had no items is due.
+     */
+    private void sortArrivals() {
+        T item;
+        while ((item = arrivals.poll()) != null) {
+            upstreamOutstanding--;
+            held++;
+            String key = keyOf.apply(item);
+            ArrayDeque<T> queue = heldByKey.computeIfAbsent(key, newKey -> new ArrayDeque<>());
+            if (queue.isEmpty()) {
+                dueKeys.add(key);
+            }
+            queue.add(item);
+        }
+    }
+
+    /**
+     * Emit items of the due keys while the subscriber has demand, one per key per pass so
+     * keys share the demand. A key whose item is refused waits on the timer wheel.
+     */
+    private void emitAdmitted(Flow.Subscriber<? super T> subscriber) {
+        long requested = demand.get();
+        long emitted = 0;
+        while (emitted < requested && !dueKeys.isEmpty() && !cancelled) {
+            Iterator<String> keys = dueKeys.iterator();
+            while (emitted < requested && keys.hasNext() && !cancelled) {
+                String key = keys.next();
+                long waitMillis = limiter.tryAcquire(key, 1);
+                if (waitMillis != 0) {
+                    keys.remove();
+                    if (waitMillis != Long.MAX_VALUE) {
+                        timerWheel.schedule(() -> wake(key), waitMillis, TimeUnit.MILLISECONDS);
+                    }
+                    continue;
+                }
+                ArrayDeque<T> queue = heldByKey.get(key);
+                T item = queue.poll();
+                if (queue.isEmpty()) {
+                    heldByKey.remove(key);
+                    keys.remove();
+                }
+                held--;
+                emitted++;
+                subscriber.onNext(item); // Signals it sends back are handled on the next pass of the loop
+            }
+        }
+        if (emitted > 0) {
+            demand.addAndGet(-emitted);
+        }
+    }
+
+    /**
+     * Ask upstream for enough items to hold {@code maxPending} again, once at least half of
+     * them have been used, so upstream gets a few large requests rather than one per item.
+     */
+    private void requestUpstream() {
+        Flow.Subscription source = upstream;
+        if (source == null || upstreamDone) {
+            return;
+        }
+        long wanted = maxPending - held - upstreamOutstanding;
+        if (wanted > 0 && wanted >= (maxPending + 1) / 2) {
+            upstreamOutstanding += wanted;
+            source.request(wanted);
+        }
+    }
+
+    /**
+     * Hand a woken key to the executor; the wheel thread calls this when the key's wait is over.
+     */
+    private void wake(String key) {
+        wokenKeys.add(key);
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            upstreamError = e; // Nothing would drain the key, so end the stream rather than hang
+            upstreamDone = true;
+            cancelUpstream();
+            drain(); // Only passes the error on
+        }
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription source = upstream;
+        if (source != null) {
+            source.cancel();
+        }
+    }
+
+    private void terminate() {
+        terminated = true;
+        arrivals.clear();
+        heldByKey.clear();
+        dueKeys.clear();
+        held = 0;
+    }
+}
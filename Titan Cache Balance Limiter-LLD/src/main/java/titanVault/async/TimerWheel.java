@@ -0,0 +1,210 @@
+package titanVault.async;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel that runs every delayed step of the asynchronous API on one thread.
+ * <p>
+ * Time is cut into ticks and the wheel into {@code wheelSize} slots, one per tick, reused
+ * every turn. Scheduling appends the task to a lock-free queue; the wheel thread moves it
+ * to the slot of its deadline tick and, at each tick, runs the tasks of that slot whose
+ * deadline has come, leaving those due on a later turn. Scheduling and expiry are
+ * constant time however many tasks are pending, and a task runs within a tick after its
+ * deadline. The thread parks while nothing is pending, so an idle wheel costs nothing.
+ * <p>
+ * Tasks run on the wheel thread and must be short: a limiter check or the completion of a
+ * future on another executor, not the work the future unblocks. When the wheel closes,
+ * the tasks still pending run at once, so nothing waits forever on a closed wheel; tasks
+ * scheduled after that are refused.
+ */
+public final class TimerWheel implements Closeable {
+
+    private final long tickNanos; // Length of a tick
+    private final int mask; // Number of slots minus one, the number of slots being a power of two
+    private final List<ArrayDeque<Timer>> slots; // Pending tasks by deadline tick, owned by the wheel thread
+    private final Queue<Timer> scheduled = new ConcurrentLinkedQueue<>(); // Tasks not yet placed in a slot
+    private final long startNanos; // Time of tick 0
+    private final Thread worker; // Moves and runs the tasks
+    private volatile boolean idle; // Set while the wheel thread parks with nothing pending
+    private volatile boolean closed; // Set once close is called
+    private long currentTick; // Next tick to expire, owned by the wheel thread
+    private int pendingTimers; // Tasks in the slots, owned by the wheel thread
+
+    /**
+     * Constructor to initialize a TimerWheel with one-millisecond ticks and 512 slots.
+     */
+    public TimerWheel() {
+        this(Duration.ofMillis(1), 512);
+    }
+
+    /**
+     * Constructor to initialize the TimerWheel and start its thread.
+     *
+     * @param tick      Length of a tick, the precision of the deadlines.
+     * @param wheelSize Number of slots, rounded up to a power of two; deadlines further
+     *                  away than one turn stay in their slot for several turns.
+     */
+    public TimerWheel(Duration tick, int wheelSize) {
+        if (tick == null || tick.toNanos() <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        if (wheelSize <= 0 || wheelSize > 1 << 20) {
+            throw new IllegalArgumentException("Wheel size must be between 1 and 2^20: " + wheelSize);
+        }
+        int roundedSize = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.tickNanos = tick.toNanos();
+        this.mask = roundedSize - 1;
+        this.slots = new ArrayList<>(roundedSize);
+        for (int index = 0; index < roundedSize; index++) {
+            slots.add(new ArrayDeque<>());
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, "timer-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Run a task once a delay has passed.
+     *
+     * @param task  The task, run on the wheel thread.
+     * @param delay The delay; zero or less runs the task at the next tick.
+     * @param unit  The unit of the delay.
+     * @throws IllegalStateException if the wheel is closed.
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (closed) {
+            throw new IllegalStateException("Timer wheel is closed");
+        }
+        long delayNanos = Math.min(Math.max(unit.toNanos(delay), 0), Long.MAX_VALUE / 4); // Far enough to mean never
+        long deadlineTick = (System.nanoTime() - startNanos + delayNanos + tickNanos - 1) / tickNanos;
+        Timer timer = new Timer(task, deadlineTick);
+        scheduled.add(timer);
+        if (closed && scheduled.remove(timer)) {
+            task.run(); // Closed meanwhile and the wheel thread may be gone, so run it as close would
+            return;
+        }
+        if (idle) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Check whether the wheel was closed, so tasks that run at close can tell it from an
+     * expired deadline.
+     *
+     * @return true once close was called.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stop the wheel thread, running the tasks still pending first.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            long elapsedTicks = (System.nanoTime() - startNanos) / tickNanos;
+            placeScheduled();
+            while (currentTick <= elapsedTicks) {
+                expire(slots.get((int) currentTick & mask), currentTick);
+                currentTick++;
+            }
+            if (pendingTimers > 0) {
+                LockSupport.parkNanos(this, startNanos + currentTick * tickNanos - System.nanoTime());
+                continue;
+            }
+            idle = true;
+            if (scheduled.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+            idle = false;
+            currentTick = Math.max(currentTick, (System.nanoTime() - startNanos) / tickNanos); // No task was due while parked
+        }
+        runAllPending();
+    }
+
+    /**
+     * Move the newly scheduled tasks to the slots of their deadline ticks.
+     */
+    private void placeScheduled() {
+        Timer timer;
+        while ((timer = scheduled.poll()) != null) {
+            long tick = Math.max(timer.deadlineTick, currentTick);
+            slots.get((int) tick & mask).add(timer);
+            pendingTimers++;
+        }
+    }
+
+    /**
+     * Run the tasks of a slot that are due by a tick, keeping those due on a later turn.
+     */
+    private void expire(ArrayDeque<Timer> slot, long tick) {
+        for (int remaining = slot.size(); remaining > 0; remaining--) {
+            Timer timer = slot.poll();
+            if (timer.deadlineTick <= tick) {
+                pendingTimers--;
+                runTask(timer.task);
+            } else {
+                slot.add(timer);
+            }
+        }
+    }
+
+    private void runAllPending() {
+        placeScheduled();
+        for (ArrayDeque<Timer> slot : slots) {
+            Timer timer;
+            while ((timer = slot.poll()) != null) {
+                runTask(timer.task);
+            }
+        }
+        Timer timer;
+        while ((timer = scheduled.poll()) != null) {
+            runTask(timer.task); // Scheduled while the slots were drained
+        }
+    }
+
+    /**
+     * Run a task, reporting its failure without stopping the wheel.
+     */
+    private void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            worker.getUncaughtExceptionHandler().uncaughtException(worker, e);
+        }
+    }
+
+    /**
+     * A task and the tick it is due at.
+     */
+    private static final class Timer {
+        private final Runnable task; // Task to run
+        private final long deadlineTick; // First tick the task may run at
+
+        private Timer(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package titanVault.client;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Thrown by {@link RateLimitingInterceptor} when an outbound request is not sent, either
+ * because the local limit, a server-requested back-off or an open circuit blocks it.
+ * It is an {@link IOException} so it surfaces from {@code HttpClient.execute} unchanged.
+ */
+public class RateLimitedRequestException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String key; // Limiter key of the rejected request
+    private final Duration retryAfter; // Suggested wait before trying again, zero when unknown
+
+    /**
+     * Constructor to initialize the RateLimitedRequestException.
+     *
+     * @param message    Why the request was not sent.
+     * @param key        Limiter key of the rejected request.
+     * @param retryAfter Suggested wait before trying again, zero when unknown.
+     */
+    public RateLimitedRequestException(String message, String key, Duration retryAfter) {
+        super(message + " (key " + key + ")");
+        this.key = key;
+        this.retryAfter = retryAfter;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
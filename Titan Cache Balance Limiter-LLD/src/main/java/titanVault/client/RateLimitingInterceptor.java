@@ -0,0 +1,347 @@
+package titanVault.client;
+
+import org.apache.http.Header;
+import org.apache.http.HttpException;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import titanVault.model.CircuitBreaker;
+import titanVault.service.RateLimiter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side rate limiting for Apache HttpClient.
+ * <p>
+ * As a request interceptor it runs before a connection is leased: the request's key (host
+ * or route) must pass any back-off the server asked for, its circuit breaker and the
+ * configured {@link RateLimiter}. In {@link Mode#FAIL_FAST} a blocked request throws
+ * {@link RateLimitedRequestException} at once; in {@link Mode#BLOCKING} the calling thread
+ * waits until the request may go or the acquire timeout runs out.
+ * <p>
+ * As a response interceptor it adapts to the server: a 429 sets a back-off for the key from
+ * {@code Retry-After}, or doubles the previous back-off when the header is missing; a 5xx
+ * counts as a failure for the key's circuit breaker, and anything else as a success.
+ * <p>
+ * At most a bounded number of keys are tracked. When the limit is reached, keys whose
+ * back-off is over and whose circuit is closed are dropped, since a fresh state behaves
+ * the same; if every key is still active, new keys are admitted without being tracked.
+ */
+public class RateLimitingInterceptor implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+    /**
+     * What a request does when it may not be sent yet.
+     */
+    public enum Mode { BLOCKING, FAIL_FAST }
+
+    private static final String STATE_ATTRIBUTE = "titanVault.client.rateLimitState"; // Context attribute carrying the key state to the response
+    private static final int DEFAULT_MAX_TRACKED_KEYS = 10_000; // Keys tracked when not given
+    private static final long SWEEP_INTERVAL_MILLIS = 1_000; // Shortest time between two sweeps of a full key map
+
+    private final RateLimiter rateLimiter; // Local limit per key
+    private final RequestKeyResolver keyResolver; // Picks the key of a request
+    private final Mode mode; // Block or fail when a request may not go
+    private final Duration acquireTimeout; // Longest wait in blocking mode
+    private final Duration pollInterval; // Wait between limiter checks in blocking mode
+    private final Duration initialBackoff; // Back-off after a 429 without Retry-After
+    private final Duration maxBackoff; // Cap of the doubling back-off and of Retry-After
+    private final long failureThreshold; // 5xx responses in a row that open a key's circuit
+    private final long circuitResetMillis; // Time an open circuit waits before a trial request
+    private final Clock currentTimer; // Clock to get the current time
+    private final int maxTrackedKeys; // Keys tracked at most
+    private final ConcurrentMap<String, KeyState> keyStates = new ConcurrentHashMap<>(); // Back-off and circuit per key
+    private final ReentrantLock sweepLock = new ReentrantLock(); // Held by the thread sweeping idle keys
+    private volatile long nextSweepTime; // Time before which a full key map is not swept again
+
+    /**
+     * Constructor to initialize the RateLimitingInterceptor.
+     *
+     * @param rateLimiter        Local limit per key.
+     * @param keyResolver        Picks the key of a request, e.g. {@link RequestKeyResolver#byHost()}.
+     * @param mode               Block or fail when a request may not go.
+     * @param acquireTimeout     Longest wait in blocking mode.
+     * @param pollInterval       Wait between limiter checks in blocking mode.
+     * @param initialBackoff     Back-off after a 429 without Retry-After.
+     * @param maxBackoff         Cap of the doubling back-off and of Retry-After.
+     * @param failureThreshold   5xx responses in a row that open a key's circuit.
+     * @param circuitResetMillis Time an open circuit waits before a trial request.
+     * @param currentTimer       Clock to get the current time.
+     */
+    public RateLimitingInterceptor(RateLimiter rateLimiter, RequestKeyResolver keyResolver, Mode mode,
+                                   Duration acquireTimeout, Duration pollInterval,
+                                   Duration initialBackoff, Duration maxBackoff,
+                                   long failureThreshold, long circuitResetMillis, Clock currentTimer) {
+        this(rateLimiter, keyResolver, mode, acquireTimeout, pollInterval, initialBackoff, maxBackoff,
+                failureThreshold, circuitResetMillis, currentTimer, DEFAULT_MAX_TRACKED_KEYS);
+    }
+
+    /**
+     * Constructor to initialize the RateLimitingInterceptor with a bound on the tracked keys.
+     *
+     * @param rateLimiter        Local limit per key.
+     * @param keyResolver        Picks the key of a request, e.g. {@link RequestKeyResolver#byHost()}.
+     * @param mode               Block or fail when a request may not go.
+     * @param acquireTimeout     Longest wait in blocking mode.
+     * @param pollInterval       Wait between limiter checks in blocking mode.
+     * @param initialBackoff     Back-off after a 429 without Retry-After.
+     * @param maxBackoff         Cap of the doubling back-off and of Retry-After.
+     * @param failureThreshold   5xx responses in a row that open a key's circuit.
+     * @param circuitResetMillis Time an open circuit waits before a trial request.
+     * @param currentTimer       Clock to get the current time.
+     * @param maxTrackedKeys     Keys whose back-off and circuit are tracked at most.
+     */
+    public RateLimitingInterceptor(RateLimiter rateLimiter, RequestKeyResolver keyResolver, Mode mode,
+                                   Duration acquireTimeout, Duration pollInterval,
+                                   Duration initialBackoff, Duration maxBackoff,
+                                   long failureThreshold, long circuitResetMillis, Clock currentTimer,
+                                   int maxTrackedKeys) {
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Poll interval must be positive: " + pollInterval);
+        }
+        if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+            throw new IllegalArgumentException("Back-off must satisfy 0 <= initial <= max: " + initialBackoff + ", " + maxBackoff);
+        }
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Failure threshold must be positive: " + failureThreshold);
+        }
+        if (maxTrackedKeys <= 0) {
+            throw new IllegalArgumentException("Tracked keys must be positive: " + maxTrackedKeys);
+        }
+        this.rateLimiter = rateLimiter;
+        this.keyResolver = keyResolver;
+        this.mode = mode;
+        this.acquireTimeout = acquireTimeout;
+        this.pollInterval = pollInterval;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.failureThreshold = failureThreshold;
+        this.circuitResetMillis = circuitResetMillis;
+        this.currentTimer = currentTimer;
+        this.maxTrackedKeys = maxTrackedKeys;
+    }
+
+    /**
+     * Register the interceptor on a client builder: last among request interceptors, so it
+     * sees the final target, and first among response interceptors.
+     *
+     * @param builder The client builder.
+     * @return The same builder.
+     */
+    public HttpClientBuilder install(HttpClientBuilder builder) {
+        return builder.addInterceptorLast((HttpRequestInterceptor) this)
+                .addInterceptorFirst((HttpResponseInterceptor) this);
+    }
+
+    /**
+     * Admit or hold back an outbound request.
+     *
+     * @param request The request about to be sent.
+     * @param context The execution context.
+     * @throws RateLimitedRequestException if the request may not be sent within the mode's wait.
+     * @throws InterruptedIOException      if the thread is interrupted while waiting.
+     */
+    @Override
+    public void process(HttpRequest request, HttpContext context) throws HttpException, IOException {
+        String key = keyResolver.keyFor(request, context);
+        KeyState keyState = keyStateFor(key);
+        long deadline = currentTimer.millis() + (mode == Mode.BLOCKING ? acquireTimeout.toMillis() : 0);
+
+        long backoffWait = keyState.backoffUntil - currentTimer.millis();
+        if (backoffWait > 0) {
+            if (mode == Mode.FAIL_FAST || currentTimer.millis() + backoffWait > deadline) {
+                throw new RateLimitedRequestException("Server asked to back off", key, Duration.ofMillis(backoffWait));
+            }
+            pause(backoffWait);
+        }
+        if (!keyState.circuitBreaker.isCallAllowed()) {
+            throw new RateLimitedRequestException("Circuit open after repeated server errors", key, Duration.ofMillis(circuitResetMillis));
+        }
+        boolean admitted = false;
+        try {
+            while (!rateLimiter.validateRequest(key)) {
+                long remaining = deadline - currentTimer.millis();
+                if (remaining <= 0) {
+                    throw new RateLimitedRequestException("Local rate limit reached", key, Duration.ZERO);
+                }
+                pause(Math.min(remaining, pollInterval.toMillis()));
+            }
+            admitted = true;
+        } finally {
+            if (!admitted) {
+                keyState.circuitBreaker.releaseTrial(); // A trial that is never sent must not hold the circuit half open
+            }
+        }
+        context.setAttribute(STATE_ATTRIBUTE, keyState);
+    }
+
+    /**
+     * Learn from the server's answer: back off on 429, feed the circuit breaker on 5xx.
+     *
+     * @param response The response received.
+     * @param context  The execution context.
+     */
+    @Override
+    public void process(HttpResponse response, HttpContext context) {
+        if (!(context.getAttribute(STATE_ATTRIBUTE) instanceof KeyState keyState)) {
+            return; // Request was not admitted by this interceptor
+        }
+        int status = response.getStatusLine().getStatusCode();
+        if (status == 429) {
+            Duration requested = parseRetryAfter(response.getFirstHeader("Retry-After"));
+            keyState.throttled(requested, initialBackoff, maxBackoff, currentTimer.millis());
+        } else if (status >= 500) {
+            keyState.circuitBreaker.recordFailure();
+        } else {
+            keyState.succeeded();
+        }
+    }
+
+    /**
+     * Get the time a key still has to wait because the server asked it to back off.
+     *
+     * @param key The limiter key.
+     * @return The remaining back-off, zero if none.
+     */
+    public Duration getBackoff(String key) {
+        KeyState keyState = keyStates.get(key);
+        if (keyState == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(Math.max(0, keyState.backoffUntil - currentTimer.millis()));
+    }
+
+    /**
+     * Check whether a key's circuit breaker currently rejects requests.
+     *
+     * @param key The limiter key.
+     * @return true if the circuit is open or waiting on a trial request.
+     */
+    public boolean isCircuitOpen(String key) {
+        KeyState keyState = keyStates.get(key);
+        return keyState != null && keyState.circuitBreaker.isOpen();
+    }
+
+    /**
+     * Get the number of keys whose back-off and circuit are tracked.
+     *
+     * @return The tracked keys.
+     */
+    public int getTrackedKeys() {
+        return keyStates.size();
+    }
+
+    /**
+     * Get the state of a key, creating it on first use. A full map is first swept of keys
+     * that carry nothing a fresh state would not; if it is still full, the new key gets a
+     * state that is not kept.
+     */
+    private KeyState keyStateFor(String key) {
+        KeyState existing = keyStates.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        if (keyStates.size() >= maxTrackedKeys) {
+            sweepIdleKeys();
+            if (keyStates.size() >= maxTrackedKeys) {
+                return new KeyState(failureThreshold, circuitResetMillis, currentTimer);
+            }
+        }
+        return keyStates.computeIfAbsent(key, k -> new KeyState(failureThreshold, circuitResetMillis, currentTimer));
+    }
+
+    /**
+     * Drop the keys whose back-off is over and whose circuit is closed. Runs on one thread
+     * at a time and at most once per {@value #SWEEP_INTERVAL_MILLIS} ms, so a map full of
+     * active keys is not walked for every new key.
+     */
+    private void sweepIdleKeys() {
+        long currentTime = currentTimer.millis();
+        if (currentTime < nextSweepTime || !sweepLock.tryLock()) {
+            return;
+        }
+        try {
+            nextSweepTime = currentTime + SWEEP_INTERVAL_MILLIS;
+            keyStates.values().removeIf(keyState -> keyState.isIdle(currentTime));
+        } finally {
+            sweepLock.unlock();
+        }
+    }
+
+    /**
+     * Read {@code Retry-After} as delta-seconds or an HTTP date.
+     *
+     * @return The requested wait, or null when the header is missing or unreadable.
+     */
+    private Duration parseRetryAfter(Header header) {
+        if (header == null) {
+            return null;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            Date date = DateUtils.parseDate(value);
+            return date == null ? null : Duration.ofMillis(Math.max(0, date.getTime() - currentTimer.millis()));
+        }
+    }
+
+    private static void pause(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send a rate limited request");
+        }
+    }
+
+    /**
+     * Back-off and circuit breaker of one key.
+     */
+    private static final class KeyState {
+        private final CircuitBreaker circuitBreaker; // Opens after repeated 5xx
+        private volatile long backoffUntil; // Time before which no request is sent
+        private long lastBackoffMillis; // Previous back-off, doubled on the next 429 without Retry-After
+
+        private KeyState(long failureThreshold, long circuitResetMillis, Clock currentTimer) {
+            this.circuitBreaker = new CircuitBreaker(failureThreshold, circuitResetMillis, currentTimer);
+        }
+
+        private synchronized void throttled(Duration requested, Duration initialBackoff, Duration maxBackoff, long currentTime) {
+            long backoffMillis;
+            if (requested != null) {
+                backoffMillis = requested.toMillis();
+            } else if (lastBackoffMillis == 0) {
+                backoffMillis = initialBackoff.toMillis();
+            } else {
+                backoffMillis = lastBackoffMillis * 2;
+            }
+            backoffMillis = Math.min(backoffMillis, maxBackoff.toMillis());
+            lastBackoffMillis = backoffMillis;
+            backoffUntil = Math.max(backoffUntil, currentTime + backoffMillis);
+            circuitBreaker.recordSuccess(); // A 429 means the server is up
+        }
+
+        /**
+         * Check whether the state is no different from a fresh one, as far as admitting requests goes.
+         */
+        private boolean isIdle(long currentTime) {
+            return backoffUntil <= currentTime && !circuitBreaker.isOpen();
+        }
+
+        private synchronized void succeeded() {
+            lastBackoffMillis = 0;
+            circuitBreaker.recordSuccess();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package titanVault.client;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.net.URI;
+
+/**
+ * Picks the rate limiter key of an outbound request.
+ */
+@FunctionalInterface
+public interface RequestKeyResolver {
+
+    /**
+     * Get the key an outbound request is limited under.
+     *
+     * @param request The request about to be sent.
+     * @param context The execution context, holding the target host.
+     * @return The limiter key.
+     */
+    String keyFor(HttpRequest request, HttpContext context);
+
+    /**
+     * Limit per target host and port, so every partner API gets its own budget.
+     *
+     * @return The resolver.
+     */
+    static RequestKeyResolver byHost() {
+        return (request, context) -> targetHost(context);
+    }
+
+    /**
+     * Limit per target host and request path, for APIs that publish per-endpoint limits.
+     *
+     * @return The resolver.
+     */
+    static RequestKeyResolver byRoute() {
+        return (request, context) -> {
+            String path = URI.create(request.getRequestLine().getUri()).getPath();
+            return targetHost(context) + (path == null || path.isEmpty() ? "/" : path);
+        };
+    }
+
+    private static String targetHost(HttpContext context) {
+        HttpHost target = HttpClientContext.adapt(context).getTargetHost();
+        if (target == null) {
+            throw new IllegalArgumentException("The execution context has no target host");
+        }
+        return target.toHostString();
+    }
+}
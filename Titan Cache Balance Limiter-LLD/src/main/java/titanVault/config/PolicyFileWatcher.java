@@ -0,0 +1,201 @@
+package titanVault.config;
+
+import titanVault.controller.RateLimiterRegistryController;
+import titanVault.events.ConfigReloadEvent;
+import titanVault.service.RateLimiter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the services of a {@link RateLimiterRegistryController} in line with a policy file.
+ * <p>
+ * The file is watched with a {@link WatchService}; on every change it is parsed and
+ * validated on the watcher thread, new limiters are built, and the registry swaps them in
+ * with one atomic table update, so the request path only ever reads an immutable snapshot.
+ * A service whose policy changed keeps its users' state: the new limiter starts from the
+ * old buckets, scaled to the new capacity. An invalid file is reported through
+ * {@link #getLastError()} and leaves the current policies in place, as does a reload
+ * that fails for any other reason; the watcher keeps watching either way. Reloads,
+ * applied or rejected, are written to a running flight recording as {@link ConfigReloadEvent}s.
+ * <p>
+ * Start a watcher with {@link #start}, which starts the watcher thread once the initial
+ * policies are published.
+ */
+public class PolicyFileWatcher implements Closeable {
+
+    private static final long SETTLE_MILLIS = 20; // Wait for an editor to finish writing before reading
+
+    private final Path policyFile; // Watched properties file
+    private final RateLimiterRegistryController registry; // Registry the services are published to
+    private final Clock currentTimer; // Clock given to new limiters
+    private final WatchService watchService; // Change notifications for the file's directory
+    private final Thread watcher; // Reloads on change notifications
+    private Map<String, ActivePolicy> activePolicies = Collections.emptyMap(); // Published policies, guarded by this
+    private volatile String lastError; // Reason the last reload was rejected, null if it was applied
+    private volatile long reloadCount; // Successful reloads, including the initial load
+
+    /**
+     * Load the policy file, publish its services and start watching it.
+     *
+     * @param policyFile   The properties file.
+     * @param registry     Registry the services are published to.
+     * @param currentTimer Clock given to new limiters.
+     * @return The running watcher.
+     * @throws IOException              if the file cannot be read or watched.
+     * @throws IllegalArgumentException if the initial file is invalid.
+     */
+    public static PolicyFileWatcher start(Path policyFile, RateLimiterRegistryController registry, Clock currentTimer) throws IOException {
+        PolicyFileWatcher policyWatcher = new PolicyFileWatcher(policyFile, registry, currentTimer);
+        policyWatcher.watcher.start();
+        return policyWatcher;
+    }
+
+    private PolicyFileWatcher(Path policyFile, RateLimiterRegistryController registry, Clock currentTimer) throws IOException {
+        this.policyFile = policyFile.toAbsolutePath();
+        this.registry = registry;
+        this.currentTimer = currentTimer;
+        apply(RateLimitPolicyFile.load(this.policyFile));
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.policyFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.OVERFLOW);
+        this.watcher = new Thread(this::watch, "policy-file-watcher");
+        this.watcher.setDaemon(true);
+    }
+
+    /**
+     * Read the file again and publish it if it is valid.
+     *
+     * @return true if the policies were applied, false if the file was rejected or the reload failed.
+     */
+    public boolean reload() {
+        ConfigReloadEvent event = new ConfigReloadEvent();
+        event.begin();
+        try {
+            int limitersChanged = apply(RateLimitPolicyFile.load(policyFile));
+            event.applied(policyFile.toString(), null, limitersChanged);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage() != null ? e.getMessage() : e.toString(); // Never null, which would mean applied
+            event.rejected(policyFile.toString(), lastError);
+            return false;
+        }
+    }
+
+    /**
+     * Get the policies currently published.
+     *
+     * @return The policies by service.
+     */
+    public synchronized Map<String, RateLimitPolicy> getPolicies() {
+        Map<String, RateLimitPolicy> policies = new HashMap<>();
+        activePolicies.forEach((serviceId, active) -> policies.put(serviceId, active.policy));
+        return Collections.unmodifiableMap(policies);
+    }
+
+    /**
+     * Get the reason the last reload was rejected.
+     *
+     * @return The error message, or null if the last reload was applied.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Get the number of successful loads, including the initial one.
+     *
+     * @return The reload count.
+     */
+    public long getReloadCount() {
+        return reloadCount;
+    }
+
+    /**
+     * Build the limiters of a validated policy set and publish them in one swap.
+     *
+     * @return The number of services added, replaced or removed.
+     */
+    private synchronized int apply(Map<String, RateLimitPolicy> policies) {
+        Map<String, ActivePolicy> updated = new HashMap<>();
+        Map<String, RateLimiter> registrations = new HashMap<>();
+        for (RateLimitPolicy policy : policies.values()) {
+            ActivePolicy current = activePolicies.get(policy.getServiceId());
+            ActivePolicy next = current;
+            if (current == null || !current.policy.equals(policy)) {
+                next = new ActivePolicy(policy, policy.newLimiter(currentTimer, current == null ? null : current.limiter));
+            }
+            updated.put(policy.getServiceId(), next);
+            if (next != current) {
+                registrations.put(policy.getServiceId(), next.limiter);
+            }
+        }
+        Set<String> removals = new HashSet<>(activePolicies.keySet());
+        removals.removeAll(updated.keySet());
+        registry.updateServices(registrations, removals);
+        activePolicies = updated;
+        lastError = null;
+        reloadCount++;
+        return registrations.size() + removals.size();
+    }
+
+    private void watch() {
+        Path fileName = policyFile.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+                    }
+                    key.reset();
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS); // Coalesce the events of one save
+                } while (key != null);
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    /**
+     * Stop watching the file; the published policies stay in the registry.
+     *
+     * @throws IOException if the watch service cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    /**
+     * A published policy and the limiter built for it.
+     */
+    private static final class ActivePolicy {
+        private final RateLimitPolicy policy; // Declared limit
+        private final RateLimiter limiter; // Limiter registered for it
+
+        private ActivePolicy(RateLimitPolicy policy, RateLimiter limiter) {
+            this.policy = policy;
+            this.limiter = limiter;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package titanVault.config;
+
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Immutable limit of one service as declared in a policy file.
+ */
+public class RateLimitPolicy {
+
+    /**
+     * Algorithms a policy file can declare, with their names in the file. A policy carries
+     * a capacity, a period and a refill amount, which configure these two; the other
+     * limiters of {@code titanVault.service} take settings a policy does not have, such as
+     * a leak rate or a smoothing period, and are built directly rather than from a policy.
+     */
+    public enum Algorithm {
+        TOKEN_BUCKET("token-bucket"),
+        FIXED_WINDOW("fixed-window");
+
+        private final String fileName; // Name used in the policy file
+
+        Algorithm(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Look up an algorithm by its policy file name.
+         *
+         * @param fileName The name used in the policy file.
+         * @return The algorithm.
+         */
+        public static Algorithm fromFileName(String fileName) {
+            for (Algorithm algorithm : values()) {
+                if (algorithm.fileName.equals(fileName)) {
+                    return algorithm;
+                }
+            }
+            throw new IllegalArgumentException("Unknown algorithm: " + fileName + " (expected token-bucket or fixed-window)");
+        }
+    }
+
+    private final String serviceId; // Service the limit applies to
+    private final Algorithm algorithm; // Limiting algorithm
+    private final long capacity; // Bucket capacity or requests per window
+    private final Duration period; // Refill period or window length
+    private final long refillTokens; // Tokens added per period; equals the capacity for windows
+
+    /**
+     * Constructor to initialize the RateLimitPolicy.
+     *
+     * @param serviceId    Service the limit applies to.
+     * @param algorithm    Limiting algorithm.
+     * @param capacity     Bucket capacity or requests per window.
+     * @param period       Refill period or window length.
+     * @param refillTokens Tokens added per period; ignored for windows.
+     */
+    public RateLimitPolicy(String serviceId, Algorithm algorithm, long capacity, Duration period, long refillTokens) {
+        if (serviceId == null || serviceId.isEmpty()) {
+            throw new IllegalArgumentException("Service ID cannot be null or empty");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException(serviceId + ": capacity must not be negative: " + capacity);
+        }
+        if (period == null || period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException(serviceId + ": period must be positive: " + period);
+        }
+        if (algorithm == Algorithm.TOKEN_BUCKET && refillTokens <= 0) {
+            throw new IllegalArgumentException(serviceId + ": refill must be positive: " + refillTokens);
+        }
+        this.serviceId = serviceId;
+        this.algorithm = algorithm;
+        this.capacity = capacity;
+        this.period = period;
+        this.refillTokens = algorithm == Algorithm.FIXED_WINDOW ? capacity : refillTokens;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public Duration getPeriod() {
+        return period;
+    }
+
+    public long getRefillTokens() {
+        return refillTokens;
+    }
+
+    /**
+     * Create the limiter enforcing this policy. This is the one place limiters are built
+     * from policies, for the policy file watcher and the trace replayer alike. A limiter
+     * built for an earlier policy of the same algorithm is reconfigured instead, so its
+     * keys keep their buckets.
+     *
+     * @param currentTimer Clock the new limiter reads.
+     * @param previous     Limiter of an earlier policy of the service, or null.
+     * @return The limiter.
+     */
+    public RateLimiter newLimiter(Clock currentTimer, RateLimiter previous) {
+        switch (algorithm) {
+            case TOKEN_BUCKET:
+                if (previous instanceof TokenBucketServiceRateLimiter tokenLimiter) {
+                    return tokenLimiter.reconfigure(capacity, period, refillTokens);
+                }
+                return new TokenBucketServiceRateLimiter(capacity, period, refillTokens, currentTimer);
+            case FIXED_WINDOW:
+                if (previous instanceof FixedWindowServiceRateLimiter windowLimiter) {
+                    return windowLimiter.updateConfiguration(capacity, period);
+                }
+                return new FixedWindowServiceRateLimiter(capacity, period, currentTimer);
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RateLimitPolicy that)) return false;
+        return ((capacity == that.capacity)
+                && (refillTokens == that.refillTokens)
+                && (algorithm == that.algorithm)
+                && (serviceId.equals(that.serviceId))
+                && (period.equals(that.period)));
+    }
+
+    @Override
+    public int hashCode() {
+        return (Objects.hash(serviceId, algorithm, capacity, period, refillTokens));
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitPolicy{" +
+                "serviceId=" + serviceId +
+                ", algorithm=" + algorithm.getFileName() +
+                ", capacity=" + capacity +
+                ", period=" + period +
+                ", refillTokens=" + refillTokens +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+package titanVault.config;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reads rate limit policies from a properties file. Each service declares its settings
+ * under its own prefix; the service name is everything before the last dot:
+ * <pre>
+ * search.algorithm=token-bucket
+ * search.capacity=100
+ * search.period=PT1M
+ * search.refill=10
+ *
+ * upload.algorithm=fixed-window
+ * upload.capacity=50
+ * upload.period=PT1M
+ * </pre>
+ * Periods use ISO-8601 durations. The whole file is validated before anything is returned,
+ * so a bad edit never replaces a working set of policies with a partial one.
+ */
+public final class RateLimitPolicyFile {
+
+    private static final Set<String> PROPERTIES = Set.of("algorithm", "capacity", "period", "refill"); // Known settings
+
+    private RateLimitPolicyFile() {
+    }
+
+    /**
+     * Read and validate every policy of a file.
+     *
+     * @param policyFile The properties file.
+     * @return The policies by service, sorted by service name.
+     * @throws IOException              if the file cannot be read.
+     * @throws IllegalArgumentException if any policy is invalid.
+     */
+    public static Map<String, RateLimitPolicy> load(Path policyFile) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(policyFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return parse(properties);
+    }
+
+    /**
+     * Validate and convert loaded properties into policies.
+     *
+     * @param properties The loaded properties.
+     * @return The policies by service, sorted by service name.
+     * @throws IllegalArgumentException if any policy is invalid.
+     */
+    public static Map<String, RateLimitPolicy> parse(Properties properties) {
+        Map<String, Map<String, String>> settingsByService = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            int dot = name.lastIndexOf('.');
+            String property = name.substring(dot + 1);
+            if (dot <= 0 || !PROPERTIES.contains(property)) {
+                throw new IllegalArgumentException("Unknown setting: " + name + " (expected <service>." + PROPERTIES + ")");
+            }
+            settingsByService.computeIfAbsent(name.substring(0, dot), key -> new TreeMap<>())
+                    .put(property, properties.getProperty(name).trim());
+        }
+        Map<String, RateLimitPolicy> policies = new TreeMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : settingsByService.entrySet()) {
+            policies.put(entry.getKey(), toPolicy(entry.getKey(), entry.getValue()));
+        }
+        return Collections.unmodifiableMap(policies);
+    }
+
+    private static RateLimitPolicy toPolicy(String serviceId, Map<String, String> settings) {
+        RateLimitPolicy.Algorithm algorithm = RateLimitPolicy.Algorithm.fromFileName(required(serviceId, settings, "algorithm"));
+        long capacity = parseLong(serviceId, "capacity", required(serviceId, settings, "capacity"));
+        Duration period = parseDuration(serviceId, required(serviceId, settings, "period"));
+        long refill = algorithm == RateLimitPolicy.Algorithm.TOKEN_BUCKET
+                ? parseLong(serviceId, "refill", required(serviceId, settings, "refill"))
+                : capacity;
+        return new RateLimitPolicy(serviceId, algorithm, capacity, period, refill);
+    }
+
+    private static String required(String serviceId, Map<String, String> settings, String property) {
+        String value = settings.get(property);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(serviceId + ": missing " + property);
+        }
+        return value;
+    }
+
+    private static long parseLong(String serviceId, String property, String value) {
+        try {
+            return Long.parseLong(value.replace("_", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(serviceId + ": " + property + " is not a number: " + value);
+        }
+    }
+
+    private static Duration parseDuration(String serviceId, String value) {
+        try {
+            return Duration.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(serviceId + ": period is not an ISO-8601 duration: " + value);
+        }
+    }
+}
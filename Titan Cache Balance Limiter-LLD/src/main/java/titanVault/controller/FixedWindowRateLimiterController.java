@@ -9,7 +9,7 @@ public class FixedWindowRateLimiterController {
     /**
      * Controller for managing the Fixed Window Rate Limiter.
      */
-    private final FixedWindowServiceRateLimiter fixedWindowServiceRateLimiter;
+    private volatile FixedWindowServiceRateLimiter fixedWindowServiceRateLimiter; // Replaced when the configuration changes
 
     /**
      * Constructor to initialize the Fixed Window Rate Limiter controller.
@@ -31,12 +31,13 @@ public class FixedWindowRateLimiterController {
     }
 
     /**
-     * Updates the rate limiter configuration (max capacity and window interval).
+     * Updates the rate limiter configuration (max capacity and window interval),
+     * carrying the current windows over to the new limiter.
      *
      * @param newMaxCapacity New maximum number of requests allowed in the window.
      * @param newWindowInterval New duration of the window.
      */
-    public void updateConfiguration(long newMaxCapacity, Duration newWindowInterval) {
-        fixedWindowServiceRateLimiter.updateConfiguration(newMaxCapacity, newWindowInterval);
+    public synchronized void updateConfiguration(long newMaxCapacity, Duration newWindowInterval) {
+        fixedWindowServiceRateLimiter = fixedWindowServiceRateLimiter.updateConfiguration(newMaxCapacity, newWindowInterval);
     }
 }
@@ -2,17 +2,14 @@ package titanVault.controller;
 
 import titanVault.service.LeakyBucketRateLimiter;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-
+/**
+ * Leaky bucket limiters by service. A thin wrapper over a {@link RateLimiterRegistryController}
+ * holding only leaky bucket policies, so requests take the same dispatch path as the
+ * registry's.
+ */
 public class LeakyBucketRateLimiterController {
 
-    private final Map<String, LeakyBucketRateLimiter> rateLimiters; // Stores rate limiters for different services
-
-    public LeakyBucketRateLimiterController() {
-        this.rateLimiters = new ConcurrentSkipListMap<>();
-    }
+    private final RateLimiterRegistryController registry = new RateLimiterRegistryController(); // Leaky bucket policy of each service
 
     /**
      * Add a rate limiter for a specific service.
@@ -20,7 +17,7 @@ public class LeakyBucketRateLimiterController {
      * @param rateLimiter The rate limiter to be added.
      */
     public void addRateLimiter(String serviceId, LeakyBucketRateLimiter rateLimiter) {
-        rateLimiters.put(serviceId, rateLimiter);
+        registry.registerService(serviceId, rateLimiter);
     }
 
     /**
@@ -30,11 +27,18 @@ public class LeakyBucketRateLimiterController {
      * @return true if the request is allowed, false otherwise.
      */
     public boolean handleRequest(String serviceId, String userId) {
-        LeakyBucketRateLimiter rateLimiter = rateLimiters.get(serviceId);
-        if (rateLimiter == null) {
-            throw new IllegalArgumentException("Service not found: " + serviceId);
-        }
-        return rateLimiter.validateRequest(userId);
+        return registry.handleRequest(serviceId, userId);
+    }
+
+    /**
+     * Handle a request costing several permits for a specific service.
+     * @param serviceId The identifier of the service.
+     * @param userId The user identifier making the request.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean handleRequest(String serviceId, String userId, long permits) {
+        return registry.handleRequest(serviceId, userId, permits);
     }
 
     /**
@@ -44,10 +48,7 @@ public class LeakyBucketRateLimiterController {
      * @return The current request count or water level in the leaky bucket.
      */
     public long getUserStatus(String serviceId, String userId) {
-        LeakyBucketRateLimiter rateLimiter = rateLimiters.get(serviceId);
-        if (rateLimiter == null) {
-            throw new IllegalArgumentException("Service not found: " + serviceId);
-        }
+        LeakyBucketRateLimiter rateLimiter = (LeakyBucketRateLimiter) registry.getPolicy(serviceId, userId); // Only leaky buckets are registered
         return rateLimiter.getLeakyBucket(userId).getMeniscus();
     }
 }
\ No newline at end of file
@@ -9,8 +9,14 @@ import java.util.concurrent.ConcurrentSkipListMap;
 
 public class QuotasTokenBucketRateLimiterController {
 
+    private static final String UNKNOWN_USER = "Unknown User"; // Display name of unmapped users
+    private static final String ALLOWED_UNKNOWN = "Request allowed for user: " + UNKNOWN_USER;
+    private static final String DENIED_UNKNOWN = "Request denied for user: " + UNKNOWN_USER;
+
     private final QuotasTokenBucketRateServiceLimiter rateLimiterService;
     private final ConcurrentMap<String, String> userMappings; // Example user mappings, can be replaced by an actual data source
+    private final ConcurrentMap<String, String> allowedResponses; // Prebuilt "allowed" message per mapped user
+    private final ConcurrentMap<String, String> deniedResponses; // Prebuilt "denied" message per mapped user
 
     public QuotasTokenBucketRateLimiterController(long maxCapacity, Duration refillPeriod,
                                                   long tokensPerPeriod, Clock currentTimer,
@@ -19,6 +25,8 @@ public class QuotasTokenBucketRateLimiterController {
                 maxCapacity, refillPeriod, tokensPerPeriod, currentTimer, maxQuota, quotaPeriod
         );
         this.userMappings = new ConcurrentSkipListMap<>(); // Initialize user mappings
+        this.allowedResponses = new ConcurrentSkipListMap<>();
+        this.deniedResponses = new ConcurrentSkipListMap<>();
         initializeUserMappings(); // Populate user mappings
     }
 
@@ -27,6 +35,11 @@ public class QuotasTokenBucketRateLimiterController {
         userMappings.put("user1", "User One");
         userMappings.put("user2", "User Two");
         userMappings.put("user3", "User Three");
+        // Build the responses once so handling a request does not concatenate strings
+        userMappings.forEach((userId, displayName) -> {
+            allowedResponses.put(userId, "Request allowed for user: " + displayName);
+            deniedResponses.put(userId, "Request denied for user: " + displayName);
+        });
     }
 
     /**
@@ -38,9 +51,9 @@ public class QuotasTokenBucketRateLimiterController {
      */
     public String handleRequest(String userId, long requestAmount) {
         if (rateLimiterService.validateRequest(userId, requestAmount)) {
-            return "Request allowed for user: " + getUserDisplayName(userId);
+            return allowedResponses.getOrDefault(userId, ALLOWED_UNKNOWN);
         } else {
-            return "Request denied for user: " + getUserDisplayName(userId);
+            return deniedResponses.getOrDefault(userId, DENIED_UNKNOWN);
         }
     }
 
@@ -62,6 +75,6 @@ public class QuotasTokenBucketRateLimiterController {
      * @return The display name.
      */
     private String getUserDisplayName(String userId) {
-        return userMappings.getOrDefault(userId, "Unknown User");
+        return userMappings.getOrDefault(userId, UNKNOWN_USER);
     }
 }
@@ -0,0 +1,252 @@
+package titanVault.controller;
+
+import titanVault.metrics.HeavyHitterTracker;
+import titanVault.service.RateLimiter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Single entry point for every rate limiting policy, whatever its algorithm.
+ * <p>
+ * Each service (or route) has a default policy and optional per-key overrides. The
+ * policies live in an immutable dispatch table read through one volatile reference, so a
+ * request costs a hash lookup for the service and, only when the service has overrides,
+ * one for the key. Registrations build a new table and swap it in atomically; requests in
+ * flight finish against the table they started with.
+ * <p>
+ * Given a {@link HeavyHitterTracker}, the registry feeds it every decision, so the
+ * hottest and most throttled keys across all services can be listed.
+ */
+public class RateLimiterRegistryController {
+
+    private final AtomicReference<Map<String, ServicePolicy>> dispatchTable =
+            new AtomicReference<>(Collections.emptyMap()); // Immutable table of policies by service
+    private final HeavyHitterTracker heavyHitters; // Hottest and most throttled keys, null when not tracked
+
+    /**
+     * Constructor to initialize a RateLimiterRegistryController that does not track keys.
+     */
+    public RateLimiterRegistryController() {
+        this(null);
+    }
+
+    /**
+     * Constructor to initialize a RateLimiterRegistryController that tracks its heavy hitters.
+     *
+     * @param heavyHitters Tracker fed every decision, or null to track nothing.
+     */
+    public RateLimiterRegistryController(HeavyHitterTracker heavyHitters) {
+        this.heavyHitters = heavyHitters;
+    }
+
+    /**
+     * Register or replace the default policy of a service, keeping its key overrides.
+     *
+     * @param serviceId     The identifier of the service or route.
+     * @param defaultPolicy The limiter applied to keys without an override.
+     */
+    public void registerService(String serviceId, RateLimiter defaultPolicy) {
+        requireId(serviceId, "Service ID");
+        if (defaultPolicy == null) {
+            throw new IllegalArgumentException("Default policy cannot be null");
+        }
+        swap(table -> {
+            Map<String, ServicePolicy> updated = new HashMap<>(table);
+            ServicePolicy current = table.get(serviceId);
+            updated.put(serviceId, new ServicePolicy(defaultPolicy, current == null ? Collections.emptyMap() : current.keyPolicies));
+            return updated;
+        });
+    }
+
+    /**
+     * Register or replace the policy of one key within a service.
+     *
+     * @param serviceId The identifier of a registered service.
+     * @param userId    The key the policy applies to.
+     * @param policy    The limiter applied to that key.
+     */
+    public void registerKeyPolicy(String serviceId, String userId, RateLimiter policy) {
+        requireId(serviceId, "Service ID");
+        requireId(userId, "User ID");
+        if (policy == null) {
+            throw new IllegalArgumentException("Key policy cannot be null");
+        }
+        swap(table -> {
+            ServicePolicy current = requireService(table, serviceId);
+            Map<String, RateLimiter> keyPolicies = new HashMap<>(current.keyPolicies);
+            keyPolicies.put(userId, policy);
+            Map<String, ServicePolicy> updated = new HashMap<>(table);
+            updated.put(serviceId, new ServicePolicy(current.defaultPolicy, keyPolicies));
+            return updated;
+        });
+    }
+
+    /**
+     * Remove a service and its key overrides.
+     *
+     * @param serviceId The identifier of the service.
+     * @return true if the service was registered.
+     */
+    public boolean removeService(String serviceId) {
+        Map<String, ServicePolicy> previous = dispatchTable.getAndUpdate(table -> {
+            if (!table.containsKey(serviceId)) {
+                return table;
+            }
+            Map<String, ServicePolicy> updated = new HashMap<>(table);
+            updated.remove(serviceId);
+            return Collections.unmodifiableMap(updated);
+        });
+        return previous.containsKey(serviceId);
+    }
+
+    /**
+     * Register, replace and remove several services in one swap, keeping the key overrides
+     * of services that stay. Requests see either none of the changes or all of them.
+     *
+     * @param registrations The new default policy of every service to register or replace.
+     * @param removals      The services to remove.
+     */
+    public void updateServices(Map<String, ? extends RateLimiter> registrations, Collection<String> removals) {
+        for (Map.Entry<String, ? extends RateLimiter> entry : registrations.entrySet()) {
+            requireId(entry.getKey(), "Service ID");
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Default policy cannot be null: " + entry.getKey());
+            }
+        }
+        swap(table -> {
+            Map<String, ServicePolicy> updated = new HashMap<>(table);
+            updated.keySet().removeAll(removals);
+            for (Map.Entry<String, ? extends RateLimiter> entry : registrations.entrySet()) {
+                ServicePolicy current = table.get(entry.getKey());
+                updated.put(entry.getKey(), new ServicePolicy(entry.getValue(), current == null ? Collections.emptyMap() : current.keyPolicies));
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Replace every policy at once: services missing from the new set are removed and all
+     * key overrides are dropped. Requests see either the old set or the new one, never a mix.
+     *
+     * @param defaultPolicies The default policy of every service.
+     */
+    public void replaceAll(Map<String, ? extends RateLimiter> defaultPolicies) {
+        Map<String, ServicePolicy> table = new HashMap<>();
+        for (Map.Entry<String, ? extends RateLimiter> entry : defaultPolicies.entrySet()) {
+            requireId(entry.getKey(), "Service ID");
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Default policy cannot be null: " + entry.getKey());
+            }
+            table.put(entry.getKey(), new ServicePolicy(entry.getValue(), Collections.emptyMap()));
+        }
+        dispatchTable.set(Collections.unmodifiableMap(table));
+    }
+
+    /**
+     * Handle a request costing one permit.
+     *
+     * @param serviceId The identifier of the service.
+     * @param userId    The user identifier making the request.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean handleRequest(String serviceId, String userId) {
+        return handleRequest(serviceId, userId, 1);
+    }
+
+    /**
+     * Handle a request with the policy registered for its service and key.
+     *
+     * @param serviceId The identifier of the service.
+     * @param userId    The user identifier making the request.
+     * @param permits   The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean handleRequest(String serviceId, String userId, long permits) {
+        if ((userId == null) || (userId.isEmpty())) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        boolean allowed = getPolicy(serviceId, userId).validateRequest(userId, permits);
+        if (heavyHitters != null) {
+            heavyHitters.recordDecision(userId, allowed);
+        }
+        return allowed;
+    }
+
+    /**
+     * Get the keys with the most requests across every service, most frequent first.
+     *
+     * @param limit Maximum number of keys returned.
+     * @return The keys with their estimated request counts, empty when keys are not tracked.
+     */
+    public List<Map.Entry<String, Long>> getHottestKeys(int limit) {
+        return heavyHitters == null ? Collections.emptyList() : heavyHitters.getHottestKeys(limit);
+    }
+
+    /**
+     * Get the keys with the most denied requests across every service, most frequent first.
+     *
+     * @param limit Maximum number of keys returned.
+     * @return The keys with their estimated denied counts, empty when keys are not tracked.
+     */
+    public List<Map.Entry<String, Long>> getThrottledKeys(int limit) {
+        return heavyHitters == null ? Collections.emptyList() : heavyHitters.getThrottledKeys(limit);
+    }
+
+    /**
+     * Get the policy a request would be decided by.
+     *
+     * @param serviceId The identifier of the service.
+     * @param userId    The user identifier.
+     * @return The key override if there is one, otherwise the service default.
+     */
+    public RateLimiter getPolicy(String serviceId, String userId) {
+        ServicePolicy service = requireService(dispatchTable.get(), serviceId);
+        if (!service.keyPolicies.isEmpty()) {
+            RateLimiter override = service.keyPolicies.get(userId);
+            if (override != null) {
+                return override;
+            }
+        }
+        return service.defaultPolicy;
+    }
+
+    private void swap(UnaryOperator<Map<String, ServicePolicy>> update) {
+        dispatchTable.updateAndGet(table -> Collections.unmodifiableMap(update.apply(table)));
+    }
+
+    private static ServicePolicy requireService(Map<String, ServicePolicy> table, String serviceId) {
+        ServicePolicy service = table.get(serviceId);
+        if (service == null) {
+            throw new IllegalArgumentException("Service not found: " + serviceId);
+        }
+        return service;
+    }
+
+    private static void requireId(String id, String name) {
+        if ((id == null) || (id.isEmpty())) {
+            throw new IllegalArgumentException(name + " cannot be null or empty");
+        }
+    }
+
+    /**
+     * Default policy and key overrides of one service; never mutated once published.
+     */
+    private static final class ServicePolicy {
+        private final RateLimiter defaultPolicy; // Applied to keys without an override
+        private final Map<String, RateLimiter> keyPolicies; // Overrides by key
+
+        private ServicePolicy(RateLimiter defaultPolicy, Map<String, RateLimiter> keyPolicies) {
+            this.defaultPolicy = defaultPolicy;
+            this.keyPolicies = keyPolicies.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(keyPolicies);
+        }
+    }
+}
@@ -12,8 +12,14 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class SlidingWindowCounterRateLimiterController {
 
+    private static final String UNKNOWN_USER = "Unknown User"; // Display name of unmapped users
+    private static final String ALLOWED_UNKNOWN = "Request allowed for user: " + UNKNOWN_USER;
+    private static final String DENIED_UNKNOWN = "Request denied for user: " + UNKNOWN_USER;
+
     private final SlidingWindowCounterRateLimiter rateLimiterService;
     private final ConcurrentMap<String, String> windowCounterBucket; // Example user mappings, can be replaced by an actual data source
+    private final ConcurrentMap<String, String> allowedResponses; // Prebuilt "allowed" message per mapped user
+    private final ConcurrentMap<String, String> deniedResponses; // Prebuilt "denied" message per mapped user
 
     /**
      * Constructor for SlidingWindowCounterRateLimiterController.
@@ -27,6 +33,8 @@ public class SlidingWindowCounterRateLimiterController {
                                                      Clock currentTimer) {
         this.rateLimiterService = new SlidingWindowCounterRateLimiter(maxCapacity, windowSlideInterval, currentTimer);
         this.windowCounterBucket = new ConcurrentHashMap<>(); // Initialize user mappings
+        this.allowedResponses = new ConcurrentHashMap<>();
+        this.deniedResponses = new ConcurrentHashMap<>();
         initializeUserMappings(); // Populate user mappings
     }
 
@@ -35,6 +43,11 @@ public class SlidingWindowCounterRateLimiterController {
         windowCounterBucket.put("user1", "User One");
         windowCounterBucket.put("user2", "User Two");
         windowCounterBucket.put("user3", "User Three");
+        // Build the responses once so handling a request does not concatenate strings
+        windowCounterBucket.forEach((userId, displayName) -> {
+            allowedResponses.put(userId, "Request allowed for user: " + displayName);
+            deniedResponses.put(userId, "Request denied for user: " + displayName);
+        });
     }
 
     /**
@@ -45,19 +58,9 @@ public class SlidingWindowCounterRateLimiterController {
      */
     public String handleRequest(String userId) {
         if (rateLimiterService.validateRequest(userId)) {
-            return "Request allowed for user: " + getUserDisplayName(userId);
+            return allowedResponses.getOrDefault(userId, ALLOWED_UNKNOWN);
         } else {
-            return "Request denied for user: " + getUserDisplayName(userId);
+            return deniedResponses.getOrDefault(userId, DENIED_UNKNOWN);
         }
     }
-
-    /**
-     * Get the display name for a user based on the user ID.
-     *
-     * @param userId The user identifier.
-     * @return The display name.
-     */
-    private String getUserDisplayName(String userId) {
-        return windowCounterBucket.getOrDefault(userId, "Unknown User");
-    }
 }
@@ -0,0 +1,135 @@
+package titanVault.distributed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring with virtual nodes. Every node is placed on the ring
+ * at several points; a key belongs to the first point at or after its own hash, so adding
+ * or removing a node moves only the keys on the arcs it gains or loses. Membership changes
+ * return a new ring, which lets callers compare the old and new owner of a key.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes; // Points placed on the ring per node
+    private final List<String> nodes; // Member nodes, sorted
+    private final long[] pointHashes; // Ring points in ascending hash order
+    private final String[] pointOwners; // Node owning each ring point
+
+    private ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        List<String> sorted = new ArrayList<>(members);
+        Collections.sort(sorted);
+        this.nodes = Collections.unmodifiableList(sorted);
+        TreeMap<Long, String> points = new TreeMap<>();
+        for (String node : sorted) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                points.putIfAbsent(hash(node + "#" + replica), node); // A rare collision keeps the first owner
+            }
+        }
+        this.pointHashes = new long[points.size()];
+        this.pointOwners = new String[points.size()];
+        int index = 0;
+        for (Map.Entry<Long, String> point : points.entrySet()) {
+            pointHashes[index] = point.getKey();
+            pointOwners[index] = point.getValue();
+            index++;
+        }
+    }
+
+    /**
+     * Build a ring.
+     *
+     * @param nodes        The member nodes.
+     * @param virtualNodes Points placed on the ring per node; 100 or more keeps the shares even.
+     * @return The ring.
+     */
+    public static ConsistentHashRing of(Collection<String> nodes, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive: " + virtualNodes);
+        }
+        if (nodes.stream().distinct().count() != nodes.size()) {
+            throw new IllegalArgumentException("Duplicate node in " + nodes);
+        }
+        return new ConsistentHashRing(nodes, virtualNodes);
+    }
+
+    /**
+     * Get a ring with one more node.
+     *
+     * @param node The node joining.
+     * @return The new ring.
+     */
+    public ConsistentHashRing withNode(String node) {
+        if (nodes.contains(node)) {
+            throw new IllegalArgumentException("Node already in the ring: " + node);
+        }
+        List<String> members = new ArrayList<>(nodes);
+        members.add(node);
+        return new ConsistentHashRing(members, virtualNodes);
+    }
+
+    /**
+     * Get a ring without a node.
+     *
+     * @param node The node leaving.
+     * @return The new ring.
+     */
+    public ConsistentHashRing withoutNode(String node) {
+        List<String> members = new ArrayList<>(nodes);
+        if (!members.remove(node)) {
+            throw new IllegalArgumentException("Node not in the ring: " + node);
+        }
+        return new ConsistentHashRing(members, virtualNodes);
+    }
+
+    /**
+     * Get the node owning a key.
+     *
+     * @param key The user identifier.
+     * @return The owner node.
+     * @throws IllegalStateException if the ring has no nodes.
+     */
+    public String ownerOf(String key) {
+        if (pointHashes.length == 0) {
+            throw new IllegalStateException("The ring has no nodes");
+        }
+        int index = Arrays.binarySearch(pointHashes, hash(key));
+        if (index < 0) {
+            index = -index - 1; // Insertion point: the first ring point after the hash
+        }
+        return pointOwners[index == pointHashes.length ? 0 : index];
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public int getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer so that
+     * similar keys land far apart on the ring.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte next : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= next & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
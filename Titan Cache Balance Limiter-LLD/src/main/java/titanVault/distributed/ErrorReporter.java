@@ -0,0 +1,62 @@
+package titanVault.distributed;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Where a background thread reports the failures it survives: a failed accept, a dropped
+ * connection or datagram, a failed gossip round. By default they go to the uncaught
+ * exception handler of the failing thread; components let their users replace that with
+ * a handler of their own.
+ *
+ * @param <E> Type of the failures reported.
+ */
+public final class ErrorReporter<E extends Exception> {
+
+    private static final long MIN_BACKOFF_MILLIS = 1; // Pause after the first failure in a row
+    private static final long MAX_BACKOFF_MILLIS = 1_000; // Longest pause between retries
+
+    private volatile Consumer<? super E> handler = ErrorReporter::reportUncaught; // Told about each failure
+
+    /**
+     * Set what is told about the failures.
+     *
+     * @param handler Receives each failure.
+     */
+    public void setHandler(Consumer<? super E> handler) {
+        this.handler = Objects.requireNonNull(handler, "errorHandler");
+    }
+
+    /**
+     * Report a failure to the handler, on the calling thread.
+     *
+     * @param failure The failure.
+     */
+    public void report(E failure) {
+        handler.accept(failure);
+    }
+
+    /**
+     * Pause a loop that keeps failing, e.g. an accept loop out of file descriptors, so it
+     * does not spin and flood the handler. The pause doubles with every failure in a row,
+     * from {@value #MIN_BACKOFF_MILLIS} ms up to {@value #MAX_BACKOFF_MILLIS} ms.
+     *
+     * @param consecutiveFailures Failures in a row so far, at least 1.
+     * @return true to retry, false if the thread was interrupted and the loop should stop.
+     */
+    public static boolean backOff(int consecutiveFailures) {
+        int doublings = Math.min(Math.max(consecutiveFailures, 1) - 1, 10);
+        try {
+            Thread.sleep(Math.min(MIN_BACKOFF_MILLIS << doublings, MAX_BACKOFF_MILLIS));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+            return false;
+        }
+    }
+
+    private static void reportUncaught(Exception failure) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+    }
+}
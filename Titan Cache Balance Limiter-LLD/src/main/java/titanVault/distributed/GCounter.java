@@ -0,0 +1,106 @@
+package titanVault.distributed;
+
+import java.util.Arrays;
+
+/**
+ * Grow-only counter CRDT with one slot per node. A node only increments its own slot;
+ * merging keeps the larger value of every slot, so merges are commutative, associative
+ * and idempotent and gossip may deliver states late, twice or out of order.
+ * <p>
+ * Not thread-safe; callers guard it with the lock of the state that owns it.
+ */
+public class GCounter {
+
+    private final long[] slots; // Count contributed by each node
+
+    /**
+     * Constructor to initialize the GCounter.
+     *
+     * @param nodeCount Number of nodes in the cluster.
+     */
+    public GCounter(int nodeCount) {
+        if (nodeCount <= 0) {
+            throw new IllegalArgumentException("Node count must be positive: " + nodeCount);
+        }
+        this.slots = new long[nodeCount];
+    }
+
+    /**
+     * Add to the slot of a node.
+     *
+     * @param node   The node index.
+     * @param amount The amount to add; must not be negative.
+     */
+    public void increment(int node, long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("A grow-only counter cannot decrease: " + amount);
+        }
+        slots[node] += amount;
+    }
+
+    /**
+     * Merge the value a node reported for its slot.
+     *
+     * @param node  The node index.
+     * @param value The reported slot value.
+     */
+    public void merge(int node, long value) {
+        if (value > slots[node]) {
+            slots[node] = value;
+        }
+    }
+
+    /**
+     * Merge every slot of another counter.
+     *
+     * @param other Counter of the same cluster size.
+     */
+    public void merge(GCounter other) {
+        for (int node = 0; node < slots.length; node++) {
+            merge(node, other.slots[node]);
+        }
+    }
+
+    /**
+     * Get the value of a single slot.
+     *
+     * @param node The node index.
+     * @return The slot value.
+     */
+    public long get(int node) {
+        return slots[node];
+    }
+
+    /**
+     * Get the counter value, the sum of all slots.
+     *
+     * @return The total count.
+     */
+    public long value() {
+        long total = 0;
+        for (long slot : slots) {
+            total += slot;
+        }
+        return total;
+    }
+
+    /**
+     * Reset every slot, used when the window owning the counter is reused.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+    }
+
+    /**
+     * Copy every slot from another counter, used when a window is shifted.
+     *
+     * @param other Counter of the same cluster size.
+     */
+    public void copyFrom(GCounter other) {
+        System.arraycopy(other.slots, 0, slots, 0, slots.length);
+    }
+
+    public int getNodeCount() {
+        return slots.length;
+    }
+}
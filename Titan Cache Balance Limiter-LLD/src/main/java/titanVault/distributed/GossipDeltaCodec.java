@@ -0,0 +1,166 @@
+package titanVault.distributed;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact encoding of window counter deltas for gossip.
+ * <p>
+ * Packet layout: a version byte, then varints for the sender node, the base epoch and
+ * the entry count. Each entry is the key (varint length and UTF-8 bytes), its epoch as
+ * a zigzag varint offset from the base epoch, and the sender's increment and decrement
+ * slots as varints. A typical entry costs the key plus 4 to 6 bytes. Deltas are split
+ * into packets no larger than the requested size so each fits in one datagram.
+ */
+public final class GossipDeltaCodec {
+
+    private static final byte CODEC_VERSION = 1; // Layout version of a gossip packet
+    private static final int MAX_HEADER_BYTES = 1 + 5 + 10 + 5; // Version and three varints
+    private static final int MAX_KEY_BYTES = 1024; // Longest UTF-8 key accepted in an entry
+
+    private GossipDeltaCodec() {
+    }
+
+    /**
+     * Encode deltas into packets.
+     *
+     * @param senderNode     Index of the sending node.
+     * @param deltas         The deltas to send.
+     * @param maxPacketBytes Largest packet size, e.g. 1400 to stay below a typical MTU.
+     * @return The encoded packets; empty when there are no deltas.
+     */
+    public static List<byte[]> encode(int senderNode, List<WindowDelta> deltas, int maxPacketBytes) {
+        if (maxPacketBytes < MAX_HEADER_BYTES + MAX_KEY_BYTES + 40) {
+            throw new IllegalArgumentException("Packet size too small for the largest entry: " + maxPacketBytes);
+        }
+        List<byte[]> packets = new ArrayList<>();
+        ByteBuffer body = ByteBuffer.allocate(maxPacketBytes);
+        int entryCount = 0;
+        long baseEpoch = 0;
+        for (WindowDelta delta : deltas) {
+            byte[] keyBytes = delta.getKey().getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length > MAX_KEY_BYTES) {
+                throw new IllegalArgumentException("Key too long for gossip: " + delta.getKey());
+            }
+            int entryBytes = 5 + keyBytes.length + 10 + 10 + 10;
+            if (entryCount > 0 && body.position() + entryBytes > maxPacketBytes - MAX_HEADER_BYTES) {
+                packets.add(seal(senderNode, baseEpoch, entryCount, body));
+                body.clear();
+                entryCount = 0;
+            }
+            if (entryCount == 0) {
+                baseEpoch = delta.getEpoch();
+            }
+            writeVarint(body, keyBytes.length);
+            body.put(keyBytes);
+            writeVarint(body, zigzag(delta.getEpoch() - baseEpoch));
+            writeVarint(body, delta.getIncrements());
+            writeVarint(body, delta.getDecrements());
+            entryCount++;
+        }
+        if (entryCount > 0) {
+            packets.add(seal(senderNode, baseEpoch, entryCount, body));
+        }
+        return packets;
+    }
+
+    /**
+     * Decode a packet, handing every entry to the receiver.
+     *
+     * @param packet   The packet bytes.
+     * @param length   Number of valid bytes in the packet.
+     * @param receiver Receives each entry.
+     * @return The number of entries decoded.
+     * @throws IllegalArgumentException if the packet is malformed.
+     */
+    public static int decode(byte[] packet, int length, DeltaReceiver receiver) {
+        ByteBuffer input = ByteBuffer.wrap(packet, 0, length);
+        try {
+            if (input.get() != CODEC_VERSION) {
+                throw new IllegalArgumentException("Unknown gossip packet version");
+            }
+            int senderNode = (int) readVarint(input);
+            long baseEpoch = readVarint(input);
+            int entryCount = (int) readVarint(input);
+            for (int entry = 0; entry < entryCount; entry++) {
+                int keyLength = (int) readVarint(input);
+                if (keyLength < 0 || keyLength > MAX_KEY_BYTES || keyLength > input.remaining()) {
+                    throw new IllegalArgumentException("Bad key length in gossip packet: " + keyLength);
+                }
+                String key = new String(packet, input.position(), keyLength, StandardCharsets.UTF_8);
+                input.position(input.position() + keyLength);
+                long epoch = baseEpoch + unzigzag(readVarint(input));
+                long increments = readVarint(input);
+                long decrements = readVarint(input);
+                receiver.receive(senderNode, key, epoch, increments, decrements);
+            }
+            return entryCount;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated gossip packet", e);
+        }
+    }
+
+    private static byte[] seal(int senderNode, long baseEpoch, int entryCount, ByteBuffer body) {
+        ByteBuffer packet = ByteBuffer.allocate(MAX_HEADER_BYTES + body.position());
+        packet.put(CODEC_VERSION);
+        writeVarint(packet, senderNode);
+        writeVarint(packet, baseEpoch);
+        writeVarint(packet, entryCount);
+        packet.put(body.array(), 0, body.position());
+        byte[] bytes = new byte[packet.position()];
+        System.arraycopy(packet.array(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Write an unsigned LEB128 varint: seven bits per byte, high bit set on all but the last.
+     */
+    static void writeVarint(ByteBuffer output, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.put((byte) value);
+    }
+
+    static long readVarint(ByteBuffer input) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte next = input.get();
+            value |= (long) (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 64 bits");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Receives the entries of a decoded packet.
+     */
+    @FunctionalInterface
+    public interface DeltaReceiver {
+
+        /**
+         * Handle one entry.
+         *
+         * @param senderNode Index of the node that sent the packet.
+         * @param key        The user identifier.
+         * @param epoch      Window number the slots belong to.
+         * @param increments The sender's increment slot.
+         * @param decrements The sender's decrement slot.
+         */
+        void receive(int senderNode, String key, long epoch, long increments, long decrements);
+    }
+}
@@ -0,0 +1,40 @@
+package titanVault.distributed;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Carries gossip packets between the nodes of a cluster.
+ */
+public interface GossipTransport extends Closeable {
+
+    /**
+     * Start delivering packets from peers.
+     *
+     * @param receiver Called with every packet received; the array is only valid during the call.
+     */
+    void start(PacketReceiver receiver);
+
+    /**
+     * Send a packet to every peer. Delivery is best effort.
+     *
+     * @param packet The encoded packet.
+     * @throws IOException if the packet cannot be sent.
+     */
+    void broadcast(byte[] packet) throws IOException;
+
+    /**
+     * Receives packets from peers.
+     */
+    @FunctionalInterface
+    interface PacketReceiver {
+
+        /**
+         * Handle one packet.
+         *
+         * @param packet Buffer holding the packet.
+         * @param length Number of valid bytes.
+         */
+        void receive(byte[] packet, int length);
+    }
+}
@@ -0,0 +1,77 @@
+package titanVault.distributed;
+
+import titanVault.model.TokenBucket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Coordinator that keeps one global token bucket per key in this process.
+ * Leases are carved out of the bucket with {@link TokenBucket#removeToken} and returned
+ * tokens go back with {@link TokenBucket#addToken}. It can be shared directly by limiters
+ * in the same JVM or served to other nodes through a {@link TokenLeaseServer}.
+ */
+public class InProcessTokenLeaseCoordinator implements TokenLeaseCoordinator {
+
+    private final long maxCapacity; // Global maximum number of tokens per key
+    private final Duration refillPeriod; // Time period for token refill
+    private final long tokensPerPeriod; // Global number of tokens added per period
+    private final Duration leaseDuration; // How long a node may hold borrowed tokens
+    private final Clock currentTimer; // Clock to get the current time
+    private final ConcurrentMap<String, TokenBucket> globalBuckets = new ConcurrentSkipListMap<>(); // Global bucket per key
+
+    /**
+     * Constructor to initialize the InProcessTokenLeaseCoordinator.
+     *
+     * @param maxCapacity     Global maximum capacity of each bucket.
+     * @param refillPeriod    Duration of the refill period.
+     * @param tokensPerPeriod Global number of tokens added per period.
+     * @param leaseDuration   How long a node may hold borrowed tokens.
+     * @param currentTimer    Clock to get the current time.
+     */
+    public InProcessTokenLeaseCoordinator(long maxCapacity, Duration refillPeriod, long tokensPerPeriod,
+                                          Duration leaseDuration, Clock currentTimer) {
+        if (leaseDuration.isNegative() || leaseDuration.isZero()) {
+            throw new IllegalArgumentException("Lease duration must be positive: " + leaseDuration);
+        }
+        this.maxCapacity = maxCapacity;
+        this.refillPeriod = refillPeriod;
+        this.tokensPerPeriod = tokensPerPeriod;
+        this.leaseDuration = leaseDuration;
+        this.currentTimer = currentTimer;
+    }
+
+    @Override
+    public TokenLease acquireLease(String key, long requestedTokens) {
+        if (requestedTokens <= 0) {
+            throw new IllegalArgumentException("Requested tokens must be positive: " + requestedTokens);
+        }
+        long granted = bucketFor(key).removeToken(requestedTokens);
+        return new TokenLease(key, granted, leaseDuration);
+    }
+
+    @Override
+    public void returnTokens(String key, long unusedTokens) {
+        if (unusedTokens > 0) {
+            bucketFor(key).addToken(unusedTokens);
+        }
+    }
+
+    /**
+     * Get the tokens left in the global bucket of a key.
+     *
+     * @param key The user identifier.
+     * @return The tokens not lent to any node.
+     */
+    public long getAvailableTokens(String key) {
+        return bucketFor(key).getToken();
+    }
+
+    private TokenBucket bucketFor(String key) {
+        return globalBuckets.computeIfAbsent(key, userId -> new TokenBucket(
+                maxCapacity, tokensPerPeriod, refillPeriod, currentTimer
+        ));
+    }
+}
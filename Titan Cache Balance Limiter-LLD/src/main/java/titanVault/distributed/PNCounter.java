@@ -0,0 +1,89 @@
+package titanVault.distributed;
+
+/**
+ * Counter CRDT that supports decrements: one {@link GCounter} for increments and one
+ * for decrements, with the value being their difference.
+ * <p>
+ * Not thread-safe; callers guard it with the lock of the state that owns it.
+ */
+public class PNCounter {
+
+    private final GCounter increments; // Counts added by each node
+    private final GCounter decrements; // Counts removed by each node
+
+    /**
+     * Constructor to initialize the PNCounter.
+     *
+     * @param nodeCount Number of nodes in the cluster.
+     */
+    public PNCounter(int nodeCount) {
+        this.increments = new GCounter(nodeCount);
+        this.decrements = new GCounter(nodeCount);
+    }
+
+    public void increment(int node, long amount) {
+        increments.increment(node, amount);
+    }
+
+    public void decrement(int node, long amount) {
+        decrements.increment(node, amount);
+    }
+
+    /**
+     * Merge the slots a node reported.
+     *
+     * @param node       The node index.
+     * @param increments The node's increment slot.
+     * @param decrements The node's decrement slot.
+     */
+    public void merge(int node, long increments, long decrements) {
+        this.increments.merge(node, increments);
+        this.decrements.merge(node, decrements);
+    }
+
+    /**
+     * Merge every slot of another counter.
+     *
+     * @param other Counter of the same cluster size.
+     */
+    public void merge(PNCounter other) {
+        increments.merge(other.increments);
+        decrements.merge(other.decrements);
+    }
+
+    public long getIncrements(int node) {
+        return increments.get(node);
+    }
+
+    public long getDecrements(int node) {
+        return decrements.get(node);
+    }
+
+    /**
+     * Get the counter value, never below zero.
+     *
+     * @return Total increments minus total decrements.
+     */
+    public long value() {
+        return Math.max(0, increments.value() - decrements.value());
+    }
+
+    /**
+     * Check whether no node has counted anything.
+     *
+     * @return true if every slot is zero.
+     */
+    public boolean isEmpty() {
+        return increments.value() == 0 && decrements.value() == 0;
+    }
+
+    public void clear() {
+        increments.clear();
+        decrements.clear();
+    }
+
+    public void copyFrom(PNCounter other) {
+        increments.copyFrom(other.increments);
+        decrements.copyFrom(other.decrements);
+    }
+}
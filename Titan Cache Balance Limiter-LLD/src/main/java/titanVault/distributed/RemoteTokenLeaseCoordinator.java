@@ -0,0 +1,142 @@
+package titanVault.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+
+/**
+ * Client side of a {@link TokenLeaseServer}. Requests share one connection and are
+ * sent one at a time; leases are only requested when a local batch runs out, so the
+ * connection is far from the hot path.
+ * <p>
+ * Replies carry no request id, so a request that times out or fails leaves the stream
+ * in an unknown state: the connection is closed and the next request opens a new one.
+ * Tokens granted for a lost reply stay with the coordinator until their lease expires,
+ * which errs on the side of denying.
+ */
+public class RemoteTokenLeaseCoordinator implements TokenLeaseCoordinator, Closeable {
+
+    private final InetSocketAddress coordinatorAddress; // Address of the coordinator node
+    private final int timeoutMillis; // Connect and read timeout
+    private volatile Socket socket; // Connection to the coordinator node, null until reopened
+    private DataInputStream input; // Replies from the coordinator
+    private DataOutputStream output; // Requests to the coordinator
+    private volatile boolean closed; // Set by close
+
+    /**
+     * Connect to a coordinator node.
+     *
+     * @param coordinatorAddress Address of the {@link TokenLeaseServer}.
+     * @param timeout            Connect and read timeout.
+     * @throws IOException if the connection cannot be established.
+     */
+    public RemoteTokenLeaseCoordinator(InetSocketAddress coordinatorAddress, Duration timeout) throws IOException {
+        this.coordinatorAddress = coordinatorAddress;
+        this.timeoutMillis = (int) timeout.toMillis();
+        connect();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the coordinator cannot be reached.
+     */
+    @Override
+    public synchronized TokenLease acquireLease(String key, long requestedTokens) {
+        if (requestedTokens <= 0) {
+            throw new IllegalArgumentException("Requested tokens must be positive: " + requestedTokens);
+        }
+        try {
+            send(TokenLeaseServer.ACQUIRE, key, requestedTokens);
+            long granted = input.readLong();
+            long leaseMillis = input.readLong();
+            return new TokenLease(key, granted, Duration.ofMillis(leaseMillis));
+        } catch (IOException e) {
+            disconnect();
+            throw new UncheckedIOException("Token lease request failed for " + key, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws UncheckedIOException if the coordinator cannot be reached.
+     */
+    @Override
+    public synchronized void returnTokens(String key, long unusedTokens) {
+        try {
+            send(TokenLeaseServer.RETURN, key, unusedTokens);
+            input.readByte();
+        } catch (IOException e) {
+            disconnect();
+            throw new UncheckedIOException("Token return failed for " + key, e);
+        }
+    }
+
+    private void send(byte operation, String key, long tokens) throws IOException {
+        if (closed) {
+            throw new IOException("Token lease client is closed");
+        }
+        if (socket == null) {
+            connect();
+        }
+        output.writeByte(operation);
+        output.writeUTF(key);
+        output.writeLong(tokens);
+        output.flush();
+    }
+
+    private void connect() throws IOException {
+        Socket opened = new Socket();
+        try {
+            opened.connect(coordinatorAddress, timeoutMillis);
+            opened.setSoTimeout(timeoutMillis);
+            opened.setTcpNoDelay(true);
+            input = new DataInputStream(new BufferedInputStream(opened.getInputStream()));
+            output = new DataOutputStream(new BufferedOutputStream(opened.getOutputStream()));
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        socket = opened;
+        if (closed) {
+            disconnect(); // Closed while connecting
+        }
+    }
+
+    /**
+     * Drop the connection so a late reply cannot be read as the answer to the next request.
+     */
+    private void disconnect() {
+        Socket open = socket;
+        if (open != null) {
+            try {
+                open.close();
+            } catch (IOException e) {
+                // The connection is abandoned either way
+            }
+            socket = null;
+        }
+    }
+
+    /**
+     * Close the connection; a request blocked on it fails straight away.
+     *
+     * @throws IOException if the socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        Socket open = socket;
+        if (open != null) {
+            open.close();
+        }
+    }
+}
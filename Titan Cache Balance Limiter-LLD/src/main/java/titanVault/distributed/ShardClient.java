@@ -0,0 +1,205 @@
+package titanVault.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipelined connection to a remote {@link ShardServer}. Callers write their request and
+ * get a future back without waiting for earlier responses; a reader thread matches the
+ * responses to the pending futures by request id. A request not answered within the
+ * timeout fails and is forgotten, and a lost connection is reopened by the next request.
+ */
+public class ShardClient implements ShardPeer, Closeable {
+
+    private final InetSocketAddress ownerAddress; // Where the connection is opened
+    private final Duration requestTimeout; // Connect timeout and longest wait for any response
+    private volatile Connection connection; // Current connection, replaced once lost
+    private boolean closed; // Set by close, guarded by this
+
+    /**
+     * Connect to a shard server.
+     *
+     * @param ownerAddress   Address of the {@link ShardServer}.
+     * @param requestTimeout Connect timeout, also the longest wait for a response before its request fails.
+     * @throws IOException if the connection cannot be established.
+     */
+    public ShardClient(InetSocketAddress ownerAddress, Duration requestTimeout) throws IOException {
+        this.ownerAddress = ownerAddress;
+        this.requestTimeout = requestTimeout;
+        this.connection = Connection.open(ownerAddress, requestTimeout);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> forwardRequest(String userId, long permits) {
+        CompletableFuture<Boolean> response = new CompletableFuture<>();
+        try {
+            connection().send(ShardServer.VALIDATE, userId, permits, null, response, requestTimeout);
+        } catch (IOException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
+    @Override
+    public void handoff(String userId, byte[] state) throws IOException {
+        CompletableFuture<Boolean> acknowledgement = new CompletableFuture<>();
+        connection().send(ShardServer.HANDOFF, userId, 0, state, acknowledgement, requestTimeout);
+        try {
+            acknowledgement.get(); // Fails on its own after the request timeout
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+            throw new IOException("Handoff of " + userId + " interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Handoff of " + userId + " failed", e);
+        }
+    }
+
+    /**
+     * Get the open connection, reopening it if it was lost.
+     */
+    private Connection connection() throws IOException {
+        Connection current = connection;
+        if (current.failure == null) {
+            return current;
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("Shard client is closed");
+            }
+            current = connection;
+            if (current.failure != null) { // Another caller may have reopened it already
+                current.close();
+                current = Connection.open(ownerAddress, requestTimeout);
+                connection = current;
+            }
+            return current;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        connection.close();
+    }
+
+    /**
+     * One socket to the owner with its reader thread and pending requests.
+     */
+    private static final class Connection {
+        private final Socket socket; // Connection to the owner node
+        private final DataOutputStream output; // Requests, written under its own monitor
+        private final DataInputStream input; // Responses, read by the reader thread
+        private final AtomicInteger nextRequestId = new AtomicInteger(); // Source of request ids
+        private final ConcurrentMap<Integer, CompletableFuture<Boolean>> pending = new ConcurrentHashMap<>(); // Requests awaiting a response
+        private volatile IOException failure; // Set once the connection is lost
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        }
+
+        /**
+         * Connect and start the reader thread.
+         */
+        private static Connection open(InetSocketAddress ownerAddress, Duration connectTimeout) throws IOException {
+            Socket socket = new Socket();
+            Connection connection;
+            try {
+                socket.connect(ownerAddress, (int) connectTimeout.toMillis());
+                socket.setTcpNoDelay(true);
+                connection = new Connection(socket);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            Thread reader = new Thread(connection::readLoop, "shard-client-reader");
+            reader.setDaemon(true);
+            reader.start();
+            return connection;
+        }
+
+        private void send(byte operation, String userId, long permits, byte[] state,
+                          CompletableFuture<Boolean> response, Duration timeout) throws IOException {
+            IOException lost = failure;
+            if (lost != null) {
+                throw lost;
+            }
+            int requestId = nextRequestId.incrementAndGet();
+            pending.put(requestId, response);
+            if (failure != null && pending.remove(requestId) != null) {
+                throw failure; // The reader failed the pending requests before this one was registered
+            }
+            try {
+                synchronized (output) {
+                    output.writeInt(requestId);
+                    output.writeByte(operation);
+                    output.writeUTF(userId);
+                    if (state != null) {
+                        output.writeInt(state.length);
+                        output.write(state);
+                    } else {
+                        output.writeLong(permits);
+                    }
+                    output.flush();
+                }
+            } catch (IOException e) {
+                pending.remove(requestId);
+                failure = e;
+                close(); // The reader fails the other pending requests
+                throw e;
+            }
+            response.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((allowed, error) -> pending.remove(requestId)); // A late response finds nothing to complete
+        }
+
+        private void readLoop() {
+            try {
+                while (true) {
+                    int requestId = input.readInt();
+                    byte status = input.readByte();
+                    CompletableFuture<Boolean> response = pending.remove(requestId);
+                    if (response == null) {
+                        continue;
+                    }
+                    if (status == ShardServer.FAILED) {
+                        response.completeExceptionally(new IOException("Owner failed to process request " + requestId));
+                    } else {
+                        response.complete(status != ShardServer.DENIED);
+                    }
+                }
+            } catch (IOException e) {
+                failure = e;
+                for (Integer requestId : pending.keySet()) {
+                    CompletableFuture<Boolean> response = pending.remove(requestId);
+                    if (response != null) {
+                        response.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // The reader fails the pending requests
+            }
+        }
+    }
+}
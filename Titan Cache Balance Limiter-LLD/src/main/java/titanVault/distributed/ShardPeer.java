@@ -0,0 +1,41 @@
+package titanVault.distributed;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A node that owns a share of the user keys. Requests for keys it owns are forwarded to it,
+ * and it receives the bucket state of keys that move to it when the ring changes.
+ */
+public interface ShardPeer {
+
+    /**
+     * Decide a request for a key owned by this peer. The peer always decides locally and
+     * never forwards again, so nodes with different ring views cannot bounce a request.
+     *
+     * @param userId The user identifier.
+     * @return Completes with true if the request is allowed.
+     */
+    default CompletableFuture<Boolean> forwardRequest(String userId) {
+        return forwardRequest(userId, 1);
+    }
+
+    /**
+     * Decide a request taking several permits at once for a key owned by this peer,
+     * all or nothing.
+     *
+     * @param userId  The user identifier.
+     * @param permits Number of permits the request takes.
+     * @return Completes with true if every permit was granted.
+     */
+    CompletableFuture<Boolean> forwardRequest(String userId, long permits);
+
+    /**
+     * Hand over the bucket state of a key that now belongs to this peer.
+     *
+     * @param userId The user identifier.
+     * @param state  The state written by the previous owner's limiter.
+     * @throws IOException if the state cannot be delivered or restored.
+     */
+    void handoff(String userId, byte[] state) throws IOException;
+}
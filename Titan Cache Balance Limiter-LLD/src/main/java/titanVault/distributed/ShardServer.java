@@ -0,0 +1,178 @@
+package titanVault.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Serves a {@link ShardPeer} to the other nodes over a pipelined binary protocol.
+ * <p>
+ * Request frame: request id (int), operation (byte), key (modified UTF-8) and then the
+ * permit count (long) for a validation, or the state length (int) and bytes for a handoff. Response frame: request id (int) and status
+ * (byte). Clients may send many requests before reading any response; responses come back
+ * in request order and are flushed once no further request is waiting in the socket
+ * buffer, so a burst of pipelined requests is answered with a few large writes.
+ */
+public class ShardServer implements Closeable {
+
+    static final byte VALIDATE = 1; // Decide a request for an owned key
+    static final byte HANDOFF = 2; // Restore the state of a key moving to this node
+    static final byte DENIED = 0; // Response: request denied
+    static final byte ALLOWED = 1; // Response: request allowed
+    static final byte ACKNOWLEDGED = 2; // Response: handoff applied
+    static final byte FAILED = 3; // Response: the request could not be processed
+    static final int MAX_STATE_BYTES = 1 << 20; // Largest bucket state accepted in a handoff
+
+    private final ShardPeer localPeer; // Node answering the requests
+    private final ServerSocket serverSocket; // Listening socket
+    private final ExecutorService connectionHandlers; // One task per connected node
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet(); // Open node connections
+    private volatile boolean running = true; // Cleared by close
+    private final ErrorReporter<Exception> errors = new ErrorReporter<>(); // Told about failed accepts and connections
+
+    /**
+     * Start serving a node.
+     *
+     * @param localPeer   Node answering the requests.
+     * @param bindAddress Address to listen on; port 0 picks a free port.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public ShardServer(ShardPeer localPeer, InetSocketAddress bindAddress) throws IOException {
+        this.localPeer = localPeer;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(bindAddress);
+        this.connectionHandlers = Executors.newCachedThreadPool(runnable -> {
+            Thread handler = new Thread(runnable, "shard-server");
+            handler.setDaemon(true);
+            return handler;
+        });
+        this.connectionHandlers.execute(this::acceptLoop);
+    }
+
+    /**
+     * Get the address the server listens on.
+     *
+     * @return The bound address.
+     */
+    public SocketAddress getAddress() {
+        return serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Set what is told about failures the server survives: a failed accept, or a node
+     * connection dropped because of an I/O error or a malformed frame. By default they go
+     * to the uncaught exception handler of the server thread. Failures caused by close
+     * are not reported. After a failed accept the server pauses before accepting again,
+     * longer with each failure in a row.
+     *
+     * @param errorHandler Receives each failure.
+     */
+    public void setErrorHandler(Consumer<? super Exception> errorHandler) {
+        errors.setHandler(errorHandler);
+    }
+
+    private void acceptLoop() {
+        int failures = 0; // Failed accepts in a row
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                failures = 0;
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                connectionHandlers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                errors.report(e);
+                if (!ErrorReporter.backOff(++failures)) {
+                    return; // Interrupted by close
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            while (running) {
+                int requestId = input.readInt();
+                byte operation = input.readByte();
+                String userId = input.readUTF();
+                byte status;
+                if (operation == VALIDATE) {
+                    status = decide(userId, input.readLong());
+                } else if (operation == HANDOFF) {
+                    int length = input.readInt();
+                    if (length < 0 || length > MAX_STATE_BYTES) {
+                        throw new IOException("Handoff state too large: " + length);
+                    }
+                    byte[] state = new byte[length];
+                    input.readFully(state);
+                    status = restore(userId, state);
+                } else {
+                    throw new IOException("Unknown shard operation: " + operation);
+                }
+                output.writeInt(requestId);
+                output.writeByte(status);
+                if (input.available() == 0) {
+                    output.flush(); // Answer the whole pipelined burst at once
+                }
+            }
+        } catch (EOFException e) {
+            // Node disconnected
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                errors.report(e); // The connection is closed
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private byte decide(String userId, long permits) {
+        try {
+            return localPeer.forwardRequest(userId, permits).join() ? ALLOWED : DENIED;
+        } catch (RuntimeException e) {
+            return FAILED;
+        }
+    }
+
+    private byte restore(String userId, byte[] state) {
+        try {
+            localPeer.handoff(userId, state);
+            return ACKNOWLEDGED;
+        } catch (IOException | RuntimeException e) {
+            return FAILED;
+        }
+    }
+
+    /**
+     * Stop accepting nodes and close every open connection.
+     *
+     * @throws IOException if the listening socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        connectionHandlers.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package titanVault.distributed;
+
+import java.time.Duration;
+
+/**
+ * A batch of tokens borrowed from a coordinator for one key. The lease carries a duration
+ * rather than an absolute expiry, so each node times it with its own clock.
+ */
+public class TokenLease {
+
+    private final String key; // Key the tokens were borrowed for
+    private final long grantedTokens; // Tokens handed to the node, possibly fewer than requested
+    private final Duration leaseDuration; // How long the node may hold the tokens
+
+    /**
+     * Constructor to initialize the TokenLease.
+     *
+     * @param key           Key the tokens were borrowed for.
+     * @param grantedTokens Number of tokens granted.
+     * @param leaseDuration How long the node may hold the tokens.
+     */
+    public TokenLease(String key, long grantedTokens, Duration leaseDuration) {
+        this.key = key;
+        this.grantedTokens = grantedTokens;
+        this.leaseDuration = leaseDuration;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getGrantedTokens() {
+        return grantedTokens;
+    }
+
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+}
@@ -0,0 +1,25 @@
+package titanVault.distributed;
+
+/**
+ * Owner of the global token buckets. Nodes borrow batches of tokens from it and spend
+ * them locally, so the sum of what all nodes admit never exceeds the global limit.
+ */
+public interface TokenLeaseCoordinator {
+
+    /**
+     * Borrow up to the requested number of tokens for a key.
+     *
+     * @param key             The user identifier.
+     * @param requestedTokens Number of tokens wanted; must be positive.
+     * @return The lease, whose grant is 0 when the global bucket is empty.
+     */
+    TokenLease acquireLease(String key, long requestedTokens);
+
+    /**
+     * Give back tokens a node did not spend before its lease expired.
+     *
+     * @param key          The user identifier.
+     * @param unusedTokens Number of tokens returned.
+     */
+    void returnTokens(String key, long unusedTokens);
+}
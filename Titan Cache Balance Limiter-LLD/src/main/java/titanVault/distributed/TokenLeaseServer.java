@@ -0,0 +1,147 @@
+package titanVault.distributed;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Serves a {@link TokenLeaseCoordinator} to other nodes over TCP.
+ * <p>
+ * Protocol, one request at a time per connection: an operation byte, the key
+ * (modified UTF-8) and a token count. {@link #ACQUIRE} answers with the granted tokens
+ * and the lease duration in milliseconds; {@link #RETURN} answers with a single acknowledgement byte.
+ */
+public class TokenLeaseServer implements Closeable {
+
+    static final byte ACQUIRE = 1; // Borrow tokens for a key
+    static final byte RETURN = 2; // Give back unused tokens
+    static final byte ACKNOWLEDGED = 0; // Reply to a return
+
+    private final TokenLeaseCoordinator coordinator; // Coordinator answering the requests
+    private final ServerSocket serverSocket; // Listening socket
+    private final ExecutorService connectionHandlers; // One task per connected node
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet(); // Open node connections
+    private volatile boolean running = true; // Cleared by close
+    private final ErrorReporter<Exception> errors = new ErrorReporter<>(); // Told about failed accepts and connections
+
+    /**
+     * Start serving the coordinator.
+     *
+     * @param coordinator  Coordinator answering the requests.
+     * @param bindAddress  Address to listen on; port 0 picks a free port.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public TokenLeaseServer(TokenLeaseCoordinator coordinator, InetSocketAddress bindAddress) throws IOException {
+        this.coordinator = coordinator;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(bindAddress);
+        this.connectionHandlers = Executors.newCachedThreadPool(runnable -> {
+            Thread handler = new Thread(runnable, "token-lease-server");
+            handler.setDaemon(true);
+            return handler;
+        });
+        this.connectionHandlers.execute(this::acceptLoop);
+    }
+
+    /**
+     * Get the address the server listens on.
+     *
+     * @return The bound address.
+     */
+    public SocketAddress getAddress() {
+        return serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Set what is told about failures the server survives: a failed accept, or a node
+     * connection dropped because of an I/O error or a bad request. By default they go to
+     * the uncaught exception handler of the server thread. Failures caused by close are
+     * not reported. After a failed accept the server pauses before accepting again, longer
+     * with each failure in a row, so a persistent failure is not reported in a busy loop.
+     *
+     * @param errorHandler Receives each failure.
+     */
+    public void setErrorHandler(Consumer<? super Exception> errorHandler) {
+        errors.setHandler(errorHandler);
+    }
+
+    private void acceptLoop() {
+        int failures = 0; // Failed accepts in a row
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                failures = 0;
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                connectionHandlers.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                errors.report(e);
+                if (!ErrorReporter.backOff(++failures)) {
+                    return; // Interrupted by close
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (running) {
+                byte operation = input.readByte();
+                String key = input.readUTF();
+                long tokens = input.readLong();
+                if (operation == ACQUIRE) {
+                    TokenLease lease = coordinator.acquireLease(key, tokens);
+                    output.writeLong(lease.getGrantedTokens());
+                    output.writeLong(lease.getLeaseDuration().toMillis());
+                } else if (operation == RETURN) {
+                    coordinator.returnTokens(key, tokens);
+                    output.writeByte(ACKNOWLEDGED);
+                } else {
+                    throw new IOException("Unknown token lease operation: " + operation);
+                }
+                output.flush();
+            }
+        } catch (EOFException e) {
+            // Node disconnected
+        } catch (IOException | RuntimeException e) {
+            if (running) {
+                errors.report(e); // The connection is closed
+            }
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Stop accepting nodes and close every open connection.
+     *
+     * @throws IOException if the listening socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            socket.close();
+        }
+        connectionHandlers.shutdownNow();
+    }
+}
@@ -0,0 +1,103 @@
+package titanVault.distributed;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Gossip over UDP: every packet is one datagram sent to each peer. Every packet carries
+ * whole counter slots, so a lost datagram is repaired by the next round that sends the
+ * same slots, at the latest the limiter's next full state round.
+ */
+public class UdpGossipTransport implements GossipTransport {
+
+    private static final int MAX_DATAGRAM_BYTES = 65_507; // Largest UDP payload over IPv4
+
+    private final DatagramChannel channel; // Socket used to send and receive
+    private final List<SocketAddress> peers = new CopyOnWriteArrayList<>(); // Addresses of the other nodes
+    private Thread receiverThread; // Delivers incoming datagrams once started
+    private final ErrorReporter<Exception> errors = new ErrorReporter<>(); // Told about dropped datagrams
+
+    /**
+     * Bind the transport.
+     *
+     * @param bindAddress Address to listen on; port 0 picks a free port.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public UdpGossipTransport(InetSocketAddress bindAddress) throws IOException {
+        this.channel = DatagramChannel.open();
+        this.channel.bind(bindAddress);
+    }
+
+    /**
+     * Add a node to broadcast to.
+     *
+     * @param peer Address of the peer's transport.
+     */
+    public void addPeer(SocketAddress peer) {
+        peers.add(peer);
+    }
+
+    /**
+     * Get the address the transport listens on.
+     *
+     * @return The bound address.
+     * @throws IOException if the socket is closed.
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return channel.getLocalAddress();
+    }
+
+    /**
+     * Set what is told about datagrams that cannot be received or merged; the receiver
+     * drops them and carries on. By default they go to the uncaught exception handler of
+     * the receiver thread.
+     *
+     * @param errorHandler Receives the failure of each dropped datagram.
+     */
+    public void setErrorHandler(Consumer<? super Exception> errorHandler) {
+        errors.setHandler(errorHandler);
+    }
+
+    @Override
+    public synchronized void start(PacketReceiver receiver) {
+        if (receiverThread != null) {
+            throw new IllegalStateException("Transport already started");
+        }
+        receiverThread = new Thread(() -> {
+            ByteBuffer datagram = ByteBuffer.allocate(MAX_DATAGRAM_BYTES);
+            while (channel.isOpen()) {
+                try {
+                    datagram.clear();
+                    if (channel.receive(datagram) != null) {
+                        receiver.receive(datagram.array(), datagram.position());
+                    }
+                } catch (ClosedChannelException e) {
+                    return;
+                } catch (IOException | RuntimeException e) {
+                    errors.report(e); // The datagram is dropped
+                }
+            }
+        }, "udp-gossip-receiver");
+        receiverThread.setDaemon(true);
+        receiverThread.start();
+    }
+
+    @Override
+    public void broadcast(byte[] packet) throws IOException {
+        for (SocketAddress peer : peers) {
+            channel.send(ByteBuffer.wrap(packet), peer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,43 @@
+package titanVault.distributed;
+
+/**
+ * The slots one node holds for a key in one window, as sent by gossip.
+ */
+public class WindowDelta {
+
+    private final String key; // The user identifier
+    private final long epoch; // Window number (window start divided by the window length)
+    private final long increments; // The sender's increment slot
+    private final long decrements; // The sender's decrement slot
+
+    /**
+     * Constructor to initialize the WindowDelta.
+     *
+     * @param key        The user identifier.
+     * @param epoch      Window number.
+     * @param increments The sender's increment slot.
+     * @param decrements The sender's decrement slot.
+     */
+    public WindowDelta(String key, long epoch, long increments, long decrements) {
+        this.key = key;
+        this.epoch = epoch;
+        this.increments = increments;
+        this.decrements = decrements;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getIncrements() {
+        return increments;
+    }
+
+    public long getDecrements() {
+        return decrements;
+    }
+}
@@ -0,0 +1,39 @@
+package titanVault.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for the bucket a limiter creates the first time it sees a key.
+ */
+@Name("titanVault.BucketCreated")
+@Label("Bucket Created")
+@Category({"Titan Vault", "Rate Limiter"})
+@Description("A limiter created the bucket of a new key")
+@StackTrace(false)
+public class BucketCreatedEvent extends jdk.jfr.Event {
+
+    @Label("Algorithm")
+    String algorithm; // Simple class name of the limiter
+
+    @Label("Key Hash")
+    int keyHash; // Hash of the new key
+
+    /**
+     * Write the event if it is enabled.
+     *
+     * @param algorithm Simple class name of the limiter.
+     * @param keyHash   Hash of the new key.
+     */
+    public static void emit(String algorithm, int keyHash) {
+        BucketCreatedEvent event = new BucketCreatedEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.keyHash = keyHash;
+            event.commit();
+        }
+    }
+}
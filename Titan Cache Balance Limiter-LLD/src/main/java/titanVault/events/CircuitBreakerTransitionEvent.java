@@ -0,0 +1,42 @@
+package titanVault.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a circuit breaker moving between CLOSED, OPEN and HALF_OPEN.
+ */
+@Name("titanVault.CircuitBreakerTransition")
+@Label("Circuit Breaker Transition")
+@Category({"Titan Vault", "Circuit Breaker"})
+@Description("A circuit breaker changed state")
+public class CircuitBreakerTransitionEvent extends jdk.jfr.Event {
+
+    @Label("From")
+    String fromState; // State before the transition
+
+    @Label("To")
+    String toState; // State after the transition
+
+    @Label("Failure Count")
+    long failureCount; // Consecutive failures at the time of the transition
+
+    /**
+     * Write the event if it is enabled.
+     *
+     * @param fromState    State before the transition.
+     * @param toState      State after the transition.
+     * @param failureCount Consecutive failures at the time of the transition.
+     */
+    public static void emit(String fromState, String toState, long failureCount) {
+        CircuitBreakerTransitionEvent event = new CircuitBreakerTransitionEvent();
+        if (event.isEnabled()) {
+            event.fromState = fromState;
+            event.toState = toState;
+            event.failureCount = failureCount;
+            event.commit();
+        }
+    }
+}
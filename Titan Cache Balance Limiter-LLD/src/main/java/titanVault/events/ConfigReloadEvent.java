@@ -0,0 +1,65 @@
+package titanVault.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a configuration change applied to running limiters, or
+ * rejected. The event duration is the time taken to build and publish the new limiters.
+ */
+@Name("titanVault.ConfigReload")
+@Label("Configuration Reload")
+@Category({"Titan Vault", "Configuration"})
+@Description("Limiters were reconfigured, or a new configuration was rejected")
+public class ConfigReloadEvent extends jdk.jfr.Event {
+
+    @Label("Source")
+    String source; // Policy file or limiter name the configuration came from
+
+    @Label("Algorithm")
+    String algorithm; // Algorithm reconfigured, or null when a file covers several
+
+    @Label("Limiters Changed")
+    int limitersChanged; // Limiters replaced, added or removed
+
+    @Label("Applied")
+    boolean applied; // Whether the configuration was accepted
+
+    @Label("Error")
+    String error; // Reason the configuration was rejected, null when applied
+
+    /**
+     * End the reload and write it as applied.
+     *
+     * @param source          Policy file or limiter name the configuration came from.
+     * @param algorithm       Algorithm reconfigured, or null when several are.
+     * @param limitersChanged Limiters replaced, added or removed.
+     */
+    public void applied(String source, String algorithm, int limitersChanged) {
+        complete(source, algorithm, limitersChanged, true, null);
+    }
+
+    /**
+     * End the reload and write it as rejected.
+     *
+     * @param source Policy file or limiter name the configuration came from.
+     * @param error  Reason the configuration was rejected.
+     */
+    public void rejected(String source, String error) {
+        complete(source, null, 0, false, error);
+    }
+
+    private void complete(String source, String algorithm, int limitersChanged, boolean applied, String error) {
+        end();
+        if (shouldCommit()) {
+            this.source = source;
+            this.algorithm = algorithm;
+            this.limitersChanged = limitersChanged;
+            this.applied = applied;
+            this.error = error;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package titanVault.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for per-key state a limiter dropped to bound its memory.
+ */
+@Name("titanVault.KeysEvicted")
+@Label("Keys Evicted")
+@Category({"Titan Vault", "Rate Limiter"})
+@Description("A limiter dropped the state it held for some keys")
+@StackTrace(false)
+public class KeysEvictedEvent extends jdk.jfr.Event {
+
+    @Label("Algorithm")
+    String algorithm; // Simple class name of the limiter
+
+    @Label("Keys")
+    long keys; // Number of keys dropped
+
+    /**
+     * Write the event if it is enabled.
+     *
+     * @param algorithm Simple class name of the limiter.
+     * @param keys      Number of keys dropped.
+     */
+    public static void emit(String algorithm, long keys) {
+        KeysEvictedEvent event = new KeysEvictedEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.keys = keys;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package titanVault.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a limiter lock that took longer than the threshold to
+ * acquire, 100 µs unless the recording sets another. The event duration is the wait.
+ * Like {@link SlowDecisionEvent}, it is only created and timed while it is enabled.
+ */
+@Name("titanVault.LockWait")
+@Label("Limiter Lock Wait")
+@Category({"Titan Vault", "Rate Limiter"})
+@Description("A request waited for a limiter lock longer than the threshold")
+@Threshold("100 us")
+@StackTrace(false)
+public class LockWaitEvent extends jdk.jfr.Event {
+
+    private static final LockWaitEvent PROBE = new LockWaitEvent(); // Asked whether the event is enabled, never committed
+
+    @Label("Algorithm")
+    String algorithm; // Simple class name of the limiter owning the lock
+
+    @Label("Key Hash")
+    int keyHash; // Hash of the key the request was for
+
+    /**
+     * Start timing a lock acquisition if a recording has the event enabled.
+     *
+     * @return The started event, or null when the event is disabled.
+     */
+    public static LockWaitEvent beginIfEnabled() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the wait once the lock is held and write it if it was long enough.
+     *
+     * @param event     The event returned by {@link #beginIfEnabled()}, null when disabled.
+     * @param algorithm Simple class name of the limiter owning the lock.
+     * @param keyHash   Hash of the key the request was for.
+     */
+    public static void complete(LockWaitEvent event, String algorithm, int keyHash) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.keyHash = keyHash;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package titanVault.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for a rate limit decision that took longer than the threshold,
+ * 1 ms unless the recording sets another. The event duration is the decision time.
+ * <p>
+ * While the event is disabled a decision costs one check of a flag: the event is only
+ * created and timed once a recording enables it. The clock reads of an event that has
+ * begun are not free even after recording stops, hence the check comes first. While it is
+ * enabled every decision reads the clock twice, but only the slow ones are written.
+ */
+@Name("titanVault.SlowDecision")
+@Label("Slow Rate Limit Decision")
+@Category({"Titan Vault", "Rate Limiter"})
+@Description("A rate limit decision that took longer than the threshold")
+@Threshold("1 ms")
+@StackTrace(false)
+public class SlowDecisionEvent extends jdk.jfr.Event {
+
+    private static final SlowDecisionEvent PROBE = new SlowDecisionEvent(); // Asked whether the event is enabled, never committed
+
+    @Label("Algorithm")
+    String algorithm; // Simple class name of the limiter deciding
+
+    @Label("Key Hash")
+    int keyHash; // Hash of the key, so keys are not written to the recording
+
+    @Label("Permits")
+    long permits; // Permits the request asked for
+
+    @Label("Allowed")
+    boolean allowed; // Whether the request was allowed
+
+    /**
+     * Start timing a decision if a recording has the event enabled.
+     *
+     * @return The started event, or null when the event is disabled.
+     */
+    public static SlowDecisionEvent beginIfEnabled() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        SlowDecisionEvent event = new SlowDecisionEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End a decision and write it if it was slow enough.
+     *
+     * @param event     The event returned by {@link #beginIfEnabled()}, null when disabled.
+     * @param algorithm Simple class name of the limiter deciding.
+     * @param keyHash   Hash of the key.
+     * @param permits   Permits the request asked for.
+     * @param allowed   Whether the request was allowed.
+     */
+    public static void complete(SlowDecisionEvent event, String algorithm, int keyHash, long permits, boolean allowed) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm;
+            event.keyHash = keyHash;
+            event.permits = permits;
+            event.allowed = allowed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package titanVault.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import titanVault.distributed.ErrorReporter;
+import titanVault.model.RateLimitState;
+import titanVault.service.InspectableRateLimiter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Embedded HTTP front-end for the rate limiter controllers, built on the JDK {@link HttpServer}.
+ * <p>
+ * Endpoints, for a route registered under {@code name}:
+ * <ul>
+ *     <li>{@code GET|POST /limiters/name/check?user=ID}: 200 when allowed, 429 when limited.
+ *     When the route has a state source, both carry {@code RateLimit-Limit},
+ *     {@code RateLimit-Remaining} and {@code RateLimit-Reset}, and a 429 also carries
+ *     {@code Retry-After}, all in whole seconds computed from the bucket state.</li>
+ *     <li>{@code POST /limiters/name/batch}: one user id per body line, answered with one
+ *     line per id, {@code allowed} or {@code limited}, in order.</li>
+ * </ul>
+ * Responses always carry a content length, so HTTP/1.1 clients keep their connections alive.
+ * A missing or empty user id, or one a controller rejects with an
+ * {@link IllegalArgumentException}, is answered 400; any other failure of a controller is
+ * answered 500 and reported to the error handler.
+ * <p>
+ * The JDK server writes headers and body separately, so small responses can wait out the
+ * client's delayed ACK; deployments serving latency-sensitive traffic start the JVM with
+ * {@code -Dsun.net.httpserver.nodelay=true}.
+ */
+public class LimiterHttpServer implements Closeable {
+
+    private static final String PREFIX = "/limiters/"; // Context path of every route
+    private static final int MAX_BATCH_BYTES = 1 << 20; // Largest batch body accepted
+    private static final byte[] ALLOWED = "allowed\n".getBytes(StandardCharsets.US_ASCII); // Body of a 200 check
+    private static final byte[] LIMITED = "limited\n".getBytes(StandardCharsets.US_ASCII); // Body of a 429 check
+
+    private final HttpServer httpServer; // JDK server handling the connections
+    private final ExecutorService workers; // Threads running the handlers
+    private final ConcurrentMap<String, Route> routes = new ConcurrentHashMap<>(); // Registered controllers by name
+    private final ErrorReporter<RuntimeException> errors = new ErrorReporter<>(); // Told about failed controllers
+
+    /**
+     * Start the server.
+     *
+     * @param bindAddress   Address to listen on; port 0 picks a free port.
+     * @param workerThreads Number of threads handling requests.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public LimiterHttpServer(InetSocketAddress bindAddress, int workerThreads) throws IOException {
+        if (workerThreads <= 0) {
+            throw new IllegalArgumentException("Worker thread count must be positive: " + workerThreads);
+        }
+        this.httpServer = HttpServer.create(bindAddress, 1024);
+        this.workers = Executors.newFixedThreadPool(workerThreads);
+        this.httpServer.setExecutor(workers);
+        this.httpServer.createContext(PREFIX, this::handle);
+        this.httpServer.start();
+    }
+
+    /**
+     * Expose a controller without rate limit headers.
+     *
+     * @param name       Path segment of the route.
+     * @param controller Decides a request for a user id, e.g. {@code controller::handleRequest}.
+     */
+    public void addRoute(String name, Predicate<String> controller) {
+        addRoute(name, controller, null);
+    }
+
+    /**
+     * Expose a controller with rate limit headers read from its limiter.
+     *
+     * @param name        Path segment of the route.
+     * @param controller  Decides a request for a user id, e.g. {@code controller::handleRequest}.
+     * @param stateSource Limiter behind the controller, inspected with each decision so the
+     *                    headers show the state that decision left; may be null.
+     */
+    public void addRoute(String name, Predicate<String> controller, InspectableRateLimiter stateSource) {
+        if (name == null || name.isEmpty() || name.contains("/")) {
+            throw new IllegalArgumentException("Route name must be a non-empty path segment: " + name);
+        }
+        routes.put(name, new Route(controller, stateSource));
+    }
+
+    /**
+     * Set what is told about controllers failing with anything but an
+     * {@link IllegalArgumentException}; the request is answered 500. By default the
+     * failures go to the uncaught exception handler of the worker thread.
+     *
+     * @param errorHandler Receives each failure.
+     */
+    public void setErrorHandler(Consumer<? super RuntimeException> errorHandler) {
+        errors.setHandler(errorHandler);
+    }
+
+    /**
+     * Get the address the server listens on.
+     *
+     * @return The bound address.
+     */
+    public InetSocketAddress getAddress() {
+        return httpServer.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getRawPath();
+            int separator = path.indexOf('/', PREFIX.length());
+            Route route = separator < 0 ? null : routes.get(path.substring(PREFIX.length(), separator));
+            String endpoint = separator < 0 ? "" : path.substring(separator + 1);
+            if (route == null) {
+                send(exchange, 404, "unknown limiter\n".getBytes(StandardCharsets.US_ASCII));
+            } else if (endpoint.equals("check")) {
+                check(exchange, route);
+            } else if (endpoint.equals("batch")) {
+                batch(exchange, route);
+            } else {
+                send(exchange, 404, "unknown endpoint\n".getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, (e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, "internal error\n".getBytes(StandardCharsets.US_ASCII));
+            errors.report(e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void check(HttpExchange exchange, Route route) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!method.equals("GET") && !method.equals("POST")) {
+            send(exchange, 405, "method not allowed\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        exchange.getRequestBody().readAllBytes(); // Drain so the connection can be reused
+        String userId = queryParameter(exchange.getRequestURI().getRawQuery(), "user");
+        if (route.stateSource == null) {
+            boolean allowed = route.controller.test(userId);
+            send(exchange, allowed ? 200 : 429, allowed ? ALLOWED : LIMITED);
+            return;
+        }
+        RateLimitState[] decided = new RateLimitState[1]; // State the decision left
+        boolean allowed = route.stateSource.decideAndInspect(userId, route.controller, state -> decided[0] = state);
+        RateLimitState state = decided[0];
+        exchange.getResponseHeaders().set("RateLimit-Limit", Long.toString(state.getLimit()));
+        exchange.getResponseHeaders().set("RateLimit-Remaining", Long.toString(state.getRemaining()));
+        exchange.getResponseHeaders().set("RateLimit-Reset", Long.toString(ceilSeconds(state.getResetAfter())));
+        if (!allowed) {
+            exchange.getResponseHeaders().set("Retry-After", Long.toString(Math.max(1, ceilSeconds(state.getRetryAfter()))));
+        }
+        send(exchange, allowed ? 200 : 429, allowed ? ALLOWED : LIMITED);
+    }
+
+    private void batch(HttpExchange exchange, Route route) throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            send(exchange, 405, "method not allowed\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        InputStream body = exchange.getRequestBody();
+        byte[] content = body.readNBytes(MAX_BATCH_BYTES + 1);
+        if (content.length > MAX_BATCH_BYTES) {
+            body.transferTo(OutputStream.nullOutputStream());
+            send(exchange, 413, "batch too large\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        StringBuilder decisions = new StringBuilder();
+        for (String userId : new String(content, StandardCharsets.UTF_8).split("\n")) {
+            userId = userId.strip();
+            if (!userId.isEmpty()) {
+                decisions.append(route.controller.test(userId) ? "allowed\n" : "limited\n");
+            }
+        }
+        send(exchange, 200, decisions.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int equals = pair.indexOf('=');
+                if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                    String value = URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8).strip();
+                    if (value.isEmpty()) {
+                        throw new IllegalArgumentException("Empty query parameter: " + name);
+                    }
+                    return value;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Missing query parameter: " + name);
+    }
+
+    /**
+     * Round up to whole seconds, as the headers carry delta-seconds.
+     */
+    private static long ceilSeconds(Duration duration) {
+        return (duration.toMillis() + 999) / 1000;
+    }
+
+    /**
+     * Answer a failed request, unless the failure came after its response had started.
+     */
+    private static void sendError(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (exchange.getResponseCode() < 0) {
+            exchange.getResponseHeaders().clear(); // Drop the RateLimit headers of a half-built response
+            send(exchange, status, body);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    /**
+     * Stop the server, giving in-flight exchanges no grace period.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(0);
+        workers.shutdownNow();
+    }
+
+    /**
+     * A registered controller and the limiter whose state feeds its headers.
+     */
+    private static final class Route {
+        private final Predicate<String> controller; // Decides the requests
+        private final InspectableRateLimiter stateSource; // Feeds the headers, may be null
+
+        private Route(Predicate<String> controller, InspectableRateLimiter stateSource) {
+            this.controller = controller;
+            this.stateSource = stateSource;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package titanVault.management;
+
+/**
+ * Management interface of one rate limiter, for live inspection and tuning over JMX.
+ * Operations a limiter does not support fail with {@link UnsupportedOperationException}.
+ */
+public interface LimiterMXBean {
+
+    /**
+     * Get the name the limiter is registered under.
+     *
+     * @return The limiter name.
+     */
+    String getName();
+
+    /**
+     * Get the algorithm of the limiter currently serving requests.
+     *
+     * @return The simple class name of the limiter.
+     */
+    String getAlgorithm();
+
+    /**
+     * Get the number of requests allowed since the limiter was created.
+     *
+     * @return The allowed requests.
+     */
+    long getAllowedRequests();
+
+    /**
+     * Get the number of requests denied since the limiter was created.
+     *
+     * @return The denied requests.
+     */
+    long getDeniedRequests();
+
+    /**
+     * Get the decisions per second over the last interval of at least one second.
+     *
+     * @return The throughput in requests per second.
+     */
+    double getThroughput();
+
+    /**
+     * Get the share of requests denied over the last interval of at least one second.
+     *
+     * @return The deny rate, from 0 to 1.
+     */
+    double getDenyRate();
+
+    /**
+     * Get the number of keys the limiter holds state for.
+     *
+     * @return The key count, or -1 if the limiter cannot list its keys.
+     */
+    long getKeyCount();
+
+    /**
+     * Get the most frequent keys among the sampled requests, most frequent first.
+     *
+     * @return The hot keys as {@code key=count} strings.
+     */
+    String[] getHotKeys();
+
+    /**
+     * Get the 99th percentile of the sampled decision latency.
+     *
+     * @return The latency in nanoseconds.
+     */
+    long getDecisionLatencyP99Nanos();
+
+    /**
+     * Change the limit of one user.
+     *
+     * @param userId   The user identifier.
+     * @param newLimit The new limit of the user.
+     */
+    void updateUserLimit(String userId, long newLimit);
+
+    /**
+     * Reset the state of one user.
+     *
+     * @param userId The user identifier.
+     */
+    void resetUserLimiter(String userId);
+
+    /**
+     * Change the capacity and period of every key. Other settings are kept.
+     *
+     * @param newMaxCapacity  The new capacity of each bucket or window.
+     * @param newPeriodMillis The new refill, window or averaging period in milliseconds.
+     */
+    void updateConfiguration(long newMaxCapacity, long newPeriodMillis);
+}
@@ -0,0 +1,257 @@
+package titanVault.management;
+
+import titanVault.events.ConfigReloadEvent;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.service.AdaptiveBucketServiceRateLimiter;
+import titanVault.service.EMABucketServiceRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.InstrumentedRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.SnapshotRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limiter that can be inspected and retuned over JMX while it serves traffic.
+ * <p>
+ * Requests go through one volatile read to the instrumented limiter currently in charge.
+ * Tuning adds no lock to the request path: per-user changes and in-place updates act on
+ * the buckets directly, and limiters whose configuration is replaced by building a new one
+ * (token bucket, fixed window) are swapped in with a single write once the copy is done.
+ * Requests already running finish against the limiter they started with. The fixed window
+ * copy holds the window lock that its requests take anyway, for the length of the copy.
+ */
+public class ManagedRateLimiter implements RateLimiter, LimiterMXBean {
+
+    private static final long RATE_INTERVAL_MILLIS = 1_000; // Shortest interval the rates are computed over
+    private static final int HOT_KEYS = 10; // Keys listed by getHotKeys
+
+    private final String name; // Name the limiter is registered under
+    private final LimiterMetrics metrics; // Metrics shared by every limiter swapped in
+    private final Clock currentTimer; // Clock to get the current time
+    private volatile InstrumentedRateLimiter current; // Limiter serving requests
+    private long sampleTime; // Time of the last rate sample, guarded by this
+    private long sampleAllowed; // Allowed requests at the last rate sample, guarded by this
+    private long sampleDenied; // Denied requests at the last rate sample, guarded by this
+    private double throughput; // Requests per second over the last interval, guarded by this
+    private double denyRate; // Share of denied requests over the last interval, guarded by this
+
+    /**
+     * Constructor to initialize the ManagedRateLimiter.
+     *
+     * @param name         Name the limiter is registered under.
+     * @param limiter      Limiter making the decisions.
+     * @param metrics      Metrics to record into.
+     * @param currentTimer Clock to get the current time.
+     */
+    public ManagedRateLimiter(String name, RateLimiter limiter, LimiterMetrics metrics, Clock currentTimer) {
+        if ((name == null) || (name.isEmpty())) {
+            throw new IllegalArgumentException("Limiter name cannot be null or empty");
+        }
+        this.name = name;
+        this.metrics = metrics;
+        this.currentTimer = currentTimer;
+        this.sampleTime = currentTimer.millis();
+        attachMetrics(limiter);
+        this.current = InstrumentedRateLimiter.wrap(limiter, metrics);
+    }
+
+    @Override
+    public boolean validateRequest(String userId) {
+        return current.validateRequest(userId);
+    }
+
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        return current.validateRequest(userId, permits);
+    }
+
+    @Override
+    public boolean validateRequest(long key) {
+        return current.validateRequest(key);
+    }
+
+    /**
+     * Register this limiter with an MBean server as {@code titanVault:type=RateLimiter,name=<name>}.
+     *
+     * @param server The MBean server, usually the platform one.
+     * @return The name it was registered under.
+     * @throws JMException if the name is taken or the registration fails.
+     */
+    public ObjectName register(MBeanServer server) throws JMException {
+        ObjectName objectName = objectName(name);
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * Build the JMX name of a limiter.
+     *
+     * @param limiterName The limiter name.
+     * @return The object name.
+     * @throws JMException if the name cannot be used.
+     */
+    public static ObjectName objectName(String limiterName) throws JMException {
+        Hashtable<String, String> properties = new Hashtable<>();
+        properties.put("type", "RateLimiter");
+        properties.put("name", ObjectName.quote(limiterName));
+        return new ObjectName("titanVault", properties);
+    }
+
+    /**
+     * Get the limiter currently making the decisions.
+     *
+     * @return The current limiter, without instrumentation.
+     */
+    public RateLimiter getLimiter() {
+        return current.getDelegate();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return getLimiter().getClass().getSimpleName();
+    }
+
+    @Override
+    public long getAllowedRequests() {
+        return metrics.getAllowed();
+    }
+
+    @Override
+    public long getDeniedRequests() {
+        return metrics.getDenied();
+    }
+
+    @Override
+    public synchronized double getThroughput() {
+        sampleRates();
+        return throughput;
+    }
+
+    @Override
+    public synchronized double getDenyRate() {
+        sampleRates();
+        return denyRate;
+    }
+
+    @Override
+    public long getKeyCount() {
+        return getLimiter() instanceof SnapshotRateLimiter snapshotLimiter ? snapshotLimiter.snapshotKeys().size() : -1;
+    }
+
+    @Override
+    public String[] getHotKeys() {
+        List<Map.Entry<String, Long>> hotKeys = metrics.getHotKeys(HOT_KEYS);
+        String[] formatted = new String[hotKeys.size()];
+        for (int i = 0; i < formatted.length; i++) {
+            formatted[i] = hotKeys.get(i).getKey() + "=" + hotKeys.get(i).getValue();
+        }
+        return formatted;
+    }
+
+    @Override
+    public long getDecisionLatencyP99Nanos() {
+        return metrics.getDecisionLatencyAtPercentile(99);
+    }
+
+    @Override
+    public void updateUserLimit(String userId, long newLimit) {
+        if (getLimiter() instanceof AdaptiveBucketServiceRateLimiter adaptive) {
+            adaptive.updateUserLimit(userId, newLimit);
+            return;
+        }
+        throw new UnsupportedOperationException(getAlgorithm() + " has no per-user limits");
+    }
+
+    @Override
+    public void resetUserLimiter(String userId) {
+        if (getLimiter() instanceof AdaptiveBucketServiceRateLimiter adaptive) {
+            adaptive.resetUserLimiter(userId);
+            return;
+        }
+        throw new UnsupportedOperationException(getAlgorithm() + " cannot reset a single user");
+    }
+
+    /**
+     * Change the capacity and period of every key. Token buckets keep their refill amount.
+     * Concurrent calls are applied one after the other, and each is written to a running
+     * flight recording.
+     *
+     * @param newMaxCapacity  The new capacity of each bucket or window.
+     * @param newPeriodMillis The new refill, window or averaging period in milliseconds.
+     */
+    @Override
+    public synchronized void updateConfiguration(long newMaxCapacity, long newPeriodMillis) {
+        if (newMaxCapacity < 0 || newPeriodMillis <= 0) {
+            throw new IllegalArgumentException("Capacity must not be negative and the period must be positive: "
+                    + newMaxCapacity + ", " + newPeriodMillis);
+        }
+        ConfigReloadEvent event = new ConfigReloadEvent();
+        event.begin();
+        Duration newPeriod = Duration.ofMillis(newPeriodMillis);
+        RateLimiter limiter = getLimiter();
+        if (limiter instanceof TokenBucketServiceRateLimiter tokenBucket) {
+            replace(tokenBucket.reconfigure(newMaxCapacity, newPeriod, tokenBucket.getTokensPerPeriod()));
+        } else if (limiter instanceof FixedWindowServiceRateLimiter fixedWindow) {
+            replace(fixedWindow.updateConfiguration(newMaxCapacity, newPeriod));
+        } else if (limiter instanceof EMABucketServiceRateLimiter ema) {
+            ema.updateConfiguration(newMaxCapacity, newPeriod); // Updates the buckets in place
+        } else {
+            throw new UnsupportedOperationException(getAlgorithm() + " cannot be reconfigured");
+        }
+        event.applied(name, limiter.getClass().getSimpleName(), 1);
+    }
+
+    private void replace(RateLimiter limiter) {
+        attachMetrics(limiter);
+        current = InstrumentedRateLimiter.wrap(limiter, metrics);
+    }
+
+    private void attachMetrics(RateLimiter limiter) {
+        if (limiter instanceof TokenBucketServiceRateLimiter tokenBucket) {
+            tokenBucket.setMetrics(metrics);
+        } else if (limiter instanceof FixedWindowServiceRateLimiter fixedWindow) {
+            fixedWindow.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * Recompute the rates once the current interval is at least a second long.
+     */
+    private void sampleRates() {
+        long currentTime = currentTimer.millis();
+        long elapsed = currentTime - sampleTime;
+        if (elapsed < RATE_INTERVAL_MILLIS) {
+            return;
+        }
+        long allowed = getAllowedRequests();
+        long denied = getDeniedRequests();
+        long decisions = (allowed - sampleAllowed) + (denied - sampleDenied);
+        throughput = decisions * 1_000.0 / elapsed;
+        denyRate = decisions == 0 ? 0 : (double) (denied - sampleDenied) / decisions;
+        sampleTime = currentTime;
+        sampleAllowed = allowed;
+        sampleDenied = denied;
+    }
+
+    @Override
+    public String toString() {
+        return "ManagedRateLimiter{" +
+                "Name=" + name +
+                ", Algorithm=" + getAlgorithm() +
+                '}';
+    }
+}
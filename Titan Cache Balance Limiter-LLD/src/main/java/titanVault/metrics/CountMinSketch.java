@@ -0,0 +1,150 @@
+package titanVault.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free count-min sketch: approximate counts of any number of keys in a fixed table
+ * of counters. Each key adds to one counter in every row, picked by a different hash per
+ * row, and its estimate is the smallest of those counters. Keys sharing a counter can only
+ * add to it, so an estimate is never below the true count; with {@code width} counters per
+ * row it is above it by at most {@code e / width} of the total with probability
+ * {@code 1 - e^-depth}.
+ * <p>
+ * Keys are given as 64-bit hashes, which callers compute once; see {@link #hash(long)}
+ * and {@link #hash(long, CharSequence)}.
+ */
+public class CountMinSketch {
+
+    private static final long FNV_PRIME = 0x100000001b3L; // Multiplier of the String hash
+
+    private final int depth; // Number of rows, one hash each
+    private final int widthMask; // Counters per row minus one, the width being a power of two
+    private final AtomicLongArray counters; // Rows laid out one after the other
+
+    /**
+     * Constructor to initialize the CountMinSketch.
+     *
+     * @param width Counters per row, rounded up to a power of two.
+     * @param depth Number of rows, from 1 to 16.
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || width > 1 << 24) {
+            throw new IllegalArgumentException("Width must be between 1 and 2^24: " + width);
+        }
+        if (depth <= 0 || depth > 16) {
+            throw new IllegalArgumentException("Depth must be between 1 and 16: " + depth);
+        }
+        int roundedWidth = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.counters = new AtomicLongArray(roundedWidth * depth);
+    }
+
+    /**
+     * Count one occurrence of a key.
+     *
+     * @param hash The hash of the key.
+     * @return The estimate of the key including this occurrence.
+     */
+    public long add(long hash) {
+        return add(hash, 1);
+    }
+
+    /**
+     * Count several occurrences of a key at once.
+     *
+     * @param hash  The hash of the key.
+     * @param count The number of occurrences, not negative.
+     * @return The estimate of the key including these occurrences.
+     */
+    public long add(long hash, long count) {
+        int first = (int) hash;
+        int step = (int) (hash >>> 32) | 1; // Odd, so the rows pick different counters
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * (widthMask + 1) + ((first + row * step) & widthMask);
+            estimate = Math.min(estimate, counters.addAndGet(index, count));
+        }
+        return estimate;
+    }
+
+    /**
+     * Get the estimated count of a key.
+     *
+     * @param hash The hash of the key.
+     * @return The estimate, never below the true count.
+     */
+    public long estimate(long hash) {
+        int first = (int) hash;
+        int step = (int) (hash >>> 32) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * (widthMask + 1) + ((first + row * step) & widthMask)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halve every counter, so old traffic weighs less than new traffic. Occurrences
+     * counted while the counters are halved may or may not be halved.
+     */
+    public void decay() {
+        for (int index = 0; index < counters.length(); index++) {
+            long count;
+            do {
+                count = counters.get(index);
+            } while (count != 0 && !counters.compareAndSet(index, count, count >>> 1));
+        }
+    }
+
+    /**
+     * Set every counter to zero. Occurrences counted meanwhile may or may not be kept.
+     */
+    public void clear() {
+        for (int index = 0; index < counters.length(); index++) {
+            counters.set(index, 0);
+        }
+    }
+
+    /**
+     * Get the number of counters, which fixes the memory used whatever the number of keys.
+     *
+     * @return The width times the depth.
+     */
+    public int getCounterCount() {
+        return counters.length();
+    }
+
+    /**
+     * Spread a key over 64 bits, so the two halves of the result can serve as
+     * independent row hashes.
+     *
+     * @param key The key, or the hash code of a key.
+     * @return The hash.
+     */
+    public static long hash(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+
+    /**
+     * Hash a String key with a seed, over its characters rather than its hash code, whose
+     * collisions are easy to construct. Callers draw the seed at random, so requesters
+     * cannot aim collisions at a chosen key.
+     *
+     * @param seed The seed.
+     * @param key  The key.
+     * @return The hash.
+     */
+    public static long hash(long seed, CharSequence key) {
+        long hash = seed;
+        for (int index = 0; index < key.length(); index++) {
+            hash = (hash ^ key.charAt(index)) * FNV_PRIME;
+        }
+        return hash(hash);
+    }
+}
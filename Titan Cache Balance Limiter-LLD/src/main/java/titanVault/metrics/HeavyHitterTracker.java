@@ -0,0 +1,81 @@
+package titanVault.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The hottest and the most throttled keys of a stream of rate limit decisions, each kept
+ * by its own {@link HeavyHitters}. Memory is fixed by the capacity and sketch size, however
+ * many keys there are, and recording takes no lock once the top keys settle.
+ */
+public class HeavyHitterTracker {
+
+    private final HeavyHitters requested; // Keys by number of requests
+    private final HeavyHitters throttled; // Keys by number of denied requests
+
+    /**
+     * Constructor to initialize the HeavyHitterTracker.
+     *
+     * @param capacity Number of keys tracked in each list.
+     * @param width    Counters per sketch row.
+     * @param depth    Sketch rows.
+     */
+    public HeavyHitterTracker(int capacity, int width, int depth) {
+        this.requested = new HeavyHitters(capacity, width, depth);
+        this.throttled = new HeavyHitters(capacity, width, depth);
+    }
+
+    /**
+     * Count a decision.
+     *
+     * @param key            The key of the request.
+     * @param allowedRequest Whether the request was allowed.
+     */
+    public void recordDecision(String key, boolean allowedRequest) {
+        requested.record(key);
+        if (!allowedRequest) {
+            throttled.record(key);
+        }
+    }
+
+    /**
+     * Count a decision for a primitive key.
+     *
+     * @param key            The key of the request.
+     * @param allowedRequest Whether the request was allowed.
+     */
+    public void recordDecision(long key, boolean allowedRequest) {
+        requested.record(key);
+        if (!allowedRequest) {
+            throttled.record(key);
+        }
+    }
+
+    /**
+     * Get the keys with the most requests, most frequent first.
+     *
+     * @param limit Maximum number of keys returned.
+     * @return The keys with their estimated request counts.
+     */
+    public List<Map.Entry<String, Long>> getHottestKeys(int limit) {
+        return requested.topKeys(limit);
+    }
+
+    /**
+     * Get the keys with the most denied requests, most frequent first.
+     *
+     * @param limit Maximum number of keys returned.
+     * @return The keys with their estimated denied counts.
+     */
+    public List<Map.Entry<String, Long>> getThrottledKeys(int limit) {
+        return throttled.topKeys(limit);
+    }
+
+    /**
+     * Halve every count, so both lists follow current traffic.
+     */
+    public void decay() {
+        requested.decay();
+        throttled.decay();
+    }
+}
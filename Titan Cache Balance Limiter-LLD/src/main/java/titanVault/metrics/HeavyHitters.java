@@ -0,0 +1,247 @@
+package titanVault.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Streaming top-K of the most frequent keys in fixed memory, cheap enough to be fed
+ * every request.
+ * <p>
+ * Every key is counted in a {@link CountMinSketch}. A key whose estimate beats the
+ * smallest tracked count becomes a candidate, taking the place of the least frequent one
+ * once {@code capacity} keys are tracked. The candidates sit in an immutable hash table
+ * read without locks, so a request costs the sketch increments and, for hot keys only, one
+ * table probe; only an admission takes the lock and copies the table, which happens while
+ * the top keys change, not on every request of a key already in it.
+ * <p>
+ * Keys are told apart by a 64-bit hash of their characters or of the primitive key,
+ * seeded at random when the tracker is created, so requesters cannot make their keys share
+ * counters with a chosen key, for example with Strings of equal {@link String#hashCode()}.
+ * String and primitive keys are counted separately.
+ */
+public class HeavyHitters {
+
+    private static final VarHandle COUNT;
+
+    static {
+        try {
+            COUNT = MethodHandles.lookup().findVarHandle(Candidate.class, "count", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity; // Number of keys tracked
+    private final CountMinSketch sketch; // Estimated count of every key seen
+    private final long seed; // Mixed into every key hash
+    private volatile Candidates candidates; // Tracked keys, replaced as a whole on admission
+    private volatile long admissionThreshold; // Estimate a key must exceed to be offered, 0 until full
+
+    /**
+     * Constructor to initialize the HeavyHitters.
+     *
+     * @param capacity Number of keys tracked.
+     * @param width    Counters per sketch row; the estimates are off by at most 2.7 / width of the total.
+     * @param depth    Sketch rows; each one lowers the odds of a bad estimate by a factor of 2.7.
+     */
+    public HeavyHitters(int capacity, int width, int depth) {
+        if (capacity <= 0 || capacity > 1 << 16) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^16: " + capacity);
+        }
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(width, depth);
+        this.seed = ThreadLocalRandom.current().nextLong();
+        this.candidates = new Candidates(new Candidate[0], capacity);
+    }
+
+    /**
+     * Count one occurrence of a key.
+     *
+     * @param key The key.
+     */
+    public void record(String key) {
+        long hash = CountMinSketch.hash(seed, key);
+        long estimate = sketch.add(hash);
+        if (estimate > admissionThreshold && !update(hash, estimate)) {
+            admit(hash, key, estimate);
+        }
+    }
+
+    /**
+     * Count one occurrence of a primitive key. Its String form is only created when it
+     * joins the tracked keys.
+     *
+     * @param key The key.
+     */
+    public void record(long key) {
+        long hash = CountMinSketch.hash(key ^ seed);
+        long estimate = sketch.add(hash);
+        if (estimate > admissionThreshold && !update(hash, estimate)) {
+            admit(hash, Long.toString(key), estimate);
+        }
+    }
+
+    /**
+     * Get the estimated count of a key, whether or not it is tracked.
+     *
+     * @param key The key.
+     * @return The estimate, never below the true count.
+     */
+    public long estimate(String key) {
+        return sketch.estimate(CountMinSketch.hash(seed, key));
+    }
+
+    /**
+     * Get the most frequent keys, most frequent first, with their current estimates.
+     *
+     * @param limit Maximum number of keys returned.
+     * @return The keys with their estimated counts.
+     */
+    public List<Map.Entry<String, Long>> topKeys(int limit) {
+        Candidate[] members = candidates.members;
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(members.length);
+        for (Candidate candidate : members) {
+            ranked.add(Map.entry(candidate.key, sketch.estimate(candidate.hash)));
+        }
+        ranked.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    /**
+     * Halve every count, so the top keys follow current traffic rather than all traffic
+     * since the start. Callers run it on a schedule, for example once a minute.
+     */
+    public synchronized void decay() {
+        sketch.decay();
+        for (Candidate candidate : candidates.members) {
+            COUNT.setOpaque(candidate, (long) COUNT.getOpaque(candidate) >>> 1);
+        }
+        admissionThreshold = thresholdOf(candidates.members);
+    }
+
+    /**
+     * Get the number of keys tracked.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Refresh the count of a tracked key.
+     *
+     * @return false if the key is not tracked.
+     */
+    private boolean update(long hash, long estimate) {
+        Candidate candidate = candidates.find(hash);
+        if (candidate == null) {
+            return false;
+        }
+        COUNT.setOpaque(candidate, estimate); // Racing updates may store a slightly older estimate
+        return true;
+    }
+
+    /**
+     * Track a key whose estimate beat the admission threshold, replacing the least
+     * frequent key when full.
+     */
+    private synchronized void admit(long hash, String key, long estimate) {
+        Candidates current = candidates;
+        if (current.find(hash) != null) {
+            return; // Admitted by another thread meanwhile
+        }
+        Candidate[] members = current.members;
+        Candidate[] updated;
+        if (members.length < capacity) {
+            updated = Arrays.copyOf(members, members.length + 1);
+            updated[members.length] = new Candidate(hash, key, estimate);
+        } else {
+            int smallest = 0;
+            for (int index = 1; index < members.length; index++) {
+                if ((long) COUNT.getOpaque(members[index]) < (long) COUNT.getOpaque(members[smallest])) {
+                    smallest = index;
+                }
+            }
+            if (estimate <= (long) COUNT.getOpaque(members[smallest])) {
+                admissionThreshold = (long) COUNT.getOpaque(members[smallest]); // The threshold had fallen behind
+                return;
+            }
+            updated = members.clone();
+            updated[smallest] = new Candidate(hash, key, estimate);
+        }
+        candidates = new Candidates(updated, capacity);
+        admissionThreshold = thresholdOf(updated);
+    }
+
+    /**
+     * Get the estimate a key must exceed to be worth offering: the smallest tracked count
+     * once every slot is taken.
+     */
+    private long thresholdOf(Candidate[] members) {
+        if (members.length < capacity) {
+            return 0;
+        }
+        long smallest = Long.MAX_VALUE;
+        for (Candidate candidate : members) {
+            smallest = Math.min(smallest, (long) COUNT.getOpaque(candidate));
+        }
+        return smallest;
+    }
+
+    /**
+     * A tracked key and its latest estimate.
+     */
+    private static final class Candidate {
+        private final long hash; // Hash the key is counted under
+        private final String key; // Key as reported
+        private long count; // Estimate at the last update, used to pick evictions; accessed through COUNT
+
+        private Candidate(long hash, String key, long count) {
+            this.hash = hash;
+            this.key = key;
+            this.count = count;
+        }
+    }
+
+    /**
+     * Tracked keys with an open-addressing table over their hashes; never mutated once
+     * published.
+     */
+    private static final class Candidates {
+        private final Candidate[] members; // Tracked keys in admission order
+        private final Candidate[] table; // Linear-probing table, at most half full
+        private final int mask; // Table length minus one
+
+        private Candidates(Candidate[] members, int capacity) {
+            int length = Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1;
+            this.members = members;
+            this.table = new Candidate[length];
+            this.mask = length - 1;
+            for (Candidate candidate : members) {
+                int index = (int) candidate.hash & mask;
+                while (table[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                table[index] = candidate;
+            }
+        }
+
+        private Candidate find(long hash) {
+            int index = (int) hash & mask;
+            Candidate candidate;
+            while ((candidate = table[index]) != null) {
+                if (candidate.hash == hash) {
+                    return candidate;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+    }
+}
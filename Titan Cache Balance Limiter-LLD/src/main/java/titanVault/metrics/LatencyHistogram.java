@@ -0,0 +1,164 @@
+package titanVault.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of non-negative values, usually nanoseconds, in the style of an
+ * HDR histogram. Values are counted in log-linear buckets: every power of two is split
+ * into 32 equal sub-buckets, so a recorded value is known to within about 3% across the
+ * whole long range with a fixed table of 1,888 counters.
+ * <p>
+ * Recording is one array increment plus striped sum and max updates, and never blocks.
+ * Readers see a weakly consistent view while values are being recorded.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5; // Each power of two is split into 2^5 sub-buckets
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Sub-buckets per power of two
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS; // Counters covering 0 to Long.MAX_VALUE
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS); // Number of values in each bucket
+    private final LongAdder totalSum = new LongAdder(); // Sum of every recorded value
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0); // Largest recorded value
+
+    /**
+     * Record one value.
+     *
+     * @param value The value, negative values are counted as 0.
+     */
+    public void record(long value) {
+        long recorded = Math.max(0, value);
+        counts.getAndIncrement(bucketIndex(recorded));
+        totalSum.add(recorded);
+        maxValue.accumulate(recorded);
+    }
+
+    /**
+     * Get the number of recorded values.
+     *
+     * @return The total count.
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            total += counts.get(index);
+        }
+        return total;
+    }
+
+    /**
+     * Get the largest recorded value.
+     *
+     * @return The exact maximum, or 0 if nothing was recorded.
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     *
+     * @return The mean, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        long total = getTotalCount();
+        return total == 0 ? 0 : (double) totalSum.sum() / total;
+    }
+
+    /**
+     * Get the value below which the given share of the recorded values fall. As in an HDR
+     * histogram, the answer is the highest value of the bucket holding that rank, capped
+     * at the exact maximum.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The value at the percentile, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            snapshot[index] = counts.get(index);
+            total += snapshot[index];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += snapshot[index];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(index), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Create an independent copy of this histogram, for a snapshot that later records
+     * do not change.
+     *
+     * @return The copy.
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int index = 0; index < BUCKETS; index++) {
+            copy.counts.set(index, counts.get(index));
+        }
+        copy.totalSum.add(totalSum.sum());
+        copy.maxValue.accumulate(maxValue.get());
+        return copy;
+    }
+
+    /**
+     * Forget every recorded value.
+     */
+    public void reset() {
+        for (int index = 0; index < BUCKETS; index++) {
+            counts.set(index, 0);
+        }
+        totalSum.reset();
+        maxValue.reset();
+    }
+
+    /**
+     * Find the bucket of a value: values below 32 have a bucket each, larger values share
+     * a bucket with the values that agree on their 6 highest bits.
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highestBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Get the largest value counted in a bucket.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram{" +
+                "Count=" + getTotalCount() +
+                ", Mean=" + getMean() +
+                ", P50=" + getValueAtPercentile(50) +
+                ", P99=" + getValueAtPercentile(99) +
+                ", Max=" + getMaxValue() +
+                '}';
+    }
+}
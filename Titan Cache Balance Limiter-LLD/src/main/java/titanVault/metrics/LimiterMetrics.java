@@ -0,0 +1,341 @@
+package titanVault.metrics;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counters and latency histograms of one rate limiter.
+ * <p>
+ * Decisions happen on every call, so they are counted in stripes owned by one thread
+ * each: the owner bumps its stripe with a plain store, no atomic instruction, and a
+ * snapshot adds the stripes up. Created and evicted buckets are rare and use a
+ * {@link LongAdder}. Latencies need two clock reads, so they are only measured for a
+ * sampled share of calls, chosen by a per-thread countdown. A thread's stripe is its
+ * {@link Recorder}. Once its thread has ended, a stripe is folded into a base counter
+ * and unregistered, so thread per connection servers and virtual threads keep as many
+ * stripes as they have live threads, not as many as they ever started. A stripe does not
+ * reference its metrics, so metrics that are dropped, for example with a replaced
+ * limiter, are not kept alive by the threads that recorded into them.
+ */
+public class LimiterMetrics {
+
+    private static final int HOT_KEY_CAPACITY = 64; // Keys tracked for the hot key list
+    private static final int HOT_KEY_SKETCH_WIDTH = 256; // Counters per sketch row of the hot key list
+    private static final int HOT_KEY_SKETCH_DEPTH = 4; // Sketch rows of the hot key list
+    private static final int MIN_FOLD_AT = 64; // Registered stripes below which ended ones are not folded
+
+    private static final VarHandle ALLOWED;
+    private static final VarHandle DENIED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            ALLOWED = lookup.findVarHandle(Recorder.class, "allowed", long.class);
+            DENIED = lookup.findVarHandle(Recorder.class, "denied", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int sampleEvery; // Latency is measured for one call in this many on average
+    private final Queue<Recorder> recorders = new ConcurrentLinkedQueue<>(); // Decision counters of the threads not yet folded
+    private final AtomicInteger registered = new AtomicInteger(); // Stripes in the recorder queue
+    private final ReentrantLock foldLock = new ReentrantLock(); // Held while ended stripes are folded and while the stripes are summed
+    private volatile int foldAt = MIN_FOLD_AT; // Registered stripes at which ended ones are folded
+    private final LongAdder foldedAllowed = new LongAdder(); // Allowed requests of threads that have ended
+    private final LongAdder foldedDenied = new LongAdder(); // Denied requests of threads that have ended
+    private final ThreadLocal<Recorder> localRecorder = ThreadLocal.withInitial(this::registerRecorder); // Recorder of the current thread
+    private final LongAdder created = new LongAdder(); // Buckets created for new keys
+    private final LongAdder evicted = new LongAdder(); // Buckets dropped
+    private final LatencyHistogram decisionLatency = new LatencyHistogram(); // Nanoseconds per sampled decision
+    private final LatencyHistogram lockWait = new LatencyHistogram(); // Nanoseconds waited for a lock on sampled calls
+    private final HeavyHitters hotKeys = new HeavyHitters(HOT_KEY_CAPACITY, HOT_KEY_SKETCH_WIDTH, HOT_KEY_SKETCH_DEPTH); // Most frequent keys of the sampled calls
+
+    /**
+     * Constructor to initialize the LimiterMetrics.
+     *
+     * @param sampleEvery Measure latency for one call in this many on average; 1 measures every call.
+     */
+    public LimiterMetrics(int sampleEvery) {
+        if (sampleEvery <= 0 || sampleEvery > 1 << 30) {
+            throw new IllegalArgumentException("Sample rate must be between 1 and 2^30: " + sampleEvery);
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * Get the recorder of the current thread. Calls that record several things keep it
+     * for the duration of the call instead of looking it up for each.
+     *
+     * @return The recorder owned by the current thread.
+     */
+    public Recorder recorder() {
+        return localRecorder.get();
+    }
+
+    /**
+     * Decide whether the current call should have its latency measured.
+     *
+     * @return true for about one call in the sample rate.
+     */
+    public boolean sample() {
+        return localRecorder.get().sample();
+    }
+
+    /**
+     * Count a decision.
+     *
+     * @param allowedRequest Whether the request was allowed.
+     */
+    public void recordDecision(boolean allowedRequest) {
+        localRecorder.get().endDecision(Recorder.NOT_SAMPLED, allowedRequest);
+    }
+
+    /**
+     * Record the latency of a sampled decision.
+     *
+     * @param nanos The time the decision took.
+     */
+    public void recordDecisionLatency(long nanos) {
+        decisionLatency.record(nanos);
+    }
+
+    /**
+     * Record the time a sampled call waited for a lock.
+     *
+     * @param nanos The time spent acquiring the lock.
+     */
+    public void recordLockWait(long nanos) {
+        lockWait.record(nanos);
+    }
+
+    /**
+     * Count the key of a sampled call towards the hot key list.
+     *
+     * @param key The key of the call.
+     */
+    public void recordSampledKey(String key) {
+        hotKeys.record(key);
+    }
+
+    /**
+     * Count the primitive key of a sampled call towards the hot key list. Its String
+     * form is only created if it joins the list.
+     *
+     * @param key The key of the call.
+     */
+    public void recordSampledKey(long key) {
+        hotKeys.record(key);
+    }
+
+    /**
+     * Get the keys seen most often among the sampled calls, most frequent first.
+     *
+     * @param limit Maximum number of keys returned.
+     * @return The keys with their estimated number of sampled calls.
+     */
+    public List<Map.Entry<String, Long>> getHotKeys(int limit) {
+        return hotKeys.topKeys(limit);
+    }
+
+    /**
+     * Count a bucket created for a new key.
+     */
+    public void recordCreated() {
+        created.increment();
+    }
+
+    /**
+     * Count buckets dropped by the limiter.
+     *
+     * @param buckets The number of buckets dropped.
+     */
+    public void recordEvicted(long buckets) {
+        evicted.add(buckets);
+    }
+
+    /**
+     * Take a snapshot of every counter and histogram. Decisions made while the snapshot
+     * is taken may or may not be included.
+     *
+     * @param trackedKeys The number of keys the limiter tracks, or -1 if unknown.
+     * @return The snapshot, unaffected by later calls.
+     */
+    public MetricsSnapshot snapshot(long trackedKeys) {
+        long allowed;
+        long denied;
+        foldLock.lock(); // No stripe is folded between the two sums
+        try {
+            allowed = sumAllowed();
+            denied = sumDenied();
+        } finally {
+            foldLock.unlock();
+        }
+        return new MetricsSnapshot(allowed, denied, created.sum(), evicted.sum(), trackedKeys,
+                sampleEvery, decisionLatency.copy(), lockWait.copy());
+    }
+
+    /**
+     * Get the number of requests allowed so far, without copying the histograms.
+     *
+     * @return The allowed requests of every thread.
+     */
+    public long getAllowed() {
+        foldLock.lock(); // A stripe being folded is counted either in the queue or in the base, not both
+        try {
+            return sumAllowed();
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of requests denied so far, without copying the histograms.
+     *
+     * @return The denied requests of every thread.
+     */
+    public long getDenied() {
+        foldLock.lock();
+        try {
+            return sumDenied();
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    private long sumAllowed() {
+        long allowed = foldedAllowed.sum();
+        for (Recorder recorder : recorders) {
+            allowed += (long) ALLOWED.getOpaque(recorder);
+        }
+        return allowed;
+    }
+
+    private long sumDenied() {
+        long denied = foldedDenied.sum();
+        for (Recorder recorder : recorders) {
+            denied += (long) DENIED.getOpaque(recorder);
+        }
+        return denied;
+    }
+
+    /**
+     * Get a percentile of the sampled decision latency, without copying the histogram.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The latency in nanoseconds.
+     */
+    public long getDecisionLatencyAtPercentile(double percentile) {
+        return decisionLatency.getValueAtPercentile(percentile);
+    }
+
+    private Recorder registerRecorder() {
+        Recorder recorder = new Recorder(sampleEvery, decisionLatency, Thread.currentThread());
+        recorders.add(recorder);
+        if (registered.incrementAndGet() >= foldAt) {
+            foldEndedRecorders();
+        }
+        return recorder;
+    }
+
+    /**
+     * Move the counts of stripes whose thread has ended into the base counters. Runs when
+     * the registered stripes have doubled since the last fold, so registering stays
+     * amortised constant time. Readers sum under the same lock, so they never see a
+     * stripe both added to the base and still registered.
+     */
+    private void foldEndedRecorders() {
+        if (!foldLock.tryLock()) {
+            return; // Another registering thread is already folding
+        }
+        try {
+            for (Iterator<Recorder> iterator = recorders.iterator(); iterator.hasNext(); ) {
+                Recorder recorder = iterator.next();
+                if (recorder.ownerEnded()) {
+                    foldedAllowed.add((long) ALLOWED.getAcquire(recorder));
+                    foldedDenied.add((long) DENIED.getAcquire(recorder));
+                    iterator.remove();
+                    registered.decrementAndGet();
+                }
+            }
+            foldAt = Math.max(MIN_FOLD_AT, registered.get() * 2);
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    /**
+     * Decision counters and sampling countdown of one thread, the stripe it counts into.
+     * Only the owning thread may use it; snapshots read its counters.
+     */
+    public static final class Recorder {
+
+        /**
+         * Value of {@link #startDecision()} for a call whose latency is not measured.
+         */
+        public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+        private final int sampleEvery; // Latency is measured for one call in this many on average
+        private final LatencyHistogram decisionLatency; // Histogram of the metrics the stripe belongs to
+        private final WeakReference<Thread> owner; // Thread the stripe belongs to, not kept alive by it
+        private long allowed; // Requests allowed on this thread
+        private long denied; // Requests denied on this thread
+        private int untilSample = 1; // Calls left before the next sampled one
+
+        private Recorder(int sampleEvery, LatencyHistogram decisionLatency, Thread owner) {
+            this.sampleEvery = sampleEvery;
+            this.decisionLatency = decisionLatency;
+            this.owner = new WeakReference<>(owner);
+        }
+
+        /**
+         * Start a decision, reading the clock only if the call is sampled.
+         *
+         * @return The start time in nanoseconds, or {@link #NOT_SAMPLED}.
+         */
+        public long startDecision() {
+            return sample() ? System.nanoTime() : NOT_SAMPLED;
+        }
+
+        /**
+         * Count a decision and record its latency if it was sampled.
+         *
+         * @param startNanos     The value returned by {@link #startDecision()}.
+         * @param allowedRequest Whether the request was allowed.
+         */
+        public void endDecision(long startNanos, boolean allowedRequest) {
+            if (startNanos != NOT_SAMPLED) {
+                decisionLatency.record(System.nanoTime() - startNanos);
+            }
+            if (allowedRequest) {
+                ALLOWED.setOpaque(this, allowed + 1); // Only the owning thread writes its stripe
+            } else {
+                DENIED.setOpaque(this, denied + 1);
+            }
+        }
+
+        private boolean ownerEnded() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive(); // A thread seen ended writes its stripe no more
+        }
+
+        private boolean sample() {
+            if (--untilSample > 0) {
+                return false;
+            }
+            // Random gaps averaging the sample rate, so periodic traffic cannot dodge the sample
+            untilSample = sampleEvery == 1 ? 1 : 1 + ThreadLocalRandom.current().nextInt(2 * sampleEvery - 1);
+            return true;
+        }
+    }
+}
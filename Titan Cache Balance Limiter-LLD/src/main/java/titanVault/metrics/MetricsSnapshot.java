@@ -0,0 +1,141 @@
+package titanVault.metrics;
+
+/**
+ * Immutable view of a limiter's metrics at one moment, ready to be exported.
+ */
+public class MetricsSnapshot {
+
+    private static final double[] EXPORTED_PERCENTILES = {50, 90, 99, 99.9}; // Quantiles written by the exporters
+
+    private final long allowed; // Requests allowed
+    private final long denied; // Requests denied
+    private final long created; // Buckets created for new keys
+    private final long evicted; // Buckets dropped
+    private final long trackedKeys; // Keys tracked when the snapshot was taken, -1 if unknown
+    private final int sampleEvery; // Latency measured for one call in this many
+    private final LatencyHistogram decisionLatency; // Nanoseconds per sampled decision
+    private final LatencyHistogram lockWait; // Nanoseconds waited for a lock on sampled calls
+
+    /**
+     * Constructor to initialize the MetricsSnapshot.
+     *
+     * @param allowed         Requests allowed.
+     * @param denied          Requests denied.
+     * @param created         Buckets created for new keys.
+     * @param evicted         Buckets dropped.
+     * @param trackedKeys     Keys tracked, or -1 if unknown.
+     * @param sampleEvery     Latency measured for one call in this many.
+     * @param decisionLatency Copy of the decision latency histogram.
+     * @param lockWait        Copy of the lock wait histogram.
+     */
+    public MetricsSnapshot(long allowed, long denied, long created, long evicted, long trackedKeys,
+                           int sampleEvery, LatencyHistogram decisionLatency, LatencyHistogram lockWait) {
+        this.allowed = allowed;
+        this.denied = denied;
+        this.created = created;
+        this.evicted = evicted;
+        this.trackedKeys = trackedKeys;
+        this.sampleEvery = sampleEvery;
+        this.decisionLatency = decisionLatency;
+        this.lockWait = lockWait;
+    }
+
+    public long getAllowed() {
+        return allowed;
+    }
+
+    public long getDenied() {
+        return denied;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    public long getTrackedKeys() {
+        return trackedKeys;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    /**
+     * Get the decision latency of the sampled calls. The histogram is a copy and must not be recorded into.
+     *
+     * @return The decision latency histogram in nanoseconds.
+     */
+    public LatencyHistogram getDecisionLatency() {
+        return decisionLatency;
+    }
+
+    /**
+     * Get the lock wait of the sampled calls. The histogram is a copy and must not be recorded into.
+     *
+     * @return The lock wait histogram in nanoseconds.
+     */
+    public LatencyHistogram getLockWait() {
+        return lockWait;
+    }
+
+    /**
+     * Write the snapshot in the Prometheus text exposition format: counters for the
+     * decisions and buckets, a gauge for the tracked keys and summaries in seconds for
+     * the latencies.
+     *
+     * @param limiterName Value of the {@code limiter} label.
+     * @return The exposition text.
+     */
+    public String toPrometheus(String limiterName) {
+        String label = "limiter=\"" + limiterName.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+        StringBuilder text = new StringBuilder();
+        appendCounter(text, "titan_limiter_decisions_total", "Rate limit decisions.", label + ",result=\"allowed\"", allowed);
+        text.append("titan_limiter_decisions_total{").append(label).append(",result=\"denied\"} ").append(denied).append('\n');
+        appendCounter(text, "titan_limiter_buckets_created_total", "Buckets created for new keys.", label, created);
+        appendCounter(text, "titan_limiter_buckets_evicted_total", "Buckets dropped.", label, evicted);
+        if (trackedKeys >= 0) {
+            text.append("# HELP titan_limiter_tracked_keys Keys with a bucket.\n")
+                    .append("# TYPE titan_limiter_tracked_keys gauge\n")
+                    .append("titan_limiter_tracked_keys{").append(label).append("} ").append(trackedKeys).append('\n');
+        }
+        appendSummary(text, "titan_limiter_decision_seconds", "Sampled decision latency.", label, decisionLatency);
+        appendSummary(text, "titan_limiter_lock_wait_seconds", "Sampled lock wait.", label, lockWait);
+        return text.toString();
+    }
+
+    private static void appendCounter(StringBuilder text, String name, String help, String labels, long value) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" counter\n")
+                .append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void appendSummary(StringBuilder text, String name, String help, String labels, LatencyHistogram histogram) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(" summary\n");
+        for (double percentile : EXPORTED_PERCENTILES) {
+            text.append(name).append('{').append(labels).append(",quantile=\"").append(percentile / 100).append("\"} ")
+                    .append(histogram.getValueAtPercentile(percentile) / 1e9).append('\n');
+        }
+        long count = histogram.getTotalCount();
+        text.append(name).append("_sum{").append(labels).append("} ").append(histogram.getMean() * count / 1e9).append('\n')
+                .append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "Allowed=" + allowed +
+                ", Denied=" + denied +
+                ", Created=" + created +
+                ", Evicted=" + evicted +
+                ", TrackedKeys=" + trackedKeys +
+                ", SampleEvery=" + sampleEvery +
+                ", DecisionLatency=" + decisionLatency +
+                ", LockWait=" + lockWait +
+                '}';
+    }
+}
@@ -1,26 +1,65 @@
 package titanVault.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * AdaptiveBucket class represents a bucket with adjustable capacity and thread-safe operations.
+ * A bucket built with a reset period starts a new count whenever a period has ended on its clock.
  */
 public class AdaptiveBucket {
 
     private long maxCountLimit;  // Maximum allowed count of items in the bucket
     private long currentCount;   // Current count of items in the bucket
     private final ReadWriteLock rwLock; // Lock for thread-safe operations
+    private final long resetPeriodMillis; // Length of a counting period, 0 if the count never resets
+    private final Clock currentTimer; // Clock the counting periods are measured on
+    private long periodStart; // Start of the current counting period, guarded by the write lock
 
     /*
      * Constructor to initialize the AdaptiveBucket with an initial limit.
      * @param initialCountLimit The initial limit for the bucket.
      */
     public AdaptiveBucket(long initialCountLimit) {
+        this(initialCountLimit, null, Clock.systemUTC());
+    }
+
+    /*
+     * Constructor to initialize the AdaptiveBucket with an initial limit and a reset period.
+     * @param initialCountLimit The initial limit for the bucket.
+     * @param resetPeriod The period after which the count starts over, or null to never reset it.
+     * @param currentTimer The clock the periods are measured on.
+     */
+    public AdaptiveBucket(long initialCountLimit, Duration resetPeriod, Clock currentTimer) {
+        if (resetPeriod != null && (resetPeriod.isNegative() || resetPeriod.isZero())) {
+            throw new IllegalArgumentException("Reset period must be positive: " + resetPeriod);
+        }
         this.maxCountLimit = initialCountLimit;
         this.currentCount = 0;
         this.rwLock = new ReentrantReadWriteLock();
+        this.resetPeriodMillis = resetPeriod == null ? 0 : resetPeriod.toMillis();
+        this.currentTimer = Objects.requireNonNull(currentTimer, "currentTimer");
+        this.periodStart = currentTimer.millis();
+    }
+
+    /*
+     * Starts a new count if the current period has ended. Must be called under the write lock.
+     */
+    private void resetIfPeriodEnded() {
+        if (resetPeriodMillis == 0) {
+            return;
+        }
+        long now = currentTimer.millis();
+        if (now - periodStart >= resetPeriodMillis) {
+            periodStart = now - (now - periodStart) % resetPeriodMillis; // Keep periods aligned to the first one
+            currentCount = 0;
+        }
     }
 
     /*
@@ -30,6 +69,7 @@ public class AdaptiveBucket {
     public boolean consumeRequest() {
         rwLock.writeLock().lock(); // Acquire the write lock to ensure exclusive access
         try {
+            resetIfPeriodEnded();
             if (currentCount < maxCountLimit) {
                 currentCount++; // Increment current count
                 return true;
@@ -40,6 +80,25 @@ public class AdaptiveBucket {
         }
     }
 
+    /*
+     * Consumes several requests at once if the bucket has room for all of them.
+     * @param permits The number of requests to consume.
+     * @return true if the requests were consumed, false if they would exceed the limit.
+     */
+    public boolean consumeRequests(long permits) {
+        rwLock.writeLock().lock(); // Acquire the write lock to ensure exclusive access
+        try {
+            resetIfPeriodEnded();
+            if (permits <= maxCountLimit - currentCount) {
+                currentCount += permits; // Count every request
+                return true;
+            }
+            return false;
+        } finally {
+            rwLock.writeLock().unlock(); // Release the write lock
+        }
+    }
+
     /*
      * Adjusts the limit of the bucket to a new value.
      * @param newLimit The new limit to set for the bucket.
@@ -102,11 +161,12 @@ public class AdaptiveBucket {
      * @return The current count.
      */
     public long get() {
-        rwLock.readLock().lock(); // Acquire the read lock to allow concurrent reads
+        rwLock.writeLock().lock(); // Ending a period mutates the bucket, and a read lock cannot be upgraded
         try {
+            resetIfPeriodEnded();
             return currentCount; // Return the current count
         } finally {
-            rwLock.readLock().unlock(); // Release the read lock
+            rwLock.writeLock().unlock(); // Release the write lock
         }
     }
 
@@ -126,6 +186,36 @@ public class AdaptiveBucket {
         }
     }
 
+    /*
+     * Writes the limit and the current count to a snapshot.
+     * @param output The snapshot output.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        rwLock.readLock().lock(); // Acquire the read lock for a consistent view
+        try {
+            output.writeLong(maxCountLimit);
+            output.writeLong(currentCount);
+        } finally {
+            rwLock.readLock().unlock(); // Release the read lock
+        }
+    }
+
+    /*
+     * Restores the limit and the current count from a snapshot.
+     * @param input The snapshot input.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        long storedLimit = input.readLong();
+        long storedCount = input.readLong();
+        rwLock.writeLock().lock(); // Acquire the write lock to ensure exclusive access
+        try {
+            maxCountLimit = storedLimit;
+            currentCount = Math.max(0, Math.min(storedLimit, storedCount));
+        } finally {
+            rwLock.writeLock().unlock(); // Release the write lock
+        }
+    }
+
     /*
      * Compares this AdaptiveBucket with another object for equality.
      * Two AdaptiveBucket instances are considered equal if they have the same maxCountLimit,
@@ -1,5 +1,6 @@
 package titanVault.model;
 
+import java.time.Clock;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -7,7 +8,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * BurstRateLimiter implements a rate limiter with a burst capacity.
  * It allows a burst of requests up to a specified capacity, and then enforces
- * a rate limit based on the refill rate.
+ * a rate limit based on the refill rate. Tokens are added for every whole second
+ * elapsed on the clock, when the bucket is next used.
  */
 public class BurstRateBucket {
 
@@ -15,6 +17,8 @@ public class BurstRateBucket {
     private final long burstCapacity; // Maximum number of tokens allowed in the bucket
     private final AtomicLong currentTokens; // Current number of tokens in the bucket
     private final ReentrantReadWriteLock readWriteLock; // Lock to ensure thread safety
+    private final Clock currentTimer; // Clock to get the current time
+    private long lastRefillTime; // Time of the last refill, guarded by the write lock
 
     /**
      * Constructor to initialize the BurstRateLimiter.
@@ -23,11 +27,23 @@ public class BurstRateBucket {
      * @param burstCapacity The maximum number of tokens that the bucket can hold.
      */
     public BurstRateBucket(long refillRate, long burstCapacity) {
+        this(refillRate, burstCapacity, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor to initialize the BurstRateLimiter on a given clock.
+     *
+     * @param refillRate The rate at which tokens are added to the bucket (tokens per second).
+     * @param burstCapacity The maximum number of tokens that the bucket can hold.
+     * @param currentTimer Clock to get the current time.
+     */
+    public BurstRateBucket(long refillRate, long burstCapacity, Clock currentTimer) {
         this.refillRate = refillRate;
         this.burstCapacity = burstCapacity;
         this.currentTokens = new AtomicLong(burstCapacity);
         this.readWriteLock = new ReentrantReadWriteLock();
-        startRefillThread(); // Start the token refill thread
+        this.currentTimer = currentTimer;
+        this.lastRefillTime = currentTimer.millis();
     }
 
     /**
@@ -37,11 +53,29 @@ public class BurstRateBucket {
      * @return true if the request is allowed, false otherwise.
      */
     public boolean validateRequest(String userId) {
-        readWriteLock.readLock().lock(); // Acquire read lock
+        readWriteLock.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
         try {
+            refill();
             return currentTokens.get() > 0; // Check if there are tokens available
         } finally {
-            readWriteLock.readLock().unlock(); // Release read lock
+            readWriteLock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Validates if a request costing several tokens is allowed based on the rate limiting policy.
+     *
+     * @param userId  The user identifier (not used in this implementation).
+     * @param permits The number of tokens the request costs.
+     * @return true if that many tokens are available, false otherwise.
+     */
+    public boolean validateRequest(String userId, long permits) {
+        readWriteLock.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
+        try {
+            refill();
+            return currentTokens.get() >= permits; // Check if there are enough tokens available
+        } finally {
+            readWriteLock.writeLock().unlock(); // Release write lock
         }
     }
 
@@ -54,6 +88,7 @@ public class BurstRateBucket {
     public boolean consumeToken(String userId) {
         readWriteLock.writeLock().lock(); // Acquire write lock
         try {
+            refill();
             if (currentTokens.get() > 0) {
                 currentTokens.decrementAndGet(); // Deduct a token
                 return true;
@@ -66,25 +101,18 @@ public class BurstRateBucket {
     }
 
     /**
-     * Starts a thread that refills the bucket with tokens at the specified rate.
+     * Add the tokens of the whole seconds elapsed since the last refill. Callers hold the write lock.
      */
-    private void startRefillThread() {
-        new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(1000); // Wait for 1 second
-                    readWriteLock.writeLock().lock(); // Acquire write lock
-                    try {
-                        long newTokens = Math.min(burstCapacity, currentTokens.get() + refillRate);
-                        currentTokens.set(newTokens); // Refill tokens
-                    } finally {
-                        readWriteLock.writeLock().unlock(); // Release write lock
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt(); // Handle interruption
-                }
-            }
-        }).start();
+    private void refill() {
+        long secondsElapsed = (currentTimer.millis() - lastRefillTime) / 1000;
+        if (secondsElapsed <= 0) {
+            return;
+        }
+        lastRefillTime += secondsElapsed * 1000;
+        long tokensToAdd = refillRate > 0 && secondsElapsed > burstCapacity / refillRate
+                ? burstCapacity // Enough to fill the bucket, without overflowing
+                : secondsElapsed * refillRate;
+        currentTokens.set(Math.min(burstCapacity, currentTokens.get() + tokensToAdd)); // Refill tokens
     }
 
     /**
@@ -95,11 +123,12 @@ public class BurstRateBucket {
      */
     public long getRetryAfter(String userId) {
         // Returns the number of seconds to wait based on current token availability
-        readWriteLock.readLock().lock(); // Acquire read lock
+        readWriteLock.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
         try {
+            refill();
             return currentTokens.get() <= 0 ? 1 : 0; // Simplified retry logic
         } finally {
-            readWriteLock.readLock().unlock(); // Release read lock
+            readWriteLock.writeLock().unlock(); // Release write lock
         }
     }
 
@@ -1,6 +1,8 @@
 package titanVault.model;
 
-import java.time.Instant;
+import titanVault.events.CircuitBreakerTransitionEvent;
+
+import java.time.Clock;
 import java.util.Objects;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -14,6 +16,7 @@ public class CircuitBreaker {
     private State state = State.CLOSED; // Initial state of the circuit breaker
     private long lastFailureTime; // Timestamp of the last failure
     private long failureCount; // Count of consecutive failures
+    private final Clock currentTimer; // Clock to get the current time
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(); // Lock for thread safety
 
     /**
@@ -23,53 +26,86 @@ public class CircuitBreaker {
      * @param resetTimeoutMillis Time in milliseconds to wait before transitioning from OPEN to HALF_OPEN.
      */
     public CircuitBreaker(long failureThreshold, long resetTimeoutMillis) {
+        this(failureThreshold, resetTimeoutMillis, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor to initialize the CircuitBreaker with a specific clock.
+     *
+     * @param failureThreshold The number of failures that trigger the circuit breaker to open.
+     * @param resetTimeoutMillis Time in milliseconds to wait before transitioning from OPEN to HALF_OPEN.
+     * @param currentTimer Clock to get the current time.
+     */
+    public CircuitBreaker(long failureThreshold, long resetTimeoutMillis, Clock currentTimer) {
         this.failureThreshold = failureThreshold;
         this.resetTimeoutMillis = resetTimeoutMillis;
+        this.currentTimer = currentTimer;
     }
 
     /**
      * Checks if a call is allowed based on the current state of the circuit breaker.
+     * Once the reset timeout has passed, an OPEN circuit lets a single trial call through
+     * and stays HALF_OPEN until its outcome is recorded; a trial whose outcome is never
+     * recorded is replaced after another reset timeout.
      *
      * @return true if the call is allowed, false otherwise.
      */
     public boolean isCallAllowed() {
         readWriteLock.readLock().lock();
         try {
+            if (state == State.CLOSED) {
+                return true; // Fast path: no state change needed
+            }
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+        readWriteLock.writeLock().lock(); // OPEN and HALF_OPEN may change state
+        try {
+            long currentTime = currentTimer.millis();
             switch (state) {
                 case OPEN:
-                    /* If the circuit is OPEN, check if the reset timeout has passed.
-                       If it has, transition to HALF_OPEN state. */
-                    if (Instant.now().toEpochMilli() - lastFailureTime > resetTimeoutMillis) {
-                        readWriteLock.readLock().unlock(); // Unlock read lock before upgrading to write lock
-                        readWriteLock.writeLock().lock();
-                        try {
-                            if (Instant.now().toEpochMilli() - lastFailureTime > resetTimeoutMillis) {
-                                state = State.HALF_OPEN;
-                            }
-                        } finally {
-                            readWriteLock.writeLock().unlock();
-                        }
-                    } else {
-                        return false; // Circuit is OPEN and reset timeout hasn't passed yet
-                    }
-                    break;
                 case HALF_OPEN:
-                    /* If the circuit is HALF_OPEN, it means we are in a transitional state.
-                       Allow the call and transition to CLOSED state if successful. */
-                    readWriteLock.readLock().unlock(); // Unlock read lock before upgrading to write lock
-                    readWriteLock.writeLock().lock();
-                    try {
-                        state = State.CLOSED;
-                        failureCount = 0; // Reset failure count as we are transitioning to CLOSED
+                    /* Let a trial call through once the reset timeout has passed
+                       since the circuit opened or since the last trial started. */
+                    if (currentTime - lastFailureTime > resetTimeoutMillis) {
+                        transitionTo(State.HALF_OPEN);
+                        lastFailureTime = currentTime;
                         return true;
-                    } finally {
-                        readWriteLock.writeLock().unlock();
                     }
+                    return false;
                 default:
-                    /* If the circuit is CLOSED, the call is allowed. */
-                    break;
+                    return true;
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gives back a trial call that was let through but never made, e.g. because the caller
+     * failed before sending it, so the next call may try at once instead of after another
+     * reset timeout. Does nothing unless the circuit is HALF_OPEN.
+     */
+    public void releaseTrial() {
+        readWriteLock.writeLock().lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                lastFailureTime = currentTimer.millis() - resetTimeoutMillis - 1;
             }
-            return true;
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if the circuit is currently open, without letting a trial call through.
+     *
+     * @return true if calls are being rejected.
+     */
+    public boolean isOpen() {
+        readWriteLock.readLock().lock();
+        try {
+            return state != State.CLOSED;
         } finally {
             readWriteLock.readLock().unlock();
         }
@@ -85,8 +121,8 @@ public class CircuitBreaker {
             /* If the number of failures exceeds the threshold, open the circuit
                and record the time of the last failure. */
             if (failureCount >= failureThreshold) {
-                state = State.OPEN;
-                lastFailureTime = Instant.now().toEpochMilli();
+                transitionTo(State.OPEN);
+                lastFailureTime = currentTimer.millis();
             }
         } finally {
             readWriteLock.writeLock().unlock();
@@ -99,13 +135,26 @@ public class CircuitBreaker {
     public void recordSuccess() {
         readWriteLock.writeLock().lock();
         try {
-            state = State.CLOSED;
+            transitionTo(State.CLOSED);
             failureCount = 0; // Reset failure count on success
         } finally {
             readWriteLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Change the state, reporting actual changes to a running flight recording.
+     * Callers hold the write lock.
+     *
+     * @param next The new state.
+     */
+    private void transitionTo(State next) {
+        if (state != next) {
+            CircuitBreakerTransitionEvent.emit(state.name(), next.name(), failureCount);
+            state = next;
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
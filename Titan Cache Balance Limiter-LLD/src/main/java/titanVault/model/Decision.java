@@ -0,0 +1,57 @@
+package titanVault.model;
+
+import java.time.Duration;
+
+/**
+ * Outcome of an asynchronous admission: whether the request was allowed and, if it was
+ * not, how long until trying again may succeed.
+ */
+public class Decision {
+
+    /**
+     * A request that was allowed.
+     */
+    public static final Decision ALLOWED = new Decision(true, Duration.ZERO);
+
+    /**
+     * A request that was denied by a limiter that cannot tell when to retry.
+     */
+    public static final Decision DENIED = new Decision(false, Duration.ZERO);
+
+    private final boolean allowed; // Whether the request was allowed
+    private final Duration retryAfter; // Time until a retry may be allowed; zero when allowed or unknown
+
+    /**
+     * Constructor to initialize the Decision.
+     *
+     * @param allowed    Whether the request was allowed.
+     * @param retryAfter Time until a retry may be allowed; zero when allowed or unknown.
+     */
+    public Decision(boolean allowed, Duration retryAfter) {
+        this.allowed = allowed;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Create the decision for a denied request.
+     *
+     * @param retryAfterMillis Milliseconds until a retry may be allowed, or Long.MAX_VALUE if never.
+     * @return The decision.
+     */
+    public static Decision denied(long retryAfterMillis) {
+        return new Decision(false, Duration.ofMillis(retryAfterMillis));
+    }
+
+    public boolean isAllowed() {
+        return allowed;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "Decision{allowed=" + allowed + ", retryAfter=" + retryAfter + "}";
+    }
+}
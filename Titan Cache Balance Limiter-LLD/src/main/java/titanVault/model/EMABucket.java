@@ -2,6 +2,9 @@ package titanVault.model;
 
 import titanVault.config.EMAConfig;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Deque;
@@ -83,6 +86,40 @@ public class EMABucket {
         }
     }
 
+    /**
+     * Determines if a request counting as several requests is allowed, treating it as that
+     * many requests arriving at once: the first sees the time since the last request and
+     * the others see no gap. Like a single request, the arrivals update the average even
+     * when the request is denied.
+     *
+     * @param permits the number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean allowRequests(long permits) {
+        threadLocker.writeLock().lock();  // Acquire write lock to update the state
+        try {
+            long currentTime = currentTimer.millis();
+            long elapsedTime = currentTime - lastRequestTime;
+
+            // Retrieve the current alpha and maxCapacity from the configuration
+            EMAConfig config = configReference.get();
+            double alpha = config.getAlpha();
+            double maxCapacity = config.getMaxCapacity();
+
+            // The first arrival moves the EMA towards the gap, each further one towards zero
+            exponentialMovingAverage += alpha * (elapsedTime - exponentialMovingAverage);
+            exponentialMovingAverage *= Math.pow(1 - alpha, permits - 1);
+
+            // Update the last request time
+            lastRequestTime = currentTime;
+
+            // Check if the request is within allowed capacity
+            return exponentialMovingAverage <= maxCapacity;
+        } finally {
+            threadLocker.writeLock().unlock();  // Release write lock
+        }
+    }
+
     /**
      * Updates the bucket configuration without changing final fields.
      * The new configuration will be used for subsequent operations.
@@ -159,6 +196,41 @@ public class EMABucket {
         exponentialMovingAverage = ema;
     }
 
+    /**
+     * Writes the EMA value and the last request timestamp to a snapshot.
+     *
+     * @param output the snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        threadLocker.writeLock().lock();  // Acquire write lock for a consistent view
+        try {
+            output.writeDouble(exponentialMovingAverage);
+            output.writeLong(lastRequestTime);
+        } finally {
+            threadLocker.writeLock().unlock();  // Release write lock
+        }
+    }
+
+    /**
+     * Restores the EMA value and the last request timestamp from a snapshot.
+     * The gap since the last request, including the downtime, feeds the next update.
+     *
+     * @param input the snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        double storedAverage = input.readDouble();
+        long storedRequestTime = input.readLong();
+        threadLocker.writeLock().lock();  // Acquire write lock for restoring
+        try {
+            exponentialMovingAverage = storedAverage;
+            lastRequestTime = Math.min(storedRequestTime, currentTimer.millis());
+        } finally {
+            threadLocker.writeLock().unlock();  // Release write lock
+        }
+    }
+
     /**
      * Determines if this EMABucket is equal to another object.
      * Two EMABucket instances are considered equal if they have the same maxCapacity, alpha, and lastRequestTime.
@@ -1,5 +1,8 @@
 package titanVault.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -32,6 +35,15 @@ public class FixedWindowBucket {
      * @return true if the request is allowed, false otherwise.
      */
     public boolean allowRequest() {
+        return allowRequest(1);
+    }
+
+    /**
+     * Attempt to allow a request weighing several requests, counted all or none.
+     * @param requests The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean allowRequest(long requests) {
         readWriteLock.writeLock().lock();
         try {
             long currentTime = currentTimer.millis();
@@ -40,8 +52,8 @@ public class FixedWindowBucket {
                 windowStartTime = currentTime;
                 requestCounter = 0;
             }
-            if (requestCounter < maxCapacity) {
-                requestCounter++;
+            if (requestCounter + requests <= maxCapacity) {
+                requestCounter += requests;
                 return true;
             } else {
                 return false;
@@ -51,6 +63,35 @@ public class FixedWindowBucket {
         }
     }
 
+    /**
+     * Attempt to allow a request weighing several requests, or tell how long until the
+     * window resets.
+     * @param requests The number of requests the request counts for.
+     * @return 0 if the request is allowed, otherwise the milliseconds until the next window,
+     *         or Long.MAX_VALUE if no window can hold it.
+     */
+    public long allowRequestOrWaitTime(long requests) {
+        readWriteLock.writeLock().lock();
+        try {
+            long currentTime = currentTimer.millis();
+            if ((currentTime - windowStartTime) > windowInterval.toMillis()) {
+                // Reset the window if the current time is outside the window duration
+                windowStartTime = currentTime;
+                requestCounter = 0;
+            }
+            if (requestCounter + requests <= maxCapacity) {
+                requestCounter += requests;
+                return 0;
+            }
+            if (requests > maxCapacity) {
+                return Long.MAX_VALUE;
+            }
+            return windowStartTime + windowInterval.toMillis() + 1 - currentTime; // The window resets strictly after the interval
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Add a specific number of requests to the counter.
      * @param requests The number of requests to add.
@@ -116,6 +157,78 @@ public class FixedWindowBucket {
         }
     }
 
+    /**
+     * Describe the window for rate limit headers: the requests left and the time until
+     * the window resets.
+     * @return The current state of the window.
+     */
+    public RateLimitState getState() {
+        readWriteLock.readLock().lock();
+        try {
+            long currentTime = currentTimer.millis();
+            long windowEnd = windowStartTime + windowInterval.toMillis() + 1; // allowRequest resets strictly after the interval
+            if (currentTime >= windowEnd || requestCounter == 0) {
+                return new RateLimitState(maxCapacity, maxCapacity, Duration.ZERO, Duration.ZERO);
+            }
+            Duration resetAfter = Duration.ofMillis(windowEnd - currentTime);
+            long remaining = Math.max(0, maxCapacity - requestCounter);
+            return new RateLimitState(maxCapacity, remaining, resetAfter, remaining > 0 ? Duration.ZERO : resetAfter);
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Create a bucket with a new configuration whose current window is used to the same
+     * share of its capacity as this one. The window start carries over.
+     * @param newMaxCapacity Maximum number of requests the new bucket allows in a window.
+     * @param newWindowInterval Duration of the new window.
+     * @return The new bucket.
+     */
+    public FixedWindowBucket rescale(long newMaxCapacity, Duration newWindowInterval) {
+        readWriteLock.readLock().lock();
+        try {
+            double share = maxCapacity == 0 ? 0.0 : (double) requestCounter / maxCapacity;
+            long rescaledCounter = Math.min(newMaxCapacity, Math.round(share * newMaxCapacity));
+            return new FixedWindowBucket(newMaxCapacity, windowStartTime, rescaledCounter, newWindowInterval, currentTimer);
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write the bucket state (window start and request count) to a snapshot.
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        readWriteLock.writeLock().lock();
+        try {
+            output.writeLong(windowStartTime);
+            output.writeLong(requestCounter);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restore the bucket state from a snapshot. A window that ended during the
+     * downtime is reset by the next request as usual.
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        long storedWindowStart = input.readLong();
+        long storedRequests = input.readLong();
+        readWriteLock.writeLock().lock();
+        try {
+            windowStartTime = Math.min(storedWindowStart, currentTimer.millis());
+            requestCounter = Math.max(0, Math.min(maxCapacity, storedRequests));
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Set the number of requests in the bucket to a specific value.
      * @param request The number of requests to set.
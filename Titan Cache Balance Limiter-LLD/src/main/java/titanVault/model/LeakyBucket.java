@@ -1,5 +1,8 @@
 package titanVault.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Objects;
@@ -49,6 +52,31 @@ public class LeakyBucket {
         }
     }
 
+    /**
+     * Attempt to add several units of water for one request, or tell how long until
+     * enough has leaked for them to fit.
+     * @param amount The amount of water the request adds.
+     * @return 0 if the request is allowed, otherwise the milliseconds until it may fit,
+     *         or Long.MAX_VALUE if it never can.
+     */
+    public long allowRequestOrWaitTime(long amount) {
+        readWriteLock.writeLock().lock();
+        try {
+            leak(); // Leak the bucket based on elapsed time
+            if (waterCounter + amount <= maxCapacity) {
+                waterCounter += amount;
+                return 0;
+            }
+            if (amount > maxCapacity || waterLeakRate <= 0) {
+                return Long.MAX_VALUE;
+            }
+            long excess = waterCounter + amount - maxCapacity;
+            return Math.max(1, (long) Math.ceil(excess * leakageTimePeriod.toMillis() / waterLeakRate));
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Leak the bucket based on the time elapsed since the last leak.
      */
@@ -133,6 +161,39 @@ public class LeakyBucket {
         }
     }
 
+    /**
+     * Write the bucket state (water level and last leak timestamp) to a snapshot.
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        readWriteLock.writeLock().lock();
+        try {
+            output.writeLong(waterCounter);
+            output.writeLong(lastLeakTime);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restore the bucket state from a snapshot. The leak timestamp is kept as recorded,
+     * so the next leak drains what leaked during the downtime.
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        long storedWater = input.readLong();
+        long storedLeakTime = input.readLong();
+        readWriteLock.writeLock().lock();
+        try {
+            waterCounter = Math.max(0, Math.min(maxCapacity, storedWater));
+            lastLeakTime = Math.min(storedLeakTime, currentTimer.millis());
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
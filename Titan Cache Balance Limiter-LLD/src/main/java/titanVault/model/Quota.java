@@ -1,5 +1,11 @@
 package titanVault.model;
 
+import titanVault.persistence.QuotaLedger;
+import titanVault.persistence.QuotaWriteAheadLog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Objects;
@@ -17,6 +23,11 @@ public class Quota {
     private long quotaStartTime; // Start time of the current quota period
     private long usedQuota; // Amount of quota used
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(); // Lock for thread safety
+    private final QuotaLedger quotaLedger; // Optional durable store for the usage counters
+    private final int ledgerSlot; // Slot owned by this quota in the ledger
+    private final QuotaWriteAheadLog writeAheadLog; // Optional log receiving every debit
+    private final byte[] journalKey; // UTF-8 key of this quota in the write-ahead log, encoded once
+    private long appliedSequence; // Last log sequence reflected in the usage counters
 
     public Quota(long maxQuota, Duration quotaPeriod, Clock currentTimer) {
         this.maxQuota = maxQuota;
@@ -24,24 +35,100 @@ public class Quota {
         this.currentTimer = currentTimer;
         this.quotaStartTime = currentTimer.millis();
         this.usedQuota = 0;
+        this.quotaLedger = null;
+        this.ledgerSlot = -1;
+        this.writeAheadLog = null;
+        this.journalKey = null;
+    }
+
+    /**
+     * Constructor for a quota whose usage is persisted in a ledger slot.
+     * Usage already recorded in the slot is restored, so a restart keeps the current period.
+     *
+     * @param maxQuota     Maximum quota allowed.
+     * @param quotaPeriod  Period over which the quota is applied.
+     * @param currentTimer Clock to get the current time.
+     * @param quotaLedger  Ledger holding the usage counters.
+     * @param ledgerSlot   Slot owned by this quota in the ledger.
+     */
+    public Quota(long maxQuota, Duration quotaPeriod, Clock currentTimer,
+                 QuotaLedger quotaLedger, int ledgerSlot) {
+        this.maxQuota = maxQuota;
+        this.quotaPeriod = quotaPeriod;
+        this.currentTimer = currentTimer;
+        this.quotaLedger = quotaLedger;
+        this.ledgerSlot = ledgerSlot;
+        this.writeAheadLog = null;
+        this.journalKey = null;
+        long[] storedUsage = quotaLedger.readUsage(ledgerSlot);
+        if (storedUsage[0] > 0) {
+            this.quotaStartTime = storedUsage[0];
+            this.usedQuota = storedUsage[1];
+        } else {
+            this.quotaStartTime = currentTimer.millis();
+            this.usedQuota = 0;
+            quotaLedger.write(ledgerSlot, quotaStartTime, usedQuota);
+        }
+    }
+
+    /**
+     * Constructor for a quota whose debits are appended to a write-ahead log.
+     * The log record is written under the quota lock, so sequences follow the order
+     * in which debits were applied.
+     *
+     * @param maxQuota      Maximum quota allowed.
+     * @param quotaPeriod   Period over which the quota is applied.
+     * @param currentTimer  Clock to get the current time.
+     * @param writeAheadLog Log receiving every debit.
+     * @param journalKey    Key of this quota in the log.
+     * @throws IllegalArgumentException if the key is too long for the log.
+     */
+    public Quota(long maxQuota, Duration quotaPeriod, Clock currentTimer,
+                 QuotaWriteAheadLog writeAheadLog, String journalKey) {
+        this.maxQuota = maxQuota;
+        this.quotaPeriod = quotaPeriod;
+        this.currentTimer = currentTimer;
+        this.quotaStartTime = currentTimer.millis();
+        this.usedQuota = 0;
+        this.quotaLedger = null;
+        this.ledgerSlot = -1;
+        this.writeAheadLog = writeAheadLog;
+        this.journalKey = QuotaWriteAheadLog.encodeKey(journalKey);
     }
 
+    /**
+     * Debit the quota if enough of it is left. The debit is journaled before the usage in
+     * memory changes, so a failed append leaves the quota as it was.
+     *
+     * @param amount The amount to debit.
+     * @return true if the amount was debited, false if not enough quota is left.
+     * @throws RuntimeException if the ledger or the log rejects the debit; nothing is debited.
+     */
     public boolean consume(long amount) {
         readWriteLock.writeLock().lock();
         try {
             long currentTime = currentTimer.millis();
-            long elapsedTime = currentTime - quotaStartTime;
-            if (elapsedTime >= quotaPeriod.toMillis()) {
+            long periodStart = quotaStartTime;
+            long used = usedQuota;
+            if (currentTime - periodStart >= quotaPeriod.toMillis()) {
                 // Reset the quota period
-                quotaStartTime = currentTime;
-                usedQuota = 0;
+                periodStart = currentTime;
+                used = 0;
             }
-            if (usedQuota + amount <= maxQuota) {
-                usedQuota += amount;
-                return true;
-            } else {
+            if (used + amount > maxQuota) {
                 return false;
             }
+            long sequence = appliedSequence;
+            if (writeAheadLog != null) {
+                sequence = writeAheadLog.append(journalKey, periodStart, amount);
+            }
+            if (quotaLedger != null) {
+                quotaLedger.write(ledgerSlot, periodStart, used + amount); // Persist through the mapped slot
+            }
+            quotaStartTime = periodStart;
+            usedQuota = used + amount;
+            appliedSequence = sequence;
+            return true;
         } finally {
             readWriteLock.writeLock().unlock();
         }
@@ -62,6 +149,73 @@ public class Quota {
         }
     }
 
+    /**
+     * Apply a debit read back from the write-ahead log. Debits already reflected in
+     * the state (sequence not after the applied one) are ignored, and a debit from a
+     * different period starts that period over.
+     *
+     * @param sequence       Sequence of the log record.
+     * @param recordedStart  Start time of the period the debit belongs to.
+     * @param amount         The amount debited.
+     */
+    public void replayDebit(long sequence, long recordedStart, long amount) {
+        readWriteLock.writeLock().lock();
+        try {
+            if (sequence <= appliedSequence) {
+                return;
+            }
+            if (recordedStart != quotaStartTime) {
+                quotaStartTime = recordedStart;
+                usedQuota = 0;
+            }
+            usedQuota += amount;
+            appliedSequence = sequence;
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Write the quota state (period start, used quota and last applied log sequence) to a snapshot.
+     *
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        readWriteLock.readLock().lock();
+        try {
+            output.writeLong(quotaStartTime);
+            output.writeLong(usedQuota);
+            output.writeLong(appliedSequence);
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restore the quota state from a snapshot. A period that ended during the
+     * downtime is reset by the next consume as usual.
+     *
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        long storedStartTime = input.readLong();
+        long storedUsedQuota = input.readLong();
+        long storedSequence = input.readLong();
+        readWriteLock.writeLock().lock();
+        try {
+            quotaStartTime = Math.min(storedStartTime, currentTimer.millis());
+            usedQuota = Math.max(0, storedUsedQuota);
+            appliedSequence = storedSequence;
+            if (quotaLedger != null) {
+                quotaLedger.write(ledgerSlot, quotaStartTime, usedQuota);
+            }
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
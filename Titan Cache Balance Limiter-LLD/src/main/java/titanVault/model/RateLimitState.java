@@ -0,0 +1,52 @@
+package titanVault.model;
+
+import java.time.Duration;
+
+/**
+ * Point-in-time view of one key's limit, as advertised to clients in
+ * {@code RateLimit-*} and {@code Retry-After} headers.
+ */
+public class RateLimitState {
+
+    private final long limit; // Requests allowed per full bucket or window
+    private final long remaining; // Requests still allowed right now
+    private final Duration resetAfter; // Time until the bucket or window is back to its full limit
+    private final Duration retryAfter; // Time until at least one request is allowed again
+
+    /**
+     * Constructor to initialize the RateLimitState.
+     *
+     * @param limit      Requests allowed per full bucket or window.
+     * @param remaining  Requests still allowed right now.
+     * @param resetAfter Time until the bucket or window is back to its full limit.
+     * @param retryAfter Time until at least one request is allowed again; zero while requests remain.
+     */
+    public RateLimitState(long limit, long remaining, Duration resetAfter, Duration retryAfter) {
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetAfter = resetAfter;
+        this.retryAfter = retryAfter;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public Duration getResetAfter() {
+        return resetAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimitState{limit=" + limit + ", remaining=" + remaining
+                + ", resetAfter=" + resetAfter + ", retryAfter=" + retryAfter + "}";
+    }
+}
@@ -1,5 +1,8 @@
 package titanVault.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Objects;
@@ -54,6 +57,34 @@ public class SlidingWindowCounterBucket {
         }
     }
 
+    /**
+     * Attempt to allow a request counting as several requests. The count is raised by
+     * all the permits or not at all.
+     * @param permits The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean allowRequests(long permits) {
+        locker.writeLock().lock(); // Acquire write lock for thread-safe access
+        try {
+            long currentTime = currentTimer.millis();
+            long elapsedTime = (currentTime - windowStartTime);
+            long elapsedWindows = elapsedTime / windowSlideInterval.toMillis();
+            if (elapsedWindows > 0) {
+                // Reset the count based on the number of elapsed windows
+                requestCounter = Math.max(0, requestCounter - (int) elapsedWindows);
+                windowStartTime += elapsedWindows * windowSlideInterval.toMillis();
+            }
+            if (permits <= maxCapacity - requestCounter) {
+                requestCounter += permits;
+                return true;
+            } else {
+                return false;
+            }
+        } finally {
+            locker.writeLock().unlock(); // Release write lock
+        }
+    }
+
     /**
      * Add a specific count to the current request count.
      * @param count The count to add.
@@ -145,6 +176,39 @@ public class SlidingWindowCounterBucket {
         }
     }
 
+    /**
+     * Write the bucket state (window start and request count) to a snapshot.
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        locker.writeLock().lock(); // Acquire write lock for a consistent view
+        try {
+            output.writeLong(windowStartTime);
+            output.writeLong(requestCounter);
+        } finally {
+            locker.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Restore the bucket state from a snapshot. Windows that elapsed during the
+     * downtime are slid away by the next request as usual.
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        long storedWindowStart = input.readLong();
+        long storedRequests = input.readLong();
+        locker.writeLock().lock(); // Acquire write lock for restoring
+        try {
+            windowStartTime = Math.min(storedWindowStart, currentTimer.millis());
+            requestCounter = Math.max(0, Math.min(maxCapacity, storedRequests));
+        } finally {
+            locker.writeLock().unlock(); // Release write lock
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -1,15 +1,20 @@
 package titanVault.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Represents a Sliding Window Log Bucket for the Sliding Window Log Rate Limiter.
+ * The log is a ring of primitive timestamps that grows up to the capacity and is then
+ * reused, so steady-state requests neither box timestamps nor allocate list nodes.
  */
 
 public class SlidingWindowLogBucket {
@@ -17,7 +22,10 @@ public class SlidingWindowLogBucket {
     private final long maxCapacity; // Maximum number of requests allowed in the window
     private final Duration windowSlideInterval; // Duration of the sliding window
     private final Clock currentTimeClock; // Clock to get the current time
-    private final Deque<Long> logRequests = new ConcurrentLinkedDeque<>(); // Log | stack of requested timestamps
+    private final long windowMillis; // Duration of the sliding window in milliseconds
+    private long[] logRequests; // Ring of requested timestamps, oldest at logHead
+    private int logHead; // Index of the oldest timestamp
+    private int logSize; // Number of timestamps in the log
     private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Read-Write lock for thread safety
 
     public SlidingWindowLogBucket(long maxCapacity,
@@ -26,6 +34,8 @@ public class SlidingWindowLogBucket {
         this.maxCapacity = maxCapacity;
         this.windowSlideInterval = windowSlideInterval;
         this.currentTimeClock = currentTimeClock;
+        this.windowMillis = windowSlideInterval.toMillis();
+        this.logRequests = new long[(int) Math.max(1, Math.min(maxCapacity, 16))];
     }
 
     /**
@@ -33,8 +43,9 @@ public class SlidingWindowLogBucket {
      * @param currentTime The current time in milliseconds.
      */
     private void cleanOldTimestamps(long currentTime) {
-        while (!logRequests.isEmpty() && (currentTime - logRequests.peekLast()) > windowSlideInterval.toMillis()) {
-            logRequests.pollLast();
+        while (logSize > 0 && (currentTime - logRequests[logHead]) > windowMillis) {
+            logHead = (logHead + 1) % logRequests.length; // Drop the oldest timestamp
+            logSize--;
         }
     }
 
@@ -47,8 +58,8 @@ public class SlidingWindowLogBucket {
         lock.writeLock().lock(); // Use write lock to ensure exclusive access while cleaning and modifying the log
         try {
             cleanOldTimestamps(currentTime); // Clean timestamps outside the sliding window
-            if (logRequests.size() < maxCapacity) {
-                logRequests.push(currentTime); // Add the current request timestamp to the top of the stack
+            if (logSize < maxCapacity) {
+                addNewest(currentTime); // Append the current request timestamp as the newest in the ring
                 return true; // Request is allowed
             } else {
                 return false; // Request is denied
@@ -58,6 +69,29 @@ public class SlidingWindowLogBucket {
         }
     }
 
+    /**
+     * Attempt to allow a request counting as several requests, logging the current
+     * timestamp once per permit. The permits are logged all together or not at all.
+     * @param permits The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean allowRequests(long permits) {
+        long currentTime = currentTimeClock.millis();
+        lock.writeLock().lock(); // Use write lock to ensure exclusive access while cleaning and modifying the log
+        try {
+            cleanOldTimestamps(currentTime); // Clean timestamps outside the sliding window
+            if (permits > maxCapacity - logSize) {
+                return false; // Not enough room left in the window
+            }
+            for (long permit = 0; permit < permits; permit++) {
+                addNewest(currentTime);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
     /**
      * Add a specific timestamp to the log.
      * @param timestamp The timestamp to add.
@@ -66,8 +100,8 @@ public class SlidingWindowLogBucket {
         lock.writeLock().lock(); // Acquire write lock
         try {
             cleanOldTimestamps(timestamp); // Clean timestamps outside the sliding window
-            if (logRequests.size() < maxCapacity) {
-                logRequests.push(timestamp); // Add the timestamp to the top of the stack
+            if (logSize < maxCapacity) {
+                addNewest(timestamp); // Append the timestamp as the newest in the ring
             }
         } finally {
             lock.writeLock().unlock(); // Release write lock
@@ -82,7 +116,16 @@ public class SlidingWindowLogBucket {
     public boolean removeTimestamp(long timestamp) {
         lock.writeLock().lock(); // Acquire write lock
         try {
-            return logRequests.remove(timestamp); // Remove timestamp from the stack
+            for (int offset = logSize - 1; offset >= 0; offset--) { // Newest first, so a refund removes the latest matching request
+                if (logRequests[(logHead + offset) % logRequests.length] == timestamp) {
+                    for (int later = offset; later < logSize - 1; later++) {
+                        logRequests[(logHead + later) % logRequests.length] = logRequests[(logHead + later + 1) % logRequests.length];
+                    }
+                    logSize--;
+                    return true;
+                }
+            }
+            return false;
         } finally {
             lock.writeLock().unlock(); // Release write lock
         }
@@ -95,7 +138,7 @@ public class SlidingWindowLogBucket {
     public long getTimestamp() {
         lock.readLock().lock(); // Acquire read lock
         try {
-            return logRequests.size(); // Return the size of the stack
+            return logSize; // Return the number of timestamps in the ring
         } finally {
             lock.readLock().unlock(); // Release read lock
         }
@@ -108,14 +151,113 @@ public class SlidingWindowLogBucket {
     public void setTimestamp(Deque<Long> timestamps) {
         lock.writeLock().lock(); // Acquire write lock
         try {
-            logRequests.clear(); // Clear the existing timestamps
+            logSize = 0; // Clear the existing timestamps
             cleanOldTimestamps(currentTimeClock.millis()); // Ensure we are within the window
-            logRequests.addAll(timestamps); // Add all new timestamps to the stack
+            for (long timestamp : timestamps) {
+                addOldest(timestamp); // The collection lists timestamps newest first
+            }
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Write the timestamps still inside the window to a snapshot, newest first.
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        lock.writeLock().lock(); // Acquire write lock
+        try {
+            cleanOldTimestamps(currentTimeClock.millis()); // Expired entries are not worth storing
+            output.writeInt(logSize);
+            for (long timestamp : timestamps()) {
+                output.writeLong(timestamp);
+            }
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Restore the log from a snapshot. Timestamps that left the window during the
+     * downtime are dropped.
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        int storedCount = input.readInt();
+        long[] storedTimestamps = new long[storedCount];
+        for (int index = 0; index < storedCount; index++) {
+            storedTimestamps[index] = input.readLong();
+        }
+        lock.writeLock().lock(); // Acquire write lock
+        try {
+            long currentTime = currentTimeClock.millis();
+            logSize = 0;
+            for (long timestamp : storedTimestamps) {
+                long clamped = Math.min(timestamp, currentTime);
+                if (logSize < maxCapacity && (currentTime - clamped) <= windowMillis) {
+                    addOldest(clamped); // Keep the newest-first order of the log
+                }
+            }
         } finally {
             lock.writeLock().unlock(); // Release write lock
         }
     }
 
+    /**
+     * Append a timestamp as the newest entry, growing the ring if it is full.
+     * @param timestamp The timestamp to add.
+     */
+    private void addNewest(long timestamp) {
+        ensureRoom();
+        logRequests[(logHead + logSize) % logRequests.length] = timestamp;
+        logSize++;
+    }
+
+    /**
+     * Insert a timestamp as the oldest entry, growing the ring if it is full.
+     * @param timestamp The timestamp to add.
+     */
+    private void addOldest(long timestamp) {
+        ensureRoom();
+        logHead = (logHead - 1 + logRequests.length) % logRequests.length;
+        logRequests[logHead] = timestamp;
+        logSize++;
+    }
+
+    /**
+     * Double the ring when it is full, up to the capacity. Only happens while a user's
+     * traffic first ramps up.
+     */
+    private void ensureRoom() {
+        if (logSize < logRequests.length) {
+            return;
+        }
+        long grown = logRequests.length < maxCapacity
+                ? Math.min(maxCapacity, logRequests.length * 2L)
+                : logRequests.length * 2L; // setTimestamp may hold more than the capacity
+        long[] resized = new long[(int) Math.min(Integer.MAX_VALUE - 8, grown)];
+        for (int offset = 0; offset < logSize; offset++) {
+            resized[offset] = logRequests[(logHead + offset) % logRequests.length];
+        }
+        logRequests = resized;
+        logHead = 0;
+    }
+
+    /**
+     * Copy the log, newest first.
+     * @return The timestamps in the log.
+     */
+    private long[] timestamps() {
+        long[] copy = new long[logSize];
+        for (int offset = 0; offset < logSize; offset++) {
+            copy[offset] = logRequests[(logHead + logSize - 1 - offset) % logRequests.length];
+        }
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -123,14 +265,14 @@ public class SlidingWindowLogBucket {
         return (maxCapacity == that.maxCapacity
                 && Objects.equals(windowSlideInterval, that.windowSlideInterval)
                 && Objects.equals(currentTimeClock, that.currentTimeClock)
-                && Objects.equals(logRequests, that.logRequests)
+                && Arrays.equals(timestamps(), that.timestamps())
                 && Objects.equals(lock, that.lock));
     }
 
     @Override
     public int hashCode() {
         return (Objects.hash(maxCapacity, windowSlideInterval,
-                currentTimeClock, logRequests, lock));
+                currentTimeClock, Arrays.hashCode(timestamps()), lock));
     }
 
     @Override
@@ -139,7 +281,7 @@ public class SlidingWindowLogBucket {
                 "MaxCapacity=" + maxCapacity +
                 ", WindowSlideInterval=" + windowSlideInterval +
                 ", CurrentTimeClock=" + currentTimeClock +
-                ", LogRequests=" + logRequests +
+                ", LogRequests=" + Arrays.toString(timestamps()) +
                 ", Lock=" + lock +
                 '}');
     }
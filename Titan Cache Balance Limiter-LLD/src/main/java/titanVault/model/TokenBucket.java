@@ -1,8 +1,12 @@
 package titanVault.model;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -86,6 +90,50 @@ public class TokenBucket {
         }
     }
 
+    /**
+     * Attempt to consume several tokens from the bucket, all or none.
+     * @param tokens The number of tokens to consume.
+     * @return true if the tokens were consumed, false if fewer are available.
+     */
+    public boolean consume(long tokens) {
+        lock.writeLock().lock(); // Acquire write lock for consuming
+        try {
+            if (tokenCounter >= tokens) {
+                tokenCounter -= tokens;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Attempt to consume several tokens from the bucket, or tell how long until the
+     * refills bring enough of them.
+     * @param tokens The number of tokens to consume.
+     * @return 0 if the tokens were consumed, otherwise the milliseconds until enough are
+     *         available, or Long.MAX_VALUE if the bucket can never hold them.
+     */
+    public long consumeOrWaitTime(long tokens) {
+        lock.writeLock().lock(); // Refilling mutates the bucket
+        try {
+            refill();
+            if (tokenCounter >= tokens) {
+                tokenCounter -= tokens;
+                return 0;
+            }
+            if (tokens > maxCapacity || tokensPerPeriod <= 0) {
+                return Long.MAX_VALUE;
+            }
+            long refillsNeeded = (tokens - tokenCounter + tokensPerPeriod - 1) / tokensPerPeriod;
+            long nextRefillTime = lastRefillTime + refillsNeeded * refillPeriod.toMillis();
+            return Math.max(1, nextRefillTime - currentTimer.millis());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Add a specific number of tokens to the bucket.
      * @param token The number of tokens to add.
@@ -122,12 +170,12 @@ public class TokenBucket {
      * @return The current number of tokens in the bucket.
      */
     public long getToken() {
-        lock.readLock().lock(); // Acquire read lock for getting tokens
+        lock.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
         try {
             refill(); // Ensure the bucket is refilled before getting the current count
             return tokenCounter;
         } finally {
-            lock.readLock().unlock(); // Release read lock
+            lock.writeLock().unlock(); // Release write lock
         }
     }
 
@@ -145,6 +193,95 @@ public class TokenBucket {
         }
     }
 
+    /**
+     * Describe the bucket for rate limit headers: the tokens left, the time until the next
+     * refill brings one back, and the time until the bucket is full again.
+     * @return The current state of the bucket.
+     */
+    public RateLimitState getState() {
+        lock.writeLock().lock(); // Refilling mutates the bucket
+        try {
+            refill();
+            long periodMillis = refillPeriod.toMillis();
+            long nextRefillMillis = Math.max(0, lastRefillTime + periodMillis - currentTimer.millis());
+            long missingTokens = maxCapacity - tokenCounter;
+            long resetMillis = 0;
+            if (missingTokens > 0) {
+                long refillsNeeded = (missingTokens + tokensPerPeriod - 1) / tokensPerPeriod;
+                resetMillis = nextRefillMillis + (refillsNeeded - 1) * periodMillis;
+            }
+            return new RateLimitState(maxCapacity, tokenCounter, Duration.ofMillis(resetMillis),
+                    Duration.ofMillis(tokenCounter > 0 ? 0 : nextRefillMillis));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Create a bucket with a new configuration that holds the same share of its capacity
+     * as this one. The refill timestamp carries over, so the refill schedule is not reset.
+     * @param newMaxCapacity Maximum capacity of the new bucket
+     * @param newTokensPerPeriod Number of tokens the new bucket adds per period
+     * @param newRefillPeriod Duration of the new refill period
+     * @return The new bucket.
+     */
+    public TokenBucket rescale(long newMaxCapacity, long newTokensPerPeriod, Duration newRefillPeriod) {
+        lock.writeLock().lock(); // Refilling mutates the bucket
+        try {
+            refill();
+            TokenBucket rescaled = new TokenBucket(newMaxCapacity, newTokensPerPeriod, newRefillPeriod, currentTimer);
+            double share = maxCapacity == 0 ? 1.0 : (double) tokenCounter / maxCapacity;
+            rescaled.tokenCounter = Math.min(newMaxCapacity, Math.round(share * newMaxCapacity));
+            rescaled.lastRefillTime = lastRefillTime;
+            return rescaled;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the lock every operation of the bucket takes. It is reentrant, so a caller can
+     * hold it across several operations to make them one step, or take it first to time
+     * how long it waits for the bucket.
+     * @return The lock guarding the bucket.
+     */
+    public Lock getLock() {
+        return lock.writeLock();
+    }
+
+    /**
+     * Write the bucket state (tokens and last refill timestamp) to a snapshot.
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSnapshot(DataOutput output) throws IOException {
+        lock.writeLock().lock(); // Acquire write lock for a consistent view
+        try {
+            output.writeLong(tokenCounter);
+            output.writeLong(lastRefillTime);
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Restore the bucket state from a snapshot. The refill timestamp is kept as recorded,
+     * so the next refill credits the downtime; timestamps ahead of the clock are clamped.
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSnapshot(DataInput input) throws IOException {
+        long storedTokens = input.readLong();
+        long storedRefillTime = input.readLong();
+        lock.writeLock().lock(); // Acquire write lock for restoring
+        try {
+            tokenCounter = Math.max(0, Math.min(maxCapacity, storedTokens));
+            lastRefillTime = Math.min(storedRefillTime, currentTimer.millis());
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,288 @@
+package titanVault.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Token buckets of one configuration stored column by column: the token count and the
+ * last refill time of every bucket live in two parallel {@code long[]} arrays indexed by
+ * slot. A check touches two array elements instead of a bucket object, its lock and the
+ * lock's internal state, and millions of buckets cost 16 bytes each.
+ * <p>
+ * Each slot is updated with VarHandle compare-and-set. The refill time is stored shifted
+ * left by one, and its low bit marks a refill in progress: a thread claims the elapsed
+ * periods by setting the bit, adds their tokens, then publishes the new refill time with
+ * the bit cleared. A thread refilling the same slot meanwhile waits for the bit to clear,
+ * so no thread sees periods claimed without their tokens, and the tokens of a period are
+ * added exactly once. Requests with no period to claim never wait; the token count is
+ * lowered with its own CAS loop and capped at the capacity like {@link TokenBucket}.
+ */
+public class TokenBucketArray {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long maxCapacity; // Maximum capacity of each bucket
+    private final long tokensPerPeriod; // Number of tokens added per period
+    private final long refillMillis; // Duration of the refill period in milliseconds
+    private final Clock currentTimer; // Clock to get the current time
+    private final long[] tokenCounters; // Current number of tokens of each slot
+    private final long[] lastRefillTimes; // Timestamp of the last refill of each slot, shifted left by one, low bit set while refilling
+    private final AtomicInteger allocatedSlots = new AtomicInteger(); // Slots handed out so far
+
+    /**
+     * Constructor to initialize the TokenBucketArray.
+     *
+     * @param slots           Number of buckets the array can hold.
+     * @param maxCapacity     Maximum capacity of each bucket.
+     * @param tokensPerPeriod Number of tokens added per period.
+     * @param refillPeriod    Duration of the refill period, at least 1 ms.
+     * @param currentTimer    Clock to get the current time.
+     */
+    public TokenBucketArray(int slots, long maxCapacity, long tokensPerPeriod,
+                            Duration refillPeriod, Clock currentTimer) {
+        if (slots <= 0 || maxCapacity < 0 || tokensPerPeriod <= 0 || refillPeriod.toMillis() <= 0) {
+            throw new IllegalArgumentException("Slots, refill amount and refill period must be positive and capacity not negative: "
+                    + slots + ", " + maxCapacity + ", " + tokensPerPeriod + ", " + refillPeriod);
+        }
+        this.maxCapacity = maxCapacity;
+        this.tokensPerPeriod = tokensPerPeriod;
+        this.refillMillis = refillPeriod.toMillis();
+        this.currentTimer = currentTimer;
+        this.tokenCounters = new long[slots];
+        this.lastRefillTimes = new long[slots];
+    }
+
+    /**
+     * Hand out the next free slot as a full bucket.
+     *
+     * @return The slot of the new bucket.
+     * @throws IllegalStateException if every slot is taken.
+     */
+    public int allocateSlot() {
+        int slot = tryAllocateSlot();
+        if (slot < 0) {
+            throw new IllegalStateException("Token bucket array is full: " + tokenCounters.length + " slots");
+        }
+        return slot;
+    }
+
+    /**
+     * Hand out the next free slot as a full bucket, if one is left.
+     *
+     * @return The slot of the new bucket, or -1 if every slot is taken.
+     */
+    public int tryAllocateSlot() {
+        int slot = allocatedSlots.getAndIncrement();
+        if (slot >= tokenCounters.length) {
+            allocatedSlots.decrementAndGet();
+            return -1;
+        }
+        SLOTS.setRelease(lastRefillTimes, slot, currentTimer.millis() << 1);
+        SLOTS.setRelease(tokenCounters, slot, maxCapacity); // Start with full capacity
+        return slot;
+    }
+
+    /**
+     * Attempt to take one token from a bucket after refilling it.
+     *
+     * @param slot The slot of the bucket.
+     * @return true if a token was taken, false otherwise.
+     */
+    public boolean tryConsume(int slot) {
+        return tryConsume(slot, 1);
+    }
+
+    /**
+     * Attempt to take several tokens from a bucket after refilling it, all or none.
+     *
+     * @param slot    The slot of the bucket.
+     * @param permits The number of tokens to take.
+     * @return true if the tokens were taken, false if fewer are available.
+     */
+    public boolean tryConsume(int slot, long permits) {
+        refill(slot, currentTimer.millis());
+        while (true) {
+            long available = (long) SLOTS.getVolatile(tokenCounters, slot);
+            if (available < permits) {
+                return false;
+            }
+            if (SLOTS.compareAndSet(tokenCounters, slot, available, available - permits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Get the tokens a bucket holds after refilling it.
+     *
+     * @param slot The slot of the bucket.
+     * @return The current number of tokens.
+     */
+    public long getTokens(int slot) {
+        refill(slot, currentTimer.millis());
+        return (long) SLOTS.getVolatile(tokenCounters, slot);
+    }
+
+    /**
+     * Get the number of buckets the array can hold.
+     *
+     * @return The number of slots.
+     */
+    public int getSlots() {
+        return tokenCounters.length;
+    }
+
+    /**
+     * Get the number of slots handed out.
+     *
+     * @return The number of buckets in use.
+     */
+    public int getAllocatedSlots() {
+        return Math.min(allocatedSlots.get(), tokenCounters.length);
+    }
+
+    /**
+     * Refill every bucket in one sequential pass over the arrays, reading the clock once.
+     * Useful before a snapshot or a report; requests refill their own bucket lazily.
+     */
+    public void refillAll() {
+        long currentTime = currentTimer.millis();
+        int allocated = getAllocatedSlots();
+        for (int slot = 0; slot < allocated; slot++) {
+            refill(slot, currentTime);
+        }
+    }
+
+    /**
+     * Write every bucket to a snapshot as two contiguous columns: the token counts, then
+     * the refill times.
+     *
+     * @param output The snapshot output.
+     * @return The number of buckets written.
+     * @throws IOException if the output cannot be written.
+     */
+    public int writeSnapshot(DataOutput output) throws IOException {
+        refillAll();
+        int allocated = getAllocatedSlots();
+        output.writeInt(allocated);
+        for (int slot = 0; slot < allocated; slot++) {
+            output.writeLong((long) SLOTS.getVolatile(tokenCounters, slot));
+        }
+        for (int slot = 0; slot < allocated; slot++) {
+            output.writeLong(settledRefillStamp(slot) >> 1);
+        }
+        return allocated;
+    }
+
+    /**
+     * Write one bucket to a snapshot: its token count, then its refill time.
+     *
+     * @param slot   The slot of the bucket.
+     * @param output The snapshot output.
+     * @throws IOException if the output cannot be written.
+     */
+    public void writeSlot(int slot, DataOutput output) throws IOException {
+        refill(slot, currentTimer.millis());
+        output.writeLong((long) SLOTS.getVolatile(tokenCounters, slot));
+        output.writeLong(settledRefillStamp(slot) >> 1);
+    }
+
+    /**
+     * Restore one bucket written by {@link #writeSlot}, replacing what the slot held.
+     * Refill times ahead of the clock are clamped, like {@link #readSnapshot}.
+     *
+     * @param slot  The slot of the bucket.
+     * @param input The snapshot input.
+     * @throws IOException if the input cannot be read.
+     */
+    public void readSlot(int slot, DataInput input) throws IOException {
+        long storedTokens = input.readLong();
+        long storedRefillTime = input.readLong();
+        SLOTS.setVolatile(tokenCounters, slot, Math.max(0, Math.min(maxCapacity, storedTokens)));
+        SLOTS.setVolatile(lastRefillTimes, slot, Math.min(storedRefillTime, currentTimer.millis()) << 1);
+    }
+
+    /**
+     * Restore the buckets of a snapshot into slots 0 to n-1, replacing what they held.
+     * Tokens that would have refilled during the downtime are credited on next use. Which
+     * key owned a slot is not part of the columns; callers restore that mapping alongside.
+     *
+     * @param input The snapshot input.
+     * @return The number of buckets restored.
+     * @throws IOException if the input cannot be read or holds more buckets than the array.
+     */
+    public int readSnapshot(DataInput input) throws IOException {
+        int stored = input.readInt();
+        if (stored < 0 || stored > tokenCounters.length) {
+            throw new IOException("Snapshot holds " + stored + " buckets, the array has " + tokenCounters.length + " slots");
+        }
+        long currentTime = currentTimer.millis();
+        for (int slot = 0; slot < stored; slot++) {
+            SLOTS.setVolatile(tokenCounters, slot, Math.max(0, Math.min(maxCapacity, input.readLong())));
+        }
+        for (int slot = 0; slot < stored; slot++) {
+            SLOTS.setVolatile(lastRefillTimes, slot, Math.min(input.readLong(), currentTime) << 1);
+        }
+        allocatedSlots.accumulateAndGet(stored, Math::max);
+        return stored;
+    }
+
+    /**
+     * Add the tokens of the refill periods elapsed since the slot's last refill. Claiming
+     * the periods and adding their tokens is one step for every other refill of the slot.
+     */
+    private void refill(int slot, long currentTime) {
+        while (true) {
+            long refillStamp = settledRefillStamp(slot);
+            long lastRefillTime = refillStamp >> 1;
+            long refillPeriodsElapsed = (currentTime - lastRefillTime) / refillMillis;
+            if (refillPeriodsElapsed <= 0) {
+                return;
+            }
+            if (!SLOTS.compareAndSet(lastRefillTimes, slot, refillStamp, refillStamp | 1)) {
+                continue; // Another thread claimed the periods first; see what it left
+            }
+            long tokensToAdd = refillPeriodsElapsed > maxCapacity / tokensPerPeriod
+                    ? maxCapacity // Enough to fill any bucket, without overflowing
+                    : refillPeriodsElapsed * tokensPerPeriod;
+            while (true) {
+                long available = (long) SLOTS.getVolatile(tokenCounters, slot);
+                long refilled = Math.min(maxCapacity, available + tokensToAdd);
+                if (refilled == available || SLOTS.compareAndSet(tokenCounters, slot, available, refilled)) {
+                    break;
+                }
+            }
+            SLOTS.setRelease(lastRefillTimes, slot, (lastRefillTime + refillPeriodsElapsed * refillMillis) << 1);
+            return;
+        }
+    }
+
+    /**
+     * Read the refill stamp of a slot once no refill of it is in progress.
+     */
+    private long settledRefillStamp(int slot) {
+        long refillStamp = (long) SLOTS.getAcquire(lastRefillTimes, slot);
+        while ((refillStamp & 1) != 0) {
+            Thread.onSpinWait(); // Another thread is adding the tokens of the periods it claimed
+            refillStamp = (long) SLOTS.getAcquire(lastRefillTimes, slot);
+        }
+        return refillStamp;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenBucketArray{" +
+                "MaxCapacity=" + maxCapacity +
+                ", TokensPerPeriod=" + tokensPerPeriod +
+                ", RefillMillis=" + refillMillis +
+                ", Slots=" + tokenCounters.length +
+                ", AllocatedSlots=" + getAllocatedSlots() +
+                '}';
+    }
+}
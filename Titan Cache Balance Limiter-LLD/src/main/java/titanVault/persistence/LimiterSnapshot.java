@@ -0,0 +1,278 @@
+package titanVault.persistence;
+
+import titanVault.service.SnapshotRateLimiter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes and restores the bucket state of a {@link SnapshotRateLimiter} as a compact binary file.
+ * <p>
+ * Layout: a header (magic, version, limiter class, snapshot time on the limiter's clock,
+ * segment counts), the encoded segments, then a footer index of segment offsets, lengths
+ * and entry counts followed by the footer position. The segments of String keys come first, then those of
+ * primitive keys, a section of their own so the two key spaces stay apart. Segments are
+ * encoded and decoded in parallel; every entry is the key followed by the bucket state,
+ * whose timestamps are absolute so restored buckets credit the downtime. Version 2 files,
+ * which have no primitive key section, are still restored.
+ */
+public final class LimiterSnapshot {
+
+    private static final int SNAPSHOT_MAGIC = 0x544C534E; // Marks a file as a limiter snapshot
+    private static final int SNAPSHOT_VERSION = 3; // Layout version of the snapshot file
+    private static final int FIRST_LONG_KEY_VERSION = 3; // First version with a primitive key section
+    private static final int SEGMENTS_PER_THREAD = 4; // Extra segments smooth out uneven keys
+
+    private LimiterSnapshot() {
+    }
+
+    /**
+     * Write a snapshot of every key tracked by the limiter. Traffic is not paused:
+     * each bucket is locked only while its own state is copied.
+     *
+     * @param limiter      The limiter to snapshot.
+     * @param snapshotFile Target file; it is replaced atomically once complete.
+     * @param parallelism  Number of threads encoding segments.
+     * @return The number of entries written.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static long write(SnapshotRateLimiter limiter, Path snapshotFile, int parallelism) throws IOException {
+        String[] keys = limiter.snapshotKeys().toArray(new String[0]);
+        long[] longKeys = limiter.snapshotLongKeys();
+        int stringSegmentCount = Math.max(1, Math.min(keys.length, parallelism * SEGMENTS_PER_THREAD));
+        int longSegmentCount = Math.min(longKeys.length, parallelism * SEGMENTS_PER_THREAD);
+        Path partialFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".partial");
+
+        ExecutorService encoders = Executors.newFixedThreadPool(parallelism);
+        try {
+            long totalEntries = writeSegments(limiter, keys, longKeys, stringSegmentCount, longSegmentCount,
+                    partialFile, encoders);
+            Files.move(partialFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return totalEntries;
+        } finally {
+            encoders.shutdownNow();
+            Files.deleteIfExists(partialFile);
+        }
+    }
+
+    /**
+     * Write the header, the segments and the footer to the partial file and force them to disk.
+     */
+    private static long writeSegments(SnapshotRateLimiter limiter, String[] keys, long[] longKeys,
+                                      int stringSegmentCount, int longSegmentCount, Path partialFile,
+                                      ExecutorService encoders) throws IOException {
+        int segmentCount = stringSegmentCount + longSegmentCount;
+        try (FileChannel snapshotChannel = FileChannel.open(partialFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+            DataOutputStream header = new DataOutputStream(headerBytes);
+            header.writeInt(SNAPSHOT_MAGIC);
+            header.writeInt(SNAPSHOT_VERSION);
+            header.writeUTF(limiter.getClass().getName());
+            header.writeLong(limiter.getClock().millis());
+            header.writeInt(stringSegmentCount);
+            header.writeInt(longSegmentCount);
+            writeFully(snapshotChannel, ByteBuffer.wrap(headerBytes.toByteArray()));
+
+            List<Future<Segment>> pending = new ArrayList<>(segmentCount);
+            for (int segment = 0; segment < stringSegmentCount; segment++) {
+                int from = (int) ((long) keys.length * segment / stringSegmentCount);
+                int to = (int) ((long) keys.length * (segment + 1) / stringSegmentCount);
+                pending.add(encoders.submit(() -> encodeSegment(limiter, keys, from, to)));
+            }
+            for (int segment = 0; segment < longSegmentCount; segment++) {
+                int from = (int) ((long) longKeys.length * segment / longSegmentCount);
+                int to = (int) ((long) longKeys.length * (segment + 1) / longSegmentCount);
+                pending.add(encoders.submit(() -> encodeLongSegment(limiter, longKeys, from, to)));
+            }
+
+            long[] offsets = new long[segmentCount];
+            int[] lengths = new int[segmentCount];
+            int[] entryCounts = new int[segmentCount];
+            long totalEntries = 0;
+            for (int segment = 0; segment < segmentCount; segment++) {
+                Segment encoded = await(pending.get(segment));
+                offsets[segment] = snapshotChannel.position();
+                lengths[segment] = encoded.bytes.length;
+                entryCounts[segment] = encoded.entryCount;
+                totalEntries += encoded.entryCount;
+                writeFully(snapshotChannel, ByteBuffer.wrap(encoded.bytes));
+            }
+
+            long footerPosition = snapshotChannel.position();
+            ByteBuffer footer = ByteBuffer.allocate(segmentCount * 16 + 8);
+            for (int segment = 0; segment < segmentCount; segment++) {
+                footer.putLong(offsets[segment]).putInt(lengths[segment]).putInt(entryCounts[segment]);
+            }
+            footer.putLong(footerPosition).flip();
+            writeFully(snapshotChannel, footer);
+            snapshotChannel.force(true);
+            return totalEntries;
+        }
+    }
+
+    /**
+     * Restore a snapshot into the limiter, decoding segments in parallel.
+     *
+     * @param limiter      The limiter to restore into; it must be the type that wrote the snapshot.
+     * @param snapshotFile The snapshot file.
+     * @param parallelism  Number of threads decoding segments.
+     * @return The number of entries restored.
+     * @throws IOException if the file is not a snapshot of this limiter type or cannot be read.
+     */
+    public static long restore(SnapshotRateLimiter limiter, Path snapshotFile, int parallelism) throws IOException {
+        ExecutorService decoders = Executors.newFixedThreadPool(parallelism);
+        try (FileChannel snapshotChannel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(
+                    readAt(snapshotChannel, 0, (int) Math.min(snapshotChannel.size(), 1024))));
+            int version = header.readInt() == SNAPSHOT_MAGIC ? header.readInt() : -1;
+            if (version != SNAPSHOT_VERSION && version != FIRST_LONG_KEY_VERSION - 1) {
+                throw new IOException("Not a limiter snapshot (bad magic or version)");
+            }
+            String limiterType = header.readUTF();
+            if (!limiterType.equals(limiter.getClass().getName())) {
+                throw new IOException("Snapshot of " + limiterType + " cannot restore " + limiter.getClass().getName());
+            }
+            header.readLong(); // Snapshot time, kept for tooling
+            int stringSegmentCount = header.readInt();
+            int longSegmentCount = version >= FIRST_LONG_KEY_VERSION ? header.readInt() : 0;
+            int segmentCount = stringSegmentCount + longSegmentCount;
+
+            long footerPosition = ByteBuffer.wrap(readAt(snapshotChannel, snapshotChannel.size() - 8, 8)).getLong();
+            ByteBuffer footer = ByteBuffer.wrap(readAt(snapshotChannel, footerPosition, segmentCount * 16));
+
+            List<Callable<Integer>> segments = new ArrayList<>(segmentCount);
+            for (int segment = 0; segment < segmentCount; segment++) {
+                long offset = footer.getLong();
+                int length = footer.getInt();
+                int entryCount = footer.getInt();
+                boolean longKeys = segment >= stringSegmentCount;
+                segments.add(() -> longKeys
+                        ? decodeLongSegment(limiter, readAt(snapshotChannel, offset, length), entryCount)
+                        : decodeSegment(limiter, readAt(snapshotChannel, offset, length), entryCount));
+            }
+
+            long totalEntries = 0;
+            for (Future<Integer> decoded : decoders.invokeAll(segments)) {
+                totalEntries += await(decoded);
+            }
+            return totalEntries;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+            throw new IOException("Snapshot restore interrupted", e);
+        } finally {
+            decoders.shutdownNow();
+        }
+    }
+
+    private static Segment encodeSegment(SnapshotRateLimiter limiter, String[] keys, int from, int to) throws IOException {
+        ByteArrayOutputStream segmentBytes = new ByteArrayOutputStream(Math.max(32, (to - from) * 32));
+        DataOutputStream output = new DataOutputStream(segmentBytes);
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(64);
+        DataOutputStream entry = new DataOutputStream(entryBytes);
+        int entryCount = 0;
+        for (int index = from; index < to; index++) {
+            entryBytes.reset();
+            if (limiter.writeEntry(keys[index], entry)) { // Keys removed since the scan are skipped
+                output.writeUTF(keys[index]);
+                entryBytes.writeTo(output);
+                entryCount++;
+            }
+        }
+        output.flush();
+        return new Segment(segmentBytes.toByteArray(), entryCount);
+    }
+
+    private static Segment encodeLongSegment(SnapshotRateLimiter limiter, long[] keys, int from, int to) throws IOException {
+        ByteArrayOutputStream segmentBytes = new ByteArrayOutputStream(Math.max(32, (to - from) * 32));
+        DataOutputStream output = new DataOutputStream(segmentBytes);
+        ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(64);
+        DataOutputStream entry = new DataOutputStream(entryBytes);
+        int entryCount = 0;
+        for (int index = from; index < to; index++) {
+            entryBytes.reset();
+            if (limiter.writeLongEntry(keys[index], entry)) {
+                output.writeLong(keys[index]);
+                entryBytes.writeTo(output);
+                entryCount++;
+            }
+        }
+        output.flush();
+        return new Segment(segmentBytes.toByteArray(), entryCount);
+    }
+
+    private static int decodeSegment(SnapshotRateLimiter limiter, byte[] segmentBytes, int entryCount) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(segmentBytes));
+        for (int entry = 0; entry < entryCount; entry++) {
+            limiter.readEntry(input.readUTF(), input);
+        }
+        return entryCount;
+    }
+
+    private static int decodeLongSegment(SnapshotRateLimiter limiter, byte[] segmentBytes, int entryCount) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(segmentBytes));
+        for (int entry = 0; entry < entryCount; entry++) {
+            limiter.readLongEntry(input.readLong(), input);
+        }
+        return entryCount;
+    }
+
+    private static byte[] readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Snapshot truncated at " + (position + buffer.position()));
+            }
+        }
+        return buffer.array();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+            throw new IOException("Snapshot interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException("Snapshot segment failed", e.getCause());
+        }
+    }
+
+    /**
+     * An encoded segment and the number of entries it holds.
+     */
+    private static final class Segment {
+        private final byte[] bytes;
+        private final int entryCount;
+
+        private Segment(byte[] bytes, int entryCount) {
+            this.bytes = bytes;
+            this.entryCount = entryCount;
+        }
+    }
+}
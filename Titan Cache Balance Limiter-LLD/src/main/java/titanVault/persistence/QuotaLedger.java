@@ -0,0 +1,312 @@
+package titanVault.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory-mapped ledger that persists quota usage counters in fixed-size slots.
+ * Every quota owns one slot; writes go straight to the mapped page cache and are
+ * forced to disk in batches by a background flusher, so a restart recovers usage
+ * by mapping the file instead of replaying a log.
+ * <p>
+ * The period start and the used quota of a slot are two separate stores, so each slot
+ * carries a sequence stamp that is odd while a write is in progress: readers retry until
+ * they see the same even stamp before and after reading both values. A stamp left odd by
+ * a crash is evened out on open; since the start is written before the usage, the slot
+ * then holds the new period with the old usage, which only over-counts.
+ * <p>
+ * Open a ledger with {@link #open}, which starts the flusher once the ledger is built.
+ */
+public class QuotaLedger implements Closeable {
+
+    private static final int LEDGER_MAGIC = 0x5154514C; // Marks a file as a quota ledger
+    private static final int LEDGER_VERSION = 2; // Layout version of the ledger file
+    private static final int HEADER_SIZE = 64; // Bytes reserved for the file header
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int SLOT_COUNT_OFFSET = 12;
+
+    public static final int SLOT_SIZE = 64; // Bytes per quota slot
+    public static final int MAX_KEY_BYTES = 40; // Longest UTF-8 key that fits in a slot
+    private static final int KEY_LENGTH_OFFSET = 0; // Written last when a slot is claimed
+    private static final int KEY_OFFSET = 4;
+    private static final int SEQUENCE_OFFSET = 44; // Odd while the usage is being written
+    private static final int START_TIME_OFFSET = 48;
+    private static final int USED_QUOTA_OFFSET = 56;
+    private static final VarHandle SEQUENCES = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final FileChannel ledgerChannel; // Channel backing the mapping
+    private final MappedByteBuffer ledgerBuffer; // Mapped view of header and slots
+    private final int slotCapacity; // Maximum number of slots in the file
+    private final ConcurrentMap<String, Integer> slotIndex = new ConcurrentHashMap<>(); // Key to slot lookup rebuilt on open
+    private final long flushMillis; // Interval between background fsyncs
+    private final ScheduledExecutorService flushScheduler; // Periodically forces dirty pages to disk, started by open
+    private int slotCount; // Number of claimed slots, guarded by this
+    private volatile boolean dirty; // Set by writers, cleared by the flusher
+
+    /**
+     * Open (or create) a ledger file, rebuild the slot index from it and start the
+     * background flusher.
+     *
+     * @param ledgerFile    Path of the ledger file.
+     * @param slotCapacity  Number of slots to reserve; an existing larger file keeps its size.
+     * @param flushInterval Interval between background fsyncs of dirty pages.
+     * @return The open ledger.
+     * @throws IOException if the file cannot be mapped or is not a quota ledger.
+     */
+    public static QuotaLedger open(Path ledgerFile, int slotCapacity, Duration flushInterval) throws IOException {
+        QuotaLedger ledger = new QuotaLedger(ledgerFile, slotCapacity, flushInterval);
+        ledger.flushScheduler.scheduleWithFixedDelay(ledger::flush, ledger.flushMillis, ledger.flushMillis, TimeUnit.MILLISECONDS);
+        return ledger;
+    }
+
+    private QuotaLedger(Path ledgerFile, int slotCapacity, Duration flushInterval) throws IOException {
+        if (slotCapacity <= 0 || slotCapacity > (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE) {
+            throw new IllegalArgumentException("Slot capacity out of range: " + slotCapacity);
+        }
+        this.ledgerChannel = FileChannel.open(ledgerFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int storedCapacity = readStoredCapacity();
+            this.slotCapacity = Math.max(storedCapacity, slotCapacity);
+            this.ledgerBuffer = ledgerChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) this.slotCapacity * SLOT_SIZE);
+            this.ledgerBuffer.order(ByteOrder.nativeOrder());
+            if (storedCapacity == 0) {
+                writeHeader();
+            }
+            this.ledgerBuffer.putInt(CAPACITY_OFFSET, this.slotCapacity);
+            recoverSlots();
+        } catch (IOException | RuntimeException e) {
+            ledgerChannel.close();
+            throw e;
+        }
+
+        this.flushMillis = flushInterval.toMillis();
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread flusher = new Thread(runnable, "quota-ledger-flusher");
+            flusher.setDaemon(true);
+            return flusher;
+        });
+    }
+
+    /**
+     * Read the capacity recorded in an existing file header.
+     *
+     * @return The stored slot capacity, or 0 if the file is new.
+     * @throws IOException if the file exists but is not a quota ledger.
+     */
+    private int readStoredCapacity() throws IOException {
+        if (ledgerChannel.size() < HEADER_SIZE) {
+            return 0;
+        }
+        MappedByteBuffer header = ledgerChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        header.order(ByteOrder.nativeOrder());
+        if (header.getInt(MAGIC_OFFSET) != LEDGER_MAGIC || header.getInt(VERSION_OFFSET) != LEDGER_VERSION) {
+            throw new IOException("Not a quota ledger file (bad magic or version)");
+        }
+        return header.getInt(CAPACITY_OFFSET);
+    }
+
+    private void writeHeader() {
+        ledgerBuffer.putInt(MAGIC_OFFSET, LEDGER_MAGIC);
+        ledgerBuffer.putInt(VERSION_OFFSET, LEDGER_VERSION);
+        ledgerBuffer.putInt(SLOT_COUNT_OFFSET, 0);
+    }
+
+    /**
+     * Rebuild the in-memory key index by scanning the claimed slots, evening out the
+     * stamp of a write a crash interrupted.
+     * Slots are claimed in order, so the first slot without a key length ends the scan;
+     * this also covers a claim that was published but not yet counted in the header.
+     */
+    private void recoverSlots() {
+        int recovered = 0;
+        while (recovered < slotCapacity) {
+            int base = slotBase(recovered);
+            int keyLength = ledgerBuffer.getInt(base + KEY_LENGTH_OFFSET);
+            if (keyLength <= 0 || keyLength > MAX_KEY_BYTES) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            ledgerBuffer.get(base + KEY_OFFSET, keyBytes);
+            slotIndex.put(new String(keyBytes, StandardCharsets.UTF_8), recovered);
+            int sequence = ledgerBuffer.getInt(base + SEQUENCE_OFFSET);
+            if ((sequence & 1) != 0) {
+                ledgerBuffer.putInt(base + SEQUENCE_OFFSET, sequence + 1);
+            }
+            recovered++;
+        }
+        slotCount = recovered;
+        ledgerBuffer.putInt(SLOT_COUNT_OFFSET, recovered);
+    }
+
+    /**
+     * Get the slot for a key, claiming a new one if the key has none yet. Once every slot
+     * is claimed, keys that have a slot keep it and new keys get none.
+     *
+     * @param key The quota key (usually the user identifier).
+     * @return The slot number owned by the key, or -1 if the key is new and the ledger is full.
+     * @throws IllegalArgumentException if the key does not fit in a slot.
+     */
+    public int slotFor(String key) {
+        Integer slot = slotIndex.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length == 0 || keyBytes.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Quota key must be 1.." + MAX_KEY_BYTES + " UTF-8 bytes: " + key);
+        }
+        synchronized (this) {
+            slot = slotIndex.get(key);
+            if (slot != null) {
+                return slot;
+            }
+            if (slotCount == slotCapacity) {
+                return -1;
+            }
+            int claimed = slotCount;
+            int base = slotBase(claimed);
+            ledgerBuffer.put(base + KEY_OFFSET, keyBytes);
+            ledgerBuffer.putInt(base + SEQUENCE_OFFSET, 0);
+            ledgerBuffer.putLong(base + START_TIME_OFFSET, 0L);
+            ledgerBuffer.putLong(base + USED_QUOTA_OFFSET, 0L);
+            ledgerBuffer.putInt(base + KEY_LENGTH_OFFSET, keyBytes.length); // Publish the slot only once the key is complete
+            slotCount = claimed + 1;
+            ledgerBuffer.putInt(SLOT_COUNT_OFFSET, slotCount);
+            slotIndex.put(key, claimed);
+            dirty = true;
+            return claimed;
+        }
+    }
+
+    /**
+     * Get the quota period start time and the used quota stored in a slot, as written
+     * together by one {@link #write}.
+     *
+     * @param slot The slot number.
+     * @return The stored start time in milliseconds, 0 if the slot was never written, and the used quota.
+     */
+    public long[] readUsage(int slot) {
+        int base = slotBase(slot);
+        while (true) {
+            int sequence = (int) SEQUENCES.getAcquire(ledgerBuffer, base + SEQUENCE_OFFSET);
+            if ((sequence & 1) == 0) {
+                long quotaStartTime = ledgerBuffer.getLong(base + START_TIME_OFFSET);
+                long usedQuota = ledgerBuffer.getLong(base + USED_QUOTA_OFFSET);
+                VarHandle.loadLoadFence(); // Read both values before checking the stamp again
+                if ((int) SEQUENCES.getVolatile(ledgerBuffer, base + SEQUENCE_OFFSET) == sequence) {
+                    return new long[]{quotaStartTime, usedQuota};
+                }
+            }
+            Thread.onSpinWait(); // A write of the slot is in progress
+        }
+    }
+
+    /**
+     * Get the quota period start time stored in a slot.
+     *
+     * @param slot The slot number.
+     * @return The stored start time in milliseconds, or 0 if the slot was never written.
+     */
+    public long readQuotaStartTime(int slot) {
+        return readUsage(slot)[0];
+    }
+
+    /**
+     * Get the used quota stored in a slot.
+     *
+     * @param slot The slot number.
+     * @return The stored used quota.
+     */
+    public long readUsedQuota(int slot) {
+        return readUsage(slot)[1];
+    }
+
+    /**
+     * Record the usage of a quota, bracketed by the slot's sequence stamp. Callers
+     * serialise writes per slot; the data reaches disk on the next background flush.
+     *
+     * @param slot           The slot number.
+     * @param quotaStartTime Start time of the current quota period.
+     * @param usedQuota      Quota used in the current period.
+     */
+    public void write(int slot, long quotaStartTime, long usedQuota) {
+        int base = slotBase(slot);
+        int sequence = ledgerBuffer.getInt(base + SEQUENCE_OFFSET);
+        SEQUENCES.setOpaque(ledgerBuffer, base + SEQUENCE_OFFSET, sequence + 1);
+        VarHandle.storeStoreFence(); // Mark the write before changing either value
+        ledgerBuffer.putLong(base + START_TIME_OFFSET, quotaStartTime);
+        ledgerBuffer.putLong(base + USED_QUOTA_OFFSET, usedQuota);
+        SEQUENCES.setRelease(ledgerBuffer, base + SEQUENCE_OFFSET, sequence + 2);
+        if (!dirty) {
+            dirty = true; // Volatile write only on the first change since the last flush
+        }
+    }
+
+    /**
+     * Force every change since the last flush to disk.
+     */
+    public void flush() {
+        if (dirty) {
+            dirty = false;
+            ledgerBuffer.force();
+        }
+    }
+
+    /**
+     * Get the number of claimed slots.
+     *
+     * @return The number of keys stored in the ledger.
+     */
+    public synchronized int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Get the maximum number of slots in the ledger.
+     *
+     * @return The slot capacity.
+     */
+    public int getSlotCapacity() {
+        return slotCapacity;
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    /**
+     * Stop the flusher, force outstanding changes and close the file.
+     *
+     * @throws IOException if the channel cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        flushScheduler.shutdown();
+        try {
+            flushScheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+        }
+        dirty = true;
+        flush();
+        ledgerChannel.close();
+    }
+}
@@ -0,0 +1,548 @@
+package titanVault.persistence;
+
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+import titanVault.service.SnapshotRateLimiter;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, group-committed write-ahead log of quota debits.
+ * <p>
+ * Writers copy their record into the active group buffer under a short lock and return;
+ * a committer thread swaps the group out, writes it through a {@link FileChannel} and
+ * forces it once per group, so one fsync covers every debit gathered during the commit
+ * interval. A checkpoint rotates to a new segment, snapshots the limiter and deletes the
+ * older segments. Recovery restores the checkpoint and replays the remaining segments;
+ * each quota remembers the last sequence it applied, so records already in the
+ * checkpoint are skipped.
+ * <p>
+ * Record layout: payload length, then the payload (sequence, quota period start, amount,
+ * key length, key bytes), then a CRC32 of the payload. Replay stops at the first torn or
+ * corrupt record of a segment.
+ */
+public class QuotaWriteAheadLog implements Closeable {
+
+    public static final int MAX_KEY_BYTES = 1024; // Longest UTF-8 key accepted in a record
+    private static final int MIN_GROUP_BYTES = 4096; // Smallest group buffer that fits the largest record
+    private static final int PAYLOAD_FIXED_BYTES = 8 + 8 + 8 + 2; // Sequence, period start, amount, key length
+    private static final int RECORD_FIXED_BYTES = 4 + PAYLOAD_FIXED_BYTES + 4; // Plus length prefix and checksum
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint.snapshot";
+
+    private final Path logDirectory; // Directory holding the segments and the checkpoint
+    private final long commitIntervalNanos; // Longest time a debit waits for its group to be forced
+    private final ReentrantLock appendLock = new ReentrantLock(); // Guards the group buffers and sequences
+    private final Condition groupReady = appendLock.newCondition(); // Wakes the committer
+    private final Condition groupWritten = appendLock.newCondition(); // Wakes writers waiting for space or durability
+    private final CRC32 recordChecksum = new CRC32(); // Reused under the append lock
+    private final Thread committer; // Writes and forces the groups
+    private ByteBuffer activeGroup; // Group being filled by writers
+    private ByteBuffer committingGroup; // Group being written by the committer
+    private long lastSequence; // Last sequence handed to a writer
+    private long durableSequence; // Last sequence forced to disk
+    private long completedRotations; // Number of segment rotations done by the committer
+    private boolean rotationRequested; // Set by a checkpoint, cleared by the committer
+    private boolean syncRequested; // Set by a writer waiting for durability
+    private boolean closed; // Set once close starts
+    private IOException commitFailure; // First write failure; the log refuses appends after it
+    private FileChannel segmentChannel; // Current segment, used only by the committer
+    private long segmentFirstSequence; // First sequence of the current segment
+
+    /**
+     * Open (or create) a write-ahead log. A torn record at the end of the last segment
+     * is cut off and appending continues after the last valid record.
+     *
+     * @param logDirectory   Directory holding the log segments and the checkpoint.
+     * @param commitInterval Longest time a debit waits before its group is written and forced.
+     * @param groupBytes     Size of each group buffer; writers wait only when a group fills.
+     * @throws IOException if the directory or the last segment cannot be opened.
+     */
+    public QuotaWriteAheadLog(Path logDirectory, Duration commitInterval, int groupBytes) throws IOException {
+        if (commitInterval.isNegative() || commitInterval.isZero()) {
+            throw new IllegalArgumentException("Commit interval must be positive: " + commitInterval);
+        }
+        if (groupBytes < MIN_GROUP_BYTES) {
+            throw new IllegalArgumentException("Group buffer must be at least " + MIN_GROUP_BYTES + " bytes: " + groupBytes);
+        }
+        this.logDirectory = Files.createDirectories(logDirectory);
+        this.commitIntervalNanos = commitInterval.toNanos();
+        this.activeGroup = ByteBuffer.allocate(groupBytes);
+        this.committingGroup = ByteBuffer.allocate(groupBytes);
+
+        List<Path> segments = listSegments();
+        if (segments.isEmpty()) {
+            segmentFirstSequence = 1;
+            lastSequence = 0;
+        } else {
+            Path lastSegment = segments.get(segments.size() - 1);
+            segmentFirstSequence = firstSequenceOf(lastSegment);
+            SegmentScan scan = scanSegment(lastSegment, null);
+            lastSequence = Math.max(segmentFirstSequence - 1, scan.lastSequence);
+            try (FileChannel torn = FileChannel.open(lastSegment, StandardOpenOption.WRITE)) {
+                torn.truncate(scan.validLength); // Drop a record cut short by a crash
+            }
+        }
+        durableSequence = lastSequence;
+        segmentChannel = openSegment(segmentFirstSequence);
+
+        this.committer = new Thread(this::commitLoop, "quota-wal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Append a debit to the current group. The record is durable once the group is
+     * committed; callers needing that guarantee wait with {@link #awaitDurable(long)}.
+     *
+     * @param key            The quota key (usually the user identifier).
+     * @param quotaStartTime Start time of the quota period the debit belongs to.
+     * @param amount         The amount debited.
+     * @return The sequence assigned to the record.
+     * @throws IllegalArgumentException if the key is too long.
+     * @throws IllegalStateException if the log is closed.
+     * @throws UncheckedIOException if an earlier group could not be written.
+     */
+    public long append(String key, long quotaStartTime, long amount) {
+        return append(encodeKey(key), quotaStartTime, amount);
+    }
+
+    /**
+     * Append a debit for a key already encoded with {@link #encodeKey(String)}, so a quota
+     * journaling every debit encodes its key once.
+     *
+     * @param keyBytes       The UTF-8 quota key.
+     * @param quotaStartTime Start time of the quota period the debit belongs to.
+     * @param amount         The amount debited.
+     * @return The sequence assigned to the record.
+     * @throws IllegalArgumentException if the key is too long.
+     * @throws IllegalStateException if the log is closed.
+     * @throws UncheckedIOException if an earlier group could not be written.
+     */
+    public long append(byte[] keyBytes, long quotaStartTime, long amount) {
+        if (keyBytes.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Quota key must be at most " + MAX_KEY_BYTES + " UTF-8 bytes: " + keyBytes.length);
+        }
+        int recordBytes = RECORD_FIXED_BYTES + keyBytes.length;
+        appendLock.lock();
+        try {
+            ensureWritable();
+            while (activeGroup.remaining() < recordBytes) {
+                groupReady.signal(); // Group is full, commit it now
+                groupWritten.awaitUninterruptibly();
+                ensureWritable();
+            }
+            boolean firstInGroup = activeGroup.position() == 0;
+            long sequence = ++lastSequence;
+            int recordStart = activeGroup.position();
+            activeGroup.putInt(PAYLOAD_FIXED_BYTES + keyBytes.length);
+            activeGroup.putLong(sequence);
+            activeGroup.putLong(quotaStartTime);
+            activeGroup.putLong(amount);
+            activeGroup.putShort((short) keyBytes.length);
+            activeGroup.put(keyBytes);
+            recordChecksum.reset();
+            recordChecksum.update(activeGroup.array(), recordStart + 4, PAYLOAD_FIXED_BYTES + keyBytes.length);
+            activeGroup.putInt((int) recordChecksum.getValue());
+            if (firstInGroup) {
+                groupReady.signal(); // Start the commit interval of this group
+            }
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Encode a quota key as it is stored in a record.
+     *
+     * @param key The quota key.
+     * @return The UTF-8 bytes of the key.
+     * @throws IllegalArgumentException if the key is too long.
+     */
+    public static byte[] encodeKey(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Quota key must be at most " + MAX_KEY_BYTES + " UTF-8 bytes: " + key);
+        }
+        return keyBytes;
+    }
+
+    /**
+     * Wait until a record and every record before it are forced to disk.
+     *
+     * @param sequence The sequence returned by {@link #append}.
+     * @throws IOException if the group holding the record could not be written.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        appendLock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (commitFailure != null) {
+                    throw commitFailure;
+                }
+                if (closed && !committer.isAlive()) {
+                    throw new IOException("Write-ahead log closed before sequence " + sequence + " was committed");
+                }
+                syncRequested = true;
+                groupReady.signal();
+                groupWritten.awaitUninterruptibly();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Write a checkpoint of the limiter and delete the segments it covers.
+     * Traffic keeps flowing: the log rotates to a new segment first, so every record
+     * in the older segments was applied before the snapshot started.
+     *
+     * @param limiter     The limiter whose quotas append to this log.
+     * @param parallelism Number of threads encoding the snapshot.
+     * @return The last sequence covered by the checkpoint.
+     * @throws IOException if the rotation or the snapshot fails.
+     */
+    public synchronized long checkpoint(SnapshotRateLimiter limiter, int parallelism) throws IOException {
+        long checkpointSequence;
+        appendLock.lock();
+        try {
+            ensureWritable();
+            checkpointSequence = lastSequence;
+            long targetRotation = completedRotations + 1;
+            rotationRequested = true;
+            groupReady.signal();
+            while (completedRotations < targetRotation) {
+                if (commitFailure != null) {
+                    throw commitFailure;
+                }
+                groupWritten.awaitUninterruptibly();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+
+        LimiterSnapshot.write(limiter, logDirectory.resolve(CHECKPOINT_FILE), parallelism);
+        long currentSegment = currentSegmentFirstSequence();
+        for (Path segment : listSegments()) {
+            if (firstSequenceOf(segment) < currentSegment) {
+                Files.delete(segment);
+            }
+        }
+        return checkpointSequence;
+    }
+
+    /**
+     * Rebuild a limiter after a crash: restore the checkpoint, if any, then replay
+     * every remaining debit. Call this before the limiter serves traffic.
+     *
+     * @param limiter     The limiter to rebuild; its quotas should append to this log.
+     * @param parallelism Number of threads decoding the checkpoint.
+     * @return The number of debits replayed from the segments.
+     * @throws IOException if the checkpoint or a segment cannot be read.
+     */
+    public long recover(QuotasTokenBucketRateServiceLimiter limiter, int parallelism) throws IOException {
+        Path checkpointFile = logDirectory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpointFile)) {
+            LimiterSnapshot.restore(limiter, checkpointFile, parallelism);
+        }
+        return replay(limiter::replayDebit);
+    }
+
+    /**
+     * Read every valid record of the log, oldest first.
+     *
+     * @param handler Receives each debit.
+     * @return The number of records read.
+     * @throws IOException if a segment cannot be read.
+     */
+    public long replay(DebitHandler handler) throws IOException {
+        long replayed = 0;
+        for (Path segment : listSegments()) {
+            replayed += scanSegment(segment, handler).recordCount;
+        }
+        return replayed;
+    }
+
+    /**
+     * Get the last sequence handed to a writer.
+     *
+     * @return The last assigned sequence.
+     */
+    public long getLastSequence() {
+        appendLock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Get the last sequence forced to disk.
+     *
+     * @return The last durable sequence.
+     */
+    public long getDurableSequence() {
+        appendLock.lock();
+        try {
+            return durableSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Commit the pending group, stop the committer and close the current segment.
+     *
+     * @throws IOException if the last group could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            groupReady.signal();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+        }
+        segmentChannel.close();
+        if (commitFailure != null) {
+            throw commitFailure;
+        }
+    }
+
+    private void ensureWritable() {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        if (commitFailure != null) {
+            throw new UncheckedIOException("Write-ahead log failed", commitFailure);
+        }
+    }
+
+    /**
+     * Committer loop: wait for the first record of a group, let the group gather
+     * records for the commit interval, then write and force it in one go.
+     */
+    private void commitLoop() {
+        while (true) {
+            ByteBuffer group;
+            long groupLastSequence;
+            boolean rotate;
+            boolean stopping;
+            appendLock.lock();
+            try {
+                while (!closed && !rotationRequested && activeGroup.position() == 0) {
+                    groupReady.awaitUninterruptibly();
+                }
+                long remainingNanos = commitIntervalNanos;
+                int fullMark = activeGroup.capacity() / 2;
+                while (!closed && !rotationRequested && !syncRequested
+                        && activeGroup.position() < fullMark && remainingNanos > 0) {
+                    try {
+                        remainingNanos = groupReady.awaitNanos(remainingNanos);
+                    } catch (InterruptedException e) {
+                        remainingNanos = 0; // Commit right away
+                    }
+                }
+                group = activeGroup;
+                activeGroup = committingGroup;
+                committingGroup = group;
+                groupLastSequence = lastSequence;
+                rotate = rotationRequested;
+                rotationRequested = false;
+                syncRequested = false;
+                stopping = closed;
+            } finally {
+                appendLock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                group.flip();
+                if (group.hasRemaining()) {
+                    while (group.hasRemaining()) {
+                        segmentChannel.write(group);
+                    }
+                    segmentChannel.force(false);
+                }
+                if (rotate && groupLastSequence + 1 != segmentFirstSequence) {
+                    segmentChannel.close();
+                    segmentChannel = openSegment(groupLastSequence + 1);
+                    setSegmentFirstSequence(groupLastSequence + 1);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                group.clear();
+            }
+
+            appendLock.lock();
+            try {
+                if (failure != null) {
+                    commitFailure = failure;
+                } else {
+                    durableSequence = groupLastSequence;
+                    if (rotate) {
+                        completedRotations++;
+                    }
+                }
+                groupWritten.signalAll();
+            } finally {
+                appendLock.unlock();
+            }
+            if (stopping || failure != null) {
+                return;
+            }
+        }
+    }
+
+    private void setSegmentFirstSequence(long firstSequence) {
+        appendLock.lock();
+        try {
+            segmentFirstSequence = firstSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private long currentSegmentFirstSequence() {
+        appendLock.lock();
+        try {
+            return segmentFirstSequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(logDirectory.resolve(segmentName(firstSequence)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return channel;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().forEach(segments::add); // Zero-padded names sort by first sequence
+        }
+        return segments;
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Read the valid records of a segment, stopping at the first torn or corrupt one.
+     *
+     * @param segment The segment file.
+     * @param handler Receives each record, or null to only scan.
+     * @return The valid length, record count and last sequence of the segment.
+     * @throws IOException if the file cannot be read.
+     */
+    private static SegmentScan scanSegment(Path segment, DebitHandler handler) throws IOException {
+        SegmentScan scan = new SegmentScan();
+        CRC32 checksum = new CRC32();
+        byte[] payload = new byte[PAYLOAD_FIXED_BYTES + MAX_KEY_BYTES];
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int payloadLength;
+                int storedChecksum;
+                try {
+                    payloadLength = input.readInt();
+                    if (payloadLength < PAYLOAD_FIXED_BYTES || payloadLength > payload.length) {
+                        break;
+                    }
+                    input.readFully(payload, 0, payloadLength);
+                    storedChecksum = input.readInt();
+                } catch (EOFException e) {
+                    break; // Clean end or a record cut short by a crash
+                }
+                checksum.reset();
+                checksum.update(payload, 0, payloadLength);
+                if ((int) checksum.getValue() != storedChecksum) {
+                    break;
+                }
+                ByteBuffer record = ByteBuffer.wrap(payload, 0, payloadLength);
+                long sequence = record.getLong();
+                long quotaStartTime = record.getLong();
+                long amount = record.getLong();
+                int keyLength = record.getShort();
+                if (keyLength != payloadLength - PAYLOAD_FIXED_BYTES) {
+                    break;
+                }
+                if (handler != null) {
+                    handler.apply(new String(payload, PAYLOAD_FIXED_BYTES, keyLength, StandardCharsets.UTF_8),
+                            sequence, quotaStartTime, amount);
+                }
+                scan.validLength += 4 + payloadLength + 4;
+                scan.recordCount++;
+                scan.lastSequence = sequence;
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Receives the debits read back from the log.
+     */
+    @FunctionalInterface
+    public interface DebitHandler {
+
+        /**
+         * Apply one debit.
+         *
+         * @param key            The quota key.
+         * @param sequence       Sequence of the record.
+         * @param quotaStartTime Start time of the quota period the debit belongs to.
+         * @param amount         The amount debited.
+         */
+        void apply(String key, long sequence, long quotaStartTime, long amount);
+    }
+
+    /**
+     * Result of scanning one segment.
+     */
+    private static final class SegmentScan {
+        private long validLength; // Bytes up to the end of the last valid record
+        private long recordCount; // Number of valid records
+        private long lastSequence; // Sequence of the last valid record
+    }
+}
@@ -0,0 +1,320 @@
+package titanVault.server;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Asynchronous client for a {@link LimiterServer}.
+ * <p>
+ * Keeps a fixed pool of connections and spreads requests over them round-robin. Every
+ * connection pipelines: callers write their frame and get a future back straight away,
+ * and a reader thread per connection completes the futures as responses arrive. Limiter
+ * names are resolved to ids once and cached. A connection that breaks fails its pending
+ * futures and is reopened by the next request that lands on it.
+ */
+public class LimiterClient implements Closeable {
+
+    private final InetSocketAddress serverAddress; // Where connections are opened
+    private final AtomicReferenceArray<PooledConnection> pool; // Connections to the server, replaced when broken
+    private final Duration requestTimeout; // Time to wait for a response before failing the future
+    private final AtomicInteger nextConnection = new AtomicInteger(); // Round-robin position
+    private final ConcurrentMap<String, CompletableFuture<Integer>> limiterIds = new ConcurrentHashMap<>(); // Resolved limiter ids by name
+    private boolean closed; // Set by close, guarded by pool
+
+    /**
+     * Constructor to initialize the LimiterClient.
+     *
+     * @param serverAddress  Address of the limiter server.
+     * @param poolSize       Number of connections to open.
+     * @param requestTimeout Time to wait for a response before failing the future.
+     * @throws IOException if a connection cannot be opened.
+     */
+    public LimiterClient(InetSocketAddress serverAddress, int poolSize, Duration requestTimeout) throws IOException {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive: " + poolSize);
+        }
+        this.serverAddress = serverAddress;
+        this.requestTimeout = requestTimeout;
+        this.pool = new AtomicReferenceArray<>(poolSize);
+        try {
+            for (int index = 0; index < poolSize; index++) {
+                pool.set(index, PooledConnection.open(serverAddress, index, requestTimeout));
+            }
+        } catch (IOException e) {
+            closeConnections();
+            throw e;
+        }
+    }
+
+    /**
+     * Ask the server whether one request is allowed.
+     *
+     * @param limiterName Name of the limiter on the server.
+     * @param userId      The user identifier.
+     * @return A future completing with true if the request is allowed.
+     */
+    public CompletableFuture<Boolean> check(String limiterName, String userId) {
+        return checkBatch(limiterName, List.of(userId)).thenApply(decisions -> decisions[0]);
+    }
+
+    /**
+     * Ask the server about a batch of requests in a single frame.
+     *
+     * @param limiterName Name of the limiter on the server.
+     * @param userIds     The user identifiers, one per request; a key may repeat.
+     * @return A future completing with one decision per key, in order.
+     * @throws IllegalArgumentException if the batch is empty, has too many keys or does not fit in one frame.
+     */
+    public CompletableFuture<boolean[]> checkBatch(String limiterName, List<String> userIds) {
+        if (userIds.isEmpty() || userIds.size() > LimiterProtocol.MAX_KEYS_PER_FRAME) {
+            throw new IllegalArgumentException("A batch holds between 1 and " + LimiterProtocol.MAX_KEYS_PER_FRAME + " keys: " + userIds.size());
+        }
+        byte[][] keys = new byte[userIds.size()][];
+        long payloadBytes = 2 + 2;
+        for (int index = 0; index < keys.length; index++) {
+            keys[index] = encodeKey(userIds.get(index));
+            payloadBytes += 2 + keys[index].length;
+        }
+        if (4 + 1 + payloadBytes > LimiterProtocol.MAX_FRAME_BYTES) {
+            throw new IllegalArgumentException("Batch of " + payloadBytes + " bytes does not fit in a frame of " + LimiterProtocol.MAX_FRAME_BYTES + " bytes");
+        }
+        int frameBytes = (int) payloadBytes;
+        return resolve(limiterName).thenCompose(limiterId -> {
+            ByteBuffer payload = ByteBuffer.allocate(frameBytes);
+            payload.putShort((short) (int) limiterId);
+            payload.putShort((short) keys.length);
+            for (byte[] key : keys) {
+                payload.putShort((short) key.length);
+                payload.put(key);
+            }
+            return send(LimiterProtocol.CHECK, payload.array()).thenApply(response -> decode(response, keys.length, limiterName));
+        });
+    }
+
+    private CompletableFuture<Integer> resolve(String limiterName) {
+        CompletableFuture<Integer> cached = limiterIds.get(limiterName);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] name = encodeKey(limiterName);
+        ByteBuffer payload = ByteBuffer.allocate(2 + name.length);
+        payload.putShort((short) name.length);
+        payload.put(name);
+        CompletableFuture<Integer> resolved = send(LimiterProtocol.RESOLVE, payload.array()).thenApply(response -> {
+            byte status = response.get();
+            if (status == LimiterProtocol.UNKNOWN_LIMITER) {
+                throw new IllegalArgumentException("Unknown limiter: " + limiterName);
+            }
+            if (status != LimiterProtocol.OK) {
+                throw new IllegalStateException("Server rejected the lookup with status " + status);
+            }
+            return Short.toUnsignedInt(response.getShort());
+        });
+        resolved.whenComplete((id, failure) -> {
+            if (failure == null) {
+                limiterIds.putIfAbsent(limiterName, resolved);
+            }
+        });
+        return resolved;
+    }
+
+    private static boolean[] decode(ByteBuffer response, int keyCount, String limiterName) {
+        byte status = response.get();
+        if (status == LimiterProtocol.UNKNOWN_LIMITER) {
+            throw new IllegalArgumentException("Unknown limiter: " + limiterName);
+        }
+        if (status != LimiterProtocol.OK || Short.toUnsignedInt(response.getShort()) != keyCount) {
+            throw new IllegalStateException("Server rejected the batch with status " + status);
+        }
+        boolean[] decisions = new boolean[keyCount];
+        int bitsetStart = response.position();
+        for (int key = 0; key < keyCount; key++) {
+            decisions[key] = (response.get(bitsetStart + (key >>> 3)) & (1 << (key & 7))) != 0;
+        }
+        return decisions;
+    }
+
+    private static byte[] encodeKey(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LimiterProtocol.MAX_KEY_BYTES) {
+            throw new IllegalArgumentException("Key is longer than " + LimiterProtocol.MAX_KEY_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * Send a frame on the next connection of the pool, reopening it first if it broke.
+     */
+    private CompletableFuture<ByteBuffer> send(byte operation, byte[] payload) {
+        int index = Math.floorMod(nextConnection.getAndIncrement(), pool.length());
+        PooledConnection connection = pool.get(index);
+        if (connection == null || connection.failure != null) {
+            try {
+                connection = reopen(index);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(new UncheckedIOException(e));
+            } catch (IllegalStateException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return connection.send(operation, payload);
+    }
+
+    private PooledConnection reopen(int index) throws IOException {
+        synchronized (pool) {
+            if (closed) {
+                throw new IllegalStateException("Limiter client is closed");
+            }
+            PooledConnection connection = pool.get(index);
+            if (connection == null || connection.failure != null) {
+                if (connection != null) {
+                    connection.close(); // Stops its reader if only a write failed
+                }
+                connection = PooledConnection.open(serverAddress, index, requestTimeout); // Another caller may have reopened it already
+                pool.set(index, connection);
+            }
+            return connection;
+        }
+    }
+
+    /**
+     * Close every connection; pending futures fail and later requests fail straight away.
+     */
+    @Override
+    public void close() {
+        closeConnections();
+    }
+
+    private void closeConnections() {
+        synchronized (pool) {
+            closed = true;
+            for (int index = 0; index < pool.length(); index++) {
+                PooledConnection connection = pool.get(index);
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * One pipelined connection with its reader thread.
+     */
+    private static final class PooledConnection {
+        private final SocketChannel channel; // Blocking socket to the server
+        private final Duration requestTimeout; // Time to wait for a response before failing the future
+        private final ConcurrentMap<Integer, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>(); // Futures by request id
+        private final AtomicInteger nextRequestId = new AtomicInteger(); // Id of the next frame
+        private volatile IOException failure; // Set once the connection is broken
+
+        private PooledConnection(SocketChannel channel, Duration requestTimeout) {
+            this.channel = channel;
+            this.requestTimeout = requestTimeout;
+        }
+
+        /**
+         * Connect and start the reader thread.
+         */
+        private static PooledConnection open(InetSocketAddress serverAddress, int index, Duration requestTimeout) throws IOException {
+            SocketChannel channel = SocketChannel.open(serverAddress);
+            try {
+                channel.socket().setTcpNoDelay(true);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            PooledConnection connection = new PooledConnection(channel, requestTimeout);
+            Thread reader = new Thread(connection::readResponses, "limiter-client-reader-" + index);
+            reader.setDaemon(true);
+            reader.start();
+            return connection;
+        }
+
+        private CompletableFuture<ByteBuffer> send(byte operation, byte[] payload) {
+            int requestId = nextRequestId.getAndIncrement();
+            CompletableFuture<ByteBuffer> response = new CompletableFuture<>();
+            pending.put(requestId, response);
+            if (failure != null) {
+                pending.remove(requestId);
+                response.completeExceptionally(new UncheckedIOException(failure));
+                return response;
+            }
+            ByteBuffer frame = ByteBuffer.allocate(4 + 4 + 1 + payload.length);
+            frame.putInt(4 + 1 + payload.length);
+            frame.putInt(requestId);
+            frame.put(operation);
+            frame.put(payload);
+            frame.flip();
+            try {
+                synchronized (this) {
+                    while (frame.hasRemaining()) {
+                        channel.write(frame);
+                    }
+                }
+            } catch (IOException e) {
+                pending.remove(requestId);
+                failure = e; // Reopened by the next request
+                response.completeExceptionally(new UncheckedIOException(e));
+                return response;
+            }
+            return response.orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> pending.remove(requestId));
+        }
+
+        private void readResponses() {
+            try (DataInputStream input = new DataInputStream(Channels.newInputStream(channel))) {
+                while (true) {
+                    int frameLength = input.readInt();
+                    if (frameLength < 4 || frameLength > LimiterProtocol.MAX_FRAME_BYTES) {
+                        throw new IOException("Bad frame length from server: " + frameLength);
+                    }
+                    int requestId = input.readInt();
+                    byte[] body = new byte[frameLength - 4];
+                    input.readFully(body);
+                    CompletableFuture<ByteBuffer> response = pending.remove(requestId);
+                    if (response != null) {
+                        response.complete(ByteBuffer.wrap(body));
+                    }
+                }
+            } catch (EOFException e) {
+                fail(new IOException("Limiter server closed the connection"));
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void fail(IOException cause) {
+            failure = cause;
+            for (Integer requestId : pending.keySet()) {
+                CompletableFuture<ByteBuffer> response = pending.remove(requestId);
+                if (response != null) {
+                    response.completeExceptionally(new UncheckedIOException(cause));
+                }
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Reader thread fails the pending futures
+            }
+        }
+    }
+}
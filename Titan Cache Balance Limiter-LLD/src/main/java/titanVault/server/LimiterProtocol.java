@@ -0,0 +1,45 @@
+package titanVault.server;
+
+/**
+ * Wire format shared by {@link LimiterServer} and {@link LimiterClient}.
+ * <p>
+ * Every frame starts with its length (int, excluding the length itself) and a request id
+ * (int) chosen by the client. Requests:
+ * <ul>
+ *     <li>{@link #RESOLVE}: limiter name (unsigned short length, UTF-8). Answered with a
+ *     status and the limiter id (unsigned short).</li>
+ *     <li>{@link #CHECK}: limiter id (unsigned short), key count (unsigned short), then each
+ *     key (unsigned short length, UTF-8). Answered with a status, the key count and one bit
+ *     per key, least significant bit first, set when the request is allowed.</li>
+ * </ul>
+ * Clients may pipeline any number of frames; responses carry the request id and come back
+ * in request order per connection. A frame the server cannot decide, such as one longer than
+ * {@link #MAX_FRAME_BYTES} or one whose limiter fails, is answered with {@link #BAD_REQUEST},
+ * a zero limiter id or key count and no bitset; the connection stays open.
+ */
+public final class LimiterProtocol {
+
+    public static final byte RESOLVE = 1; // Look up the id of a limiter by name
+    public static final byte CHECK = 2; // Decide a batch of keys with one limiter
+
+    public static final byte OK = 0; // Response status: processed
+    public static final byte UNKNOWN_LIMITER = 1; // Response status: no limiter with that name or id
+    public static final byte BAD_REQUEST = 2; // Response status: the frame could not be processed
+
+    public static final int MAX_FRAME_BYTES = 1 << 20; // Largest frame accepted either way
+    public static final int MAX_KEYS_PER_FRAME = 0xFFFF; // Key count is an unsigned short
+    public static final int MAX_KEY_BYTES = 0xFFFF; // Key length is an unsigned short
+
+    private LimiterProtocol() {
+    }
+
+    /**
+     * Get the number of bytes holding one decision bit per key.
+     *
+     * @param keyCount Number of keys in the batch.
+     * @return The bitset length in bytes.
+     */
+    public static int bitsetBytes(int keyCount) {
+        return (keyCount + 7) >>> 3;
+    }
+}
@@ -0,0 +1,402 @@
+package titanVault.server;
+
+import titanVault.distributed.ErrorReporter;
+import titanVault.service.RateLimiter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Standalone rate-limit server speaking the {@link LimiterProtocol} over TCP.
+ * <p>
+ * Built on NIO: one acceptor hands connections round-robin to a fixed set of event loops,
+ * each owning a selector. A loop reads whatever bytes are available, decides every complete
+ * frame with the registered service limiters, and writes all the responses back in one go,
+ * so pipelined and batched requests cost one system call per burst rather than per key.
+ */
+public class LimiterServer implements Closeable {
+
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024; // Per-connection read and write buffer to start with
+
+    private final List<String> limiterNames; // Limiter names by id
+    private final RateLimiter[] limiters; // Limiters by id
+    private final Map<String, Integer> limiterIds; // Limiter ids by name
+    private final ServerSocketChannel serverChannel; // Listening socket
+    private final EventLoop[] eventLoops; // Selector threads serving the connections
+    private final Thread acceptor; // Accepts connections and assigns them to loops
+    private final AtomicInteger nextLoop = new AtomicInteger(); // Round-robin position
+    private volatile boolean running = true; // Cleared by close
+    private final ErrorReporter<Exception> errors = new ErrorReporter<>(); // Told about failed accepts and stopped loops
+
+    /**
+     * Start the server.
+     *
+     * @param limiters    Limiters to serve, by name; ids follow the iteration order.
+     * @param bindAddress Address to listen on; port 0 picks a free port.
+     * @param loopCount   Number of event loop threads.
+     * @throws IOException if the socket cannot be bound.
+     */
+    public LimiterServer(Map<String, ? extends RateLimiter> limiters, InetSocketAddress bindAddress, int loopCount) throws IOException {
+        if (limiters.isEmpty() || limiters.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Between 1 and 65535 limiters must be served: " + limiters.size());
+        }
+        if (loopCount <= 0) {
+            throw new IllegalArgumentException("Loop count must be positive: " + loopCount);
+        }
+        List<String> names = new ArrayList<>(limiters.keySet());
+        this.limiterNames = Collections.unmodifiableList(names);
+        this.limiters = new RateLimiter[names.size()];
+        Map<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < names.size(); id++) {
+            this.limiters[id] = limiters.get(names.get(id));
+            ids.put(names.get(id), id);
+        }
+        this.limiterIds = Collections.unmodifiableMap(ids);
+
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(bindAddress, 1024);
+        this.eventLoops = new EventLoop[loopCount];
+        for (int loop = 0; loop < loopCount; loop++) {
+            eventLoops[loop] = new EventLoop(loop);
+        }
+        for (EventLoop loop : eventLoops) {
+            loop.thread.start();
+        }
+        this.acceptor = new Thread(this::acceptLoop, "limiter-server-acceptor");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+    }
+
+    /**
+     * Get the address the server listens on.
+     *
+     * @return The bound address.
+     * @throws IOException if the socket is closed.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Get the names of the served limiters in id order.
+     *
+     * @return The limiter names.
+     */
+    public List<String> getLimiterNames() {
+        return limiterNames;
+    }
+
+    /**
+     * Set what is told about server failures: a failed accept, which the acceptor
+     * survives by pausing, longer with each failure in a row, or an event loop stopped by a selector failure, whose connections are no
+     * longer served. By default they go to the uncaught exception handler of the failing
+     * thread. Failures caused by close are not reported.
+     *
+     * @param errorHandler Receives each failure.
+     */
+    public void setErrorHandler(Consumer<? super Exception> errorHandler) {
+        errors.setHandler(errorHandler);
+    }
+
+    private void acceptLoop() {
+        int failures = 0; // Failed accepts in a row
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept(); // Blocking accept on its own thread
+                failures = 0;
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                eventLoops[Math.floorMod(nextLoop.getAndIncrement(), eventLoops.length)].register(channel);
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                errors.report(e);
+                if (!ErrorReporter.backOff(++failures)) {
+                    return; // Interrupted by close
+                }
+            }
+        }
+    }
+
+    /**
+     * Decide every complete frame in the read buffer, appending the responses. A frame that
+     * cannot be decided, because it is too long, names an unknown operation, is inconsistent
+     * or makes the limiter throw, is answered with {@link LimiterProtocol#BAD_REQUEST} and the
+     * connection carries on with the next frame.
+     *
+     * @return false if the stream cannot be split into frames and the connection must be dropped.
+     */
+    private boolean processFrames(Connection connection) {
+        ByteBuffer input = connection.readBuffer;
+        input.flip();
+        try {
+            if (connection.discardBytes > 0) {
+                int skipped = (int) Math.min(connection.discardBytes, input.remaining());
+                input.position(input.position() + skipped);
+                connection.discardBytes -= skipped;
+            }
+            while (input.remaining() >= 8) {
+                int frameLength = input.getInt(input.position());
+                if (frameLength < 4) {
+                    return false; // No request id to answer
+                }
+                if (frameLength > LimiterProtocol.MAX_FRAME_BYTES) {
+                    reject(connection, input.getInt(input.position() + 4));
+                    int skipped = (int) Math.min(4L + frameLength, input.remaining());
+                    input.position(input.position() + skipped);
+                    connection.discardBytes = 4L + frameLength - skipped;
+                    continue;
+                }
+                if (input.remaining() < 4 + frameLength) {
+                    if (4 + frameLength > input.capacity()) {
+                        connection.growReadBuffer(4 + frameLength);
+                        input = connection.readBuffer;
+                    }
+                    break; // Wait for the rest of the frame
+                }
+                int frameEnd = input.position() + 4 + frameLength;
+                input.position(input.position() + 4);
+                int requestId = input.getInt();
+                int responseStart = connection.writeBuffer.position();
+                int bufferedEnd = input.limit();
+                input.limit(frameEnd); // Reading past the frame fails instead of eating the next one
+                try {
+                    byte operation = frameLength > 4 ? input.get() : 0;
+                    if (operation == LimiterProtocol.RESOLVE) {
+                        resolve(connection, requestId, input, frameEnd);
+                    } else if (operation == LimiterProtocol.CHECK) {
+                        check(connection, requestId, input, frameEnd);
+                    } else {
+                        throw new IllegalArgumentException("Unknown operation: " + operation);
+                    }
+                } catch (RuntimeException e) {
+                    connection.writeBuffer.position(responseStart); // Drop the partial response
+                    reject(connection, requestId);
+                } finally {
+                    input.limit(bufferedEnd);
+                }
+                input.position(frameEnd);
+            }
+        } finally {
+            connection.readBuffer.compact();
+        }
+        return true;
+    }
+
+    private void reject(Connection connection, int requestId) {
+        ByteBuffer output = connection.reserve(4 + 4 + 1 + 2);
+        output.putInt(4 + 1 + 2);
+        output.putInt(requestId);
+        output.put(LimiterProtocol.BAD_REQUEST);
+        output.putShort((short) 0);
+    }
+
+    private void resolve(Connection connection, int requestId, ByteBuffer input, int frameEnd) {
+        int nameLength = Short.toUnsignedInt(input.getShort());
+        if (input.position() + nameLength > frameEnd) {
+            throw new IllegalArgumentException("Limiter name overruns the frame");
+        }
+        String name = new String(input.array(), input.arrayOffset() + input.position(), nameLength, StandardCharsets.UTF_8);
+        Integer id = limiterIds.get(name);
+        ByteBuffer output = connection.reserve(4 + 4 + 1 + 2);
+        output.putInt(4 + 1 + 2);
+        output.putInt(requestId);
+        output.put(id == null ? LimiterProtocol.UNKNOWN_LIMITER : LimiterProtocol.OK);
+        output.putShort((short) (id == null ? 0 : id));
+    }
+
+    private void check(Connection connection, int requestId, ByteBuffer input, int frameEnd) {
+        int limiterId = Short.toUnsignedInt(input.getShort());
+        int keyCount = Short.toUnsignedInt(input.getShort());
+        if (limiterId >= limiters.length) {
+            ByteBuffer output = connection.reserve(4 + 4 + 1 + 2);
+            output.putInt(4 + 1 + 2);
+            output.putInt(requestId);
+            output.put(LimiterProtocol.UNKNOWN_LIMITER);
+            output.putShort((short) 0);
+            return;
+        }
+        RateLimiter limiter = limiters[limiterId];
+        int bitsetBytes = LimiterProtocol.bitsetBytes(keyCount);
+        ByteBuffer output = connection.reserve(4 + 4 + 1 + 2 + bitsetBytes);
+        output.putInt(4 + 1 + 2 + bitsetBytes);
+        output.putInt(requestId);
+        output.put(LimiterProtocol.OK);
+        output.putShort((short) keyCount);
+        int bitsetStart = output.position();
+        for (int index = 0; index < bitsetBytes; index++) {
+            output.put((byte) 0);
+        }
+        byte[] frame = input.array();
+        for (int key = 0; key < keyCount; key++) {
+            int keyLength = Short.toUnsignedInt(input.getShort());
+            if (input.position() + keyLength > frameEnd) {
+                throw new IllegalArgumentException("Key overruns the frame");
+            }
+            String userId = new String(frame, input.arrayOffset() + input.position(), keyLength, StandardCharsets.UTF_8);
+            input.position(input.position() + keyLength);
+            if (limiter.validateRequest(userId)) {
+                int bitIndex = bitsetStart + (key >>> 3);
+                output.put(bitIndex, (byte) (output.get(bitIndex) | (1 << (key & 7))));
+            }
+        }
+    }
+
+    /**
+     * Stop accepting, close every connection and stop the event loops.
+     *
+     * @throws IOException if the listening socket cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverChannel.close();
+        acceptor.interrupt(); // Ends a pause after a failed accept
+        for (EventLoop loop : eventLoops) {
+            loop.close();
+        }
+    }
+
+    /**
+     * Buffers of one client connection, used only by its event loop.
+     */
+    private static final class Connection {
+        private final SocketChannel channel; // Client socket
+        private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES); // Bytes not yet decoded
+        private ByteBuffer writeBuffer = ByteBuffer.allocate(INITIAL_BUFFER_BYTES); // Responses not yet written
+        private long discardBytes; // Rest of a rejected oversized frame still to skip
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void growReadBuffer(int minimumBytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(minimumBytes, readBuffer.capacity() * 2));
+            larger.put(readBuffer); // Copies the unread part of the flipped buffer
+            larger.flip();
+            readBuffer = larger;
+        }
+
+        /**
+         * Make room for a response in the write buffer.
+         */
+        private ByteBuffer reserve(int bytes) {
+            if (writeBuffer.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + bytes));
+                writeBuffer.flip();
+                larger.put(writeBuffer);
+                writeBuffer = larger;
+            }
+            return writeBuffer;
+        }
+    }
+
+    /**
+     * Selector thread serving a share of the connections.
+     */
+    private final class EventLoop {
+        private final Selector selector; // Readiness of the loop's connections
+        private final Queue<SocketChannel> newConnections = new ConcurrentLinkedQueue<>(); // Handed over by the acceptor
+        private final Thread thread; // Runs the loop
+
+        private EventLoop(int index) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this::run, "limiter-server-loop-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void register(SocketChannel channel) {
+            newConnections.add(channel);
+            selector.wakeup();
+        }
+
+        private void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    SocketChannel accepted;
+                    while ((accepted = newConnections.poll()) != null) {
+                        accepted.register(selector, SelectionKey.OP_READ, new Connection(accepted));
+                    }
+                    Iterator<SelectionKey> ready = selector.selectedKeys().iterator();
+                    while (ready.hasNext()) {
+                        SelectionKey key = ready.next();
+                        ready.remove();
+                        handle(key);
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    errors.report(e);
+                }
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isWritable()) {
+                    flush(key, connection);
+                }
+                if (key.isValid() && key.isReadable()) {
+                    int read = connection.channel.read(connection.readBuffer);
+                    if (read < 0 || !processFrames(connection)) {
+                        closeConnection(key);
+                        return;
+                    }
+                    flush(key, connection);
+                }
+            } catch (IOException e) {
+                closeConnection(key);
+            }
+        }
+
+        /**
+         * Write pending responses; when the socket is full, wait for OP_WRITE and stop reading
+         * so a client that does not read its responses cannot grow the buffer without bound.
+         */
+        private void flush(SelectionKey key, Connection connection) throws IOException {
+            ByteBuffer output = connection.writeBuffer;
+            output.flip();
+            connection.channel.write(output);
+            output.compact();
+            key.interestOps(output.position() > 0 ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void closeConnection(SelectionKey key) {
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // Already closing
+            }
+        }
+
+        private void close() throws IOException {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        }
+    }
+}
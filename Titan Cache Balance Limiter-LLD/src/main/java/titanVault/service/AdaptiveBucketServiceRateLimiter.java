@@ -2,6 +2,12 @@ package titanVault.service;
 
 import titanVault.model.AdaptiveBucket;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 
@@ -9,18 +15,37 @@ import java.util.concurrent.ConcurrentSkipListMap;
  * Implementation of the RateLimiter interface that validates requests based on the user identifier.
  */
 
-public class AdaptiveBucketServiceRateLimiter implements RateLimiter {
+public class AdaptiveBucketServiceRateLimiter implements SnapshotRateLimiter {
 
     private final ConcurrentMap<String, AdaptiveBucket> adaptiveBuckets; // Thread-safe map to associate userId with an AdaptiveBucket
+    private final LongKeyMap<AdaptiveBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
     private final long defaultLimit; // Default rate limit for users
+    private final Duration resetPeriod; // Period after which each user's count starts over, null for never
+    private final Clock currentTimer; // Clock the reset periods are measured on
 
     /*
      * Constructor to initialize the UserRateLimiter with a default rate limit.
      * @param defaultLimit The default limit for each user's bucket.
      */
     public AdaptiveBucketServiceRateLimiter(long defaultLimit) {
+        this(defaultLimit, null, Clock.systemUTC());
+    }
+
+    /*
+     * Constructor to initialize the UserRateLimiter with a default rate limit that is
+     * granted again every reset period.
+     * @param defaultLimit The default limit for each user's bucket.
+     * @param resetPeriod The period after which each user's count starts over, or null to never reset it.
+     * @param currentTimer The clock the reset periods are measured on.
+     */
+    public AdaptiveBucketServiceRateLimiter(long defaultLimit, Duration resetPeriod, Clock currentTimer) {
+        if (resetPeriod != null && (resetPeriod.isNegative() || resetPeriod.isZero())) {
+            throw new IllegalArgumentException("Reset period must be positive: " + resetPeriod);
+        }
         this.adaptiveBuckets = new ConcurrentSkipListMap<>();
         this.defaultLimit = defaultLimit;
+        this.resetPeriod = resetPeriod;
+        this.currentTimer = currentTimer;
     }
 
     /*
@@ -31,11 +56,37 @@ public class AdaptiveBucketServiceRateLimiter implements RateLimiter {
     @Override
     public boolean validateRequest(String userId) {
         // Retrieve or create a bucket for the user
-        AdaptiveBucket bucket = adaptiveBuckets.computeIfAbsent(userId, id -> new AdaptiveBucket(defaultLimit));
+        AdaptiveBucket bucket = bucketFor(userId);
         // Validate the request based on the bucket's capacity
         return bucket.consumeRequest();
     }
 
+    /*
+     * Validate if a request counting as several requests is allowed, consuming all of
+     * them or none.
+     * @param userId The user identifier.
+     * @param permits The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        return bucketFor(userId).consumeRequests(permits);
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed based on the bucket's current limit,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        return bucketFor(key).consumeRequest();
+    }
+
     /*
      * Update the rate limit for a specific user.
      * @param userId The user identifier.
@@ -64,4 +115,65 @@ public class AdaptiveBucketServiceRateLimiter implements RateLimiter {
             throw new IllegalArgumentException("User bucket does not exist for userId: " + userId);
         }
     }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return adaptiveBuckets.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        AdaptiveBucket bucket = adaptiveBuckets.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        AdaptiveBucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return adaptiveBuckets.remove(userId) != null;
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private AdaptiveBucket bucketFor(String userId) {
+        AdaptiveBucket existing = adaptiveBuckets.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return adaptiveBuckets.computeIfAbsent(userId, key -> new AdaptiveBucket(defaultLimit, resetPeriod, currentTimer));
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private AdaptiveBucket bucketFor(long key) {
+        AdaptiveBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id ->
+                new AdaptiveBucket(defaultLimit, resetPeriod, currentTimer));
+    }
 }
@@ -0,0 +1,51 @@
+package titanVault.service;
+
+import java.time.Duration;
+
+/**
+ * Rate limiter that can hold a request until it is admitted instead of denying it, for
+ * callers that would otherwise spin or sleep on {@link #validateRequest(String, long)},
+ * and that can tell how long a denied request would have to wait, for callers that wait
+ * without parking a thread.
+ */
+public interface BlockingRateLimiter extends RateLimiter {
+
+    /**
+     * Take permits for a key, parking the calling thread until they are available or the
+     * timeout passes. Waiters of a key are admitted in arrival order; calls to
+     * {@code validateRequest} do not queue and may take permits ahead of them. Parking
+     * holds no platform thread when the caller is a virtual thread.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs, at most the limiter's capacity.
+     * @param timeout The longest time to wait.
+     * @return true if the permits were taken, false if the timeout passed first.
+     * @throws InterruptedException if the thread is interrupted while waiting; no permits are taken.
+     */
+    boolean acquire(String userId, long permits, Duration timeout) throws InterruptedException;
+
+    /**
+     * Take permits for a key if they are available now, without waiting or queueing, or
+     * tell how long until they may be. Other requests can take them first meanwhile, so
+     * the delay is when to try again, not a promise.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return 0 if the permits were taken, otherwise the milliseconds until they may be
+     *         available, or Long.MAX_VALUE if they never can be.
+     */
+    long tryAcquire(String userId, long permits);
+
+    /**
+     * Validate if a request costing several permits is allowed, taking them all together
+     * or not at all without waiting.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    default boolean validateRequest(String userId, long permits) {
+        return tryAcquire(userId, permits) == 0;
+    }
+}
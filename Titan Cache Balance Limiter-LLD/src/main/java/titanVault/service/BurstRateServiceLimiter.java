@@ -1,12 +1,14 @@
 package titanVault.service;
 
+import java.time.Clock;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * BurstRateLimiter implements a rate limiter with a burst capacity.
  * It allows a burst of requests up to a specified capacity, and then enforces
- * a rate limit based on the refill rate.
+ * a rate limit based on the refill rate. Tokens are added for every whole second
+ * elapsed on the clock, when the bucket is next used.
  */
 public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
 
@@ -14,6 +16,8 @@ public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
     private final long burstCapacity; // Maximum number of tokens that the bucket can hold
     private final AtomicLong currentTokens; // Current number of tokens in the bucket
     private final ReentrantReadWriteLock locker; // Lock to ensure thread safety
+    private final Clock currentTimer; // Clock to get the current time
+    private long lastRefillTime; // Time of the last refill, guarded by the write lock
 
     /**
      * Constructor to initialize the BurstRateLimiter.
@@ -22,11 +26,23 @@ public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
      * @param burstCapacity The maximum number of tokens that the bucket can hold.
      */
     public BurstRateServiceLimiter(long refillRate, long burstCapacity) {
+        this(refillRate, burstCapacity, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor to initialize the BurstRateLimiter on a given clock.
+     *
+     * @param refillRate The rate at which tokens are added to the bucket (tokens per second).
+     * @param burstCapacity The maximum number of tokens that the bucket can hold.
+     * @param currentTimer Clock to get the current time.
+     */
+    public BurstRateServiceLimiter(long refillRate, long burstCapacity, Clock currentTimer) {
         this.refillRate = refillRate;
         this.burstCapacity = burstCapacity;
         this.currentTokens = new AtomicLong(burstCapacity);
         this.locker = new ReentrantReadWriteLock();
-        startRefillThread(); // Start the token refill thread
+        this.currentTimer = currentTimer;
+        this.lastRefillTime = currentTimer.millis();
     }
 
     /**
@@ -37,11 +53,35 @@ public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
      */
     @Override
     public boolean validateRequest(String userId) {
-        locker.readLock().lock(); // Acquire read lock
+        locker.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
         try {
+            refill();
             return currentTokens.get() > 0; // Check if there are tokens available
         } finally {
-            locker.readLock().unlock(); // Release read lock
+            locker.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Validates if a request costing several tokens is allowed. Like
+     * {@link #validateRequest(String)}, this only checks; use
+     * {@link #consumeTokens(String, long)} to deduct them.
+     *
+     * @param userId The user identifier (not used in this implementation).
+     * @param permits The number of tokens the request costs.
+     * @return true if enough tokens are available, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        locker.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
+        try {
+            refill();
+            return currentTokens.get() >= permits; // Check if there are enough tokens available
+        } finally {
+            locker.writeLock().unlock(); // Release write lock
         }
     }
 
@@ -54,6 +94,7 @@ public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
     public boolean consumeToken(String userId) {
         locker.writeLock().lock(); // Acquire write lock
         try {
+            refill();
             if (currentTokens.get() > 0) {
                 currentTokens.decrementAndGet(); // Deduct a token
                 return true;
@@ -66,25 +107,43 @@ public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
     }
 
     /**
-     * Starts a thread that refills the bucket with tokens at the specified rate.
+     * Deducts several tokens for a request if all of them are available.
+     *
+     * @param userId The user identifier (not used in this implementation).
+     * @param permits The number of tokens the request costs.
+     * @return true if the request was allowed and the tokens were deducted, false otherwise.
      */
-    private void startRefillThread() {
-        new Thread(() -> {
-            while (true) {
-                try {
-                    Thread.sleep(1000); // Wait for 1 second
-                    locker.writeLock().lock(); // Acquire write lock
-                    try {
-                        long newTokens = Math.min(burstCapacity, currentTokens.get() + refillRate);
-                        currentTokens.set(newTokens); // Refill tokens
-                    } finally {
-                        locker.writeLock().unlock(); // Release write lock
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt(); // Handle interruption
-                }
+    public boolean consumeTokens(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        locker.writeLock().lock(); // Acquire write lock
+        try {
+            refill();
+            if (currentTokens.get() >= permits) {
+                currentTokens.addAndGet(-permits); // Deduct the tokens
+                return true;
+            } else {
+                return false; // Not enough tokens available
             }
-        }).start();
+        } finally {
+            locker.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Add the tokens of the whole seconds elapsed since the last refill. Callers hold the write lock.
+     */
+    private void refill() {
+        long secondsElapsed = (currentTimer.millis() - lastRefillTime) / 1000;
+        if (secondsElapsed <= 0) {
+            return;
+        }
+        lastRefillTime += secondsElapsed * 1000;
+        long tokensToAdd = refillRate > 0 && secondsElapsed > burstCapacity / refillRate
+                ? burstCapacity // Enough to fill the bucket, without overflowing
+                : secondsElapsed * refillRate;
+        currentTokens.set(Math.min(burstCapacity, currentTokens.get() + tokensToAdd)); // Refill tokens
     }
 
     /**
@@ -96,11 +155,12 @@ public class BurstRateServiceLimiter implements RateLimiter, BurstRateLimiter {
     @Override
     public long getRetryAfter(String userId) {
         // Returns the number of seconds to wait based on current token availability
-        locker.readLock().lock(); // Acquire read lock
+        locker.writeLock().lock(); // Refilling mutates the bucket, and a read lock cannot be upgraded
         try {
+            refill();
             return currentTokens.get() <= 0 ? 1 : 0; // Simplified retry logic
         } finally {
-            locker.readLock().unlock(); // Release read lock
+            locker.writeLock().unlock(); // Release write lock
         }
     }
 }
@@ -3,6 +3,7 @@ package titanVault.service;
 import titanVault.model.BurstRateBucket;
 import titanVault.model.CircuitBreaker;
 
+import java.time.Clock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -26,8 +27,22 @@ public class CircuitBreakerRateLimiter implements RateLimiter {
      */
     public CircuitBreakerRateLimiter(long refillRate, long burstCapacity,
                                      long failureThreshold, long resetTimeoutMillis) {
-        this.burstRateBucket = new BurstRateBucket(refillRate, burstCapacity); // Initialize rate limiter
-        this.circuitBreaker = new CircuitBreaker(failureThreshold, resetTimeoutMillis); // Initialize circuit breaker
+        this(refillRate, burstCapacity, failureThreshold, resetTimeoutMillis, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor to initialize the CircuitBreakerRateLimiter on a given clock.
+     *
+     * @param refillRate The rate at which tokens are added to the bucket (tokens per second).
+     * @param burstCapacity The maximum number of tokens that the bucket can hold.
+     * @param failureThreshold The number of failures that trigger the circuit breaker to open.
+     * @param resetTimeoutMillis Time in milliseconds to wait before transitioning from OPEN to HALF_OPEN.
+     * @param currentTimer The clock both the refills and the reset timeout are measured on.
+     */
+    public CircuitBreakerRateLimiter(long refillRate, long burstCapacity,
+                                     long failureThreshold, long resetTimeoutMillis, Clock currentTimer) {
+        this.burstRateBucket = new BurstRateBucket(refillRate, burstCapacity, currentTimer); // Initialize rate limiter
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, resetTimeoutMillis, currentTimer); // Initialize circuit breaker
     }
 
     /**
@@ -38,6 +53,22 @@ public class CircuitBreakerRateLimiter implements RateLimiter {
      */
     @Override
     public boolean validateRequest(String userId) {
+        return validateRequest(userId, 1);
+    }
+
+    /**
+     * Validates if a request costing several tokens is allowed based on rate limiting and
+     * circuit breaker policies; the request counts as one call for the circuit breaker.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of tokens the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
         readWriteLock.readLock().lock(); // Acquire read lock
         try {
             // Check if the circuit breaker allows the call.
@@ -46,7 +77,7 @@ public class CircuitBreakerRateLimiter implements RateLimiter {
             }
 
             // Validate the request with the rate limiter.
-            boolean isAllowed = burstRateBucket.validateRequest(userId);
+            boolean isAllowed = burstRateBucket.validateRequest(userId, permits);
             if (isAllowed) {
                 // Record success if the request is allowed.
                 circuitBreaker.recordSuccess();
@@ -0,0 +1,294 @@
+package titanVault.service;
+
+import titanVault.model.TokenBucketArray;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Token bucket rate limiter for millions of keys whose buckets are slots of one
+ * {@link TokenBucketArray} instead of separate {@code TokenBucket} objects. Keys map to
+ * their slot once; after that a request is two CAS operations on contiguous arrays.
+ * The number of keys is fixed when the limiter is created; once every slot is taken,
+ * requests of new keys are denied while the keys that have a slot keep being served.
+ */
+public class ColumnarTokenBucketServiceRateLimiter implements SnapshotRateLimiter {
+
+    private final TokenBucketArray buckets; // Columns of every bucket
+    private final Clock currentTimer; // Clock to get the current time
+    private final ConcurrentMap<String, Integer> slotsByUser = new ConcurrentHashMap<>(); // Slot of each user id
+    private final LongKeyMap<Integer> slotsByKey; // Slot of each primitive key
+
+    /**
+     * Constructor to initialize the ColumnarTokenBucketServiceRateLimiter.
+     *
+     * @param maxKeys         Maximum number of keys the limiter holds.
+     * @param maxCapacity     Maximum capacity of each bucket.
+     * @param refillPeriod    Duration of the refill period.
+     * @param tokensPerPeriod Number of tokens added per period.
+     * @param currentTimer    Clock to get the current time.
+     */
+    public ColumnarTokenBucketServiceRateLimiter(int maxKeys, long maxCapacity, Duration refillPeriod,
+                                                 long tokensPerPeriod, Clock currentTimer) {
+        this.buckets = new TokenBucketArray(maxKeys, maxCapacity, tokensPerPeriod, refillPeriod, currentTimer);
+        this.currentTimer = currentTimer;
+        this.slotsByKey = new LongKeyMap<>(Math.min(maxKeys, 1 << 20));
+    }
+
+    /**
+     * Determine if a request is allowed based on the token bucket algorithm.
+     *
+     * @param userId The user identifier.
+     * @return true if the request is allowed, false otherwise or if the user is new and every slot is taken.
+     */
+    @Override
+    public boolean validateRequest(String userId) {
+        int slot = slotFor(userId);
+        return slot >= 0 && buckets.tryConsume(slot);
+    }
+
+    /**
+     * Determine if a request costing several tokens is allowed; the tokens are taken all or none.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of tokens the request costs.
+     * @return true if the request is allowed, false otherwise or if the user is new and every slot is taken.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        int slot = slotFor(userId);
+        return slot >= 0 && buckets.tryConsume(slot, permits);
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed, without creating a String.
+     *
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise or if the key is new and every slot is taken.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        int slot = slotFor(key);
+        return slot >= 0 && buckets.tryConsume(slot);
+    }
+
+    /**
+     * Get the columns holding every bucket, for bulk refill. Snapshots go through
+     * {@link #writeSnapshot}, which also records which key owns which slot, or through
+     * {@code LimiterSnapshot}, which writes each key with its bucket.
+     *
+     * @return The bucket array.
+     */
+    public TokenBucketArray getBuckets() {
+        return buckets;
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return slotsByUser.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        Integer slot = slotsByUser.get(userId);
+        if (slot == null) {
+            return false;
+        }
+        buckets.writeSlot(slot, output);
+        return true;
+    }
+
+    /**
+     * Restore the bucket of one user into its slot, allocating the slot if needed.
+     *
+     * @param userId The user identifier.
+     * @param input  The snapshot input positioned at the state written by {@link #writeEntry}.
+     * @throws IOException if the input cannot be read or the user is new and every slot is taken.
+     */
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        buckets.readSlot(restoredSlot(slotFor(userId)), input);
+    }
+
+    /**
+     * Forget the slot of a user. Slots are never handed out again, so the keys served over
+     * the limiter's lifetime stay bounded by its size.
+     *
+     * @param userId The user identifier.
+     * @return true if the user had a slot.
+     */
+    @Override
+    public boolean removeEntry(String userId) {
+        return slotsByUser.remove(userId) != null;
+    }
+
+    @Override
+    public long[] snapshotLongKeys() {
+        return slotsByKey.keys();
+    }
+
+    @Override
+    public boolean writeLongEntry(long key, DataOutput output) throws IOException {
+        Integer slot = slotsByKey.get(key);
+        if (slot == null) {
+            return false;
+        }
+        buckets.writeSlot(slot, output);
+        return true;
+    }
+
+    /**
+     * Restore the bucket of one primitive key into its slot, allocating the slot if needed.
+     *
+     * @param key   The key.
+     * @param input The snapshot input positioned at the state written by {@link #writeLongEntry}.
+     * @throws IOException if the input cannot be read or the key is new and every slot is taken.
+     */
+    @Override
+    public void readLongEntry(long key, DataInput input) throws IOException {
+        buckets.readSlot(restoredSlot(slotFor(key)), input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    /**
+     * Write the slot of every key, then the bucket columns. The keys are written first, so
+     * every slot they name was allocated before the columns were and is in the snapshot.
+     *
+     * @param output The snapshot output.
+     * @return The number of keys written.
+     * @throws IOException if the output cannot be written.
+     */
+    public int writeSnapshot(DataOutput output) throws IOException {
+        List<Map.Entry<String, Integer>> users = new ArrayList<>(slotsByUser.entrySet());
+        output.writeInt(users.size());
+        for (Map.Entry<String, Integer> user : users) {
+            output.writeUTF(user.getKey());
+            output.writeInt(user.getValue());
+        }
+        List<long[]> keys = new ArrayList<>();
+        slotsByKey.forEach((key, slot) -> keys.add(new long[]{key, slot}));
+        output.writeInt(keys.size());
+        for (long[] key : keys) {
+            output.writeLong(key[0]);
+            output.writeInt((int) key[1]);
+        }
+        buckets.writeSnapshot(output);
+        return users.size() + keys.size();
+    }
+
+    /**
+     * Restore a snapshot written by {@link #writeSnapshot}: every key gets back the bucket
+     * it had. Tokens that would have refilled during the downtime are credited on next use.
+     *
+     * @param input The snapshot input.
+     * @return The number of keys restored.
+     * @throws IOException if the input cannot be read, holds more buckets than this limiter,
+     *                     or names a slot it does not hold.
+     * @throws IllegalStateException if the limiter already serves keys.
+     */
+    public int readSnapshot(DataInput input) throws IOException {
+        if (!slotsByUser.isEmpty() || slotsByKey.size() > 0) {
+            throw new IllegalStateException("Snapshots can only be restored into a limiter without keys");
+        }
+        String[] users = new String[readCount(input)];
+        int[] userSlots = new int[users.length];
+        for (int user = 0; user < users.length; user++) {
+            users[user] = input.readUTF();
+            userSlots[user] = input.readInt();
+        }
+        long[] keys = new long[readCount(input)];
+        int[] keySlots = new int[keys.length];
+        for (int key = 0; key < keys.length; key++) {
+            keys[key] = input.readLong();
+            keySlots[key] = input.readInt();
+        }
+        int stored = buckets.readSnapshot(input);
+        for (int slot : userSlots) {
+            checkRestoredSlot(slot, stored);
+        }
+        for (int slot : keySlots) {
+            checkRestoredSlot(slot, stored);
+        }
+        for (int user = 0; user < users.length; user++) {
+            slotsByUser.put(users[user], userSlots[user]);
+        }
+        for (int key = 0; key < keys.length; key++) {
+            int slot = keySlots[key];
+            slotsByKey.computeIfAbsent(keys[key], id -> slot);
+        }
+        return users.length + keys.length;
+    }
+
+    private int readCount(DataInput input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > buckets.getSlots()) {
+            throw new IOException("Snapshot holds " + count + " keys, the limiter has " + buckets.getSlots() + " slots");
+        }
+        return count;
+    }
+
+    private int restoredSlot(int slot) throws IOException {
+        if (slot < 0) {
+            throw new IOException("Snapshot holds more keys than the limiter's " + buckets.getSlots() + " slots");
+        }
+        return slot;
+    }
+
+    private static void checkRestoredSlot(int slot, int stored) throws IOException {
+        if (slot < 0 || slot >= stored) {
+            throw new IOException("Snapshot maps a key to slot " + slot + " of " + stored + " restored buckets");
+        }
+    }
+
+    /**
+     * Get the slot of a user, allocating one on first use.
+     *
+     * @return The slot, or -1 if the user is new and every slot is taken.
+     */
+    private int slotFor(String userId) {
+        Integer slot = slotsByUser.get(userId);
+        if (slot == null) {
+            slot = slotsByUser.computeIfAbsent(userId, key -> {
+                int allocated = buckets.tryAllocateSlot();
+                return allocated < 0 ? null : allocated; // No mapping is kept for a denied user
+            });
+        }
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Get the slot of a primitive key, allocating one on first use.
+     *
+     * @return The slot, or -1 if the key is new and every slot is taken.
+     */
+    private int slotFor(long key) {
+        Integer slot = slotsByKey.get(key);
+        if (slot == null) {
+            if (buckets.getAllocatedSlots() == buckets.getSlots()) {
+                return -1; // Deny new keys without taking the map's lock
+            }
+            try {
+                slot = slotsByKey.computeIfAbsent(key, id -> buckets.allocateSlot());
+            } catch (IllegalStateException e) {
+                return -1; // The last slot went to another key meanwhile
+            }
+        }
+        return slot;
+    }
+}
@@ -2,8 +2,12 @@ package titanVault.service;
 
 import titanVault.model.EMABucket;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -12,13 +16,14 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * Rate limiter implementation using the Exponential Moving Average (EMA) algorithm.
 */
-public class EMABucketServiceRateLimiter implements RateLimiter {
+public class EMABucketServiceRateLimiter implements SnapshotRateLimiter {
 
-    private final long maxCapacity;               // Maximum number of requests allowed
-    private final Duration averagingPeriod;      // Duration over which EMA is calculated
+    private volatile long maxCapacity;           // Maximum number of requests allowed, for buckets created from now on
+    private volatile Duration averagingPeriod;   // Duration over which EMA is calculated, for buckets created from now on
     private final Clock currentTimer;            // Clock to get the current time
     private final ConcurrentMap<String, EMABucket> emaBucketStore = new ConcurrentSkipListMap<>(); // Stores EMA buckets for users
-    private final ReadWriteLock configLog = new ReentrantReadWriteLock(); // Lock for configuration updates
+    private final LongKeyMap<EMABucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
+    private final ReadWriteLock configLog = new ReentrantReadWriteLock(); // Write locked by configuration updates, read locked by bucket creation
 
     /**
      * Constructor to initialize the rate limiter with parameters.
@@ -41,15 +46,42 @@ public class EMABucketServiceRateLimiter implements RateLimiter {
      */
     @Override
     public boolean validateRequest(String userId) {
-        EMABucket bucket = emaBucketStore.computeIfAbsent(userId, id ->
-                new EMABucket(maxCapacity, averagingPeriod, currentTimer)
-        );
+        EMABucket bucket = bucketFor(userId);
         return bucket.allowRequest();
     }
 
     /**
-     * Updates the configuration for all user buckets.
-     * Acquires write lock to ensure thread-safe updates to the configuration.
+     * Determine if a request counting as several requests is allowed based on the EMA
+     * algorithm, as if they all arrived at once.
+     *
+     * @param userId  The user identifier
+     * @param permits The number of requests the request counts for
+     * @return true if the request is allowed, false otherwise
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        return bucketFor(userId).allowRequests(permits);
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed based on the exponential moving average,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        return bucketFor(key).allowRequest();
+    }
+
+    /**
+     * Updates the configuration for all user buckets and for the buckets created from now on.
+     * Acquires write lock to ensure thread-safe updates to the configuration; buckets are
+     * created under the read lock, so none is created with the old configuration and
+     * missed by the update.
      *
      * @param newMaxCapacity     New maximum number of requests allowed.
      * @param newAveragingPeriod New duration over which EMA is calculated.
@@ -57,11 +89,114 @@ public class EMABucketServiceRateLimiter implements RateLimiter {
     public void updateConfiguration(long newMaxCapacity, Duration newAveragingPeriod) {
         configLog.writeLock().lock(); // Acquire write lock to update configuration
         try {
+            maxCapacity = newMaxCapacity;
+            averagingPeriod = newAveragingPeriod;
             for (EMABucket bucket : emaBucketStore.values()) {
                 bucket.updateBucket(newMaxCapacity, newAveragingPeriod);
             }
+            longKeyBuckets.forEach((key, bucket) -> bucket.updateBucket(newMaxCapacity, newAveragingPeriod));
         } finally {
             configLog.writeLock().unlock(); // Release write lock
         }
     }
-}
\ No newline at end of file
+
+    public long getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public Duration getAveragingPeriod() {
+        return averagingPeriod;
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return emaBucketStore.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        EMABucket bucket = emaBucketStore.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        EMABucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return emaBucketStore.remove(userId) != null;
+    }
+
+    @Override
+    public long[] snapshotLongKeys() {
+        return longKeyBuckets.keys();
+    }
+
+    @Override
+    public boolean writeLongEntry(long key, DataOutput output) throws IOException {
+        EMABucket bucket = longKeyBuckets.get(key);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readLongEntry(long key, DataInput input) throws IOException {
+        bucketFor(key).readSnapshot(input);
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private EMABucket bucketFor(String userId) {
+        EMABucket existing = emaBucketStore.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        configLog.readLock().lock();
+        try {
+            return emaBucketStore.computeIfAbsent(userId, key ->
+                    new EMABucket(maxCapacity, averagingPeriod, currentTimer));
+        } finally {
+            configLog.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private EMABucket bucketFor(long key) {
+        EMABucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        configLog.readLock().lock();
+        try {
+            return longKeyBuckets.computeIfAbsent(key, id ->
+                    new EMABucket(maxCapacity, averagingPeriod, currentTimer));
+        } finally {
+            configLog.readLock().unlock();
+        }
+    }
+}
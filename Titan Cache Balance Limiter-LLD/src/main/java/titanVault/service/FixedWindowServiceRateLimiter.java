@@ -1,24 +1,41 @@
 package titanVault.service;
 
+import titanVault.events.BucketCreatedEvent;
+import titanVault.events.LockWaitEvent;
+import titanVault.metrics.LimiterMetrics;
 import titanVault.model.FixedWindowBucket;
+import titanVault.model.RateLimitState;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Fixed Window Rate Limiter.
  */
-public class FixedWindowServiceRateLimiter implements RateLimiter {
+public class FixedWindowServiceRateLimiter implements SnapshotRateLimiter, InspectableRateLimiter, BlockingRateLimiter {
+
+    private static final String ALGORITHM = FixedWindowServiceRateLimiter.class.getSimpleName(); // Algorithm named in flight recorder events
 
     private final long maxCapacity; // Maximum number of requests in the window
     private final Duration windowInterval; // Duration of the window
     private final Clock currentTimer; // Clock to get the current time
     private final ConcurrentMap<String, FixedWindowBucket> fixedWindowBucket = new ConcurrentSkipListMap<>(); // Stores fixed window buckets for users
+    private final LongKeyMap<FixedWindowBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
     private final ReadWriteLock rwLocker = new ReentrantReadWriteLock(); // Lock for thread safety
+    private final PermitWaiters waiters = new PermitWaiters(); // Threads parked in acquire, per user
+    private volatile LimiterMetrics metrics; // Receives bucket creations and lock waits, null when not instrumented
 
     public FixedWindowServiceRateLimiter(long maxCapacity, Duration windowInterval,
                                          Clock currentTimer) {
@@ -35,31 +52,272 @@ public class FixedWindowServiceRateLimiter implements RateLimiter {
      */
     @Override
     public boolean validateRequest(String userId) {
-        rwLocker.writeLock().lock(); // Acquire write lock for thread-safe access
+        lockTimed(rwLocker.writeLock(), Objects.hashCode(userId)); // Acquire write lock for thread-safe access
         try {
-            FixedWindowBucket bucket = fixedWindowBucket.computeIfAbsent(userId, id ->
-                    new FixedWindowBucket(maxCapacity, currentTimer.millis(), 0, windowInterval, currentTimer)
-            );
+            FixedWindowBucket bucket = bucketFor(userId);
             return bucket.allowRequest();
         } finally {
             rwLocker.writeLock().unlock(); // Release write lock
         }
     }
 
+    /**
+     * Determine if a request for a primitive key is allowed based on the fixed window algorithm,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        lockTimed(rwLocker.writeLock(), Long.hashCode(key)); // Acquire write lock for thread-safe access
+        try {
+            return bucketFor(key).allowRequest();
+        } finally {
+            rwLocker.writeLock().unlock(); // Release write lock
+        }
+    }
+
+
+    /**
+     * Determine if a request counting as several requests is allowed in the current window.
+     *
+     * @param userId  The user identifier
+     * @param permits The number of requests the request counts for
+     * @return true if the request is allowed, false otherwise
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        lockTimed(rwLocker.writeLock(), Objects.hashCode(userId)); // Acquire write lock for thread-safe access
+        try {
+            FixedWindowBucket bucket = bucketFor(userId);
+            return bucket.allowRequest(permits);
+        } finally {
+            rwLocker.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Take several requests' worth of the window, waiting for the next window when the
+     * current one is full.
+     *
+     * @param userId  The user identifier
+     * @param permits The number of requests the request counts for, at most the capacity
+     * @param timeout The longest time to wait
+     * @return true if the request was allowed, false if the timeout passed first
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public boolean acquire(String userId, long permits, Duration timeout) throws InterruptedException {
+        if (permits <= 0 || permits > maxCapacity) {
+            throw new IllegalArgumentException("Permits must be between 1 and the capacity " + maxCapacity + ": " + permits);
+        }
+        return waiters.acquire(this::tryAcquire, userId, permits, timeout);
+    }
 
     /**
      * Updates the rate limiter configuration (max capacity and window interval).
+     * The returned limiter carries every user's window over, with the request count scaled
+     * to the new capacity; this limiter is left unchanged.
      *
      * @param newMaxCapacity New maximum number of requests allowed in the window.
      * @param newWindowInterval New duration of the window.
+     * @return A limiter with the new configuration and the migrated windows.
      */
     public FixedWindowServiceRateLimiter updateConfiguration(long newMaxCapacity, Duration newWindowInterval) {
-        rwLocker.writeLock().lock(); // Acquire write lock for thread-safe update
+        if (newMaxCapacity < 0 || newWindowInterval.isNegative() || newWindowInterval.isZero()) {
+            throw new IllegalArgumentException("Capacity must not be negative and the window must be positive: "
+                    + newMaxCapacity + ", " + newWindowInterval);
+        }
+        rwLocker.writeLock().lock(); // Acquire write lock for a consistent cut of the windows
         try {
-            // Return a new instance with the updated configuration
-            return new FixedWindowServiceRateLimiter(newMaxCapacity, newWindowInterval, currentTimer);
+            FixedWindowServiceRateLimiter updated = new FixedWindowServiceRateLimiter(newMaxCapacity, newWindowInterval, currentTimer);
+            updated.metrics = metrics;
+            for (ConcurrentMap.Entry<String, FixedWindowBucket> entry : fixedWindowBucket.entrySet()) {
+                updated.fixedWindowBucket.put(entry.getKey(), entry.getValue().rescale(newMaxCapacity, newWindowInterval));
+            }
+            longKeyBuckets.forEach((key, bucket) -> updated.longKeyBuckets.computeIfAbsent(key, id ->
+                    bucket.rescale(newMaxCapacity, newWindowInterval)));
+            return updated;
         } finally {
             rwLocker.writeLock().unlock(); // Release write lock
         }
     }
+
+    @Override
+    public RateLimitState inspect(String userId) {
+        FixedWindowBucket bucket = fixedWindowBucket.get(userId);
+        if (bucket == null) {
+            return new RateLimitState(maxCapacity, maxCapacity, Duration.ZERO, Duration.ZERO); // Unseen keys start full
+        }
+        return bucket.getState();
+    }
+
+    /**
+     * Decide a request while holding the limiter's write lock, which the decision takes
+     * again when it reaches this limiter, and read the state before letting go.
+     *
+     * @param userId   The user identifier.
+     * @param decision Decides the request, usually a controller in front of this limiter.
+     * @param state    Receives the state of the key right after the decision.
+     * @return The decision.
+     */
+    @Override
+    public boolean decideAndInspect(String userId, Predicate<String> decision, Consumer<? super RateLimitState> state) {
+        lockTimed(rwLocker.writeLock(), Objects.hashCode(userId)); // Acquire write lock for thread-safe access
+        try {
+            boolean allowed = decision.test(userId);
+            state.accept(inspect(userId));
+            return allowed;
+        } finally {
+            rwLocker.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return fixedWindowBucket.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        FixedWindowBucket bucket = fixedWindowBucket.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        FixedWindowBucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return fixedWindowBucket.remove(userId) != null;
+    }
+
+    @Override
+    public long[] snapshotLongKeys() {
+        return longKeyBuckets.keys();
+    }
+
+    @Override
+    public boolean writeLongEntry(long key, DataOutput output) throws IOException {
+        FixedWindowBucket bucket = longKeyBuckets.get(key);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readLongEntry(long key, DataInput input) throws IOException {
+        bucketFor(key).readSnapshot(input);
+    }
+
+    /**
+     * Report bucket creations and sampled lock waits to the given metrics, usually the
+     * ones an {@link InstrumentedRateLimiter} around this limiter records decisions into.
+     *
+     * @param metrics The metrics to record into, or null to stop recording.
+     */
+    public void setMetrics(LimiterMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Count a request if the window has room for it, or tell how long until the window resets.
+     *
+     * @param userId  The user identifier
+     * @param permits The number of requests the request counts for
+     * @return 0 if the request was allowed, otherwise the milliseconds until it may be
+     */
+    @Override
+    public long tryAcquire(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        lockTimed(rwLocker.writeLock(), Objects.hashCode(userId));
+        try {
+            return bucketFor(userId).allowRequestOrWaitTime(permits);
+        } finally {
+            rwLocker.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private FixedWindowBucket bucketFor(String userId) {
+        FixedWindowBucket existing = fixedWindowBucket.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return fixedWindowBucket.computeIfAbsent(userId, key -> newBucket(key.hashCode()));
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private FixedWindowBucket bucketFor(long key) {
+        FixedWindowBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id -> newBucket(Long.hashCode(id)));
+    }
+
+    /**
+     * Acquire a lock, timing the wait for the calls the metrics sample and reporting
+     * long waits to a running flight recording.
+     *
+     * @param lock    The lock to acquire.
+     * @param keyHash Hash of the key the request is for.
+     */
+    private void lockTimed(Lock lock, int keyHash) {
+        LockWaitEvent event = LockWaitEvent.beginIfEnabled();
+        LimiterMetrics observer = metrics;
+        if (observer == null || !observer.sample()) {
+            lock.lock();
+        } else {
+            long start = System.nanoTime();
+            lock.lock();
+            observer.recordLockWait(System.nanoTime() - start);
+        }
+        LockWaitEvent.complete(event, ALGORITHM, keyHash);
+    }
+
+    /**
+     * Create the bucket of a new key, counting it in the metrics and the flight recording.
+     *
+     * @param keyHash Hash of the new key.
+     * @return The new bucket.
+     */
+    private FixedWindowBucket newBucket(int keyHash) {
+        LimiterMetrics observer = metrics;
+        if (observer != null) {
+            observer.recordCreated();
+        }
+        BucketCreatedEvent.emit(ALGORITHM, keyHash);
+        return new FixedWindowBucket(maxCapacity, currentTimer.millis(), 0, windowInterval, currentTimer);
+    }
 }
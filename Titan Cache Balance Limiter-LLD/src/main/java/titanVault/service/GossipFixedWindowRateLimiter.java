@@ -0,0 +1,32 @@
+package titanVault.service;
+
+import titanVault.distributed.GossipTransport;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Fixed window rate limiter whose window counts are shared across the cluster by gossip.
+ */
+public class GossipFixedWindowRateLimiter extends GossipWindowRateLimiter {
+
+    /**
+     * Constructor to initialize the GossipFixedWindowRateLimiter.
+     *
+     * @param nodeId         Index of this node, from 0 to clusterSize - 1.
+     * @param clusterSize    Number of nodes in the cluster.
+     * @param maxCapacity    Maximum number of requests in the window, cluster-wide.
+     * @param windowInterval Duration of the window.
+     * @param currentTimer   Clock to get the current time.
+     * @param transport      Carries deltas to and from the peers.
+     */
+    public GossipFixedWindowRateLimiter(int nodeId, int clusterSize, long maxCapacity,
+                                        Duration windowInterval, Clock currentTimer, GossipTransport transport) {
+        super(nodeId, clusterSize, maxCapacity, windowInterval, currentTimer, transport);
+    }
+
+    @Override
+    protected double estimate(long currentCount, long previousCount, double elapsedFraction) {
+        return currentCount;
+    }
+}
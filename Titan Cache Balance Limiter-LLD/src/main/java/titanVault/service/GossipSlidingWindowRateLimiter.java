@@ -0,0 +1,34 @@
+package titanVault.service;
+
+import titanVault.distributed.GossipTransport;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Sliding window counter rate limiter whose window counts are shared across the cluster
+ * by gossip. The previous window is weighted by the part of it still inside the sliding
+ * window, as in {@link SlidingWindowCounterRateLimiter}.
+ */
+public class GossipSlidingWindowRateLimiter extends GossipWindowRateLimiter {
+
+    /**
+     * Constructor to initialize the GossipSlidingWindowRateLimiter.
+     *
+     * @param nodeId         Index of this node, from 0 to clusterSize - 1.
+     * @param clusterSize    Number of nodes in the cluster.
+     * @param maxCapacity    Maximum number of requests in the sliding window, cluster-wide.
+     * @param windowInterval Duration of the window.
+     * @param currentTimer   Clock to get the current time.
+     * @param transport      Carries deltas to and from the peers.
+     */
+    public GossipSlidingWindowRateLimiter(int nodeId, int clusterSize, long maxCapacity,
+                                          Duration windowInterval, Clock currentTimer, GossipTransport transport) {
+        super(nodeId, clusterSize, maxCapacity, windowInterval, currentTimer, transport);
+    }
+
+    @Override
+    protected double estimate(long currentCount, long previousCount, double elapsedFraction) {
+        return currentCount + previousCount * (1.0 - elapsedFraction);
+    }
+}
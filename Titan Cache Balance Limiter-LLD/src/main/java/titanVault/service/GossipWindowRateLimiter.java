@@ -0,0 +1,417 @@
+package titanVault.service;
+
+import titanVault.distributed.ErrorReporter;
+import titanVault.distributed.GossipDeltaCodec;
+import titanVault.distributed.GossipTransport;
+import titanVault.distributed.PNCounter;
+import titanVault.distributed.WindowDelta;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Window rate limiter for one node of a cluster without a central coordinator.
+ * <p>
+ * Every key keeps PN-counters for the current and previous window with one slot per node.
+ * A node admits a request when its estimate from the local slot plus the last-known remote
+ * slots is below the limit, then bumps its own slot. Changed slots are batched and
+ * broadcast by periodic gossip and merged by taking the larger value of each slot, so
+ * duplicated or reordered packets do no harm. A lost packet is repaired by the next change
+ * to the key or, for a key that went idle, by the full state round that every few rounds
+ * re-sends this node's slots of every live window and drops the keys whose windows no
+ * longer count. Deltas are only merged for windows within one window of the local clock,
+ * so a peer with a skewed clock or a garbled packet cannot move a key's window far ahead
+ * or bring back one that has ended. Between gossip rounds each node only
+ * sees its own traffic, so the cluster may overshoot the limit by roughly the requests
+ * admitted cluster-wide during one gossip interval, and for longer after a lost packet.
+ */
+public abstract class GossipWindowRateLimiter implements RateLimiter, Closeable {
+
+    private static final int MAX_PACKET_BYTES = 1400; // Keeps each gossip packet within one Ethernet frame
+    private static final int DEFAULT_FULL_STATE_EVERY = 10; // Gossip rounds per full state round when not given
+    private static final long MAX_EPOCH_SKEW = 1; // Windows a peer's delta may be ahead of the local clock
+
+    private final int nodeId; // Index of this node in the cluster
+    private final int clusterSize; // Number of nodes in the cluster
+    private final long maxCapacity; // Maximum number of requests in the window, cluster-wide
+    private final long windowMillis; // Duration of the window in milliseconds
+    private final Clock currentTimer; // Clock to get the current time
+    private final GossipTransport transport; // Carries deltas to and from the peers
+    private final ConcurrentMap<String, WindowState> windows = new ConcurrentSkipListMap<>(); // Window counters per user
+    private final Set<String> dirtyKeys = ConcurrentHashMap.newKeySet(); // Keys changed since the last gossip round
+    private ScheduledExecutorService gossipScheduler; // Runs the periodic gossip rounds once started
+    private final ErrorReporter<IOException> errors = new ErrorReporter<>(); // Told about failed background rounds
+
+    /**
+     * Constructor to initialize the GossipWindowRateLimiter.
+     *
+     * @param nodeId         Index of this node, from 0 to clusterSize - 1.
+     * @param clusterSize    Number of nodes in the cluster.
+     * @param maxCapacity    Maximum number of requests in the window, cluster-wide.
+     * @param windowInterval Duration of the window.
+     * @param currentTimer   Clock to get the current time.
+     * @param transport      Carries deltas to and from the peers.
+     */
+    protected GossipWindowRateLimiter(int nodeId, int clusterSize, long maxCapacity,
+                                      Duration windowInterval, Clock currentTimer, GossipTransport transport) {
+        if (clusterSize <= 0 || nodeId < 0 || nodeId >= clusterSize) {
+            throw new IllegalArgumentException("Node " + nodeId + " is outside a cluster of " + clusterSize);
+        }
+        if (windowInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Window interval must be at least 1 ms: " + windowInterval);
+        }
+        this.nodeId = nodeId;
+        this.clusterSize = clusterSize;
+        this.maxCapacity = maxCapacity;
+        this.windowMillis = windowInterval.toMillis();
+        this.currentTimer = currentTimer;
+        this.transport = transport;
+        this.transport.start(this::receivePacket);
+    }
+
+    /**
+     * Estimate the number of requests counted against the limit.
+     *
+     * @param currentCount    Cluster-wide count of the current window.
+     * @param previousCount   Cluster-wide count of the previous window.
+     * @param elapsedFraction Fraction of the current window already elapsed.
+     * @return The estimated count.
+     */
+    protected abstract double estimate(long currentCount, long previousCount, double elapsedFraction);
+
+    /**
+     * Determine if a request is allowed against the local and last-known remote counts.
+     *
+     * @param userId The user identifier.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId) {
+        return validateRequest(userId, 1);
+    }
+
+    /**
+     * Determine if a request counting as several requests is allowed against the local
+     * and last-known remote counts, counting all of them or none.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        long currentTime = currentTimer.millis();
+        while (true) {
+            WindowState state = windowFor(userId);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue; // Dropped by a full state round meanwhile, count in the new window
+                }
+                state.advanceTo(currentTime / windowMillis);
+                double elapsedFraction = (currentTime % windowMillis) / (double) windowMillis;
+                if (estimate(state.current.value(), state.previous.value(), elapsedFraction) + permits - 1 < maxCapacity) {
+                    state.current.increment(nodeId, permits);
+                    state.currentDirty = true;
+                    dirtyKeys.add(userId);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Give back a request admitted in the current window, e.g. when it was cancelled
+     * before doing any work.
+     *
+     * @param userId The user identifier.
+     */
+    public void refund(String userId) {
+        WindowState state = windows.get(userId);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            if (state.evicted) {
+                return; // The window it was admitted in no longer counts
+            }
+            state.advanceTo(currentTimer.millis() / windowMillis);
+            state.current.decrement(nodeId, 1);
+            state.currentDirty = true;
+            dirtyKeys.add(userId);
+        }
+    }
+
+    /**
+     * Get the current cluster-wide estimate for a key as seen by this node.
+     *
+     * @param userId The user identifier.
+     * @return The estimated count, 0 for an unknown key.
+     */
+    public double getEstimatedCount(String userId) {
+        WindowState state = windows.get(userId);
+        if (state == null) {
+            return 0;
+        }
+        long currentTime = currentTimer.millis();
+        synchronized (state) {
+            state.advanceTo(currentTime / windowMillis);
+            return estimate(state.current.value(), state.previous.value(),
+                    (currentTime % windowMillis) / (double) windowMillis);
+        }
+    }
+
+    /**
+     * Run one gossip round: batch this node's changed slots and broadcast them.
+     *
+     * @return The number of deltas sent.
+     * @throws IOException if a packet cannot be sent.
+     */
+    public int gossip() throws IOException {
+        List<WindowDelta> deltas = new ArrayList<>();
+        // A key is unmarked before its slots are read, so a change made meanwhile marks it again
+        for (String userId : dirtyKeys) {
+            dirtyKeys.remove(userId);
+            WindowState state = windows.get(userId);
+            if (state == null) {
+                continue; // Dropped with nothing left to send
+            }
+            synchronized (state) {
+                if (state.currentDirty) {
+                    deltas.add(new WindowDelta(userId, state.epoch,
+                            state.current.getIncrements(nodeId), state.current.getDecrements(nodeId)));
+                }
+                if (state.previousDirty) {
+                    deltas.add(new WindowDelta(userId, state.epoch - 1,
+                            state.previous.getIncrements(nodeId), state.previous.getDecrements(nodeId)));
+                }
+                state.currentDirty = false;
+                state.previousDirty = false;
+            }
+        }
+        return broadcast(deltas);
+    }
+
+    /**
+     * Run one full state round: broadcast this node's slots of every window that still
+     * counts, changed or not. Repairs packets lost for keys that have since gone idle,
+     * which the next change-driven round would never send again. Keys whose windows
+     * hold no counts of any node are dropped, so the map only keeps live keys.
+     *
+     * @return The number of deltas sent.
+     * @throws IOException if a packet cannot be sent.
+     */
+    public int gossipFullState() throws IOException {
+        long currentEpoch = currentTimer.millis() / windowMillis;
+        List<WindowDelta> deltas = new ArrayList<>();
+        for (Map.Entry<String, WindowState> entry : windows.entrySet()) {
+            WindowState state = entry.getValue();
+            synchronized (state) {
+                state.advanceTo(currentEpoch); // Windows that no longer count are cleared and skipped
+                if (state.current.isEmpty() && state.previous.isEmpty()) {
+                    state.evicted = true; // Callers holding the state retry with a new one
+                    windows.remove(entry.getKey(), state);
+                    continue;
+                }
+                addOwnSlot(deltas, entry.getKey(), state.epoch, state.current);
+                addOwnSlot(deltas, entry.getKey(), state.epoch - 1, state.previous);
+                state.currentDirty = false;
+                state.previousDirty = false;
+            }
+        }
+        return broadcast(deltas);
+    }
+
+    /**
+     * Get the number of keys this node keeps windows for.
+     *
+     * @return The tracked keys, including idle ones not yet dropped by a full state round.
+     */
+    public int getTrackedKeys() {
+        return windows.size();
+    }
+
+    /**
+     * Start gossiping on a background thread, with a full state round every
+     * {@value #DEFAULT_FULL_STATE_EVERY} rounds.
+     *
+     * @param gossipInterval Time between gossip rounds.
+     */
+    public void startGossip(Duration gossipInterval) {
+        startGossip(gossipInterval, DEFAULT_FULL_STATE_EVERY);
+    }
+
+    /**
+     * Start gossiping on a background thread. Failed rounds are passed to the error
+     * handler and gossip carries on.
+     *
+     * @param gossipInterval Time between gossip rounds.
+     * @param fullStateEvery Every this many rounds is a full state round, bounding how long
+     *                       a lost packet of an idle key stays unrepaired.
+     */
+    public synchronized void startGossip(Duration gossipInterval, int fullStateEvery) {
+        if (gossipScheduler != null) {
+            throw new IllegalStateException("Gossip already started");
+        }
+        if (fullStateEvery <= 0) {
+            throw new IllegalArgumentException("Full state rounds must come every 1 or more rounds: " + fullStateEvery);
+        }
+        gossipScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread gossiper = new Thread(runnable, "window-gossip-" + nodeId);
+            gossiper.setDaemon(true);
+            return gossiper;
+        });
+        long intervalNanos = gossipInterval.toNanos();
+        long[] rounds = new long[1]; // Only touched by the gossip thread
+        gossipScheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (++rounds[0] % fullStateEvery == 0) {
+                    gossipFullState();
+                } else {
+                    gossip();
+                }
+            } catch (IOException e) {
+                errors.report(e);
+            }
+        }, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Set what is told about gossip rounds that fail on the background thread. By
+     * default they go to the uncaught exception handler of the gossip thread.
+     *
+     * @param errorHandler Receives the failure of each failed round.
+     */
+    public void setErrorHandler(Consumer<? super IOException> errorHandler) {
+        errors.setHandler(errorHandler);
+    }
+
+    /**
+     * Stop gossiping and close the transport.
+     *
+     * @throws IOException if the transport cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (gossipScheduler != null) {
+            gossipScheduler.shutdownNow();
+        }
+        transport.close();
+    }
+
+    private int broadcast(List<WindowDelta> deltas) throws IOException {
+        for (byte[] packet : GossipDeltaCodec.encode(nodeId, deltas, MAX_PACKET_BYTES)) {
+            transport.broadcast(packet);
+        }
+        return deltas.size();
+    }
+
+    private void addOwnSlot(List<WindowDelta> deltas, String userId, long epoch, PNCounter counter) {
+        long increments = counter.getIncrements(nodeId);
+        long decrements = counter.getDecrements(nodeId);
+        if (increments != 0 || decrements != 0) {
+            deltas.add(new WindowDelta(userId, epoch, increments, decrements));
+        }
+    }
+
+    private void receivePacket(byte[] packet, int length) {
+        GossipDeltaCodec.decode(packet, length, this::mergeDelta);
+    }
+
+    /**
+     * Merge the slots a peer reported for one window of a key.
+     */
+    private void mergeDelta(int senderNode, String userId, long epoch, long increments, long decrements) {
+        if (senderNode == nodeId || senderNode < 0 || senderNode >= clusterSize) {
+            return;
+        }
+        long localEpoch = currentTimer.millis() / windowMillis;
+        if (epoch < localEpoch - 1 || epoch > localEpoch + MAX_EPOCH_SKEW) {
+            return; // Ended windows no longer affect the estimate, and far future ones are not trusted
+        }
+        while (true) {
+            WindowState state = windowFor(userId);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                state.advanceTo(localEpoch); // Clear windows that ended while the key was idle
+                state.advanceTo(epoch); // A peer whose clock is slightly ahead moves the window on
+                if (epoch == state.epoch) {
+                    state.current.merge(senderNode, increments, decrements);
+                } else if (epoch == state.epoch - 1) {
+                    state.previous.merge(senderNode, increments, decrements);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Get the window of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The window of the user.
+     */
+    private WindowState windowFor(String userId) {
+        WindowState existing = windows.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return windows.computeIfAbsent(userId, key -> new WindowState(clusterSize));
+    }
+
+    /**
+     * Counters of the current and previous window of one key, guarded by its own monitor.
+     */
+    private static final class WindowState {
+        private final PNCounter current; // Counts of the current window
+        private final PNCounter previous; // Counts of the window before it
+        private long epoch = Long.MIN_VALUE; // Number of the current window
+        private boolean currentDirty; // Own slot of the current window changed since the last gossip
+        private boolean previousDirty; // Own slot of the previous window changed since the last gossip
+        private boolean evicted; // Removed from the map; callers look the key up again
+
+        private WindowState(int clusterSize) {
+            this.current = new PNCounter(clusterSize);
+            this.previous = new PNCounter(clusterSize);
+        }
+
+        /**
+         * Move to a later window, keeping the current counts as the previous window
+         * when the windows are adjacent.
+         */
+        private void advanceTo(long targetEpoch) {
+            if (targetEpoch <= epoch) {
+                return;
+            }
+            if (targetEpoch == epoch + 1) {
+                previous.copyFrom(current);
+                previousDirty = currentDirty;
+            } else {
+                previous.clear();
+                previousDirty = false;
+            }
+            current.clear();
+            currentDirty = false;
+            epoch = targetEpoch;
+        }
+    }
+}
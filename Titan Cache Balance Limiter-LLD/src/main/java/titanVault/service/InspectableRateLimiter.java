@@ -0,0 +1,33 @@
+package titanVault.service;
+
+import titanVault.model.RateLimitState;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Rate limiter that can report how much of a key's limit is left and when it refills,
+ * without spending anything.
+ */
+public interface InspectableRateLimiter extends RateLimiter {
+
+    /**
+     * Get the current limit state of a key. A key that has not been seen reports its full limit.
+     *
+     * @param userId The user identifier.
+     * @return The limit, the remaining requests and the time until they refill.
+     */
+    RateLimitState inspect(String userId);
+
+    /**
+     * Decide a request and get the state of its key as that decision left it. No other
+     * request of the key is decided in between, so headers built from the state agree
+     * with the decision.
+     *
+     * @param userId   The user identifier.
+     * @param decision Decides the request, usually a controller in front of this limiter.
+     * @param state    Receives the state of the key right after the decision.
+     * @return The decision.
+     */
+    boolean decideAndInspect(String userId, Predicate<String> decision, Consumer<? super RateLimitState> state);
+}
@@ -0,0 +1,250 @@
+package titanVault.service;
+
+import titanVault.events.SlowDecisionEvent;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.metrics.MetricsSnapshot;
+import titanVault.model.RateLimitState;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Rate limiter that counts the decisions of any other limiter and measures the latency
+ * of a sample of them. Every call costs a sampling countdown and a counter increment on
+ * stripes owned by the calling thread; only sampled calls read the clock and count
+ * their key towards the hot key list.
+ * <p>
+ * Limiters that create buckets or take locks report those events themselves when given
+ * the same {@link LimiterMetrics}, see {@link TokenBucketServiceRateLimiter#setMetrics}.
+ * Decisions slower than the threshold of a {@link SlowDecisionEvent} are also written to
+ * a running flight recording; without one the event costs nothing.
+ * <p>
+ * Use {@link #wrap} to keep the {@link BlockingRateLimiter} and
+ * {@link InspectableRateLimiter} capabilities of the delegate; the constructor wraps the
+ * plain {@link RateLimiter} methods only.
+ */
+public class InstrumentedRateLimiter implements RateLimiter {
+
+    private final RateLimiter delegate; // Limiter making the decisions
+    private final LimiterMetrics metrics; // Counters and histograms of the delegate
+    private final String algorithm; // Simple class name of the delegate, for flight recorder events
+
+    /**
+     * Constructor to initialize the InstrumentedRateLimiter.
+     *
+     * @param delegate Limiter making the decisions.
+     * @param metrics  Counters and histograms to record into.
+     */
+    public InstrumentedRateLimiter(RateLimiter delegate, LimiterMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.algorithm = delegate.getClass().getSimpleName();
+    }
+
+    /**
+     * Wrap a limiter in one that implements the same {@link BlockingRateLimiter} and
+     * {@link InspectableRateLimiter} interfaces, so callers checking for them keep finding them.
+     *
+     * @param delegate Limiter making the decisions.
+     * @param metrics  Counters and histograms to record into.
+     * @return The instrumented limiter.
+     */
+    public static InstrumentedRateLimiter wrap(RateLimiter delegate, LimiterMetrics metrics) {
+        boolean blocking = delegate instanceof BlockingRateLimiter;
+        boolean inspectable = delegate instanceof InspectableRateLimiter;
+        if (blocking && inspectable) {
+            return new InspectableBlocking(delegate, metrics);
+        } else if (blocking) {
+            return new Blocking(delegate, metrics);
+        } else if (inspectable) {
+            return new Inspectable(delegate, metrics);
+        }
+        return new InstrumentedRateLimiter(delegate, metrics);
+    }
+
+    /**
+     * Determine if a request is allowed by the delegate, recording the decision.
+     *
+     * @param userId The user identifier.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId) {
+        LimiterMetrics.Recorder recorder = metrics.recorder();
+        long start = recorder.startDecision();
+        SlowDecisionEvent event = SlowDecisionEvent.beginIfEnabled();
+        boolean allowed = delegate.validateRequest(userId);
+        SlowDecisionEvent.complete(event, algorithm, Objects.hashCode(userId), 1, allowed);
+        recorder.endDecision(start, allowed);
+        if (start != LimiterMetrics.Recorder.NOT_SAMPLED) {
+            metrics.recordSampledKey(userId);
+        }
+        return allowed;
+    }
+
+    /**
+     * Determine if a request costing several permits is allowed by the delegate, recording the decision.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        LimiterMetrics.Recorder recorder = metrics.recorder();
+        long start = recorder.startDecision();
+        SlowDecisionEvent event = SlowDecisionEvent.beginIfEnabled();
+        boolean allowed = delegate.validateRequest(userId, permits);
+        SlowDecisionEvent.complete(event, algorithm, Objects.hashCode(userId), permits, allowed);
+        recorder.endDecision(start, allowed);
+        if (start != LimiterMetrics.Recorder.NOT_SAMPLED) {
+            metrics.recordSampledKey(userId);
+        }
+        return allowed;
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed by the delegate, recording the decision.
+     *
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        LimiterMetrics.Recorder recorder = metrics.recorder();
+        long start = recorder.startDecision();
+        SlowDecisionEvent event = SlowDecisionEvent.beginIfEnabled();
+        boolean allowed = delegate.validateRequest(key);
+        SlowDecisionEvent.complete(event, algorithm, Long.hashCode(key), 1, allowed);
+        recorder.endDecision(start, allowed);
+        if (start != LimiterMetrics.Recorder.NOT_SAMPLED) {
+            metrics.recordSampledKey(key);
+        }
+        return allowed;
+    }
+
+    /**
+     * Take permits from the blocking delegate, counting the outcome. The latency is not
+     * recorded, since it includes the wait.
+     */
+    boolean recordAcquire(String userId, long permits, Duration timeout) throws InterruptedException {
+        boolean acquired = ((BlockingRateLimiter) delegate).acquire(userId, permits, timeout);
+        metrics.recordDecision(acquired);
+        return acquired;
+    }
+
+    /**
+     * Try to take permits from the blocking delegate, recording the decision like {@link #validateRequest}.
+     */
+    long recordTryAcquire(String userId, long permits) {
+        LimiterMetrics.Recorder recorder = metrics.recorder();
+        long start = recorder.startDecision();
+        SlowDecisionEvent event = SlowDecisionEvent.beginIfEnabled();
+        long delay = ((BlockingRateLimiter) delegate).tryAcquire(userId, permits);
+        boolean allowed = delay == 0;
+        SlowDecisionEvent.complete(event, algorithm, Objects.hashCode(userId), permits, allowed);
+        recorder.endDecision(start, allowed);
+        if (start != LimiterMetrics.Recorder.NOT_SAMPLED) {
+            metrics.recordSampledKey(userId);
+        }
+        return delay;
+    }
+
+    /**
+     * Get the limit state from the inspectable delegate; inspecting spends nothing, so nothing is recorded.
+     */
+    RateLimitState inspectDelegate(String userId) {
+        return ((InspectableRateLimiter) delegate).inspect(userId);
+    }
+
+    /**
+     * Decide a request through the inspectable delegate; the decision records itself when
+     * it reaches this limiter.
+     */
+    boolean decideAndInspectDelegate(String userId, Predicate<String> decision, Consumer<? super RateLimitState> state) {
+        return ((InspectableRateLimiter) delegate).decideAndInspect(userId, decision, state);
+    }
+
+    /**
+     * Take a snapshot of the metrics. The number of tracked keys is known for limiters
+     * that can list their keys.
+     *
+     * @return The snapshot.
+     */
+    public MetricsSnapshot snapshot() {
+        long trackedKeys = delegate instanceof SnapshotRateLimiter snapshotLimiter
+                ? snapshotLimiter.snapshotKeys().size()
+                : -1;
+        return metrics.snapshot(trackedKeys);
+    }
+
+    public RateLimiter getDelegate() {
+        return delegate;
+    }
+
+    public LimiterMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Instrumented limiter around a {@link BlockingRateLimiter}.
+     */
+    private static class Blocking extends InstrumentedRateLimiter implements BlockingRateLimiter {
+
+        private Blocking(RateLimiter delegate, LimiterMetrics metrics) {
+            super(delegate, metrics);
+        }
+
+        @Override
+        public boolean acquire(String userId, long permits, Duration timeout) throws InterruptedException {
+            return recordAcquire(userId, permits, timeout);
+        }
+
+        @Override
+        public long tryAcquire(String userId, long permits) {
+            return recordTryAcquire(userId, permits);
+        }
+    }
+
+    /**
+     * Instrumented limiter around an {@link InspectableRateLimiter}.
+     */
+    private static final class Inspectable extends InstrumentedRateLimiter implements InspectableRateLimiter {
+
+        private Inspectable(RateLimiter delegate, LimiterMetrics metrics) {
+            super(delegate, metrics);
+        }
+
+        @Override
+        public RateLimitState inspect(String userId) {
+            return inspectDelegate(userId);
+        }
+
+        @Override
+        public boolean decideAndInspect(String userId, Predicate<String> decision, Consumer<? super RateLimitState> state) {
+            return decideAndInspectDelegate(userId, decision, state);
+        }
+    }
+
+    /**
+     * Instrumented limiter around a limiter that is both blocking and inspectable.
+     */
+    private static final class InspectableBlocking extends Blocking implements InspectableRateLimiter {
+
+        private InspectableBlocking(RateLimiter delegate, LimiterMetrics metrics) {
+            super(delegate, metrics);
+        }
+
+        @Override
+        public RateLimitState inspect(String userId) {
+            return inspectDelegate(userId);
+        }
+
+        @Override
+        public boolean decideAndInspect(String userId, Predicate<String> decision, Consumer<? super RateLimitState> state) {
+            return decideAndInspectDelegate(userId, decision, state);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package titanVault.service;
+
+import titanVault.events.ConfigReloadEvent;
+import titanVault.events.KeysEvictedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rate limiter for composite keys such as {@code tenant:route:ip} that picks the limit of
+ * each key from a set of rules instead of needing one service instance per policy.
+ * <p>
+ * Rules are compiled into a {@link KeyRuleTrie}; the most specific matching rule decides,
+ * and keys no rule matches fall back to the default policy. Each rule's limiter is keyed
+ * by the full incoming key, so a rule such as {@code acme:*} gives every matching key its
+ * own bucket. The rule chosen for a key is cached, so repeat keys cost one hash lookup;
+ * the cache is cleared when it reaches its bound and whenever the rules are replaced.
+ */
+public class KeyRuleRateLimiter implements RateLimiter {
+
+    private static final String ALGORITHM = KeyRuleRateLimiter.class.getSimpleName(); // Algorithm named in flight recorder events
+
+    private final RateLimiter defaultPolicy; // Applied to keys no rule matches
+    private final int maxCachedKeys; // Cache size at which the cache is cleared
+    private volatile CompiledRules compiledRules; // Trie and match cache, replaced together
+
+    /**
+     * Constructor to initialize the KeyRuleRateLimiter.
+     *
+     * @param rules         Limiters by rule pattern.
+     * @param defaultPolicy Limiter applied to keys no rule matches.
+     * @param maxCachedKeys Cache size at which the cache is cleared.
+     */
+    public KeyRuleRateLimiter(Map<String, ? extends RateLimiter> rules, RateLimiter defaultPolicy, int maxCachedKeys) {
+        if (defaultPolicy == null) {
+            throw new IllegalArgumentException("Default policy cannot be null");
+        }
+        if (maxCachedKeys <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxCachedKeys);
+        }
+        this.defaultPolicy = defaultPolicy;
+        this.maxCachedKeys = maxCachedKeys;
+        this.compiledRules = new CompiledRules(KeyRuleTrie.compile(rules));
+    }
+
+    /**
+     * Replace the rules. The new trie is compiled before it is published, and requests in
+     * flight finish with the rules they started with.
+     *
+     * @param rules Limiters by rule pattern.
+     */
+    public void updateRules(Map<String, ? extends RateLimiter> rules) {
+        ConfigReloadEvent event = new ConfigReloadEvent();
+        event.begin();
+        compiledRules = new CompiledRules(KeyRuleTrie.compile(rules));
+        event.applied("rules", ALGORITHM, rules.size());
+    }
+
+    /**
+     * Determine if a request is allowed by the most specific rule matching its key.
+     *
+     * @param userId The composite key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId) {
+        return policyFor(userId).validateRequest(userId);
+    }
+
+    /**
+     * Determine if a request costing several permits is allowed by its matching rule.
+     *
+     * @param userId  The composite key.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        return policyFor(userId).validateRequest(userId, permits);
+    }
+
+    /**
+     * Determine if a request is allowed for a key given as its parts.
+     *
+     * @param keyParts The segments of the composite key, e.g. tenant, route and ip.
+     * @return true if the request is allowed, false otherwise.
+     */
+    public boolean validateRequest(String... keyParts) {
+        return validateRequest(String.join(String.valueOf(KeyRuleTrie.SEPARATOR), keyParts));
+    }
+
+    /**
+     * Get the pattern of the rule a key is limited by, for diagnostics.
+     *
+     * @param userId The composite key.
+     * @return The matching pattern, or null if the default policy applies.
+     */
+    public String getMatchingRule(String userId) {
+        return compiledRules.trie.matchPattern(userId);
+    }
+
+    /**
+     * Get the limiter deciding a key, from the cache or by matching the trie.
+     */
+    private RateLimiter policyFor(String userId) {
+        CompiledRules rules = compiledRules;
+        RateLimiter policy = rules.matches.get(userId);
+        if (policy == null) {
+            policy = rules.trie.match(userId);
+            if (policy == null) {
+                policy = defaultPolicy;
+            }
+            int cachedKeys = rules.matches.size();
+            if (cachedKeys >= maxCachedKeys) {
+                rules.matches.clear(); // Bounded memory for key spaces such as IP addresses
+                KeysEvictedEvent.emit(ALGORITHM, cachedKeys);
+            }
+            rules.matches.put(userId, policy);
+        }
+        return policy;
+    }
+
+    /**
+     * A compiled rule set and the matches made against it.
+     */
+    private static final class CompiledRules {
+        private final KeyRuleTrie<RateLimiter> trie; // Compiled rules
+        private final ConcurrentMap<String, RateLimiter> matches = new ConcurrentHashMap<>(); // Matched limiter by key
+
+        private CompiledRules(KeyRuleTrie<RateLimiter> trie) {
+            this.trie = trie;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package titanVault.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable trie of key rules over {@code :}-separated composite keys such as
+ * {@code tenant:route:ip}.
+ * <p>
+ * A rule pattern is a sequence of segments, each either a literal or {@code *} for any
+ * single segment. A pattern shorter than a key matches it as a prefix, so {@code acme}
+ * covers every key of tenant {@code acme}. When several rules match, the most specific
+ * wins: at the first position where they differ a literal beats {@code *}, and {@code *}
+ * beats a pattern that has already ended. Matching walks the trie depth first in that
+ * order, so the first rule found is the answer and the cost depends on the key's length,
+ * not on the number of rules.
+ *
+ * @param <T> The value attached to each rule.
+ */
+public final class KeyRuleTrie<T> {
+
+    public static final char SEPARATOR = ':'; // Separates the segments of a key
+    public static final String WILDCARD = "*"; // Matches any single segment
+
+    private final Node<T> root; // Empty pattern; holds a rule only if "" was given
+
+    private KeyRuleTrie(Node<T> root) {
+        this.root = root;
+    }
+
+    /**
+     * Compile rules into a trie.
+     *
+     * @param rules Values by rule pattern.
+     * @param <T>   The value attached to each rule.
+     * @return The compiled trie.
+     * @throws IllegalArgumentException if a pattern has an empty segment or a partial wildcard.
+     */
+    public static <T> KeyRuleTrie<T> compile(Map<String, ? extends T> rules) {
+        Builder<T> root = new Builder<>();
+        for (Map.Entry<String, ? extends T> rule : rules.entrySet()) {
+            Builder<T> node = root;
+            for (String segment : split(rule.getKey())) {
+                if (segment.isEmpty() || (segment.contains(WILDCARD) && !segment.equals(WILDCARD))) {
+                    throw new IllegalArgumentException("Invalid rule pattern: " + rule.getKey());
+                }
+                node = segment.equals(WILDCARD)
+                        ? (node.wildcard == null ? node.wildcard = new Builder<>() : node.wildcard)
+                        : node.literals.computeIfAbsent(segment, key -> new Builder<>());
+            }
+            node.pattern = rule.getKey();
+            node.value = rule.getValue();
+        }
+        return new KeyRuleTrie<>(root.build());
+    }
+
+    /**
+     * Find the most specific rule matching a key.
+     *
+     * @param key The composite key.
+     * @return The value of the matching rule, or null if none matches.
+     */
+    public T match(String key) {
+        Node<T> node = find(root, key, 0);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Find the pattern of the most specific rule matching a key.
+     *
+     * @param key The composite key.
+     * @return The matching pattern, or null if none matches.
+     */
+    public String matchPattern(String key) {
+        Node<T> node = find(root, key, 0);
+        return node == null ? null : node.pattern;
+    }
+
+    /**
+     * Depth-first search from the segment starting at {@code start}: literal child first,
+     * then wildcard child, then the rule ending at this node.
+     */
+    private static <T> Node<T> find(Node<T> node, String key, int start) {
+        if (start <= key.length()) {
+            int end = key.indexOf(SEPARATOR, start);
+            if (end < 0) {
+                end = key.length();
+            }
+            if (!node.literals.isEmpty()) {
+                Node<T> literal = node.literals.get(key.substring(start, end));
+                if (literal != null) {
+                    Node<T> found = find(literal, key, end + 1);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+            if (node.wildcard != null) {
+                Node<T> found = find(node.wildcard, key, end + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return node.pattern != null ? node : null;
+    }
+
+    private static List<String> split(String pattern) {
+        if (pattern.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = pattern.indexOf(SEPARATOR, start)) >= 0) {
+            segments.add(pattern.substring(start, end));
+            start = end + 1;
+        }
+        segments.add(pattern.substring(start));
+        return segments;
+    }
+
+    /**
+     * Compiled trie node; never mutated once built.
+     */
+    private static final class Node<T> {
+        private final Map<String, Node<T>> literals; // Children by literal segment
+        private final Node<T> wildcard; // Child for "*", or null
+        private final String pattern; // Pattern of the rule ending here, or null
+        private final T value; // Value of the rule ending here
+
+        private Node(Map<String, Node<T>> literals, Node<T> wildcard, String pattern, T value) {
+            this.literals = literals;
+            this.wildcard = wildcard;
+            this.pattern = pattern;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Mutable node used while compiling.
+     */
+    private static final class Builder<T> {
+        private final Map<String, Builder<T>> literals = new HashMap<>(); // Children by literal segment
+        private Builder<T> wildcard; // Child for "*"
+        private String pattern; // Pattern of the rule ending here
+        private T value; // Value of the rule ending here
+
+        private Node<T> build() {
+            Map<String, Node<T>> built = new HashMap<>(Math.max(4, literals.size() * 2));
+            literals.forEach((segment, child) -> built.put(segment, child.build()));
+            return new Node<>(built.isEmpty() ? Collections.emptyMap() : built,
+                    wildcard == null ? null : wildcard.build(), pattern, value);
+        }
+    }
+}
@@ -2,8 +2,12 @@ package titanVault.service;
 
 import titanVault.model.LeakyBucket;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -12,14 +16,16 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * Leaky bucket rate limiter implementation of the RateLimiter interface.
  */
-public abstract class LeakyBucketRateLimiter implements RateLimiter {
+public abstract class LeakyBucketRateLimiter implements SnapshotRateLimiter, BlockingRateLimiter {
 
     private final long maxCapacity; // Maximum capacity of the bucket
     private final double leakRate; // Rate at which water leaks from the bucket
     private final Duration leakPeriod; // Time period for leakage
     private final Clock currentTimer; // Clock to get the current time
     private final ConcurrentMap<String, LeakyBucket> leakyBucket = new ConcurrentSkipListMap<>(); // Stores leaky buckets for users
+    private final LongKeyMap<LeakyBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(); // Lock for thread safety
+    private final PermitWaiters waiters = new PermitWaiters(); // Threads parked in acquire, per user
 
     public LeakyBucketRateLimiter(long maxCapacity, double leakRate,
                                   Duration leakPeriod, Clock currentTimer) {
@@ -47,8 +53,7 @@ public abstract class LeakyBucketRateLimiter implements RateLimiter {
         if (bucket == null) {
             readWriteLock.writeLock().lock();
             try {
-                bucket = leakyBucket.computeIfAbsent(userId, key ->
-                        new LeakyBucket(maxCapacity, 0, leakRate, leakPeriod, currentTimer));
+                bucket = bucketFor(userId);
             } finally {
                 readWriteLock.writeLock().unlock();
             }
@@ -57,6 +62,43 @@ public abstract class LeakyBucketRateLimiter implements RateLimiter {
         return bucket.allowRequest();
     }
 
+    /**
+     * Determine if a request for a primitive key is allowed based on the leaky bucket algorithm,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        LeakyBucket bucket = longKeyBuckets.get(key);
+        if (bucket == null) {
+            readWriteLock.writeLock().lock();
+            try {
+                bucket = bucketFor(key);
+            } finally {
+                readWriteLock.writeLock().unlock();
+            }
+        }
+        return bucket.allowRequest();
+    }
+
+    /**
+     * Add a request weighing several units to the bucket, waiting for enough water to
+     * leak out when it would overflow.
+     * @param userId The user identifier.
+     * @param permits The amount of water the request adds, at most the capacity of the bucket.
+     * @param timeout The longest time to wait.
+     * @return true if the request was allowed, false if the timeout passed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    @Override
+    public boolean acquire(String userId, long permits, Duration timeout) throws InterruptedException {
+        if (permits <= 0 || permits > maxCapacity) {
+            throw new IllegalArgumentException("Permits must be between 1 and the capacity " + maxCapacity + ": " + permits);
+        }
+        return waiters.acquire(this::tryAcquire, userId, permits, timeout);
+    }
+
     /**
      * Get the leaky bucket associated with a user.
      * @param userId The user identifier.
@@ -70,4 +112,89 @@ public abstract class LeakyBucketRateLimiter implements RateLimiter {
             readWriteLock.readLock().unlock();
         }
     }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return leakyBucket.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        LeakyBucket bucket = leakyBucket.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        LeakyBucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return leakyBucket.remove(userId) != null;
+    }
+
+    /**
+     * Add a request if the bucket has room for it, or tell how long until enough leaks out.
+     * @param userId The user identifier.
+     * @param permits The amount of water the request adds.
+     * @return 0 if the request was allowed, otherwise the milliseconds until it may be.
+     */
+    @Override
+    public long tryAcquire(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        LeakyBucket bucket = getLeakyBucket(userId);
+        if (bucket == null) {
+            readWriteLock.writeLock().lock();
+            try {
+                bucket = bucketFor(userId);
+            } finally {
+                readWriteLock.writeLock().unlock();
+            }
+        }
+        return bucket.allowRequestOrWaitTime(permits);
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private LeakyBucket bucketFor(String userId) {
+        LeakyBucket existing = leakyBucket.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return leakyBucket.computeIfAbsent(userId, key ->
+                new LeakyBucket(maxCapacity, 0, leakRate, leakPeriod, currentTimer));
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private LeakyBucket bucketFor(long key) {
+        LeakyBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id ->
+                new LeakyBucket(maxCapacity, 0, leakRate, leakPeriod, currentTimer));
+    }
 }
@@ -0,0 +1,225 @@
+package titanVault.service;
+
+import titanVault.distributed.TokenLease;
+import titanVault.distributed.TokenLeaseCoordinator;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Token bucket rate limiter for one node of a cluster. The global bucket of every key
+ * lives in a {@link TokenLeaseCoordinator}; the node borrows a batch of tokens for a key
+ * and spends it locally without any network hop, so the whole cluster admits at most
+ * the global limit.
+ * <p>
+ * Lease sizes adapt to each key's local demand: a batch spent before its lease expires
+ * doubles the next request, and a batch less than half used by expiry halves it. Unused
+ * tokens go back to the coordinator once the lease expires, either when the key is next
+ * seen or through {@link #releaseExpiredLeases()}. A request costing more tokens than
+ * the lease holds tops the lease up with at least the missing tokens before it spends them.
+ */
+public class LeasedTokenBucketServiceRateLimiter implements RateLimiter {
+
+    private final TokenLeaseCoordinator coordinator; // Owner of the global buckets
+    private final long minLeaseSize; // Smallest batch requested for a key
+    private final long maxLeaseSize; // Largest batch requested for a key
+    private final Duration retryInterval; // Wait before asking again after an empty or failed lease
+    private final Clock currentTimer; // Clock to get the current time
+    private final ConcurrentMap<String, LocalLease> leases = new ConcurrentSkipListMap<>(); // Borrowed tokens per user
+
+    /**
+     * Constructor to initialize the LeasedTokenBucketServiceRateLimiter.
+     *
+     * @param coordinator   Coordinator lending tokens from the global buckets.
+     * @param minLeaseSize  Smallest batch requested for a key.
+     * @param maxLeaseSize  Largest batch requested for a key.
+     * @param retryInterval Wait before asking again after an empty or failed lease.
+     * @param currentTimer  Clock to get the current time.
+     */
+    public LeasedTokenBucketServiceRateLimiter(TokenLeaseCoordinator coordinator, long minLeaseSize,
+                                               long maxLeaseSize, Duration retryInterval, Clock currentTimer) {
+        if (minLeaseSize <= 0 || maxLeaseSize < minLeaseSize) {
+            throw new IllegalArgumentException("Lease sizes must satisfy 0 < min <= max: " + minLeaseSize + ", " + maxLeaseSize);
+        }
+        this.coordinator = coordinator;
+        this.minLeaseSize = minLeaseSize;
+        this.maxLeaseSize = maxLeaseSize;
+        this.retryInterval = retryInterval;
+        this.currentTimer = currentTimer;
+    }
+
+    /**
+     * Determine if a request is allowed, spending a locally leased token.
+     *
+     * @param userId The user identifier.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId) {
+        return validateRequest(userId, 1);
+    }
+
+    /**
+     * Determine if a request costing several tokens is allowed, spending them all from the
+     * local lease or none.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of tokens the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        LocalLease lease = leases.get(userId);
+        if (lease == null) {
+            lease = leases.computeIfAbsent(userId, key -> new LocalLease(minLeaseSize)); // Capturing lambda only for new keys
+        }
+        synchronized (lease) {
+            long currentTime = currentTimer.millis();
+            if (lease.remainingTokens < permits || currentTime >= lease.expiresAt) {
+                if (currentTime < lease.retryAt) {
+                    return false; // The coordinator had nothing to lend a moment ago
+                }
+                renewLease(userId, lease, currentTime, permits);
+            }
+            if (lease.remainingTokens >= permits) {
+                lease.remainingTokens -= permits;
+                lease.spentTokens += permits;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Return the unused tokens of every expired lease to the coordinator.
+     * Meant to be run periodically so idle keys do not hold tokens.
+     *
+     * @return The number of tokens returned.
+     */
+    public long releaseExpiredLeases() {
+        long returned = 0;
+        long currentTime = currentTimer.millis();
+        for (ConcurrentMap.Entry<String, LocalLease> entry : leases.entrySet()) {
+            LocalLease lease = entry.getValue();
+            synchronized (lease) {
+                if (currentTime >= lease.expiresAt && lease.remainingTokens > 0) {
+                    returned += returnUnused(entry.getKey(), lease);
+                }
+            }
+        }
+        return returned;
+    }
+
+    /**
+     * Get the batch size the next lease of a key will request.
+     *
+     * @param userId The user identifier.
+     * @return The adapted lease size, or the minimum for an unknown key.
+     */
+    public long getLeaseSize(String userId) {
+        LocalLease lease = leases.get(userId);
+        if (lease == null) {
+            return minLeaseSize;
+        }
+        synchronized (lease) {
+            return lease.leaseSize;
+        }
+    }
+
+    /**
+     * Get the tokens a key still holds locally.
+     *
+     * @param userId The user identifier.
+     * @return The unspent leased tokens.
+     */
+    public long getLeasedTokens(String userId) {
+        LocalLease lease = leases.get(userId);
+        if (lease == null) {
+            return 0;
+        }
+        synchronized (lease) {
+            return lease.remainingTokens;
+        }
+    }
+
+    /**
+     * Replace an exhausted or expired lease, or top up a running one that holds fewer
+     * tokens than a request costs. Called with the lease monitor held, so only requests
+     * for this key wait on the coordinator.
+     */
+    private void renewLease(String userId, LocalLease lease, long currentTime, long permits) {
+        boolean expired = currentTime >= lease.expiresAt;
+        if (expired && lease.remainingTokens > 0) {
+            returnUnused(userId, lease);
+        } else if (!expired && lease.grantedTokens > 0 && lease.spentTokens >= lease.grantedTokens) {
+            lease.leaseSize = Math.min(maxLeaseSize, lease.leaseSize * 2); // Ran dry before expiry
+        }
+
+        TokenLease granted;
+        try {
+            granted = coordinator.acquireLease(userId, Math.max(lease.leaseSize, permits - lease.remainingTokens));
+        } catch (UncheckedIOException e) {
+            granted = null; // Coordinator unreachable, fail closed until the retry interval passes
+        }
+        if (granted == null || granted.getGrantedTokens() == 0) {
+            if (lease.remainingTokens == 0) {
+                lease.grantedTokens = 0;
+                lease.spentTokens = 0;
+            }
+            lease.retryAt = currentTime + retryInterval.toMillis(); // Tokens of a running lease stay for smaller requests
+            return;
+        }
+        if (lease.remainingTokens == 0) {
+            lease.grantedTokens = 0;
+            lease.spentTokens = 0;
+        }
+        lease.remainingTokens += granted.getGrantedTokens();
+        lease.grantedTokens += granted.getGrantedTokens();
+        lease.expiresAt = currentTime + granted.getLeaseDuration().toMillis();
+        lease.retryAt = 0;
+    }
+
+    /**
+     * Give the unspent tokens of an expired lease back and shrink the next lease
+     * when less than half of this one was used.
+     *
+     * @return The number of tokens returned.
+     */
+    private long returnUnused(String userId, LocalLease lease) {
+        long unused = lease.remainingTokens;
+        if (lease.spentTokens * 2 < lease.grantedTokens) {
+            lease.leaseSize = Math.max(minLeaseSize, lease.leaseSize / 2);
+        }
+        lease.remainingTokens = 0;
+        lease.grantedTokens = 0;
+        lease.spentTokens = 0;
+        try {
+            coordinator.returnTokens(userId, unused);
+        } catch (UncheckedIOException e) {
+            return 0; // Tokens are lost; the global bucket refills them in time
+        }
+        return unused;
+    }
+
+    /**
+     * Tokens borrowed for one key, guarded by its own monitor.
+     */
+    private static final class LocalLease {
+        private long leaseSize; // Batch size of the next request
+        private long grantedTokens; // Tokens granted by the current lease
+        private long remainingTokens; // Tokens not yet spent
+        private long spentTokens; // Tokens spent from the current lease
+        private long expiresAt; // Local time at which the lease expires
+        private long retryAt; // Earliest time to ask again after an empty lease
+
+        private LocalLease(long leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package titanVault.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Concurrent map from primitive {@code long} keys to buckets, for limiters whose keys are
+ * already 64-bit ids or hashed addresses.
+ * <p>
+ * Entries live in an open-addressing table of parallel key and value arrays probed
+ * linearly, so a lookup hashes one long and compares longs instead of walking a skip
+ * list of strings. Reads take no lock: a slot's key is written before its value is
+ * published with release semantics, and a reader that sees the value also sees the key.
+ * Inserts are serialized on the map and a full table is replaced by a larger copy, so
+ * readers always probe a complete table. Entries are never removed, like the buckets of
+ * the String-keyed maps.
+ *
+ * @param <V> The bucket type.
+ */
+public final class LongKeyMap<V> {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final double MAX_LOAD = 0.5; // Fill ratio at which the table doubles
+
+    private volatile Table table; // Current table, replaced on resize
+    private int size; // Number of entries, guarded by this
+
+    /**
+     * Constructor to initialize the LongKeyMap.
+     *
+     * @param expectedKeys Number of keys the map is sized for before it has to grow.
+     */
+    public LongKeyMap(int expectedKeys) {
+        if (expectedKeys < 0) {
+            throw new IllegalArgumentException("Expected keys must not be negative: " + expectedKeys);
+        }
+        this.table = new Table(tableSizeFor(expectedKeys));
+    }
+
+    /**
+     * Get the bucket of a key.
+     *
+     * @param key The key.
+     * @return The bucket, or null if the key has none.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table current = table;
+        int mask = current.keys.length - 1;
+        for (int slot = spread(key) & mask; ; slot = (slot + 1) & mask) {
+            Object value = SLOTS.getAcquire(current.values, slot);
+            if (value == null) {
+                return null; // An empty slot ends the probe sequence
+            }
+            if (current.keys[slot] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * Get the bucket of a key, creating it on first use. Callers on a hot path should try
+     * {@link #get(long)} first so a capturing factory is only allocated for new keys.
+     *
+     * @param key     The key.
+     * @param factory Creates the bucket of a new key; called at most once per key.
+     * @return The bucket of the key.
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> factory) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            existing = get(key); // Another thread may have inserted it meanwhile
+            if (existing != null) {
+                return existing;
+            }
+            V created = factory.apply(key);
+            if (created == null) {
+                throw new IllegalArgumentException("Factory returned no bucket for key " + key);
+            }
+            if (size + 1 > table.keys.length * MAX_LOAD) {
+                table = resize(table);
+            }
+            insert(table, key, created);
+            size++;
+            return created;
+        }
+    }
+
+    /**
+     * Visit every entry. Entries inserted during the walk may or may not be visited.
+     *
+     * @param visitor Called with each key and its bucket.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryVisitor<? super V> visitor) {
+        Table current = table;
+        for (int slot = 0; slot < current.keys.length; slot++) {
+            Object value = SLOTS.getAcquire(current.values, slot);
+            if (value != null) {
+                visitor.visit(current.keys[slot], (V) value);
+            }
+        }
+    }
+
+    /**
+     * Copy the keys of the map. Keys inserted during the copy may or may not be included.
+     *
+     * @return The keys, in no particular order.
+     */
+    public long[] keys() {
+        Table current = table;
+        long[] keys = new long[current.keys.length];
+        int count = 0;
+        for (int slot = 0; slot < current.keys.length; slot++) {
+            if (SLOTS.getAcquire(current.values, slot) != null) {
+                keys[count++] = current.keys[slot];
+            }
+        }
+        return Arrays.copyOf(keys, count);
+    }
+
+    /**
+     * Get the number of keys in the map.
+     *
+     * @return The number of keys.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private static void insert(Table target, long key, Object value) {
+        int mask = target.keys.length - 1;
+        int slot = spread(key) & mask;
+        while (target.values[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        target.keys[slot] = key;
+        SLOTS.setRelease(target.values, slot, value); // Publishes the key written above
+    }
+
+    private static Table resize(Table current) {
+        Table grown = new Table(current.keys.length * 2);
+        for (int slot = 0; slot < current.keys.length; slot++) {
+            Object value = current.values[slot];
+            if (value != null) {
+                insert(grown, current.keys[slot], value);
+            }
+        }
+        return grown; // Published by the volatile write in the caller
+    }
+
+    /**
+     * Mix the bits of a key so sequential ids spread over the table.
+     */
+    private static int spread(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedKeys) {
+        long needed = (long) Math.ceil(Math.max(expectedKeys, 8) / MAX_LOAD);
+        if (needed > (1 << 30)) {
+            throw new IllegalArgumentException("Too many expected keys: " + expectedKeys);
+        }
+        return Integer.highestOneBit((int) needed - 1) << 1;
+    }
+
+    /**
+     * Receives the entries of a {@link LongKeyMap} without boxing the keys.
+     *
+     * @param <V> The bucket type.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor<V> {
+
+        /**
+         * Visit one entry.
+         *
+         * @param key    The key.
+         * @param bucket The bucket of the key.
+         */
+        void visit(long key, V bucket);
+    }
+
+    /**
+     * Parallel key and value arrays; a slot is empty while its value is null.
+     */
+    private static final class Table {
+        private final long[] keys; // Key of each slot
+        private final Object[] values; // Bucket of each slot
+
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package titanVault.service;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Per-key FIFO queues of threads waiting for permits, shared by the limiters that
+ * implement {@link BlockingRateLimiter}.
+ * <p>
+ * Only the head of a key's queue tries its limiter. When it cannot take its permits, the
+ * limiter says how long until it can, and the head parks for exactly that long; the
+ * waiters behind it park until their deadline and are unparked one at a time as each head
+ * leaves the queue. No thread polls, and a waiter costs a queue node and its parked
+ * thread, so with virtual threads the number of waiters is bounded by memory only.
+ * A waiter that times out or is interrupted is marked and skipped when it reaches the
+ * head, so leaving is constant time wherever it sits in the queue.
+ */
+final class PermitWaiters {
+
+    /**
+     * One try at a key's limiter, made by the head of its queue.
+     */
+    @FunctionalInterface
+    interface Attempt {
+
+        /**
+         * Take permits if they are available.
+         *
+         * @param userId  The user identifier.
+         * @param permits The number of permits.
+         * @return 0 if the permits were taken, otherwise the milliseconds until they may be.
+         */
+        long tryAcquire(String userId, long permits);
+    }
+
+    private final ConcurrentMap<String, Queue<Waiter>> queues = new ConcurrentHashMap<>(); // Waiters per key, removed when empty
+
+    /**
+     * Take permits for a key, waiting behind the earlier waiters of the key. The limiter
+     * passes its attempt on each call rather than at construction, so it can create its
+     * waiters in a field initializer without handing out a half-built {@code this}.
+     *
+     * @param attempt Tries the limiter for the head of the queue.
+     * @param userId  The user identifier.
+     * @param permits The number of permits.
+     * @param timeout The longest time to wait.
+     * @return true if the permits were taken, false if the timeout passed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    boolean acquire(Attempt attempt, String userId, long permits, Duration timeout) throws InterruptedException {
+        if (timeout == null || timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        if (!queues.containsKey(userId) && attempt.tryAcquire(userId, permits) == 0) {
+            return true; // Nobody is waiting for the key, so there is no one to queue behind
+        }
+        long timeoutNanos = saturatedNanos(timeout);
+        long deadline = System.nanoTime() + timeoutNanos;
+        Waiter waiter = new Waiter(Thread.currentThread());
+        Queue<Waiter> queue = enqueue(userId, waiter);
+        try {
+            while (true) {
+                long parkNanos = deadline - System.nanoTime();
+                if (head(queue) == waiter) {
+                    long waitMillis = attempt.tryAcquire(userId, permits);
+                    if (waitMillis == 0) {
+                        return true;
+                    }
+                    parkNanos = Math.min(parkNanos, TimeUnit.MILLISECONDS.toNanos(waitMillis));
+                } else if (parkNanos <= 0) {
+                    return false;
+                }
+                if (deadline - System.nanoTime() <= 0) {
+                    return false; // Past the deadline after a last try as the head
+                }
+                LockSupport.parkNanos(this, Math.max(parkNanos, 1));
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            leave(userId, queue, waiter);
+        }
+    }
+
+    /**
+     * Append a waiter to the queue of a key, creating the queue if needed. Creation and
+     * removal of a queue go through the map's per-key atomic updates, so a waiter never
+     * joins a queue that was just dropped.
+     */
+    private Queue<Waiter> enqueue(String userId, Waiter waiter) {
+        return queues.compute(userId, (key, queue) -> {
+            Queue<Waiter> waiting = queue == null ? new ConcurrentLinkedQueue<>() : queue;
+            waiting.add(waiter);
+            return waiting;
+        });
+    }
+
+    /**
+     * Get the first waiter of a queue that is still waiting, dropping those that left.
+     */
+    private static Waiter head(Queue<Waiter> queue) {
+        Waiter head;
+        while ((head = queue.peek()) != null && head.left) {
+            queue.remove(head);
+        }
+        return head;
+    }
+
+    /**
+     * Take a waiter out of its queue. The leading waiters that left are unlinked and the
+     * head is always woken: another thread may already have unlinked this waiter while it
+     * was leaving, so whether it was the head can no longer be told from the queue. A head
+     * woken for nothing tries once more and parks again. A waiter further back stays
+     * marked until it reaches the head. A queue left empty is removed from the map unless
+     * a new waiter joined it meanwhile, so the fast path of the key works again.
+     */
+    private void leave(String userId, Queue<Waiter> queue, Waiter waiter) {
+        waiter.left = true;
+        Waiter next = head(queue);
+        if (next != null) {
+            LockSupport.unpark(next.thread);
+        } else {
+            queues.computeIfPresent(userId, (key, waiting) -> waiting == queue && waiting.isEmpty() ? null : waiting);
+        }
+    }
+
+    private static long saturatedNanos(Duration timeout) {
+        try {
+            return timeout.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE / 2; // Close enough to forever, and still safe to add to nanoTime
+        }
+    }
+
+    /**
+     * A thread waiting in a queue.
+     */
+    private static final class Waiter {
+        private final Thread thread; // Thread parked for the permits
+        private volatile boolean left; // Set once the thread no longer waits, to be skipped at the head
+
+        private Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
+}
@@ -2,9 +2,15 @@ package titanVault.service;
 
 import titanVault.model.Quota;
 import titanVault.model.TokenBucket;
+import titanVault.persistence.QuotaLedger;
+import titanVault.persistence.QuotaWriteAheadLog;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -13,7 +19,9 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 /**
  * Rate limiter that combines token bucket rate limiting with quota management.
  */
-public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
+public class QuotasTokenBucketRateServiceLimiter implements SnapshotRateLimiter {
+
+    private static final char LONG_KEY_TAG = '\u0000'; // Starts the ledger and journal key of a primitive key
 
     private final long maxCapacity; // Maximum number of tokens in the bucket
     private final Duration refillPeriod; // Time period for token refill
@@ -21,6 +29,12 @@ public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
     private final Clock currentTimer; // Clock to get the current time
     private final ConcurrentMap<String, TokenBucket> tokenBuckets; // Token buckets for users
     private final ConcurrentMap<String, Quota> quotas; // Quotas for users
+    private final LongKeyMap<TokenBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Token buckets for primitive keys
+    private final LongKeyMap<Quota> longKeyQuotas = new LongKeyMap<>(1_024); // Quotas for primitive keys
+    private final long maxQuota; // Maximum quota allowed per user
+    private final Duration quotaPeriod; // Period over which the quota is applied
+    private final QuotaLedger quotaLedger; // Optional durable store for quota usage
+    private final QuotaWriteAheadLog writeAheadLog; // Optional log of every quota debit
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(); // Lock for managing concurrency
 
     /**
@@ -36,15 +50,62 @@ public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
     public QuotasTokenBucketRateServiceLimiter(long maxCapacity, Duration refillPeriod,
                                                long tokensPerPeriod, Clock currentTimer,
                                                long maxQuota, Duration quotaPeriod) {
+        this(maxCapacity, refillPeriod, tokensPerPeriod, currentTimer, maxQuota, quotaPeriod, (QuotaLedger) null);
+    }
+
+    /**
+     * Constructor to initialize the QuotasTokenBucketRateServiceLimiter with durable quotas.
+     * Quota usage is written through to the ledger, so it survives a restart.
+     *
+     * @param maxCapacity     Maximum number of tokens in the bucket.
+     * @param refillPeriod    Duration of the refill period.
+     * @param tokensPerPeriod Number of tokens added per period.
+     * @param currentTimer    Clock to get the current time.
+     * @param maxQuota        Maximum quota allowed.
+     * @param quotaPeriod     Duration of the quota period.
+     * @param quotaLedger     Ledger persisting quota usage, or null to keep quotas in memory.
+     */
+    public QuotasTokenBucketRateServiceLimiter(long maxCapacity, Duration refillPeriod,
+                                               long tokensPerPeriod, Clock currentTimer,
+                                               long maxQuota, Duration quotaPeriod,
+                                               QuotaLedger quotaLedger) {
+        this(maxCapacity, refillPeriod, tokensPerPeriod, currentTimer, maxQuota, quotaPeriod, quotaLedger, null);
+    }
+
+    /**
+     * Constructor to initialize the QuotasTokenBucketRateServiceLimiter with journaled quotas.
+     * Every quota debit is appended to the write-ahead log; after a crash the limiter is
+     * rebuilt with {@link QuotaWriteAheadLog#recover}.
+     *
+     * @param maxCapacity     Maximum number of tokens in the bucket.
+     * @param refillPeriod    Duration of the refill period.
+     * @param tokensPerPeriod Number of tokens added per period.
+     * @param currentTimer    Clock to get the current time.
+     * @param maxQuota        Maximum quota allowed.
+     * @param quotaPeriod     Duration of the quota period.
+     * @param writeAheadLog   Log receiving every quota debit.
+     */
+    public QuotasTokenBucketRateServiceLimiter(long maxCapacity, Duration refillPeriod,
+                                               long tokensPerPeriod, Clock currentTimer,
+                                               long maxQuota, Duration quotaPeriod,
+                                               QuotaWriteAheadLog writeAheadLog) {
+        this(maxCapacity, refillPeriod, tokensPerPeriod, currentTimer, maxQuota, quotaPeriod, null, writeAheadLog);
+    }
+
+    private QuotasTokenBucketRateServiceLimiter(long maxCapacity, Duration refillPeriod,
+                                                long tokensPerPeriod, Clock currentTimer,
+                                                long maxQuota, Duration quotaPeriod,
+                                                QuotaLedger quotaLedger, QuotaWriteAheadLog writeAheadLog) {
         this.maxCapacity = maxCapacity;
         this.refillPeriod = refillPeriod;
         this.tokensPerPeriod = tokensPerPeriod;
         this.currentTimer = currentTimer;
         this.tokenBuckets = new ConcurrentSkipListMap<>();
         this.quotas = new ConcurrentSkipListMap<>();
-
-        // Initialize quotas for users (if needed, can be customized)
-        // Example initialization: this.quotas.put("defaultUser", new Quota(maxQuota, quotaPeriod, currentTimer));
+        this.maxQuota = maxQuota;
+        this.quotaPeriod = quotaPeriod;
+        this.quotaLedger = quotaLedger;
+        this.writeAheadLog = writeAheadLog;
     }
 
     /**
@@ -59,6 +120,33 @@ public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
         return validateRequest(userId, minRequestAmount); // Default requestAmount to 1 if not provided
     }
 
+    /**
+     * Validate a request for a primitive key against both its token bucket and its quota,
+     * without creating a String. Primitive keys have their own buckets and quotas.
+     *
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        TokenBucket bucket;
+        Quota quota;
+        readWriteLock.readLock().lock();
+        try {
+            bucket = bucketFor(key);
+            quota = quotaFor(key);
+        } finally {
+            readWriteLock.readLock().unlock();
+        }
+
+        readWriteLock.writeLock().lock();
+        try {
+            return quota != null && consume(bucket, quota, 1);
+        } finally {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
     /**
      * Validate a request based on both token bucket and quota with specified amount.
      *
@@ -66,21 +154,16 @@ public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
      * @param requestAmount The amount of resource requested.
      * @return true if the request is allowed, false otherwise.
      */
+    @Override
     public boolean validateRequest(String userId, long requestAmount) {
         readWriteLock.readLock().lock();
         TokenBucket bucket = null;
         Quota quota = null;
         try {
             // Compute token bucket for the user
-            bucket = tokenBuckets.computeIfAbsent(userId, key -> new TokenBucket(
-                    maxCapacity, tokensPerPeriod, refillPeriod, currentTimer
-            ));
+            bucket = bucketFor(userId);
             // Compute quota for the user
-            quota = quotas.computeIfAbsent(userId, key -> new Quota(
-                    1000, // example quota, customize as needed
-                    Duration.ofHours(1),
-                    currentTimer
-            ));
+            quota = quotaFor(userId);
         } finally {
             readWriteLock.readLock().unlock();
         }
@@ -88,16 +171,170 @@ public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
         readWriteLock.writeLock().lock();
         try {
             // Check if request can be allowed based on quota and token bucket
-            if ((quota != null) && (bucket != null) && (quota.consume(requestAmount) && bucket.consume())) {
-                return true;
-            } else {
-                return false;
-            }
+            return (quota != null) && (bucket != null) && consume(bucket, quota, requestAmount);
         } finally {
             readWriteLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Take a token from the bucket, then debit the quota. The bucket lives only in memory,
+     * so it is checked first and its token given back if the quota denies or fails; a
+     * request the bucket denies never touches the durable quota.
+     *
+     * @param bucket The token bucket of the key.
+     * @param quota  The quota of the key.
+     * @param amount The amount of quota requested.
+     * @return true if both allowed the request.
+     */
+    private static boolean consume(TokenBucket bucket, Quota quota, long amount) {
+        if (!bucket.consume()) {
+            return false;
+        }
+        boolean debited = false;
+        try {
+            debited = quota.consume(amount);
+            return debited;
+        } finally {
+            if (!debited) {
+                bucket.addToken(1); // Refund the token taken for a request the quota turned down
+            }
+        }
+    }
+
+    /**
+     * Get the token bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The token bucket of the user.
+     */
+    private TokenBucket bucketFor(String userId) {
+        TokenBucket existing = tokenBuckets.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return tokenBuckets.computeIfAbsent(userId, key ->
+                new TokenBucket(maxCapacity, tokensPerPeriod, refillPeriod, currentTimer));
+    }
+
+    /**
+     * Get the quota of a user, creating it on first use; like {@link #bucketFor(String)},
+     * the creating lambda is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The quota of the user, or null if the user is new and the ledger is full.
+     */
+    private Quota quotaFor(String userId) {
+        Quota existing = quotas.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        String journalKey = journalKey(userId);
+        int ledgerSlot = ledgerSlotFor(journalKey);
+        if (quotaLedger != null && ledgerSlot < 0) {
+            return null;
+        }
+        return quotas.computeIfAbsent(userId, key -> createQuota(journalKey, ledgerSlot));
+    }
+
+    /**
+     * Get the token bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The token bucket of the key.
+     */
+    private TokenBucket bucketFor(long key) {
+        TokenBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id ->
+                new TokenBucket(maxCapacity, tokensPerPeriod, refillPeriod, currentTimer));
+    }
+
+    /**
+     * Get the quota of a primitive key, creating it on first use. A durable quota is
+     * journaled under the tagged form of the key, built once when the quota is created.
+     *
+     * @param key The key.
+     * @return The quota of the key, or null if the key is new and the ledger is full.
+     */
+    private Quota quotaFor(long key) {
+        Quota existing = longKeyQuotas.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        String journalKey = LONG_KEY_TAG + Long.toString(key);
+        int ledgerSlot = ledgerSlotFor(journalKey);
+        if (quotaLedger != null && ledgerSlot < 0) {
+            return null;
+        }
+        return longKeyQuotas.computeIfAbsent(key, id -> createQuota(journalKey, ledgerSlot));
+    }
+
+    /**
+     * Get the ledger slot of a quota. A key keeps its slot, so this is looked up before the
+     * quota is created and a key the full ledger has no slot for gets no quota at all.
+     *
+     * @param journalKey The key of the quota in the ledger.
+     * @return The slot, or -1 if there is no ledger or the key is new and the ledger is full.
+     */
+    private int ledgerSlotFor(String journalKey) {
+        return quotaLedger != null ? quotaLedger.slotFor(journalKey) : -1;
+    }
+
+    /**
+     * Create a quota, backed by its ledger slot or journaled to the write-ahead log when
+     * one is configured.
+     *
+     * @param journalKey The key of the quota in the ledger and the log.
+     * @param ledgerSlot The slot of the quota in the ledger, when there is one.
+     * @return The new quota.
+     */
+    private Quota createQuota(String journalKey, int ledgerSlot) {
+        if (quotaLedger != null) {
+            return new Quota(maxQuota, quotaPeriod, currentTimer, quotaLedger, ledgerSlot);
+        }
+        if (writeAheadLog != null) {
+            return new Quota(maxQuota, quotaPeriod, currentTimer, writeAheadLog, journalKey);
+        }
+        return new Quota(maxQuota, quotaPeriod, currentTimer);
+    }
+
+    /**
+     * Get the key of a user's quota in the ledger and the log. Primitive keys are stored
+     * as the tag followed by their decimal form, so they never share a slot with a user
+     * id; the rare user id starting with the tag is stored with a second tag in front.
+     *
+     * @param userId The user identifier.
+     * @return The key in the ledger and the log.
+     */
+    private static String journalKey(String userId) {
+        return !userId.isEmpty() && userId.charAt(0) == LONG_KEY_TAG ? LONG_KEY_TAG + userId : userId;
+    }
+
+    /**
+     * Apply a quota debit read back from the write-ahead log during recovery, to the user
+     * id or the primitive key it was journaled for.
+     *
+     * @param journalKey     The key of the quota in the log.
+     * @param sequence       Sequence of the log record.
+     * @param quotaStartTime Start time of the quota period the debit belongs to.
+     * @param amount         The amount debited.
+     */
+    public void replayDebit(String journalKey, long sequence, long quotaStartTime, long amount) {
+        if (journalKey.length() > 1 && journalKey.charAt(0) == LONG_KEY_TAG && journalKey.charAt(1) != LONG_KEY_TAG) {
+            long key = Long.parseLong(journalKey, 1, journalKey.length(), 10);
+            bucketFor(key); // Keeps the key visible to the next checkpoint
+            quotaFor(key).replayDebit(sequence, quotaStartTime, amount);
+            return;
+        }
+        String userId = journalKey.isEmpty() || journalKey.charAt(0) != LONG_KEY_TAG ? journalKey : journalKey.substring(1);
+        bucketFor(userId); // Keeps the key visible to the next checkpoint
+        quotaFor(userId).replayDebit(sequence, quotaStartTime, amount);
+    }
+
     /**
      * Get the remaining quota for a specific user.
      *
@@ -113,4 +350,82 @@ public class QuotasTokenBucketRateServiceLimiter implements RateLimiter {
             readWriteLock.readLock().unlock();
         }
     }
+
+    /**
+     * Get the remaining quota for a primitive key.
+     *
+     * @param key The key.
+     * @return The remaining quota.
+     */
+    public long getRemainingQuota(long key) {
+        Quota quota = longKeyQuotas.get(key);
+        return quota != null ? quota.getRemainingQuota() : 0;
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return tokenBuckets.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        TokenBucket bucket = tokenBuckets.get(userId);
+        Quota quota = quotas.get(userId);
+        if ((bucket == null) || (quota == null)) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        quota.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        TokenBucket bucket = bucketFor(userId);
+        Quota quota = quotaFor(userId);
+        if (quota == null) {
+            throw new IOException("Quota ledger has no slot left for " + userId);
+        }
+        bucket.readSnapshot(input);
+        quota.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        boolean removed = quotas.remove(userId) != null;
+        return (tokenBuckets.remove(userId) != null) || removed;
+    }
+
+    @Override
+    public long[] snapshotLongKeys() {
+        return longKeyBuckets.keys();
+    }
+
+    @Override
+    public boolean writeLongEntry(long key, DataOutput output) throws IOException {
+        TokenBucket bucket = longKeyBuckets.get(key);
+        Quota quota = longKeyQuotas.get(key);
+        if ((bucket == null) || (quota == null)) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        quota.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readLongEntry(long key, DataInput input) throws IOException {
+        TokenBucket bucket = bucketFor(key);
+        Quota quota = quotaFor(key);
+        if (quota == null) {
+            throw new IOException("Quota ledger has no slot left for key " + key);
+        }
+        bucket.readSnapshot(input);
+        quota.readSnapshot(input);
+    }
 }
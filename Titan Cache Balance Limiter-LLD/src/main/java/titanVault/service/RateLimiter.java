@@ -1,5 +1,11 @@
 package titanVault.service;
 
+import titanVault.model.Decision;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * Interface for a rate limiter to determine if a request is allowed.
  */
@@ -12,5 +18,67 @@ public interface RateLimiter {
      * @return true if the request is allowed, false otherwise.
      */
     boolean validateRequest(String userId);
-}
 
+    /**
+     * Validate if a request costing several permits is allowed. The permits are taken all
+     * together or not at all. Every limiter of this package takes several permits at once;
+     * the default is only reached by limiters written elsewhere that decide one permit at
+     * a time.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     * @throws UnsupportedOperationException if the limiter cannot take more than one permit at once.
+     */
+    default boolean validateRequest(String userId, long permits) {
+        if (permits == 1) {
+            return validateRequest(userId);
+        }
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot take " + permits + " permits at once");
+    }
+
+    /**
+     * Validate if a request for a primitive key, such as a 64-bit id or a hashed address,
+     * is allowed. Limiters with a primitive index keep these keys in their own table,
+     * apart from String user ids, and check them without creating a String; the others
+     * fall back to the decimal form of the key. Use one form consistently for each key.
+     *
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    default boolean validateRequest(long key) {
+        return validateRequest(Long.toString(key));
+    }
+
+    /**
+     * Validate a request costing several permits, answering with a future. The decision
+     * is made on the common fork-join pool, never on the calling thread, so the caller
+     * neither takes nor waits for the limiter's locks; pass a dedicated executor with
+     * {@link #validateRequestAsync(String, long, Executor)} when the common pool is busy
+     * with other work. To wait for capacity without a thread, use
+     * {@link titanVault.async.AsyncRateLimiter}.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return A future completing with the decision, or exceptionally if the limiter fails.
+     */
+    default CompletableFuture<Decision> validateRequestAsync(String userId, long permits) {
+        // Referenced through execute: CompletableFuture would swap the pool itself for a thread per task on a single core
+        return validateRequestAsync(userId, permits, ForkJoinPool.commonPool()::execute);
+    }
+
+    /**
+     * Validate a request costing several permits without touching the limiter on the
+     * calling thread. The decision is made on the given executor, typically one kept for
+     * the limiter, so a caller such as an event loop neither takes nor waits for the
+     * limiter's locks.
+     *
+     * @param userId   The user identifier.
+     * @param permits  The number of permits the request costs.
+     * @param executor Executor making the decision and completing the future.
+     * @return A future completing with the decision, or exceptionally if the limiter fails.
+     */
+    default CompletableFuture<Decision> validateRequestAsync(String userId, long permits, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> validateRequest(userId, permits) ? Decision.ALLOWED : Decision.DENIED, executor);
+    }
+}
@@ -0,0 +1,185 @@
+package titanVault.service;
+
+import titanVault.distributed.ConsistentHashRing;
+import titanVault.distributed.ShardPeer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rate limiter for one node of a cluster in which every user key is owned by exactly one
+ * node, chosen by a {@link ConsistentHashRing}. The owner decides with its local shard
+ * (any {@link SnapshotRateLimiter}, e.g. {@link TokenBucketServiceRateLimiter}), so limits
+ * are exact; other nodes forward the request to the owner. When the ring changes, the
+ * previous owner hands the bucket state of each moving key to the new owner and forgets it.
+ */
+public class ShardedRateLimiter implements RateLimiter, ShardPeer {
+
+    private final String nodeId; // Name of this node on the ring
+    private final SnapshotRateLimiter localShard; // Limiter holding the keys this node owns
+    private final Duration forwardTimeout; // Longest wait for an owner's decision
+    private final ConcurrentMap<String, ShardPeer> peers = new ConcurrentHashMap<>(); // Other nodes by name
+    private volatile ConsistentHashRing ring; // Current ownership of the keys
+
+    /**
+     * Constructor to initialize the ShardedRateLimiter.
+     *
+     * @param nodeId         Name of this node on the ring.
+     * @param localShard     Limiter holding the keys this node owns.
+     * @param ring           Current ownership of the keys.
+     * @param forwardTimeout Longest wait for an owner's decision before denying.
+     */
+    public ShardedRateLimiter(String nodeId, SnapshotRateLimiter localShard,
+                              ConsistentHashRing ring, Duration forwardTimeout) {
+        this.nodeId = nodeId;
+        this.localShard = localShard;
+        this.ring = ring;
+        this.forwardTimeout = forwardTimeout;
+    }
+
+    /**
+     * Register how to reach another node.
+     *
+     * @param peerId Name of the node on the ring.
+     * @param peer   In-process node or a {@link titanVault.distributed.ShardClient}.
+     */
+    public void addPeer(String peerId, ShardPeer peer) {
+        peers.put(peerId, peer);
+    }
+
+    /**
+     * Determine if a request is allowed, deciding locally or at the owner of the key.
+     * A request the owner does not answer in time is denied.
+     *
+     * @param userId The user identifier.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId) {
+        return validateRequest(userId, 1);
+    }
+
+    /**
+     * Determine if a request taking several permits is allowed, deciding locally or at the
+     * owner of the key, which takes the permits all together or not at all. A request the
+     * owner does not answer in time is denied.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        String owner = ring.ownerOf(userId);
+        if (owner.equals(nodeId)) {
+            return localShard.validateRequest(userId, permits);
+        }
+        ShardPeer peer = peers.get(owner);
+        if (peer == null) {
+            return false; // Owner not reachable from this node
+        }
+        try {
+            return peer.forwardRequest(userId, permits).get(forwardTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Handle interruption
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Determine if a request is allowed without blocking. Forwarded requests are
+     * pipelined, so one caller can keep many of them in flight.
+     *
+     * @param userId The user identifier.
+     * @return Completes with true if the request is allowed; owner failures complete with false.
+     */
+    public CompletableFuture<Boolean> validateRequestAsync(String userId) {
+        String owner = ring.ownerOf(userId);
+        if (owner.equals(nodeId)) {
+            return CompletableFuture.completedFuture(localShard.validateRequest(userId));
+        }
+        ShardPeer peer = peers.get(owner);
+        if (peer == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return peer.forwardRequest(userId).exceptionally(failure -> false);
+    }
+
+    /**
+     * Decide a request forwarded by another node, always with the local shard.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return Completes with true if the request is allowed.
+     */
+    @Override
+    public CompletableFuture<Boolean> forwardRequest(String userId, long permits) {
+        return CompletableFuture.completedFuture(localShard.validateRequest(userId, permits));
+    }
+
+    /**
+     * Restore the bucket state of a key that moved to this node.
+     *
+     * @param userId The user identifier.
+     * @param state  The state written by the previous owner.
+     * @throws IOException if the state cannot be restored.
+     */
+    @Override
+    public void handoff(String userId, byte[] state) throws IOException {
+        localShard.readEntry(userId, new DataInputStream(new ByteArrayInputStream(state)));
+    }
+
+    /**
+     * Switch to a new ring and hand every key this node no longer owns to its new owner,
+     * then drop its bucket here. Requests for a moving key may briefly be decided on a fresh
+     * bucket until its state arrives.
+     *
+     * @param newRing The new ownership of the keys.
+     * @return The number of keys handed off.
+     * @throws IOException if a new owner is unknown or rejects the state.
+     */
+    public int updateRing(ConsistentHashRing newRing) throws IOException {
+        ConsistentHashRing oldRing = ring;
+        ring = newRing;
+        int handedOff = 0;
+        ByteArrayOutputStream stateBytes = new ByteArrayOutputStream(64);
+        DataOutputStream state = new DataOutputStream(stateBytes);
+        for (String userId : localShard.snapshotKeys()) {
+            String newOwner = newRing.ownerOf(userId);
+            if (!nodeId.equals(oldRing.ownerOf(userId)) || nodeId.equals(newOwner)) {
+                continue; // Not ours before, or still ours
+            }
+            ShardPeer peer = peers.get(newOwner);
+            if (peer == null) {
+                throw new IOException("No connection to new owner " + newOwner + " of " + userId);
+            }
+            stateBytes.reset();
+            if (localShard.writeEntry(userId, state)) {
+                peer.handoff(userId, stateBytes.toByteArray());
+                localShard.removeEntry(userId);
+                handedOff++;
+            }
+        }
+        return handedOff;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+}
@@ -0,0 +1,226 @@
+package titanVault.service;
+
+import titanVault.metrics.CountMinSketch;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Approximate sliding window limiter for key spaces too large to give every key a bucket,
+ * such as source addresses during a spoofed flood.
+ * <p>
+ * Requests are counted in count-min sketches, one per window, and a key's rate is the
+ * sliding window estimate: its count in the current window plus its count in the previous
+ * one, weighted by the share of the previous window still covered. Memory is three
+ * sketches, {@code 24 * width * depth} bytes, whatever the number of keys, and a request
+ * costs {@code depth} counter increments and {@code depth} reads, with no lock.
+ * <p>
+ * A key may send {@code threshold} requests per sliding window on the sketch alone. Past
+ * that it is either denied, or, when an exact limiter is given, promoted: the exact
+ * limiter decides its requests, so only keys that cross the threshold get a bucket there.
+ * The exact limiter only sees requests after promotion, so a promoted key may be allowed
+ * up to {@code threshold} requests more than the exact limit in the window it crossed.
+ * <p>
+ * Error bounds: estimates never fall below the true count. With {@code N} requests
+ * counted over the two windows, an estimate exceeds the true count by more than
+ * {@code e * N / width} with probability at most {@code e^-depth}. Such an overestimate
+ * makes a light key look heavy, so it is denied, or promoted and decided exactly; a heavy
+ * key is never let through as light. Size {@code width} so that {@code e * N / width}
+ * stays well below the threshold for the expected request rate. Every request counts,
+ * including denied ones, so a flooding key stays over the threshold until it slows down.
+ * <p>
+ * Keys are hashed with a seed drawn when the limiter is created, so requesters cannot aim
+ * collisions at a chosen key. A window change clears the sketch that goes out of use;
+ * requests racing the change may count into or read a window being cleared.
+ */
+public class SketchWindowRateLimiter implements RateLimiter {
+
+    private final long threshold; // Requests per sliding window admitted on the sketch alone
+    private final long windowMillis; // Duration of the window in milliseconds
+    private final Clock currentTimer; // Clock to get the current time
+    private final RateLimiter exactLimiter; // Decides keys over the threshold, null to deny them
+    private final long seed; // Mixed into every key hash
+    private volatile Windows windows; // Current and previous window, replaced as a whole
+    private CountMinSketch spare; // Cleared sketch that becomes the next window, guarded by this
+
+    /**
+     * Constructor to initialize a SketchWindowRateLimiter that denies keys over the threshold.
+     *
+     * @param threshold      Requests a key may make per sliding window.
+     * @param windowInterval Duration of the window.
+     * @param width          Counters per sketch row, rounded up to a power of two.
+     * @param depth          Sketch rows, from 1 to 16.
+     * @param currentTimer   Clock to get the current time.
+     */
+    public SketchWindowRateLimiter(long threshold, Duration windowInterval, int width, int depth, Clock currentTimer) {
+        this(threshold, windowInterval, width, depth, currentTimer, null);
+    }
+
+    /**
+     * Constructor to initialize a SketchWindowRateLimiter that hands keys over the
+     * threshold to an exact limiter, such as a {@link FixedWindowServiceRateLimiter}.
+     *
+     * @param threshold      Requests per sliding window after which a key is promoted.
+     * @param windowInterval Duration of the window.
+     * @param width          Counters per sketch row, rounded up to a power of two.
+     * @param depth          Sketch rows, from 1 to 16.
+     * @param currentTimer   Clock to get the current time.
+     * @param exactLimiter   Limiter deciding promoted keys, or null to deny them.
+     */
+    public SketchWindowRateLimiter(long threshold, Duration windowInterval, int width, int depth,
+                                   Clock currentTimer, RateLimiter exactLimiter) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold cannot be negative: " + threshold);
+        }
+        if (windowInterval == null || windowInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("Window must be at least a millisecond: " + windowInterval);
+        }
+        this.threshold = threshold;
+        this.windowMillis = windowInterval.toMillis();
+        this.currentTimer = currentTimer;
+        this.exactLimiter = exactLimiter;
+        this.seed = ThreadLocalRandom.current().nextLong();
+        this.windows = new Windows(currentTimer.millis() / windowMillis,
+                new CountMinSketch(width, depth), new CountMinSketch(width, depth));
+        this.spare = new CountMinSketch(width, depth);
+    }
+
+    @Override
+    public boolean validateRequest(String userId) {
+        return decide(hash(userId), 1) || exactLimiter != null && exactLimiter.validateRequest(userId);
+    }
+
+    /**
+     * Determine if a request costing several permits is allowed. The permits count towards
+     * the sliding estimate; promoted keys need an exact limiter that takes several permits.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of permits the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        return decide(hash(userId), permits) || exactLimiter != null && exactLimiter.validateRequest(userId, permits);
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed, without creating a String.
+     *
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        return decide(CountMinSketch.hash(key ^ seed), 1) || exactLimiter != null && exactLimiter.validateRequest(key);
+    }
+
+    /**
+     * Get the sliding window estimate of a key, without counting a request.
+     *
+     * @param userId The user identifier.
+     * @return The estimated requests in the sliding window, never below the true count.
+     */
+    public long estimate(String userId) {
+        long now = currentTimer.millis();
+        Windows current = windowsAt(now / windowMillis);
+        long hash = hash(userId);
+        return current.current.estimate(hash) + previousShare(current, now, current.previous.estimate(hash));
+    }
+
+    /**
+     * Get the number of counters of each window's sketch.
+     *
+     * @return The width times the depth.
+     */
+    public int getCountersPerWindow() {
+        return windows.current.getCounterCount();
+    }
+
+    public long getThreshold() {
+        return threshold;
+    }
+
+    public RateLimiter getExactLimiter() {
+        return exactLimiter;
+    }
+
+    /**
+     * Count a request in the current window and decide it on the sketch.
+     *
+     * @return true if the key is within the threshold, false if it is over.
+     */
+    private boolean decide(long hash, long permits) {
+        long now = currentTimer.millis();
+        Windows current = windowsAt(now / windowMillis);
+        long count = current.current.add(hash, permits);
+        if (count > threshold) {
+            return false; // The current window alone is over, no need to read the previous one
+        }
+        return count + previousShare(current, now, current.previous.estimate(hash)) <= threshold;
+    }
+
+    /**
+     * Weight a key's count in the previous window by the share of that window the sliding
+     * window still covers.
+     */
+    private long previousShare(Windows current, long now, long previousCount) {
+        long elapsed = Math.min(Math.max(now - current.epoch * windowMillis, 0), windowMillis);
+        return previousCount * (windowMillis - elapsed) / windowMillis;
+    }
+
+    /**
+     * Get the windows of an epoch, moving to it if it is later than the current one.
+     * Requests stamped with an earlier epoch, from a thread that read the clock just before
+     * the change, count in the current window.
+     */
+    private Windows windowsAt(long epoch) {
+        Windows current = windows;
+        return epoch <= current.epoch ? current : advanceTo(epoch);
+    }
+
+    private synchronized Windows advanceTo(long epoch) {
+        Windows current = windows;
+        if (epoch <= current.epoch) {
+            return current; // Another thread moved on meanwhile
+        }
+        Windows next;
+        if (epoch == current.epoch + 1) {
+            next = new Windows(epoch, spare, current.current);
+            spare = current.previous;
+        } else {
+            current.previous.clear(); // Nothing was counted in the window before this one
+            next = new Windows(epoch, spare, current.previous);
+            spare = current.current;
+        }
+        windows = next;
+        spare.clear(); // After publishing, so requests of the new window do not wait for it
+        return next;
+    }
+
+    /**
+     * Hash a String key with the seed.
+     */
+    private long hash(String userId) {
+        return CountMinSketch.hash(seed, userId);
+    }
+
+    /**
+     * The sketches of the current and previous window; never mutated once published,
+     * although the sketches themselves are.
+     */
+    private static final class Windows {
+        private final long epoch; // Number of the current window
+        private final CountMinSketch current; // Counts of the current window
+        private final CountMinSketch previous; // Counts of the window before it
+
+        private Windows(long epoch, CountMinSketch current, CountMinSketch previous) {
+            this.epoch = epoch;
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+}
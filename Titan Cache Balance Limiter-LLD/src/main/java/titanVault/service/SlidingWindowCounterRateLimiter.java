@@ -2,19 +2,24 @@ package titanVault.service;
 
 import titanVault.model.SlidingWindowCounterBucket;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class SlidingWindowCounterRateLimiter implements RateLimiter {
+public class SlidingWindowCounterRateLimiter implements SnapshotRateLimiter {
 
     private final long maxCapacity; // Maximum number of requests allowed in the window
     private final Duration windowSlideInterval; // Duration of the sliding window
     private final Clock currentTimer; // Clock to get the current time
     private final ConcurrentMap<String, SlidingWindowCounterBucket> windowCounterBucket; // Map of user-specific request buckets
+    private final LongKeyMap<SlidingWindowCounterBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
     private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(); // Lock for thread safety
 
     /**
@@ -43,14 +48,109 @@ public class SlidingWindowCounterRateLimiter implements RateLimiter {
     public boolean validateRequest(String userId) {
         readWriteLock.writeLock().lock(); // Acquire write lock for thread-safe access
         try {
-            SlidingWindowCounterBucket bucket = windowCounterBucket.computeIfAbsent(userId, key ->
-                    new SlidingWindowCounterBucket(maxCapacity, windowSlideInterval,
-                            currentTimer, currentTimer.millis(),
-                            0)
-            );
+            SlidingWindowCounterBucket bucket = bucketFor(userId);
             return bucket.allowRequest();
         } finally {
             readWriteLock.writeLock().unlock(); // Release write lock
         }
     }
+
+    /**
+     * Determine if a request counting as several requests is allowed based on the sliding
+     * window counter algorithm.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        readWriteLock.writeLock().lock(); // Acquire write lock for thread-safe access
+        try {
+            return bucketFor(userId).allowRequests(permits);
+        } finally {
+            readWriteLock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed based on the sliding window counter,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        readWriteLock.writeLock().lock(); // Acquire write lock for thread-safe access
+        try {
+            return bucketFor(key).allowRequest();
+        } finally {
+            readWriteLock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return windowCounterBucket.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        SlidingWindowCounterBucket bucket = windowCounterBucket.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        SlidingWindowCounterBucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return windowCounterBucket.remove(userId) != null;
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private SlidingWindowCounterBucket bucketFor(String userId) {
+        SlidingWindowCounterBucket existing = windowCounterBucket.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return windowCounterBucket.computeIfAbsent(userId, key ->
+                new SlidingWindowCounterBucket(maxCapacity, windowSlideInterval, currentTimer, currentTimer.millis(), 0));
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private SlidingWindowCounterBucket bucketFor(long key) {
+        SlidingWindowCounterBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id ->
+                new SlidingWindowCounterBucket(maxCapacity, windowSlideInterval, currentTimer, currentTimer.millis(), 0));
+    }
 }
@@ -1,7 +1,11 @@
 package titanVault.service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -12,12 +16,13 @@ import titanVault.model.SlidingWindowLogBucket;
 /**
  * Sliding Window Log Rate Limiter.
  */
-public class SlidingWindowLogRateLimiter implements RateLimiter {
+public class SlidingWindowLogRateLimiter implements SnapshotRateLimiter {
 
     private final long maxCapacity;  // Maximum number of requests allowed in the window
     private final Duration windowSlideInterval;  // Size of the time window
     private final Clock currentTimer;  // Clock to get the current time
     private final ConcurrentMap<String, SlidingWindowLogBucket> windowLogBucket; // Map of user-specific request logs
+    private final LongKeyMap<SlidingWindowLogBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
     private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Lock for thread safety
 
     /**
@@ -46,12 +51,109 @@ public class SlidingWindowLogRateLimiter implements RateLimiter {
     public boolean validateRequest(String userId) {
         lock.writeLock().lock(); // Acquire write lock to ensure thread-safe access
         try {
-            SlidingWindowLogBucket bucket = windowLogBucket.computeIfAbsent(userId, key ->
-                    new SlidingWindowLogBucket(maxCapacity, windowSlideInterval, currentTimer)
-            );
+            SlidingWindowLogBucket bucket = bucketFor(userId);
             return bucket.allowRequest();
         } finally {
             lock.writeLock().unlock(); // Release write lock
         }
     }
+
+    /**
+     * Determine if a request counting as several requests is allowed, logging one
+     * timestamp per permit.
+     *
+     * @param userId  The user identifier.
+     * @param permits The number of requests the request counts for.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        lock.writeLock().lock(); // Acquire write lock for thread-safe access
+        try {
+            return bucketFor(userId).allowRequests(permits);
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed based on the sliding window log,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        lock.writeLock().lock(); // Acquire write lock to ensure thread-safe access
+        try {
+            return bucketFor(key).allowRequest();
+        } finally {
+            lock.writeLock().unlock(); // Release write lock
+        }
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return windowLogBucket.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        SlidingWindowLogBucket bucket = windowLogBucket.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        SlidingWindowLogBucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return windowLogBucket.remove(userId) != null;
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private SlidingWindowLogBucket bucketFor(String userId) {
+        SlidingWindowLogBucket existing = windowLogBucket.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        return windowLogBucket.computeIfAbsent(userId, key ->
+                new SlidingWindowLogBucket(maxCapacity, windowSlideInterval, currentTimer));
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private SlidingWindowLogBucket bucketFor(long key) {
+        SlidingWindowLogBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id ->
+                new SlidingWindowLogBucket(maxCapacity, windowSlideInterval, currentTimer));
+    }
 }
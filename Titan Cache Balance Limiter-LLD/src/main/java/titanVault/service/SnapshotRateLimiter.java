@@ -0,0 +1,91 @@
+package titanVault.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Collection;
+
+/**
+ * Rate limiter whose per-key bucket state can be written to and restored from a snapshot.
+ */
+public interface SnapshotRateLimiter extends RateLimiter {
+
+    /**
+     * Get the keys currently tracked by the limiter. The view is weakly consistent,
+     * so traffic keeps flowing while a snapshot walks it.
+     *
+     * @return The tracked user identifiers.
+     */
+    Collection<String> snapshotKeys();
+
+    /**
+     * Write the bucket state of one key.
+     *
+     * @param userId The user identifier.
+     * @param output The snapshot output.
+     * @return true if the state was written, false if the key is no longer tracked.
+     * @throws IOException if the output cannot be written.
+     */
+    boolean writeEntry(String userId, DataOutput output) throws IOException;
+
+    /**
+     * Restore the bucket state of one key, creating its bucket if needed.
+     *
+     * @param userId The user identifier.
+     * @param input  The snapshot input positioned at the state written by {@link #writeEntry}.
+     * @throws IOException if the input cannot be read.
+     */
+    void readEntry(String userId, DataInput input) throws IOException;
+
+    /**
+     * Forget the bucket state of one key, e.g. once it has been handed to another node.
+     *
+     * @param userId The user identifier.
+     * @return true if the key was tracked.
+     */
+    boolean removeEntry(String userId);
+
+    /**
+     * Get the primitive keys currently tracked by the limiter, which a snapshot writes in
+     * a section of their own. Limiters without a primitive index track none.
+     *
+     * @return A copy of the tracked primitive keys.
+     */
+    default long[] snapshotLongKeys() {
+        return new long[0];
+    }
+
+    /**
+     * Write the bucket state of one primitive key.
+     *
+     * @param key    The key.
+     * @param output The snapshot output.
+     * @return true if the state was written, false if the key is not tracked.
+     * @throws IOException if the output cannot be written.
+     */
+    default boolean writeLongEntry(long key, DataOutput output) throws IOException {
+        return false;
+    }
+
+    /**
+     * Restore the bucket state of one primitive key, creating its bucket if needed.
+     *
+     * @param key   The key.
+     * @param input The snapshot input positioned at the state written by {@link #writeLongEntry}.
+     * @throws IOException if the input cannot be read.
+     * @throws UnsupportedOperationException if the limiter has no primitive index.
+     */
+    default void readLongEntry(long key, DataInput input) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " has no primitive keys");
+    }
+
+    /**
+     * Get the clock the limiter reads, which also stamps the time of its snapshots.
+     *
+     * @return The clock of the limiter.
+     */
+    default Clock getClock() {
+        return Clock.systemUTC();
+    }
+}
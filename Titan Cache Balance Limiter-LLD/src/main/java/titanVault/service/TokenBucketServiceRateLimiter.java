@@ -1,22 +1,36 @@
 package titanVault.service;
 
+import titanVault.events.BucketCreatedEvent;
+import titanVault.events.LockWaitEvent;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.model.RateLimitState;
 import titanVault.model.TokenBucket;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
-public class TokenBucketServiceRateLimiter implements RateLimiter {
+public class TokenBucketServiceRateLimiter implements SnapshotRateLimiter, InspectableRateLimiter, BlockingRateLimiter {
+
+    private static final String ALGORITHM = TokenBucketServiceRateLimiter.class.getSimpleName(); // Algorithm named in flight recorder events
 
     private final long maxCapacity; // Maximum number of tokens in the bucket
     private final Duration refillPeriod; // Time period for token refill
     private final long tokensPerPeriod; // Number of tokens added per period
     private final Clock currentTimer; // Clock to get the current time
     private final ConcurrentMap<String, TokenBucket> tokenBuckets = new ConcurrentSkipListMap<>(); // Stores token buckets for users
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(); // Lock for thread safety
+    private final LongKeyMap<TokenBucket> longKeyBuckets = new LongKeyMap<>(1_024); // Stores buckets for primitive keys
+    private final PermitWaiters waiters = new PermitWaiters(); // Threads parked in acquire, per user
+    private volatile LimiterMetrics metrics; // Receives bucket creations and lock waits, null when not instrumented
 
     /**
      * Constructor to initialize the TokenBucketRateLimiter.
@@ -41,26 +55,305 @@ public class TokenBucketServiceRateLimiter implements RateLimiter {
      */
     @Override
     public boolean validateRequest(String userId) {
-        readWriteLock.readLock().lock();
+        TokenBucket bucket = bucketFor(userId);
+        lockTimed(bucket.getLock(), Objects.hashCode(userId));
         try {
-            TokenBucket bucket = tokenBuckets.computeIfAbsent(userId, key -> {
-                readWriteLock.readLock().unlock(); // Unlock read lock before upgrading to write lock
-                readWriteLock.writeLock().lock();
-                try {
-                    // Double-check if the bucket is still absent
-                    return tokenBuckets.computeIfAbsent(key, k -> new TokenBucket(
-                            maxCapacity, tokensPerPeriod, refillPeriod, currentTimer
-                    ));
-                } finally {
-                    readWriteLock.writeLock().unlock();
-                }
-            });
-
-            readWriteLock.readLock().lock(); // Re-acquire read lock
             bucket.refill();
             return bucket.consume();
         } finally {
-            readWriteLock.readLock().unlock();
+            bucket.getLock().unlock();
+        }
+    }
+
+    /**
+     * Determine if a request for a primitive key is allowed based on the token bucket algorithm,
+     * without creating a String. Primitive keys have their own buckets.
+     * @param key The key.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(long key) {
+        TokenBucket bucket = bucketFor(key);
+        lockTimed(bucket.getLock(), Long.hashCode(key));
+        try {
+            bucket.refill();
+            return bucket.consume();
+        } finally {
+            bucket.getLock().unlock();
+        }
+    }
+
+    /**
+     * Determine if a request costing several tokens is allowed; the tokens are taken all or none.
+     * @param userId The user identifier.
+     * @param permits The number of tokens the request costs.
+     * @return true if the request is allowed, false otherwise.
+     */
+    @Override
+    public boolean validateRequest(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        TokenBucket bucket = bucketFor(userId);
+        lockTimed(bucket.getLock(), Objects.hashCode(userId));
+        try {
+            bucket.refill();
+            return bucket.consume(permits);
+        } finally {
+            bucket.getLock().unlock();
+        }
+    }
+
+    /**
+     * Take several tokens, waiting for the refills that bring them when the bucket is short.
+     * @param userId The user identifier.
+     * @param permits The number of tokens, at most the capacity of the bucket.
+     * @param timeout The longest time to wait.
+     * @return true if the tokens were taken, false if the timeout passed first.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    @Override
+    public boolean acquire(String userId, long permits, Duration timeout) throws InterruptedException {
+        if (permits <= 0 || permits > maxCapacity) {
+            throw new IllegalArgumentException("Permits must be between 1 and the capacity " + maxCapacity + ": " + permits);
+        }
+        return waiters.acquire(this::tryAcquire, userId, permits, timeout);
+    }
+
+    /**
+     * Take as many tokens as the bucket holds, up to a maximum, in one debit; for callers
+     * that send a batch of requests and can send part of it now and the rest later.
+     * @param userId The user identifier.
+     * @param maxPermits The most tokens to take.
+     * @return The tokens taken, from 0 to maxPermits.
+     */
+    public long tryAcquireUpTo(String userId, long maxPermits) {
+        if (maxPermits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + maxPermits);
+        }
+        TokenBucket bucket = bucketFor(userId);
+        lockTimed(bucket.getLock(), Objects.hashCode(userId));
+        try {
+            return bucket.removeToken(maxPermits);
+        } finally {
+            bucket.getLock().unlock();
+        }
+    }
+
+    /**
+     * Create a limiter with a new configuration that carries every user's bucket over,
+     * holding the same share of its capacity; this limiter is left unchanged. Runs
+     * alongside traffic, so requests served here after their bucket was copied are not
+     * reflected in the new limiter.
+     *
+     * @param newMaxCapacity     Maximum capacity of the new buckets
+     * @param newRefillPeriod    Duration of the new refill period
+     * @param newTokensPerPeriod Number of tokens the new buckets add per period
+     * @return A limiter with the new configuration and the migrated buckets.
+     */
+    public TokenBucketServiceRateLimiter reconfigure(long newMaxCapacity, Duration newRefillPeriod, long newTokensPerPeriod) {
+        if (newMaxCapacity < 0 || newTokensPerPeriod <= 0 || newRefillPeriod.isNegative() || newRefillPeriod.isZero()) {
+            throw new IllegalArgumentException("Capacity must not be negative, and refill amount and period must be positive: "
+                    + newMaxCapacity + ", " + newTokensPerPeriod + ", " + newRefillPeriod);
+        }
+        TokenBucketServiceRateLimiter reconfigured = new TokenBucketServiceRateLimiter(
+                newMaxCapacity, newRefillPeriod, newTokensPerPeriod, currentTimer);
+        reconfigured.metrics = metrics;
+        for (ConcurrentMap.Entry<String, TokenBucket> entry : tokenBuckets.entrySet()) {
+            reconfigured.tokenBuckets.put(entry.getKey(), entry.getValue().rescale(newMaxCapacity, newTokensPerPeriod, newRefillPeriod));
+        }
+        longKeyBuckets.forEach((key, bucket) -> reconfigured.longKeyBuckets.computeIfAbsent(key, id ->
+                bucket.rescale(newMaxCapacity, newTokensPerPeriod, newRefillPeriod)));
+        return reconfigured;
+    }
+
+    public long getMaxCapacity() {
+        return maxCapacity;
+    }
+
+    public Duration getRefillPeriod() {
+        return refillPeriod;
+    }
+
+    public long getTokensPerPeriod() {
+        return tokensPerPeriod;
+    }
+
+    @Override
+    public RateLimitState inspect(String userId) {
+        TokenBucket bucket = tokenBuckets.get(userId);
+        if (bucket == null) {
+            return new RateLimitState(maxCapacity, maxCapacity, Duration.ZERO, Duration.ZERO); // Unseen keys start full
+        }
+        return bucket.getState();
+    }
+
+    /**
+     * Decide a request while holding the lock of its bucket, which the decision takes
+     * again when it reaches this limiter, and read the state before letting go.
+     *
+     * @param userId   The user identifier.
+     * @param decision Decides the request, usually a controller in front of this limiter.
+     * @param state    Receives the state of the key right after the decision.
+     * @return The decision.
+     */
+    @Override
+    public boolean decideAndInspect(String userId, Predicate<String> decision, Consumer<? super RateLimitState> state) {
+        TokenBucket bucket = bucketFor(userId);
+        lockTimed(bucket.getLock(), Objects.hashCode(userId));
+        try {
+            boolean allowed = decision.test(userId);
+            state.accept(bucket.getState());
+            return allowed;
+        } finally {
+            bucket.getLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<String> snapshotKeys() {
+        return tokenBuckets.keySet();
+    }
+
+    @Override
+    public boolean writeEntry(String userId, DataOutput output) throws IOException {
+        TokenBucket bucket = tokenBuckets.get(userId);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readEntry(String userId, DataInput input) throws IOException {
+        TokenBucket bucket = bucketFor(userId);
+        bucket.readSnapshot(input);
+    }
+
+    @Override
+    public Clock getClock() {
+        return currentTimer;
+    }
+
+    @Override
+    public boolean removeEntry(String userId) {
+        return tokenBuckets.remove(userId) != null;
+    }
+
+    @Override
+    public long[] snapshotLongKeys() {
+        return longKeyBuckets.keys();
+    }
+
+    @Override
+    public boolean writeLongEntry(long key, DataOutput output) throws IOException {
+        TokenBucket bucket = longKeyBuckets.get(key);
+        if (bucket == null) {
+            return false;
+        }
+        bucket.writeSnapshot(output);
+        return true;
+    }
+
+    @Override
+    public void readLongEntry(long key, DataInput input) throws IOException {
+        bucketFor(key).readSnapshot(input);
+    }
+
+    /**
+     * Report bucket creations and sampled lock waits to the given metrics, usually the
+     * ones an {@link InstrumentedRateLimiter} around this limiter records decisions into.
+     *
+     * @param metrics The metrics to record into, or null to stop recording.
+     */
+    public void setMetrics(LimiterMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Take tokens if the bucket holds them, or tell how long until the refills bring them.
+     * @param userId The user identifier.
+     * @param permits The number of tokens.
+     * @return 0 if the tokens were taken, otherwise the milliseconds until they may be.
+     */
+    @Override
+    public long tryAcquire(String userId, long permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Permits must be positive: " + permits);
+        }
+        TokenBucket bucket = bucketFor(userId);
+        lockTimed(bucket.getLock(), Objects.hashCode(userId));
+        try {
+            return bucket.consumeOrWaitTime(permits);
+        } finally {
+            bucket.getLock().unlock();
+        }
+    }
+
+    /**
+     * Get the bucket of a user, creating it on first use. The lookup comes first so
+     * the creating lambda, which captures this limiter, is only allocated for new users.
+     *
+     * @param userId The user identifier.
+     * @return The bucket of the user.
+     */
+    private TokenBucket bucketFor(String userId) {
+        TokenBucket existing = tokenBuckets.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        // computeIfAbsent is atomic per key, so concurrent first requests share one bucket
+        return tokenBuckets.computeIfAbsent(userId, key -> newBucket(key.hashCode()));
+    }
+
+    /**
+     * Get the bucket of a primitive key, creating it on first use.
+     *
+     * @param key The key.
+     * @return The bucket of the key.
+     */
+    private TokenBucket bucketFor(long key) {
+        TokenBucket existing = longKeyBuckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        return longKeyBuckets.computeIfAbsent(key, id -> newBucket(Long.hashCode(id)));
+    }
+
+    /**
+     * Acquire the lock of a bucket, timing the wait for the calls the metrics sample and
+     * reporting long waits to a running flight recording. Holding it across refill and
+     * consume also makes the two one step; they take it again reentrantly.
+     *
+     * @param lock    The bucket lock to acquire.
+     * @param keyHash Hash of the key the request is for.
+     */
+    private void lockTimed(Lock lock, int keyHash) {
+        LockWaitEvent event = LockWaitEvent.beginIfEnabled();
+        LimiterMetrics observer = metrics;
+        if (observer == null || !observer.sample()) {
+            lock.lock();
+        } else {
+            long start = System.nanoTime();
+            lock.lock();
+            observer.recordLockWait(System.nanoTime() - start);
+        }
+        LockWaitEvent.complete(event, ALGORITHM, keyHash);
+    }
+
+    /**
+     * Create the bucket of a new key, counting it in the metrics and the flight recording.
+     *
+     * @param keyHash Hash of the new key.
+     * @return The new bucket.
+     */
+    private TokenBucket newBucket(int keyHash) {
+        LimiterMetrics observer = metrics;
+        if (observer != null) {
+            observer.recordCreated();
         }
+        BucketCreatedEvent.emit(ALGORITHM, keyHash);
+        return new TokenBucket(maxCapacity, tokensPerPeriod, refillPeriod, currentTimer);
     }
 }
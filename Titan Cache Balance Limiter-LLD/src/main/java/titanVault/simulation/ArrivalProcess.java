@@ -0,0 +1,33 @@
+package titanVault.simulation;
+
+/**
+ * Source of the requests of a simulation, in time order. A process is read once: it moves
+ * from one arrival to the next and reports the key and cost of the arrival it is at, so
+ * the simulator creates no object per request.
+ */
+public interface ArrivalProcess {
+
+    /**
+     * Move to the next arrival.
+     *
+     * @return Its time in nanoseconds since the start of the simulation, never earlier
+     *         than the previous one, or -1 once the process has no more arrivals.
+     */
+    long advance();
+
+    /**
+     * Get the key of the current arrival.
+     *
+     * @return The key the request is limited under.
+     */
+    String key();
+
+    /**
+     * Get the cost of the current arrival.
+     *
+     * @return The number of permits the request costs.
+     */
+    default long permits() {
+        return 1;
+    }
+}
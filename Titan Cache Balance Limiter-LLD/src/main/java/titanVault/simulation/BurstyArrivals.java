@@ -0,0 +1,80 @@
+package titanVault.simulation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Arrivals of an on/off process: Poisson arrivals at a burst rate during bursts and at an
+ * idle rate, possibly zero, between them, with exponentially distributed burst and idle
+ * lengths. Retry storms, batch jobs and crawlers look like this; it is the traffic that
+ * tells a limiter's burst allowance apart from its sustained rate.
+ */
+public class BurstyArrivals implements ArrivalProcess {
+
+    private final double burstGapNanos; // Mean time between arrivals during a burst
+    private final double idleGapNanos; // Mean time between arrivals between bursts, infinite if none
+    private final double meanBurstNanos; // Mean length of a burst
+    private final double meanIdleNanos; // Mean length of the time between bursts
+    private final String[] keys; // Keys the arrivals are drawn from
+    private final SplittableRandom random; // Seeded, so a run can be repeated
+    private boolean bursting; // Whether the process is in a burst
+    private double phaseEndNanos; // Time the current burst or idle phase ends
+    private double timeNanos; // Time of the current arrival
+    private String key; // Key of the current arrival
+
+    /**
+     * Constructor to initialize the BurstyArrivals, starting idle.
+     *
+     * @param burstRatePerSecond Mean arrivals per second during a burst.
+     * @param idleRatePerSecond  Mean arrivals per second between bursts, zero for none.
+     * @param meanBurst          Mean length of a burst.
+     * @param meanIdle           Mean length of the time between bursts.
+     * @param keys               Keys the arrivals are drawn from, uniformly.
+     * @param seed               Seed of the random gaps, phases and keys.
+     */
+    public BurstyArrivals(double burstRatePerSecond, double idleRatePerSecond, Duration meanBurst, Duration meanIdle,
+                          List<String> keys, long seed) {
+        if (!(burstRatePerSecond > 0) || idleRatePerSecond < 0) {
+            throw new IllegalArgumentException("Burst rate must be positive and idle rate not negative: "
+                    + burstRatePerSecond + ", " + idleRatePerSecond);
+        }
+        if (meanBurst.toNanos() <= 0 || meanIdle.toNanos() <= 0) {
+            throw new IllegalArgumentException("Burst and idle lengths must be positive: " + meanBurst + ", " + meanIdle);
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is needed");
+        }
+        this.burstGapNanos = 1e9 / burstRatePerSecond;
+        this.idleGapNanos = idleRatePerSecond == 0 ? Double.POSITIVE_INFINITY : 1e9 / idleRatePerSecond;
+        this.meanBurstNanos = meanBurst.toNanos();
+        this.meanIdleNanos = meanIdle.toNanos();
+        this.keys = keys.toArray(new String[0]);
+        this.random = new SplittableRandom(seed);
+        this.phaseEndNanos = PoissonArrivals.exponentialGap(random, meanIdleNanos);
+    }
+
+    /**
+     * Move to the next arrival. Gaps are memoryless, so a gap that runs past the end of
+     * its phase is drawn again from the end of the phase at the rate of the next one.
+     */
+    @Override
+    public long advance() {
+        while (true) {
+            double gap = PoissonArrivals.exponentialGap(random, bursting ? burstGapNanos : idleGapNanos);
+            if (timeNanos + gap <= phaseEndNanos) {
+                timeNanos += gap;
+                key = keys[random.nextInt(keys.length)];
+                return (long) timeNanos;
+            }
+            timeNanos = phaseEndNanos;
+            bursting = !bursting;
+            phaseEndNanos += PoissonArrivals.exponentialGap(random, bursting ? meanBurstNanos : meanIdleNanos);
+        }
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+}
@@ -0,0 +1,79 @@
+package titanVault.simulation;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Arrivals of a Poisson process whose rate follows a daily cycle:
+ * {@code mean * (1 + amplitude * sin(2 pi t / period))}, so the rate peaks a quarter of a
+ * period after the start and bottoms out three quarters in. Arrivals are drawn by
+ * thinning: candidates at the peak rate, each kept with the ratio of the current rate to
+ * the peak. Traffic following its users' working hours looks like this.
+ */
+public class DiurnalArrivals implements ArrivalProcess {
+
+    private final double meanRatePerNano; // Rate averaged over a period
+    private final double amplitude; // Relative swing of the rate around the mean
+    private final double radiansPerNano; // Angular speed of the cycle
+    private final double peakGapNanos; // Mean time between candidates at the peak rate
+    private final String[] keys; // Keys the arrivals are drawn from
+    private final SplittableRandom random; // Seeded, so a run can be repeated
+    private double timeNanos; // Time of the current arrival
+    private String key; // Key of the current arrival
+
+    /**
+     * Constructor to initialize the DiurnalArrivals.
+     *
+     * @param meanRatePerSecond Mean arrivals per second over a period.
+     * @param amplitude         Relative swing of the rate, from 0 for a flat rate to 1 for
+     *                          a rate that falls to zero at the trough.
+     * @param period            Length of a cycle, usually a day.
+     * @param keys              Keys the arrivals are drawn from, uniformly.
+     * @param seed              Seed of the random gaps and keys.
+     */
+    public DiurnalArrivals(double meanRatePerSecond, double amplitude, Duration period, List<String> keys, long seed) {
+        if (!(meanRatePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + meanRatePerSecond);
+        }
+        if (!(amplitude >= 0 && amplitude <= 1)) {
+            throw new IllegalArgumentException("Amplitude must be between 0 and 1: " + amplitude);
+        }
+        if (period.toNanos() <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is needed");
+        }
+        this.meanRatePerNano = meanRatePerSecond / 1e9;
+        this.amplitude = amplitude;
+        this.radiansPerNano = 2 * Math.PI / period.toNanos();
+        this.peakGapNanos = 1 / (meanRatePerNano * (1 + amplitude));
+        this.keys = keys.toArray(new String[0]);
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long advance() {
+        do {
+            timeNanos += PoissonArrivals.exponentialGap(random, peakGapNanos);
+        } while (random.nextDouble() * (1 + amplitude) > 1 + amplitude * Math.sin(radiansPerNano * timeNanos));
+        key = keys[random.nextInt(keys.length)];
+        return (long) timeNanos;
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Get the rate of arrivals at a time.
+     *
+     * @param timeNanos Nanoseconds since the start of the simulation.
+     * @return The mean arrivals per second at that time.
+     */
+    public double rateAt(long timeNanos) {
+        return meanRatePerNano * 1e9 * (1 + amplitude * Math.sin(radiansPerNano * timeNanos));
+    }
+}
@@ -0,0 +1,196 @@
+package titanVault.simulation;
+
+import titanVault.metrics.LatencyHistogram;
+import titanVault.service.RateLimiter;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Discrete-event simulator that drives a limiter through arrival processes in virtual
+ * time, so an algorithm can be tried against a day of traffic in seconds.
+ * <p>
+ * The limiter must read its time from the simulator's {@link VirtualClock}. The arrivals
+ * of every process are merged in time order; before each one the clock is moved to its
+ * time and the limiter decides it on the calling thread, so a run is deterministic for
+ * seeded processes, whatever the speed of the machine. Only the decision cost, measured
+ * around each call and including the cost of reading the system timer, varies.
+ * <p>
+ * Admissions are checked against a reference limit, the permits a key should get per
+ * reference period, usually the limit the limiter is configured with: the report gives
+ * the most permits any key got within one period anywhere in the run, and how evenly the
+ * keys got what they were entitled to. Every limiter of {@code titanVault.service} takes
+ * a {@code Clock} and can be simulated, as can the buckets of {@code titanVault.model}.
+ */
+public class LimiterSimulator {
+
+    private final VirtualClock clock; // Clock the simulated limiters read
+    private final long referenceLimit; // Permits a key should get per reference period
+    private final long referencePeriodNanos; // Length of the reference period
+
+    /**
+     * Constructor to initialize the LimiterSimulator.
+     *
+     * @param clock           Clock the simulated limiters read; runs move it forward.
+     * @param referenceLimit  Permits a key should get per reference period.
+     * @param referencePeriod Length of the reference period.
+     */
+    public LimiterSimulator(VirtualClock clock, long referenceLimit, Duration referencePeriod) {
+        if (referenceLimit <= 0) {
+            throw new IllegalArgumentException("Reference limit must be positive: " + referenceLimit);
+        }
+        if (referencePeriod == null || referencePeriod.toNanos() <= 0) {
+            throw new IllegalArgumentException("Reference period must be positive: " + referencePeriod);
+        }
+        this.clock = clock;
+        this.referenceLimit = referenceLimit;
+        this.referencePeriodNanos = referencePeriod.toNanos();
+    }
+
+    /**
+     * Run a limiter through arrival processes from the current time of the clock. The
+     * clock ends at the end of the horizon, so a later run continues from there.
+     *
+     * @param limiter   Limiter deciding the arrivals, reading the simulator's clock.
+     * @param horizon   Simulated time to run for; later arrivals are not made.
+     * @param processes Arrival processes, each read once.
+     * @return The report of the run.
+     */
+    public SimulationReport run(RateLimiter limiter, Duration horizon, ArrivalProcess... processes) {
+        if (horizon == null || horizon.toNanos() <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive: " + horizon);
+        }
+        long horizonNanos = horizon.toNanos();
+        long startNanos = clock.nanos();
+        PriorityQueue<Source> pending = new PriorityQueue<>(Math.max(1, processes.length),
+                Comparator.comparingLong(source -> source.timeNanos));
+        for (ArrivalProcess process : processes) {
+            long first = process.advance();
+            if (first >= 0 && first <= horizonNanos) {
+                pending.add(new Source(process, first));
+            }
+        }
+        Map<String, KeyStats> statsByKey = new HashMap<>();
+        LatencyHistogram decisionNanos = new LatencyHistogram();
+        long offered = 0;
+        long admitted = 0;
+        long admittedPermits = 0;
+        long wallStart = System.nanoTime();
+        Source source;
+        while ((source = pending.poll()) != null) {
+            ArrivalProcess process = source.process;
+            long timeNanos = source.timeNanos;
+            clock.advanceTo(startNanos + timeNanos);
+            String key = process.key();
+            long permits = process.permits();
+            long decisionStart = System.nanoTime();
+            boolean allowed = permits == 1 ? limiter.validateRequest(key) : limiter.validateRequest(key, permits);
+            decisionNanos.record(System.nanoTime() - decisionStart);
+
+            KeyStats stats = statsByKey.computeIfAbsent(key, newKey -> new KeyStats());
+            stats.offeredPermits += permits;
+            offered++;
+            if (allowed) {
+                admitted++;
+                admittedPermits += permits;
+                stats.admit(timeNanos, permits, referencePeriodNanos);
+            }
+            long next = process.advance();
+            if (next >= 0 && next <= horizonNanos) {
+                source.timeNanos = Math.max(next, timeNanos); // A process never moves back in time
+                pending.add(source);
+            }
+        }
+        long wallNanos = System.nanoTime() - wallStart;
+        clock.advanceTo(startNanos + horizonNanos);
+        return report(statsByKey, offered, admitted, admittedPermits, horizonNanos, wallNanos, decisionNanos);
+    }
+
+    private SimulationReport report(Map<String, KeyStats> statsByKey, long offered, long admitted, long admittedPermits,
+                                    long horizonNanos, long wallNanos, LatencyHistogram decisionNanos) {
+        double grantedOverHorizon = referenceLimit * ((double) horizonNanos / referencePeriodNanos + 1); // Rate plus a full first burst
+        long maxWindowAdmitted = 0;
+        String maxWindowKey = null;
+        double shareSum = 0;
+        double shareSquareSum = 0;
+        Map<String, Long> admittedByKey = new HashMap<>(statsByKey.size() * 2);
+        for (Map.Entry<String, KeyStats> entry : statsByKey.entrySet()) {
+            KeyStats stats = entry.getValue();
+            admittedByKey.put(entry.getKey(), stats.admittedPermits);
+            if (stats.maxWindowPermits > maxWindowAdmitted) {
+                maxWindowAdmitted = stats.maxWindowPermits;
+                maxWindowKey = entry.getKey();
+            }
+            double share = Math.min(1, stats.admittedPermits / Math.min(stats.offeredPermits, grantedOverHorizon));
+            shareSum += share;
+            shareSquareSum += share * share;
+        }
+        double fairness = shareSquareSum == 0 ? 1 : shareSum * shareSum / (statsByKey.size() * shareSquareSum);
+        return new SimulationReport(offered, admitted, admittedPermits, horizonNanos, wallNanos, referenceLimit,
+                maxWindowAdmitted, maxWindowKey, fairness, decisionNanos, admittedByKey);
+    }
+
+    /**
+     * An arrival process and the time of its current arrival.
+     */
+    private static final class Source {
+        private final ArrivalProcess process; // Process the arrivals come from
+        private long timeNanos; // Time of its current arrival
+
+        private Source(ArrivalProcess process, long timeNanos) {
+            this.process = process;
+            this.timeNanos = timeNanos;
+        }
+    }
+
+    /**
+     * What a key asked for and got, with its admissions of the last reference period in a
+     * ring buffer to find the most it got within one period.
+     */
+    private static final class KeyStats {
+        private long offeredPermits; // Permits the key asked for
+        private long admittedPermits; // Permits the key got
+        private long[] times = new long[4]; // Times of the admissions in the window, oldest first from head
+        private long[] permits = new long[4]; // Permits of those admissions
+        private int head; // Index of the oldest admission in the window
+        private int size; // Admissions in the window
+        private long windowPermits; // Permits of the admissions in the window
+        private long maxWindowPermits; // Most permits seen in one window
+
+        /**
+         * Count an admission and slide the window, which covers the period ending at it.
+         */
+        private void admit(long timeNanos, long admittedPermits, long periodNanos) {
+            this.admittedPermits += admittedPermits;
+            while (size > 0 && times[head] <= timeNanos - periodNanos) {
+                windowPermits -= permits[head];
+                head = (head + 1) & (times.length - 1);
+                size--;
+            }
+            if (size == times.length) {
+                grow();
+            }
+            int tail = (head + size) & (times.length - 1);
+            times[tail] = timeNanos;
+            permits[tail] = admittedPermits;
+            size++;
+            windowPermits += admittedPermits;
+            maxWindowPermits = Math.max(maxWindowPermits, windowPermits);
+        }
+
+        private void grow() {
+            long[] grownTimes = new long[times.length * 2];
+            long[] grownPermits = new long[times.length * 2];
+            for (int index = 0; index < size; index++) {
+                grownTimes[index] = times[(head + index) & (times.length - 1)];
+                grownPermits[index] = permits[(head + index) & (times.length - 1)];
+            }
+            times = grownTimes;
+            permits = grownPermits;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package titanVault.simulation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reader of a recorded trace through memory-mapped I/O, for traces too large to read
+ * through a stream in reasonable time, up to billions of lines.
+ * <p>
+ * Two formats are read, told apart by the first bytes of the file:
+ * <ul>
+ *     <li>CSV, one request per line: {@code timestampMillis,key[,cost]}, as read by
+ *     {@link TraceArrivals}. Blank lines are skipped and {@code \r\n} endings accepted.</li>
+ *     <li>Binary, as written by {@link TraceWriter}: the header {@code TVTR} and a version,
+ *     then per request the change of timestamp from the request before, the key length,
+ *     the UTF-8 key and the cost, all numbers as variable-length integers.</li>
+ * </ul>
+ * The file is mapped a window at a time and the windows are moved along it, so memory
+ * does not grow with the trace; a key is only turned into a String when asked for, and
+ * {@link #keyHash()} lets a reader skip the keys it does not own without creating one.
+ * Times are taken relative to the first request, and a request stamped earlier than the
+ * one before it is replayed at the time of the one before it, as in {@link TraceArrivals}.
+ * A reader is used by one thread; several readers may read the same file at once.
+ */
+public class MappedTraceReader implements ArrivalProcess, Closeable {
+
+    static final byte[] MAGIC = {'T', 'V', 'T', 'R'}; // First bytes of a binary trace
+    static final int VERSION = 1; // Version of the binary format written after the magic
+    static final int MAX_KEY_BYTES = 65_535; // Longest key accepted, in UTF-8 bytes
+    private static final int MAX_RECORD_BYTES = MAX_KEY_BYTES + 64; // Longest record, with its numbers and separators
+    private static final int DEFAULT_WINDOW_BYTES = 256 << 20; // Bytes mapped at a time
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L; // Start of the key hash
+    private static final long FNV_PRIME = 0x100000001b3L; // Multiplier of the key hash
+
+    private final FileChannel channel; // File being read
+    private final long fileSize; // Size of the file
+    private final int windowBytes; // Bytes mapped at a time
+    private final boolean binary; // Whether the file is a binary trace
+    private MappedByteBuffer window; // Part of the file being read
+    private long windowStart; // Position of the window in the file
+    private int position; // Position of the next record in the window
+    private byte[] keyBytes = new byte[64]; // Key of the current record
+    private int keyLength; // Bytes of the key of the current record
+    private long keyHash; // Hash of the key of the current record
+    private String key; // Key of the current record as a String, null until asked for
+    private long cost; // Cost of the current record
+    private long recordMillis; // Timestamp of the current record as written in the trace
+    private long firstMillis; // Timestamp of the first record
+    private long timeNanos; // Time of the current record relative to the first
+    private long recordCount; // Records read so far
+
+    /**
+     * Constructor to initialize a MappedTraceReader mapping 256 MB at a time.
+     *
+     * @param trace Path of the trace.
+     * @throws IOException if the trace cannot be opened.
+     */
+    public MappedTraceReader(Path trace) throws IOException {
+        this(trace, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Constructor to initialize the MappedTraceReader.
+     *
+     * @param trace       Path of the trace.
+     * @param windowBytes Bytes mapped at a time, at least twice the longest record (128 KB).
+     * @throws IOException if the trace cannot be opened.
+     */
+    public MappedTraceReader(Path trace, int windowBytes) throws IOException {
+        if (windowBytes < 2 * MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Window must be at least " + 2 * MAX_RECORD_BYTES + " bytes: " + windowBytes);
+        }
+        this.channel = FileChannel.open(trace, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        this.windowBytes = windowBytes;
+        map(0);
+        this.binary = fileSize >= MAGIC.length + 1 && window.get(0) == MAGIC[0] && window.get(1) == MAGIC[1]
+                && window.get(2) == MAGIC[2] && window.get(3) == MAGIC[3];
+        if (binary) {
+            position = MAGIC.length;
+            long version = readVarLong();
+            if (version != VERSION) {
+                channel.close();
+                throw new IllegalArgumentException("Unsupported trace version " + version + " in " + trace);
+            }
+        }
+    }
+
+    /**
+     * Move to the next record of the trace.
+     *
+     * @return Its time in nanoseconds since the first record, or -1 at the end of the trace.
+     * @throws IllegalArgumentException if the record is malformed.
+     * @throws UncheckedIOException if the trace cannot be mapped.
+     */
+    @Override
+    public long advance() {
+        if (!nextRecord()) {
+            return -1;
+        }
+        if (recordCount == 0) {
+            firstMillis = recordMillis;
+        }
+        recordCount++;
+        timeNanos = Math.max(timeNanos, (recordMillis - firstMillis) * 1_000_000L);
+        return timeNanos;
+    }
+
+    @Override
+    public String key() {
+        if (key == null) {
+            key = new String(keyBytes, 0, keyLength, StandardCharsets.UTF_8);
+        }
+        return key;
+    }
+
+    @Override
+    public long permits() {
+        return cost;
+    }
+
+    /**
+     * Get a 64-bit hash of the key of the current record, computed over its bytes, so
+     * records can be split by key without creating Strings.
+     *
+     * @return The hash, the same in every reader of every trace for the same key.
+     */
+    public long keyHash() {
+        return keyHash;
+    }
+
+    /**
+     * Get the timestamp of the current record, as written in the trace, never earlier
+     * than the timestamp of the first record.
+     *
+     * @return Milliseconds since the epoch.
+     */
+    public long timestampMillis() {
+        return firstMillis + timeNanos / 1_000_000L;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    public boolean isBinary() {
+        return binary;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null; // The mapping goes with the buffer
+        channel.close();
+    }
+
+    /**
+     * Read the next record into the fields of the reader.
+     *
+     * @return false at the end of the trace.
+     */
+    private boolean nextRecord() {
+        if (!binary) {
+            skipBlankLines();
+        }
+        if (windowStart + position >= fileSize) {
+            return false;
+        }
+        if (window.limit() - position < MAX_RECORD_BYTES && windowStart + window.limit() < fileSize) {
+            map(windowStart + position); // The record may run past the window
+        }
+        key = null;
+        if (binary) {
+            readBinaryRecord();
+        } else {
+            readCsvRecord();
+        }
+        return true;
+    }
+
+    private void readBinaryRecord() {
+        long delta = readVarLong();
+        recordMillis = recordCount == 0 ? delta : recordMillis + (delta >>> 1 ^ -(delta & 1)); // First timestamp is absolute
+        long length = readVarLong();
+        if (length > MAX_KEY_BYTES || position + length > window.limit()) {
+            throw new IllegalArgumentException("Record " + (recordCount + 1) + " has a key of " + length + " bytes");
+        }
+        keyLength = (int) length;
+        ensureKeyCapacity(keyLength);
+        window.get(position, keyBytes, 0, keyLength);
+        position += keyLength;
+        keyHash = hash(keyBytes, keyLength);
+        cost = readVarLong();
+        if (cost <= 0) {
+            throw new IllegalArgumentException("Record " + (recordCount + 1) + " has a cost that is not positive: " + cost);
+        }
+    }
+
+    private void readCsvRecord() {
+        int limit = window.limit();
+        recordMillis = readDecimal(limit);
+        if (position >= limit || window.get(position) != ',') {
+            throw malformedLine();
+        }
+        position++;
+        long hash = FNV_OFFSET;
+        int length = 0;
+        byte current;
+        while (position < limit && (current = window.get(position)) != ',' && current != '\n' && current != '\r') {
+            if (length == MAX_KEY_BYTES) {
+                throw malformedLine();
+            }
+            ensureKeyCapacity(length + 1);
+            keyBytes[length++] = current;
+            hash = (hash ^ (current & 0xff)) * FNV_PRIME;
+            position++;
+        }
+        if (length == 0) {
+            throw malformedLine();
+        }
+        keyLength = length;
+        keyHash = mix(hash);
+        cost = 1;
+        if (position < limit && window.get(position) == ',') {
+            position++;
+            cost = readDecimal(limit);
+            if (cost <= 0) {
+                throw malformedLine();
+            }
+        }
+        if (position < limit && window.get(position) == '\r') {
+            position++;
+        }
+        if (position < limit) {
+            if (window.get(position) != '\n') {
+                throw malformedLine();
+            }
+            position++;
+        }
+    }
+
+    private void skipBlankLines() {
+        while (true) {
+            if (position >= window.limit()) {
+                if (windowStart + position >= fileSize) {
+                    return;
+                }
+                map(windowStart + position);
+            }
+            byte current = window.get(position);
+            if (current != '\n' && current != '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private long readDecimal(int limit) {
+        int start = position;
+        long value = 0;
+        byte current;
+        while (position < limit && (current = window.get(position)) >= '0' && current <= '9') {
+            if (position - start == 18) {
+                throw malformedLine(); // Would overflow a long
+            }
+            value = value * 10 + (current - '0');
+            position++;
+        }
+        if (position == start) {
+            throw malformedLine();
+        }
+        return value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= window.limit()) {
+                throw new IllegalArgumentException("Record " + (recordCount + 1) + " is cut short at the end of the trace");
+            }
+            byte current = window.get(position++);
+            value |= (long) (current & 0x7f) << shift;
+            if (current >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Record " + (recordCount + 1) + " has a malformed number");
+    }
+
+    private IllegalArgumentException malformedLine() {
+        return new IllegalArgumentException("Line " + (recordCount + 1) + " is not timestamp,key[,cost] near byte "
+                + (windowStart + position));
+    }
+
+    private void ensureKeyCapacity(int length) {
+        if (length > keyBytes.length) {
+            keyBytes = Arrays.copyOf(keyBytes, Math.max(length, keyBytes.length * 2));
+        }
+    }
+
+    /**
+     * Map the window starting at a position of the file.
+     */
+    private void map(long start) {
+        try {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowBytes, fileSize - start));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map the trace at byte " + start, e);
+        }
+        windowStart = start;
+        position = 0;
+    }
+
+    static long hash(byte[] bytes, int length) {
+        long hash = FNV_OFFSET;
+        for (int index = 0; index < length; index++) {
+            hash = (hash ^ (bytes[index] & 0xff)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Spread the bits of the hash, so shards taken from its low bits are even.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ hash >>> 33;
+    }
+}
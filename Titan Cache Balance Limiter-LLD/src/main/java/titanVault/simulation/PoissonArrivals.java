@@ -0,0 +1,60 @@
+package titanVault.simulation;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Arrivals of a Poisson process: independent requests at a constant mean rate, with
+ * exponentially distributed gaps, each for a key drawn uniformly from a key set. The
+ * steady background traffic of many independent clients looks like this.
+ */
+public class PoissonArrivals implements ArrivalProcess {
+
+    private final double meanGapNanos; // Mean time between arrivals
+    private final String[] keys; // Keys the arrivals are drawn from
+    private final SplittableRandom random; // Seeded, so a run can be repeated
+    private double timeNanos; // Time of the current arrival
+    private String key; // Key of the current arrival
+
+    /**
+     * Constructor to initialize the PoissonArrivals.
+     *
+     * @param ratePerSecond Mean number of arrivals per second, over all keys.
+     * @param keys          Keys the arrivals are drawn from, uniformly.
+     * @param seed          Seed of the random gaps and keys.
+     */
+    public PoissonArrivals(double ratePerSecond, List<String> keys, long seed) {
+        if (!(ratePerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive: " + ratePerSecond);
+        }
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is needed");
+        }
+        this.meanGapNanos = 1e9 / ratePerSecond;
+        this.keys = keys.toArray(new String[0]);
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public long advance() {
+        timeNanos += exponentialGap(random, meanGapNanos);
+        key = keys[random.nextInt(keys.length)];
+        return (long) timeNanos;
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Draw an exponentially distributed gap.
+     *
+     * @param random The random source.
+     * @param mean   The mean gap.
+     * @return The gap, zero or more.
+     */
+    static double exponentialGap(SplittableRandom random, double mean) {
+        return -Math.log(1.0 - random.nextDouble()) * mean;
+    }
+}
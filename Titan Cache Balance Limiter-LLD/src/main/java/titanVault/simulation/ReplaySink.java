@@ -0,0 +1,44 @@
+package titanVault.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Receiver of the counts of a trace replay, one call per key and time bucket in which the
+ * key made requests. Shards call it from their own threads as they finish each bucket:
+ * a key's buckets arrive in time order, the keys of different shards interleave.
+ */
+@FunctionalInterface
+public interface ReplaySink {
+
+    /**
+     * Receive the counts of a key in a time bucket.
+     *
+     * @param bucketStartMillis Start of the bucket, in trace time, milliseconds since the epoch.
+     * @param key               The key.
+     * @param admitted          Requests of the key the limiter allowed in the bucket.
+     * @param denied            Requests of the key the limiter denied in the bucket.
+     */
+    void onCounts(long bucketStartMillis, String key, long admitted, long denied);
+
+    /**
+     * Create a sink writing one CSV line per call, {@code bucketStartMillis,key,admitted,denied},
+     * safe to call from several shards. The writer is flushed and closed by the caller.
+     *
+     * @param output The writer.
+     * @return The sink.
+     */
+    static ReplaySink csv(Writer output) {
+        return (bucketStartMillis, key, admitted, denied) -> {
+            String line = bucketStartMillis + "," + key + "," + admitted + "," + denied + "\n";
+            synchronized (output) {
+                try {
+                    output.write(line);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot write replay counts", e);
+                }
+            }
+        };
+    }
+}
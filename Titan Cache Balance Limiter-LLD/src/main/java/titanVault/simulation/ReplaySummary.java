@@ -0,0 +1,65 @@
+package titanVault.simulation;
+
+/**
+ * Totals of a trace replay over every shard.
+ */
+public class ReplaySummary {
+
+    private final long records; // Requests replayed
+    private final long admitted; // Requests the limiters allowed
+    private final long denied; // Requests the limiters denied
+    private final long traceMillis; // Time between the first and last request of the trace
+    private final long wallNanos; // Real time the replay took
+
+    /**
+     * Constructor to initialize the ReplaySummary.
+     *
+     * @param records     Requests replayed.
+     * @param admitted    Requests the limiters allowed.
+     * @param denied      Requests the limiters denied.
+     * @param traceMillis Time between the first and last request of the trace.
+     * @param wallNanos   Real time the replay took.
+     */
+    public ReplaySummary(long records, long admitted, long denied, long traceMillis, long wallNanos) {
+        this.records = records;
+        this.admitted = admitted;
+        this.denied = denied;
+        this.traceMillis = traceMillis;
+        this.wallNanos = wallNanos;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public long getDenied() {
+        return denied;
+    }
+
+    public long getTraceMillis() {
+        return traceMillis;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Get the replay throughput.
+     *
+     * @return Requests replayed per real second.
+     */
+    public double getRecordsPerSecond() {
+        return wallNanos == 0 ? 0 : records * 1e9 / wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("records=%d admitted=%d denied=%d trace=%.1fs wall=%.2fs rate=%.0f/s",
+                records, admitted, denied, traceMillis / 1e3, wallNanos / 1e9, getRecordsPerSecond());
+    }
+}
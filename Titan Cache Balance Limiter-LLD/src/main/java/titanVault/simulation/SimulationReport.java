@@ -0,0 +1,157 @@
+package titanVault.simulation;
+
+import titanVault.metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Outcome of running a limiter through a simulation: how much it admitted, how far it
+ * went over the reference limit, how evenly it served the keys, and what a decision cost.
+ */
+public class SimulationReport {
+
+    private final long offeredRequests; // Requests the arrival processes made
+    private final long admittedRequests; // Requests the limiter allowed
+    private final long admittedPermits; // Permits of the allowed requests
+    private final long simulatedNanos; // Length of the simulated time
+    private final long wallNanos; // Real time the simulation took
+    private final long referenceLimit; // Permits a key may get per reference period
+    private final long maxWindowAdmitted; // Most permits any key got in one reference period
+    private final String maxWindowKey; // Key that got them
+    private final double fairness; // Jain's index of the keys' share of their entitlement
+    private final LatencyHistogram decisionNanos; // Cost of each decision
+    private final Map<String, Long> admittedByKey; // Permits allowed per key
+
+    /**
+     * Constructor to initialize the SimulationReport.
+     *
+     * @param offeredRequests   Requests the arrival processes made.
+     * @param admittedRequests  Requests the limiter allowed.
+     * @param admittedPermits   Permits of the allowed requests.
+     * @param simulatedNanos    Length of the simulated time.
+     * @param wallNanos         Real time the simulation took.
+     * @param referenceLimit    Permits a key may get per reference period.
+     * @param maxWindowAdmitted Most permits any key got in one reference period.
+     * @param maxWindowKey      Key that got them, or null if nothing was allowed.
+     * @param fairness          Jain's index of the keys' share of their entitlement.
+     * @param decisionNanos     Cost of each decision.
+     * @param admittedByKey     Permits allowed per key.
+     */
+    public SimulationReport(long offeredRequests, long admittedRequests, long admittedPermits, long simulatedNanos,
+                            long wallNanos, long referenceLimit, long maxWindowAdmitted, String maxWindowKey,
+                            double fairness, LatencyHistogram decisionNanos, Map<String, Long> admittedByKey) {
+        this.offeredRequests = offeredRequests;
+        this.admittedRequests = admittedRequests;
+        this.admittedPermits = admittedPermits;
+        this.simulatedNanos = simulatedNanos;
+        this.wallNanos = wallNanos;
+        this.referenceLimit = referenceLimit;
+        this.maxWindowAdmitted = maxWindowAdmitted;
+        this.maxWindowKey = maxWindowKey;
+        this.fairness = fairness;
+        this.decisionNanos = decisionNanos;
+        this.admittedByKey = Collections.unmodifiableMap(admittedByKey);
+    }
+
+    public long getOfferedRequests() {
+        return offeredRequests;
+    }
+
+    public long getAdmittedRequests() {
+        return admittedRequests;
+    }
+
+    public long getAdmittedPermits() {
+        return admittedPermits;
+    }
+
+    public long getSimulatedNanos() {
+        return simulatedNanos;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getMaxWindowAdmitted() {
+        return maxWindowAdmitted;
+    }
+
+    public String getMaxWindowKey() {
+        return maxWindowKey;
+    }
+
+    public Map<String, Long> getAdmittedByKey() {
+        return admittedByKey;
+    }
+
+    /**
+     * Get the admitted rate over the simulated time.
+     *
+     * @return Permits allowed per simulated second.
+     */
+    public double getAdmittedRate() {
+        return simulatedNanos == 0 ? 0 : admittedPermits * 1e9 / simulatedNanos;
+    }
+
+    /**
+     * Get how far the worst key went over the reference limit within one reference period,
+     * a sliding window placed anywhere in the simulated time. A fixed window limiter can
+     * reach 1 across a window boundary; a token bucket reaches its burst over its rate.
+     *
+     * @return The excess as a fraction of the limit, 0 if no key went over.
+     */
+    public double getOvershoot() {
+        return Math.max(0, maxWindowAdmitted - referenceLimit) / (double) referenceLimit;
+    }
+
+    /**
+     * Get Jain's fairness index of the keys' admissions. Each key's share is the permits it
+     * got over its entitlement, the lesser of what it asked for and what the reference
+     * limit grants over the simulated time, capped at 1. The index is 1 when every key got
+     * the same share and falls towards 1/keys as a few keys take the capacity of the rest.
+     *
+     * @return The index, from 1/keys to 1; 1 when no key asked for anything.
+     */
+    public double getFairness() {
+        return fairness;
+    }
+
+    /**
+     * Get the mean cost of a decision, measured around each call to the limiter.
+     *
+     * @return The mean in nanoseconds.
+     */
+    public double getMeanDecisionNanos() {
+        return decisionNanos.getMean();
+    }
+
+    /**
+     * Get a percentile of the cost of a decision.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @return The cost in nanoseconds.
+     */
+    public long getDecisionNanosAtPercentile(double percentile) {
+        return decisionNanos.getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Get how much faster than real time the simulation ran.
+     *
+     * @return Simulated time over real time.
+     */
+    public double getSpeedup() {
+        return wallNanos == 0 ? 0 : simulatedNanos / (double) wallNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("offered=%d admitted=%d admittedRate=%.1f/s overshoot=%.3f (%d by %s) fairness=%.3f"
+                        + " decision mean=%.0fns p99=%dns simulated=%.1fs wall=%.2fs speedup=%.0fx",
+                offeredRequests, admittedRequests, getAdmittedRate(), getOvershoot(), maxWindowAdmitted, maxWindowKey,
+                fairness, getMeanDecisionNanos(), getDecisionNanosAtPercentile(99), simulatedNanos / 1e9,
+                wallNanos / 1e9, getSpeedup());
+    }
+}
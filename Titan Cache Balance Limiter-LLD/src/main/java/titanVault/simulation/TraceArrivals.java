@@ -0,0 +1,85 @@
+package titanVault.simulation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Arrivals replayed from a recorded trace, one request per line:
+ * {@code timestampMillis,key[,cost]}. Times are taken relative to the first line, so a
+ * trace of any day replays from the start of the simulation. Lines are read as the
+ * simulation reaches them, so a trace of any length replays in constant memory. A line
+ * stamped earlier than the one before it, as access logs written by several threads can
+ * be, is replayed at the time of the line before it. Blank lines are skipped.
+ */
+public class TraceArrivals implements ArrivalProcess {
+
+    private final BufferedReader lines; // Trace being replayed
+    private long firstMillis = -1; // Timestamp of the first line, -1 before it is read
+    private long timeNanos; // Time of the current arrival
+    private long lineNumber; // Number of the current line, for error messages
+    private String key; // Key of the current arrival
+    private long permits; // Cost of the current arrival
+
+    /**
+     * Constructor to initialize the TraceArrivals.
+     *
+     * @param trace The trace, closed by the caller once the simulation is over.
+     */
+    public TraceArrivals(Reader trace) {
+        this.lines = trace instanceof BufferedReader buffered ? buffered : new BufferedReader(trace);
+    }
+
+    /**
+     * Move to the next line of the trace.
+     *
+     * @throws IllegalArgumentException if the line is malformed.
+     * @throws UncheckedIOException if the trace cannot be read.
+     */
+    @Override
+    public long advance() {
+        String line;
+        try {
+            do {
+                line = lines.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read line " + lineNumber + " of the trace", e);
+        }
+        if (line == null) {
+            return -1;
+        }
+        int firstComma = line.indexOf(',');
+        int secondComma = firstComma < 0 ? -1 : line.indexOf(',', firstComma + 1);
+        if (firstComma <= 0 || firstComma == line.length() - 1 || secondComma == firstComma + 1) {
+            throw new IllegalArgumentException("Line " + lineNumber + " is not timestamp,key[,cost]: " + line);
+        }
+        try {
+            long millis = Long.parseLong(line.substring(0, firstComma).trim());
+            key = secondComma < 0 ? line.substring(firstComma + 1).trim() : line.substring(firstComma + 1, secondComma).trim();
+            permits = secondComma < 0 ? 1 : Long.parseLong(line.substring(secondComma + 1).trim());
+            if (firstMillis < 0) {
+                firstMillis = millis;
+            }
+            timeNanos = Math.max(timeNanos, (millis - firstMillis) * 1_000_000L);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has a malformed number: " + line, e);
+        }
+        if (permits <= 0) {
+            throw new IllegalArgumentException("Line " + lineNumber + " has a cost that is not positive: " + line);
+        }
+        return timeNanos;
+    }
+
+    @Override
+    public String key() {
+        return key;
+    }
+
+    @Override
+    public long permits() {
+        return permits;
+    }
+}
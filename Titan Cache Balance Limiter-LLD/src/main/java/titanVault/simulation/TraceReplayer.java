@@ -0,0 +1,367 @@
+package titanVault.simulation;
+
+import titanVault.config.RateLimitPolicy;
+import titanVault.service.RateLimiter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Capacity planning tool that replays a recorded trace through a limiter and streams out
+ * the requests admitted and denied per key and time bucket.
+ * <p>
+ * Keys are split into shards by a hash of their bytes and each shard replays its keys on
+ * its own thread, against its own limiter made by the limiter factory. One reader thread
+ * scans the trace once through a {@link MappedTraceReader} and hands each record to the
+ * shard of its key in batches, so the trace is read and parsed once whatever the number
+ * of shards. Each shard has a few batches that go back and forth between it and the
+ * reader, so each key's requests are decided in trace order and memory does not grow with
+ * the trace: the reader holds a mapped window and each shard its batches, its limiter's
+ * per-key state and the counts of the bucket it is in. Before waiting for a shard to hand
+ * back a batch, the reader hands out the partly filled batches of every shard, so no shard
+ * waits for records that were already read. As limiters are per shard, sharding suits
+ * limiters that keep state per key, which every algorithm of {@code titanVault.service}
+ * does; replay a limiter shared by every key with one shard.
+ * <p>
+ * As fast as possible, each shard's limiter reads a {@link VirtualClock} set to the trace
+ * time of each request, so the decisions are those the limiter would have made when the
+ * trace was recorded, whatever the speed of the replay. At original speed, the limiters
+ * read the system clock and each shard waits until its requests are due, the gaps of the
+ * trace being replayed in real time from the start of the replay.
+ */
+public class TraceReplayer {
+
+    /**
+     * Pace of a replay.
+     */
+    public enum Speed { ORIGINAL, AS_FAST_AS_POSSIBLE }
+
+    private static final int BATCH_RECORDS = 4_096; // Records handed to a shard at once
+    private static final int BATCHES_PER_SHARD = 4; // Batches each shard cycles with the reader
+
+    private final Path trace; // Trace to replay, CSV or binary
+    private final Function<Clock, ? extends RateLimiter> limiterFactory; // Makes the limiter of a shard
+    private final int shards; // Number of shards, each on its own thread
+    private final long bucketMillis; // Length of a time bucket of the counts
+    private final Speed speed; // Pace of the replay
+    private final int windowBytes; // Bytes the reader maps at a time
+
+    /**
+     * Constructor to initialize the TraceReplayer, mapping 256 MB of the trace at a time.
+     *
+     * @param trace          Trace to replay, CSV or binary.
+     * @param limiterFactory Makes the limiter of a shard from the clock it must read; called once per shard.
+     * @param shards         Number of shards, each replayed on its own thread.
+     * @param bucket         Length of a time bucket of the counts.
+     * @param speed          Pace of the replay.
+     */
+    public TraceReplayer(Path trace, Function<Clock, ? extends RateLimiter> limiterFactory, int shards,
+                         Duration bucket, Speed speed) {
+        this(trace, limiterFactory, shards, bucket, speed, 256 << 20);
+    }
+
+    /**
+     * Constructor to initialize the TraceReplayer.
+     *
+     * @param trace          Trace to replay, CSV or binary.
+     * @param limiterFactory Makes the limiter of a shard from the clock it must read; called once per shard.
+     * @param shards         Number of shards, each replayed on its own thread.
+     * @param bucket         Length of a time bucket of the counts.
+     * @param speed          Pace of the replay.
+     * @param windowBytes    Bytes of the trace the reader maps at a time.
+     */
+    public TraceReplayer(Path trace, Function<Clock, ? extends RateLimiter> limiterFactory, int shards,
+                         Duration bucket, Speed speed, int windowBytes) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Shards must be positive: " + shards);
+        }
+        if (bucket == null || bucket.toMillis() <= 0) {
+            throw new IllegalArgumentException("Bucket must be at least a millisecond: " + bucket);
+        }
+        this.trace = trace;
+        this.limiterFactory = limiterFactory;
+        this.shards = shards;
+        this.bucketMillis = bucket.toMillis();
+        this.speed = speed;
+        this.windowBytes = windowBytes;
+    }
+
+    /**
+     * Make a limiter factory for a configured policy, building the limiter with
+     * {@link RateLimitPolicy#newLimiter} as the policy file watcher does.
+     *
+     * @param policy The policy.
+     * @return A factory making the policy's limiter on a given clock.
+     */
+    public static Function<Clock, RateLimiter> limiterFor(RateLimitPolicy policy) {
+        return clock -> policy.newLimiter(clock, null);
+    }
+
+    /**
+     * Replay the trace, blocking until the reader and every shard are done.
+     *
+     * @param sink Receiver of the counts, called from the shard threads.
+     * @return The totals of the replay.
+     * @throws IOException if the trace cannot be read.
+     * @throws InterruptedException if the calling thread is interrupted; the replay is stopped.
+     * @throws IllegalArgumentException if the trace is malformed.
+     */
+    public ReplaySummary replay(ReplaySink sink) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Shard[] workers = new Shard[shards];
+        Thread[] threads = new Thread[shards + 1];
+        for (int index = 0; index < shards; index++) {
+            workers[index] = new Shard(sink, startNanos);
+            Shard worker = workers[index];
+            threads[index] = new Thread(() -> {
+                try {
+                    worker.run();
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                    stop(threads); // One failed shard ends the replay
+                }
+            }, "trace-replay-" + index);
+        }
+        threads[shards] = new Thread(() -> {
+            try {
+                read(workers);
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                stop(threads); // Shards waiting for records would wait forever
+            }
+        }, "trace-replay-reader");
+        for (Thread thread : threads) {
+            thread.start(); // The reader starts last, so every thread it may stop is already running
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            stop(threads);
+            throw e;
+        }
+        rethrow(failure.get());
+
+        long records = 0;
+        long admitted = 0;
+        long denied = 0;
+        long firstMillis = Long.MAX_VALUE;
+        long lastMillis = Long.MIN_VALUE;
+        for (Shard worker : workers) {
+            records += worker.admitted + worker.denied;
+            admitted += worker.admitted;
+            denied += worker.denied;
+            if (worker.admitted + worker.denied > 0) {
+                firstMillis = Math.min(firstMillis, worker.firstMillis);
+                lastMillis = Math.max(lastMillis, worker.lastMillis);
+            }
+        }
+        return new ReplaySummary(records, admitted, denied, records == 0 ? 0 : lastMillis - firstMillis,
+                System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Scan the trace once, handing each record to the shard of its key. A shard gets its
+     * batch when the batch is full, when the reader is about to wait for a shard, and at
+     * the end of the trace, where every shard gets a last batch.
+     */
+    private void read(Shard[] workers) throws IOException, InterruptedException {
+        Batch[] filling = new Batch[shards];
+        try (MappedTraceReader reader = new MappedTraceReader(trace, windowBytes)) {
+            long timeNanos;
+            while ((timeNanos = reader.advance()) >= 0) {
+                int index = Math.floorMod(reader.keyHash(), shards);
+                Batch batch = filling[index];
+                if (batch == null) {
+                    batch = workers[index].empty.poll();
+                    if (batch == null) {
+                        handOut(filling, workers); // Let every shard work on what was read while we wait
+                        batch = workers[index].empty.take();
+                    }
+                    filling[index] = batch;
+                }
+                batch.add(timeNanos, reader.timestampMillis(), reader.key(), reader.permits());
+                if (batch.size == BATCH_RECORDS) {
+                    workers[index].filled.add(batch); // Never full: a shard has no more batches than it queues
+                    filling[index] = null;
+                }
+            }
+        }
+        for (int index = 0; index < shards; index++) {
+            Batch batch = filling[index] != null ? filling[index] : workers[index].empty.take();
+            batch.last = true;
+            workers[index].filled.add(batch);
+        }
+    }
+
+    /**
+     * Hand every partly filled batch to its shard.
+     */
+    private static void handOut(Batch[] filling, Shard[] workers) {
+        for (int index = 0; index < filling.length; index++) {
+            if (filling[index] != null) {
+                workers[index].filled.add(filling[index]);
+                filling[index] = null;
+            }
+        }
+    }
+
+    private static void stop(Thread[] threads) {
+        for (Thread thread : threads) {
+            if (thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static void rethrow(Throwable failure) throws IOException, InterruptedException {
+        if (failure == null) {
+            return;
+        }
+        if (failure instanceof UncheckedIOException unchecked) {
+            throw unchecked.getCause();
+        }
+        if (failure instanceof IOException io) {
+            throw io;
+        }
+        if (failure instanceof InterruptedException interrupted) {
+            throw interrupted;
+        }
+        if (failure instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        throw (Error) failure;
+    }
+
+    /**
+     * The keys of one hash shard, replayed on one thread.
+     */
+    private final class Shard {
+        private final ReplaySink sink; // Receiver of the counts
+        private final long startNanos; // Real time the replay started, for original speed
+        private final BlockingQueue<Batch> filled = new ArrayBlockingQueue<>(BATCHES_PER_SHARD); // Batches read for this shard
+        private final BlockingQueue<Batch> empty = new ArrayBlockingQueue<>(BATCHES_PER_SHARD); // Batches handed back to the reader
+        private final Map<String, long[]> counts = new HashMap<>(); // Admitted and denied per key in the current bucket
+        private long bucketStart = Long.MIN_VALUE; // Start of the current bucket
+        private long admitted; // Requests allowed so far
+        private long denied; // Requests denied so far
+        private long firstMillis; // Timestamp of the shard's first request
+        private long lastMillis; // Timestamp of the shard's last request
+
+        private Shard(ReplaySink sink, long startNanos) {
+            this.sink = sink;
+            this.startNanos = startNanos;
+            for (int batch = 0; batch < BATCHES_PER_SHARD; batch++) {
+                empty.add(new Batch());
+            }
+        }
+
+        private void run() throws InterruptedException {
+            VirtualClock clock = null;
+            RateLimiter limiter = null;
+            boolean last = false;
+            while (!last) {
+                Batch batch = filled.take();
+                for (int record = 0; record < batch.size; record++) {
+                    long millis = batch.millis[record];
+                    if (limiter == null) {
+                        firstMillis = millis;
+                        if (speed == Speed.AS_FAST_AS_POSSIBLE) {
+                            clock = new VirtualClock(Instant.ofEpochMilli(millis));
+                            limiter = limiterFactory.apply(clock);
+                        } else {
+                            limiter = limiterFactory.apply(Clock.systemUTC());
+                        }
+                    }
+                    if (clock != null) {
+                        clock.advanceTo(millis * 1_000_000L);
+                    } else {
+                        waitUntil(startNanos + batch.timeNanos[record]);
+                    }
+                    String key = batch.keys[record];
+                    long permits = batch.permits[record];
+                    boolean allowed = permits == 1 ? limiter.validateRequest(key) : limiter.validateRequest(key, permits);
+                    count(millis, key, allowed);
+                    lastMillis = millis;
+                }
+                last = batch.last;
+                batch.clear();
+                empty.add(batch); // Never full: the batch came from this shard
+            }
+            flush();
+        }
+
+        private void count(long millis, String key, boolean allowed) {
+            long bucket = millis - Math.floorMod(millis, bucketMillis);
+            if (bucket != bucketStart) {
+                flush();
+                bucketStart = bucket;
+            }
+            long[] keyCounts = counts.computeIfAbsent(key, newKey -> new long[2]);
+            if (allowed) {
+                keyCounts[0]++;
+                admitted++;
+            } else {
+                keyCounts[1]++;
+                denied++;
+            }
+        }
+
+        private void flush() {
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                sink.onCounts(bucketStart, entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+            }
+            counts.clear();
+        }
+
+        private void waitUntil(long dueNanos) throws InterruptedException {
+            long waitNanos;
+            while ((waitNanos = dueNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, waitNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Records read for one shard, reused once the shard has replayed them.
+     */
+    private static final class Batch {
+        private final long[] timeNanos = new long[BATCH_RECORDS]; // Trace time of each record since the first
+        private final long[] millis = new long[BATCH_RECORDS]; // Timestamp of each record
+        private final String[] keys = new String[BATCH_RECORDS]; // Key of each record
+        private final long[] permits = new long[BATCH_RECORDS]; // Permits of each record
+        private int size; // Number of records in the batch
+        private boolean last; // Set on the batch that ends the trace for the shard
+
+        private void add(long recordNanos, long recordMillis, String key, long recordPermits) {
+            timeNanos[size] = recordNanos;
+            millis[size] = recordMillis;
+            keys[size] = key;
+            permits[size] = recordPermits;
+            size++;
+        }
+
+        private void clear() {
+            Arrays.fill(keys, 0, size, null); // Do not keep keys of past buckets alive
+            size = 0;
+            last = false;
+        }
+    }
+}
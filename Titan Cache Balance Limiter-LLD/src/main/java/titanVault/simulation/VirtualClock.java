@@ -0,0 +1,104 @@
+package titanVault.simulation;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock whose time only moves when it is told to, for driving limiters through simulated
+ * time. Unlike {@code Clock.fixed} or {@code Clock.offset}, which need the bucket to be
+ * rebuilt to see a new time, a limiter built on a VirtualClock sees every advance, so its
+ * buckets refill, its windows roll and its logs expire as they would in production.
+ * <p>
+ * Time is kept in nanoseconds since the epoch and only moves forward. Clocks obtained
+ * from {@link #withZone} share the time of this one.
+ */
+public class VirtualClock extends Clock {
+
+    private final AtomicLong epochNanos; // Current time in nanoseconds since the epoch, shared by every zone view
+    private final ZoneId zone; // Zone reported by getZone
+
+    /**
+     * Constructor to initialize a VirtualClock in UTC.
+     *
+     * @param start Time the clock starts at.
+     */
+    public VirtualClock(Instant start) {
+        this(new AtomicLong(toEpochNanos(start)), ZoneOffset.UTC);
+    }
+
+    private VirtualClock(AtomicLong epochNanos, ZoneId zone) {
+        this.epochNanos = epochNanos;
+        this.zone = zone;
+    }
+
+    @Override
+    public long millis() {
+        return Math.floorDiv(epochNanos.get(), 1_000_000L);
+    }
+
+    @Override
+    public Instant instant() {
+        long nanos = epochNanos.get();
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Get a view of this clock in another zone, sharing its time.
+     *
+     * @param zone The zone.
+     * @return A clock that advances with this one.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new VirtualClock(epochNanos, zone);
+    }
+
+    /**
+     * Get the current time in nanoseconds since the epoch.
+     *
+     * @return The current time.
+     */
+    public long nanos() {
+        return epochNanos.get();
+    }
+
+    /**
+     * Move the time forward.
+     *
+     * @param duration How far to move, zero or more.
+     */
+    public void advance(Duration duration) {
+        if (duration == null || duration.isNegative()) {
+            throw new IllegalArgumentException("Time cannot move backwards: " + duration);
+        }
+        epochNanos.addAndGet(duration.toNanos());
+    }
+
+    /**
+     * Move the time forward to a given time; a time already passed leaves the clock as it is.
+     *
+     * @param targetEpochNanos The time in nanoseconds since the epoch.
+     * @return The current time after the move.
+     */
+    public long advanceTo(long targetEpochNanos) {
+        return epochNanos.accumulateAndGet(targetEpochNanos, Math::max);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock[" + instant() + "," + zone + "]";
+    }
+
+    private static long toEpochNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+}
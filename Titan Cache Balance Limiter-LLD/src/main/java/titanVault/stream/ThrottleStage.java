@@ -0,0 +1,379 @@
+package titanVault.stream;
+
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Streaming stage that passes records on at the rate each tenant's token bucket allows,
+ * in micro-batches.
+ * <p>
+ * Records are grouped by tenant into batches of up to {@code batchSize}. A full batch
+ * costs one bucket debit, which takes as many tokens as the bucket holds up to the batch
+ * size: the records covered go to the sink as one list, and the rest are dropped or
+ * delayed by the {@link OverflowPolicy}. Delayed records wait behind their tenant's
+ * earlier ones until the bucket refills, then go out in batches again, so a tenant's
+ * records keep their order; other tenants are not held up. With per-record work down to
+ * a map lookup and a list append, the stage keeps up with streams of millions of records
+ * a second on one thread.
+ * <p>
+ * At most {@code bufferCapacity} records are held, open batches and delayed ones
+ * together. When the buffer is full the open batches are sent as they are, and if
+ * delayed records still fill it the stage stops reading the source until the earliest
+ * refill, which is how a delay reaches the producer. A partial batch is sent when the
+ * buffer fills or the source ends. A stage runs on the calling thread and keeps no state
+ * between runs other than its counters; use one stage per thread.
+ *
+ * @param <T> The type of the records.
+ */
+public class ThrottleStage<T> {
+
+    /**
+     * What happens to records a tenant's bucket cannot cover yet.
+     */
+    public enum OverflowPolicy { DROP, DELAY }
+
+    private final TokenBucketServiceRateLimiter limiter; // One token bucket per tenant
+    private final Function<? super T, String> tenantOf; // Tenant a record is limited under
+    private final int batchSize; // Records per batch and per bucket debit
+    private final int bufferCapacity; // Records held at most, open and delayed
+    private final OverflowPolicy overflowPolicy; // Drop or delay records the bucket cannot cover
+    private volatile long emittedRecords; // Records sent to the sink, written by the running thread only
+    private volatile long droppedRecords; // Records dropped, written by the running thread only
+    private volatile long debits; // Bucket debits made, written by the running thread only
+
+    /**
+     * Constructor to initialize the ThrottleStage.
+     *
+     * @param limiter        Token bucket limiter holding one bucket per tenant.
+     * @param tenantOf       Tenant a record is limited under.
+     * @param batchSize      Records per batch and per bucket debit.
+     * @param bufferCapacity Records held at most, at least the batch size.
+     * @param overflowPolicy Drop or delay records the bucket cannot cover.
+     */
+    public ThrottleStage(TokenBucketServiceRateLimiter limiter, Function<? super T, String> tenantOf,
+                         int batchSize, int bufferCapacity, OverflowPolicy overflowPolicy) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        if (bufferCapacity < batchSize) {
+            throw new IllegalArgumentException("Buffer must hold at least a batch: " + bufferCapacity + " < " + batchSize);
+        }
+        this.limiter = limiter;
+        this.tenantOf = tenantOf;
+        this.batchSize = batchSize;
+        this.bufferCapacity = bufferCapacity;
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy, "overflowPolicy");
+    }
+
+    /**
+     * Pass the records of an iterator through the stage until it is exhausted and every
+     * delayed record has been sent or dropped.
+     *
+     * @param source The records, none of them null.
+     * @param sink   Receives the admitted batches, each of a single tenant.
+     * @throws InterruptedException if the thread is interrupted while waiting for a refill.
+     */
+    public void run(Iterator<? extends T> source, Consumer<? super List<T>> sink) throws InterruptedException {
+        run(() -> source.hasNext() ? Objects.requireNonNull(source.next(), "record") : null, sink);
+    }
+
+    /**
+     * Subscribe to a publisher and pass its records through the stage on the calling thread
+     * until it completes and every delayed record has been sent or dropped. At most the
+     * buffer capacity is requested ahead, so a stage stopped by a refill stops the
+     * publisher too.
+     *
+     * @param source The publisher.
+     * @param sink   Receives the admitted batches, each of a single tenant.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * @throws IllegalStateException if the publisher fails; batches sent before stay sent.
+     */
+    public void run(Flow.Publisher<? extends T> source, Consumer<? super List<T>> sink) throws InterruptedException {
+        PublisherSource<T> records = new PublisherSource<>(bufferCapacity);
+        source.subscribe(records);
+        try {
+            run(records, sink);
+        } finally {
+            records.cancel();
+        }
+    }
+
+    public long getEmittedRecords() {
+        return emittedRecords;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    /**
+     * Get the number of bucket debits made, one per batch sent or tried.
+     *
+     * @return The debits so far.
+     */
+    public long getDebits() {
+        return debits;
+    }
+
+    private void run(RecordSource<T> source, Consumer<? super List<T>> sink) throws InterruptedException {
+        Map<String, Tenant<T>> tenants = new HashMap<>();
+        PriorityQueue<Tenant<T>> delayed = new PriorityQueue<>((first, second) -> Long.compare(first.readyAt, second.readyAt));
+        int buffered = 0;
+        T next;
+        while ((next = source.poll()) != null) {
+            String tenantId = tenantOf.apply(next);
+            Tenant<T> tenant = tenants.get(tenantId);
+            if (tenant == null) {
+                tenant = new Tenant<>(tenantId, batchSize);
+                tenants.put(tenantId, tenant);
+            }
+            tenant.open.add(next);
+            buffered++;
+            if (tenant.open.size() == batchSize) {
+                buffered -= send(tenant, delayed, sink);
+            }
+            if (buffered >= bufferCapacity) {
+                buffered = makeRoom(tenants, delayed, sink, buffered);
+            }
+        }
+        for (Tenant<T> tenant : tenants.values()) {
+            if (!tenant.open.isEmpty()) {
+                buffered -= send(tenant, delayed, sink);
+            }
+        }
+        while (!delayed.isEmpty()) {
+            buffered -= releaseDelayed(delayed, sink, true);
+        }
+    }
+
+    /**
+     * Free the buffer when it is full: send the open batches, then wait for refills until
+     * the delayed records leave room.
+     *
+     * @return The records still held.
+     */
+    private int makeRoom(Map<String, Tenant<T>> tenants, PriorityQueue<Tenant<T>> delayed,
+                         Consumer<? super List<T>> sink, int buffered) throws InterruptedException {
+        buffered -= releaseDelayed(delayed, sink, false);
+        for (Tenant<T> tenant : tenants.values()) {
+            if (buffered < bufferCapacity) {
+                break;
+            }
+            if (!tenant.open.isEmpty()) {
+                buffered -= send(tenant, delayed, sink);
+            }
+        }
+        while (buffered >= bufferCapacity) {
+            buffered -= releaseDelayed(delayed, sink, true);
+        }
+        return buffered;
+    }
+
+    /**
+     * Send the open batch of a tenant, or queue it behind the tenant's delayed records.
+     *
+     * @return The records that left the buffer, sent or dropped.
+     */
+    private int send(Tenant<T> tenant, PriorityQueue<Tenant<T>> delayed, Consumer<? super List<T>> sink) {
+        List<T> batch = tenant.open;
+        tenant.open = new ArrayList<>(batchSize);
+        if (!tenant.waiting.isEmpty()) {
+            tenant.waiting.addAll(batch); // Keep the tenant's order behind its delayed records
+            return 0;
+        }
+        long granted = debit(tenant.id, batch.size());
+        if (granted == batch.size()) {
+            emit(batch, sink);
+            return batch.size();
+        }
+        if (granted > 0) {
+            emit(new ArrayList<>(batch.subList(0, (int) granted)), sink);
+        }
+        List<T> rest = batch.subList((int) granted, batch.size());
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            droppedRecords += rest.size();
+            return batch.size();
+        }
+        tenant.waiting.addAll(rest);
+        tenant.readyAt = System.nanoTime() + retryNanos(tenant.id);
+        delayed.add(tenant);
+        return (int) granted;
+    }
+
+    /**
+     * Send the delayed records of the tenants whose refill is due, one debit per batch,
+     * optionally waiting for the earliest refill first.
+     *
+     * @return The records that left the buffer.
+     */
+    private int releaseDelayed(PriorityQueue<Tenant<T>> delayed, Consumer<? super List<T>> sink,
+                               boolean waitForRefill) throws InterruptedException {
+        if (waitForRefill && !delayed.isEmpty()) {
+            long parkNanos;
+            while ((parkNanos = delayed.peek().readyAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, parkNanos);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+        int released = 0;
+        Tenant<T> tenant;
+        while ((tenant = delayed.peek()) != null && tenant.readyAt - System.nanoTime() <= 0) {
+            delayed.poll();
+            while (!tenant.waiting.isEmpty()) {
+                int size = Math.min(batchSize, tenant.waiting.size());
+                long granted = debit(tenant.id, size);
+                if (granted == 0) {
+                    break;
+                }
+                List<T> batch = new ArrayList<>((int) granted);
+                for (long index = 0; index < granted; index++) {
+                    batch.add(tenant.waiting.poll());
+                }
+                emit(batch, sink);
+                released += (int) granted;
+                if (granted < size) {
+                    break;
+                }
+            }
+            if (!tenant.waiting.isEmpty()) {
+                tenant.readyAt = System.nanoTime() + retryNanos(tenant.id);
+                delayed.add(tenant);
+            }
+        }
+        return released;
+    }
+
+    private long debit(String tenantId, int records) {
+        debits++;
+        return limiter.tryAcquireUpTo(tenantId, records);
+    }
+
+    private void emit(List<T> batch, Consumer<? super List<T>> sink) {
+        emittedRecords += batch.size();
+        sink.accept(batch);
+    }
+
+    /**
+     * Get the time until the bucket of a tenant holds a token again, at least a millisecond.
+     */
+    private long retryNanos(String tenantId) {
+        Duration retryAfter = limiter.inspect(tenantId).getRetryAfter();
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), retryAfter.toNanos());
+    }
+
+    /**
+     * Records read one at a time, null once the source is exhausted.
+     */
+    @FunctionalInterface
+    private interface RecordSource<T> {
+        T poll() throws InterruptedException;
+    }
+
+    /**
+     * Open batch and delayed records of one tenant.
+     */
+    private static final class Tenant<T> {
+        private final String id; // Tenant the bucket belongs to
+        private final ArrayDeque<T> waiting = new ArrayDeque<>(); // Records waiting for a refill, in arrival order
+        private List<T> open; // Records of the batch being filled
+        private long readyAt; // Time of the next refill while records wait
+
+        private Tenant(String id, int batchSize) {
+            this.id = id;
+            this.open = new ArrayList<>(batchSize);
+        }
+    }
+
+    /**
+     * Subscriber turning a publisher into a record source, requesting more records as the
+     * stage takes them, at most the capacity ahead.
+     */
+    private static final class PublisherSource<T> implements Flow.Subscriber<T>, RecordSource<T> {
+        private static final Object COMPLETE = new Object(); // Marks the end of the stream in the queue
+
+        private final int capacity; // Records requested ahead at most
+        private final BlockingQueue<Object> records; // Records received and not yet taken
+        private volatile Flow.Subscription subscription; // Subscription to the publisher
+        private int takenSinceRequest; // Records taken since the last request, owned by the stage thread
+
+        private PublisherSource(int capacity) {
+            this.capacity = capacity;
+            this.records = new ArrayBlockingQueue<>(capacity + 1); // One more for the end marker
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(capacity);
+        }
+
+        @Override
+        public void onNext(T item) {
+            records.add(item); // Never full: at most the capacity is requested ahead
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            records.add(new Failure(throwable));
+        }
+
+        @Override
+        public void onComplete() {
+            records.add(COMPLETE);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T poll() throws InterruptedException {
+            Object next = records.take();
+            if (next == COMPLETE) {
+                records.add(COMPLETE); // Later polls see the end too
+                return null;
+            }
+            if (next instanceof Failure failure) {
+                throw new IllegalStateException("Stream source failed", failure.cause);
+            }
+            if (++takenSinceRequest >= (capacity + 1) / 2) {
+                subscription.request(takenSinceRequest);
+                takenSinceRequest = 0;
+            }
+            return (T) next;
+        }
+
+        private void cancel() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        /**
+         * Failure of the publisher, passed through the queue in order.
+         */
+        private static final class Failure {
+            private final Throwable cause; // Error the publisher signalled
+
+            private Failure(Throwable cause) {
+                this.cause = cause;
+            }
+        }
+    }
+}
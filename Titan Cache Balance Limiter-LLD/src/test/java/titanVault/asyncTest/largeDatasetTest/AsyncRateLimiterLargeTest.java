@@ -0,0 +1,198 @@
+package titanVault.asyncTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.async.AsyncRateLimiter;
+import titanVault.async.ThrottleProcessor;
+import titanVault.async.TimerWheel;
+import titanVault.model.Decision;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Throughput of the asynchronous paths against the synchronous one on the same token
+ * bucket limiter: admissions decided on the executor, requests that wait on the timer wheel,
+ * and a stream passed through the throttle stage.
+ */
+public class AsyncRateLimiterLargeTest {
+
+    private static final int KEYS = 1_000;
+    private static final int REQUESTS = 2_000_000;
+    private static final int BATCH = 1_000; // Decisions in flight at once
+    private static final String[] USER_IDS = new String[KEYS];
+
+    static {
+        for (int i = 0; i < KEYS; i++) {
+            USER_IDS[i] = "user" + i;
+        }
+    }
+
+    @Test
+    public void testImmediateAdmissionThroughput() {
+        /* Positive Test Case: Admissions decided on the executor, pipelined in batches, keep a bounded cost over the synchronous call. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(Long.MAX_VALUE / 2, Duration.ofSeconds(1), 1, Clock.systemUTC());
+        try (TimerWheel timerWheel = new TimerWheel()) {
+            AsyncRateLimiter asyncLimiter = new AsyncRateLimiter(limiter, timerWheel);
+            List<CompletableFuture<Decision>> batch = new ArrayList<>(BATCH);
+            for (int round = 0; round < 2; round++) { // The first round warms up
+                long start = System.nanoTime();
+                long allowed = 0;
+                for (int i = 0; i < REQUESTS; i++) {
+                    allowed += limiter.validateRequest(USER_IDS[i % KEYS], 1) ? 1 : 0;
+                }
+                double syncNanos = (System.nanoTime() - start) / (double) REQUESTS;
+
+                start = System.nanoTime();
+                for (int i = 0; i < REQUESTS; i += BATCH) {
+                    for (int j = i; j < i + BATCH; j++) {
+                        batch.add(asyncLimiter.acquire(USER_IDS[j % KEYS], 1, Duration.ofSeconds(1)));
+                    }
+                    allowed += countAllowed(batch);
+                }
+                double asyncNanos = (System.nanoTime() - start) / (double) REQUESTS;
+
+                for (int i = 0; i < REQUESTS; i += BATCH) {
+                    for (int j = i; j < i + BATCH; j++) {
+                        batch.add(limiter.validateRequestAsync(USER_IDS[j % KEYS], 1));
+                    }
+                    allowed += countAllowed(batch);
+                }
+
+                assertEquals(3L * REQUESTS, allowed);
+                if (round == 1) {
+                    assertTrue(asyncNanos < syncNanos + 20_000, "An executor hop per decision stays in the microseconds.");
+                }
+            }
+        }
+    }
+
+    private static long countAllowed(List<CompletableFuture<Decision>> batch) {
+        long allowed = 0;
+        for (CompletableFuture<Decision> decision : batch) {
+            allowed += decision.join().isAllowed() ? 1 : 0;
+        }
+        batch.clear();
+        return allowed;
+    }
+
+    @Test
+    public void testWaitingRequestsCompleteOnTheWheel() throws Exception {
+        /* Positive Test Case: 100,000 waiting requests complete as the buckets refill, with no thread per request. */
+        int waiting = 100_000;
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(100, Duration.ofMillis(20), 100, Clock.systemUTC());
+        try (TimerWheel timerWheel = new TimerWheel()) {
+            AsyncRateLimiter asyncLimiter = new AsyncRateLimiter(limiter, timerWheel);
+            AtomicLong allowed = new AtomicLong();
+            CompletableFuture<?>[] decisions = new CompletableFuture<?>[waiting];
+            long start = System.nanoTime();
+            for (int i = 0; i < waiting; i++) {
+                decisions[i] = asyncLimiter.acquire(USER_IDS[i % 100], 1, Duration.ofMinutes(1))
+                        .thenAccept(decision -> allowed.addAndGet(decision.isAllowed() ? 1 : 0));
+            }
+            CompletableFuture.allOf(decisions).get(2, TimeUnit.MINUTES);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertEquals(waiting, allowed.get());
+            assertTrue(elapsedMillis >= 150, "Requests are held until the buckets refill.");
+        }
+    }
+
+    @Test
+    public void testThrottleStageThroughput() throws InterruptedException {
+        /* Positive Test Case: A stream passes the throttle stage at a rate close to the synchronous decisions. */
+        int items = 1_000_000;
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(Long.MAX_VALUE / 2, Duration.ofSeconds(1), 1, Clock.systemUTC());
+        try (TimerWheel timerWheel = new TimerWheel()) {
+            for (int round = 0; round < 3; round++) { // The first rounds warm up
+                ThrottleProcessor<Integer> processor = new ThrottleProcessor<>(limiter, item -> USER_IDS[item % KEYS], timerWheel, 1_024);
+                AtomicLong received = new AtomicLong();
+                CountDownLatch completed = new CountDownLatch(1);
+                processor.subscribe(new Flow.Subscriber<>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        subscription.request(Long.MAX_VALUE);
+                    }
+
+                    @Override
+                    public void onNext(Integer item) {
+                        received.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        completed.countDown();
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed.countDown();
+                    }
+                });
+                long start = System.nanoTime();
+                new RangePublisher(items).subscribe(processor);
+                assertTrue(completed.await(2, TimeUnit.MINUTES));
+                double nanosPerItem = (System.nanoTime() - start) / (double) items;
+
+                assertEquals(items, received.get());
+                if (round == 2) {
+                    assertTrue(nanosPerItem < 10_000, "Items within limits pass in microseconds, took " + nanosPerItem + " ns per item.");
+                }
+            }
+        }
+    }
+
+    /*
+     * Source emitting 0 to count - 1 on the requesting thread, so the benchmark measures the
+     * stage rather than a hand-off between threads.
+     */
+    private static final class RangePublisher implements Flow.Publisher<Integer> {
+        private final int count;
+
+        private RangePublisher(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Integer> subscriber) {
+            AtomicLong requested = new AtomicLong();
+            AtomicLong emitting = new AtomicLong();
+            int[] next = new int[1];
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requested.addAndGet(n);
+                    if (emitting.getAndIncrement() != 0) {
+                        return; // The emitting call picks the demand up
+                    }
+                    long missed = 1;
+                    do {
+                        while (requested.get() > 0 && next[0] < count) {
+                            requested.decrementAndGet();
+                            subscriber.onNext(next[0]++);
+                        }
+                        if (next[0] == count) {
+                            next[0]++;
+                            subscriber.onComplete();
+                        }
+                        missed = emitting.addAndGet(-missed);
+                    } while (missed != 0);
+                }
+
+                @Override
+                public void cancel() {
+                    next[0] = count + 1;
+                }
+            });
+        }
+    }
+}
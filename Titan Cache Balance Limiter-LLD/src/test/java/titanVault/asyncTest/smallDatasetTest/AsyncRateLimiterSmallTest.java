@@ -0,0 +1,174 @@
+package titanVault.asyncTest.smallDatasetTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import titanVault.async.AsyncRateLimiter;
+import titanVault.async.TimerWheel;
+import titanVault.model.Decision;
+import titanVault.service.BlockingRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncRateLimiterSmallTest {
+
+    private final TimerWheel timerWheel = new TimerWheel();
+
+    @AfterEach
+    public void tearDown() {
+        timerWheel.close();
+    }
+
+    @Test
+    public void testAdmittedRequestIsDecidedOnExecutor() {
+        /* Positive Test Case: A request with permits available is admitted by a decision made on the executor. */
+        AtomicInteger submitted = new AtomicInteger();
+        Executor countingExecutor = task -> {
+            submitted.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+        AsyncRateLimiter limiter = new AsyncRateLimiter(
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 10, Clock.systemUTC()), timerWheel, countingExecutor);
+        assertTrue(limiter.acquire("user1", 5, Duration.ofSeconds(1)).join().isAllowed());
+        assertTrue(limiter.validateRequest("user1", 5).join().isAllowed());
+        assertEquals(2, submitted.get());
+    }
+
+    @Test
+    public void testCallerDoesNotWaitForHeldLimiter() throws InterruptedException {
+        /* Positive Test Case: acquire and validateRequest return while the limiter is held, deciding on another thread. */
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        AtomicReference<Thread> decidingThread = new AtomicReference<>();
+        BlockingRateLimiter heldLimiter = new BlockingRateLimiter() {
+            @Override
+            public long tryAcquire(String userId, long permits) {
+                decidingThread.set(Thread.currentThread());
+                try {
+                    lockHeld.await(); // Stands for a lock held by another request
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }
+
+            @Override
+            public boolean acquire(String userId, long permits, Duration timeout) {
+                return tryAcquire(userId, permits) == 0;
+            }
+
+            @Override
+            public boolean validateRequest(String userId) {
+                return tryAcquire(userId, 1) == 0;
+            }
+        };
+        ExecutorService limiterExecutor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncRateLimiter limiter = new AsyncRateLimiter(heldLimiter, timerWheel, limiterExecutor);
+            CompletableFuture<Decision> acquired = limiter.acquire("user1", 1, Duration.ofSeconds(1));
+            CompletableFuture<Decision> validated = limiter.validateRequest("user1", 1);
+            assertFalse(acquired.isDone(), "The caller does not wait for the limiter.");
+            assertFalse(validated.isDone());
+            lockHeld.countDown();
+            assertTrue(acquired.join().isAllowed());
+            assertTrue(validated.join().isAllowed());
+            assertNotSame(Thread.currentThread(), decidingThread.get());
+        } finally {
+            limiterExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedRequestFailsFuture() {
+        /* Negative Test Case: A request the executor rejects completes its future exceptionally. */
+        ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+        AsyncRateLimiter limiter = new AsyncRateLimiter(
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 10, Clock.systemUTC()), timerWheel, stopped);
+        CompletionException thrown = assertThrows(CompletionException.class, () -> limiter.acquire("user1", 1, Duration.ZERO).join());
+        assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+    }
+
+    @Test
+    public void testWaitingRequestCompletesAtRefill() throws Exception {
+        /* Positive Test Case: A request without permits completes once the bucket refills, without a blocked thread. */
+        AsyncRateLimiter limiter = new AsyncRateLimiter(
+                new TokenBucketServiceRateLimiter(1, Duration.ofMillis(50), 1, Clock.systemUTC()), timerWheel);
+        assertTrue(limiter.acquire("user1", 1, Duration.ZERO).join().isAllowed());
+        long start = System.nanoTime();
+        CompletableFuture<Decision> decision = limiter.acquire("user1", 1, Duration.ofSeconds(5));
+        assertFalse(decision.isDone(), "The caller is not held while the request waits.");
+        assertTrue(decision.get(5, TimeUnit.SECONDS).isAllowed());
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(waitedMillis >= 30, "Completed at the refill, after " + waitedMillis + " ms.");
+    }
+
+    @Test
+    public void testRequestDeniedWhenWaitExceedsTimeout() {
+        /* Negative Test Case: A request that cannot be admitted within its timeout is denied at once with a retry time. */
+        AsyncRateLimiter limiter = new AsyncRateLimiter(
+                new FixedWindowServiceRateLimiter(1, Duration.ofMinutes(1), Clock.systemUTC()), timerWheel);
+        assertTrue(limiter.validateRequest("user1", 1).join().isAllowed());
+        CompletableFuture<Decision> decision = limiter.acquire("user1", 1, Duration.ofMillis(10));
+        assertFalse(decision.join().isAllowed());
+        assertTrue(decision.join().getRetryAfter().toSeconds() >= 59, "The window resets in about a minute.");
+        assertThrows(IllegalArgumentException.class, () -> limiter.acquire("user1", 1, Duration.ofMillis(-1)));
+    }
+
+    @Test
+    public void testRateLimiterValidatesAsync() {
+        /* Positive Test Case: Every limiter answers the async call off the calling thread. */
+        FixedWindowServiceRateLimiter limiter = new FixedWindowServiceRateLimiter(2, Duration.ofMinutes(1), Clock.systemUTC());
+        assertTrue(limiter.validateRequestAsync("user1", 2).join().isAllowed());
+        assertFalse(limiter.validateRequestAsync("user1", 1).join().isAllowed());
+
+        AtomicReference<Thread> decidingThread = new AtomicReference<>();
+        RateLimiter recordingLimiter = userId -> {
+            decidingThread.set(Thread.currentThread());
+            return true;
+        };
+        assertTrue(recordingLimiter.validateRequestAsync("user1", 1).join().isAllowed());
+        assertNotSame(Thread.currentThread(), decidingThread.get());
+    }
+
+    @Test
+    public void testRateLimiterValidatesOnExecutor() throws InterruptedException {
+        /* Positive Test Case: With an executor the caller returns while the limiter is held, and the decision is made on the executor. */
+        CountDownLatch lockHeld = new CountDownLatch(1);
+        AtomicReference<Thread> decidingThread = new AtomicReference<>();
+        RateLimiter heldLimiter = userId -> {
+            decidingThread.set(Thread.currentThread());
+            try {
+                lockHeld.await(); // Stands for a lock held by another request
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        };
+        ExecutorService limiterExecutor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<Decision> decision = heldLimiter.validateRequestAsync("user1", 1, limiterExecutor);
+            assertFalse(decision.isDone(), "The caller does not wait for the limiter.");
+            lockHeld.countDown();
+            assertTrue(decision.join().isAllowed());
+            assertNotSame(Thread.currentThread(), decidingThread.get());
+        } finally {
+            limiterExecutor.shutdownNow();
+        }
+    }
+}
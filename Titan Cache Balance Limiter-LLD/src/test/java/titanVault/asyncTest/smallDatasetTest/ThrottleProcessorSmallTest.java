@@ -0,0 +1,172 @@
+package titanVault.asyncTest.smallDatasetTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import titanVault.async.ThrottleProcessor;
+import titanVault.async.TimerWheel;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottleProcessorSmallTest {
+
+    private final TimerWheel timerWheel = new TimerWheel();
+
+    @AfterEach
+    public void tearDown() {
+        timerWheel.close();
+    }
+
+    @Test
+    public void testThrottledKeyDoesNotHoldBackOthers() throws InterruptedException {
+        /* Positive Test Case: A throttled key waits for its refill while other keys pass, each key in order. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(2, Duration.ofMillis(100), 2, Clock.systemUTC());
+        ThrottleProcessor<String> processor = new ThrottleProcessor<>(limiter, item -> item.substring(0, 1), timerWheel, 16);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        try (SubmissionPublisher<String> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(processor);
+            for (String item : List.of("a1", "a2", "a3", "a4", "b1", "b2")) {
+                publisher.submit(item);
+            }
+        }
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS), "Completes once every held item is emitted.");
+        List<String> received = subscriber.items;
+        assertEquals(6, received.size());
+        assertTrue(received.indexOf("b2") < received.indexOf("a3"), "Key b is not held behind the throttled key a.");
+        assertTrue(received.indexOf("a3") < received.indexOf("a4"), "Items of a key keep their order.");
+    }
+
+    @Test
+    public void testEmitsOnlyAgainstDemand() throws InterruptedException {
+        /* Positive Test Case: Items are admitted only as the subscriber requests them, so no permit is spent ahead. */
+        FixedWindowServiceRateLimiter limiter = new FixedWindowServiceRateLimiter(100, Duration.ofMinutes(1), Clock.systemUTC());
+        ThrottleProcessor<String> processor = new ThrottleProcessor<>(limiter, item -> "user1", timerWheel, 4);
+        CollectingSubscriber subscriber = new CollectingSubscriber(2);
+        processor.subscribe(subscriber);
+        SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+        publisher.subscribe(processor);
+        for (int i = 0; i < 10; i++) {
+            publisher.submit("item" + i);
+        }
+        Thread.sleep(100);
+        assertEquals(2, subscriber.items.size(), "Only the requested items are emitted.");
+        assertEquals(98, limiter.inspect("user1").getRemaining(), "Held items have not taken permits.");
+        subscriber.subscription.request(8);
+        publisher.close();
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(10, subscriber.items.size());
+    }
+
+    @Test
+    public void testUpstreamErrorIsPassedOn() throws InterruptedException {
+        /* Negative Test Case: An upstream failure reaches the subscriber. */
+        FixedWindowServiceRateLimiter limiter = new FixedWindowServiceRateLimiter(100, Duration.ofMinutes(1), Clock.systemUTC());
+        ThrottleProcessor<String> processor = new ThrottleProcessor<>(limiter, item -> item, timerWheel, 4);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+        publisher.subscribe(processor);
+        publisher.closeExceptionally(new IllegalStateException("source failed"));
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, subscriber.error);
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleProcessor<String>(limiter, item -> item, timerWheel, 0));
+    }
+
+    @Test
+    public void testWokenKeyIsDrainedOnExecutor() throws InterruptedException {
+        /* Positive Test Case: An item held for its refill is emitted on the executor, not on the timer wheel thread. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(1, Duration.ofMillis(50), 1, Clock.systemUTC());
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "throttle-drain"));
+        try {
+            ThrottleProcessor<String> processor = new ThrottleProcessor<>(limiter, item -> "user1", timerWheel, 4, executor);
+            List<String> threads = new CopyOnWriteArrayList<>();
+            CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE) {
+                @Override
+                public void onNext(String item) {
+                    threads.add(Thread.currentThread().getName());
+                    super.onNext(item);
+                }
+            };
+            processor.subscribe(subscriber);
+            try (SubmissionPublisher<String> publisher = new SubmissionPublisher<>()) {
+                publisher.subscribe(processor);
+                publisher.submit("item1");
+                publisher.submit("item2");
+            }
+            assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("item1", "item2"), subscriber.items);
+            assertEquals("throttle-drain", threads.get(1), "The woken item is emitted on the executor.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedWakeEndsStream() throws InterruptedException {
+        /* Negative Test Case: An executor refusing a woken key ends the stream with the refusal rather than hanging. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(1, Duration.ofMillis(50), 1, Clock.systemUTC());
+        Executor rejecting = command -> {
+            throw new RejectedExecutionException("executor shut down");
+        };
+        ThrottleProcessor<String> processor = new ThrottleProcessor<>(limiter, item -> "user1", timerWheel, 4, rejecting);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        processor.subscribe(subscriber);
+        SubmissionPublisher<String> publisher = new SubmissionPublisher<>();
+        publisher.subscribe(processor);
+        publisher.submit("item1");
+        publisher.submit("item2");
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS), "The subscriber is told instead of waiting forever.");
+        assertInstanceOf(RejectedExecutionException.class, subscriber.error);
+        assertEquals(List.of("item1"), subscriber.items);
+        publisher.close();
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<String> {
+        private final long initialDemand;
+        private final List<String> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+
+        private CollectingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialDemand);
+        }
+
+        @Override
+        public void onNext(String item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package titanVault.asyncTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.async.TimerWheel;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelSmallTest {
+
+    @Test
+    public void testTasksRunInDeadlineOrder() throws InterruptedException {
+        /* Positive Test Case: Tasks run after their delay, earliest deadline first. */
+        try (TimerWheel wheel = new TimerWheel(Duration.ofMillis(1), 64)) {
+            Queue<Integer> order = new ConcurrentLinkedQueue<>();
+            CountDownLatch done = new CountDownLatch(3);
+            long start = System.nanoTime();
+            wheel.schedule(() -> { order.add(30); done.countDown(); }, 30, TimeUnit.MILLISECONDS);
+            wheel.schedule(() -> { order.add(10); done.countDown(); }, 10, TimeUnit.MILLISECONDS);
+            wheel.schedule(() -> { order.add(20); done.countDown(); }, 20, TimeUnit.MILLISECONDS);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30), "The last task waited its delay.");
+            assertEquals(List.of(10, 20, 30), new ArrayList<>(order));
+        }
+    }
+
+    @Test
+    public void testDelaysLongerThanOneTurn() throws InterruptedException {
+        /* Positive Test Case: A deadline several turns away is kept in its slot until its turn comes. */
+        try (TimerWheel wheel = new TimerWheel(Duration.ofMillis(1), 8)) {
+            CountDownLatch done = new CountDownLatch(1);
+            long start = System.nanoTime();
+            wheel.schedule(done::countDown, 50, TimeUnit.MILLISECONDS);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), "Not run on an earlier turn of the wheel.");
+        }
+    }
+
+    @Test
+    public void testCloseRunsPendingTasks() {
+        /* Positive Test Case: Closing runs the pending tasks at once and refuses new ones. */
+        TimerWheel wheel = new TimerWheel();
+        AtomicInteger ran = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(ran::incrementAndGet, 1, TimeUnit.HOURS);
+        }
+        wheel.close();
+        assertEquals(100, ran.get());
+        assertTrue(wheel.isClosed());
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(ran::incrementAndGet, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        /* Negative Test Case: A tick or size that is not positive is rejected. */
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(Duration.ZERO, 64));
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(Duration.ofMillis(1), 0));
+    }
+}
@@ -0,0 +1,99 @@
+package titanVault.clientTest.largeDatasetTest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+import titanVault.client.RateLimitingInterceptor;
+import titanVault.client.RequestKeyResolver;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingInterceptorLargeTest {
+
+    private static final int JOB_THREADS = 8;
+    private static final long RUN_MILLIS = 2_000;
+    private static final int PARTNER_LIMIT_PER_SECOND = 500;
+
+    @Test
+    public void testBatchJobStaysUnderPartnerLimit() throws Exception {
+        /* Positive Test Case: A batch job limited to 400/s client-side stops tripping a partner's 500/s limit. */
+        Clock clock = Clock.systemUTC();
+        HttpServer partner = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+        FixedWindowServiceRateLimiter partnerLimit = new FixedWindowServiceRateLimiter(PARTNER_LIMIT_PER_SECOND, Duration.ofSeconds(1), clock);
+        partner.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            boolean allowed = partnerLimit.validateRequest("batch-job");
+            if (!allowed) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+            }
+            exchange.sendResponseHeaders(allowed ? 200 : 429, -1);
+            exchange.close();
+        });
+        partner.start();
+        String url = "http://127.0.0.1:" + partner.getAddress().getPort() + "/export";
+        try {
+            long[] unthrottled = runJob(HttpClients.custom(), url);
+            Thread.sleep(1_100); // Let the partner's window reset
+
+            RateLimitingInterceptor interceptor = new RateLimitingInterceptor(
+                    new TokenBucketServiceRateLimiter(20, Duration.ofMillis(50), 20, clock), RequestKeyResolver.byHost(),
+                    RateLimitingInterceptor.Mode.BLOCKING, Duration.ofSeconds(5), Duration.ofMillis(2),
+                    Duration.ofMillis(100), Duration.ofSeconds(2), 5, 1_000, clock);
+            long[] limited = runJob(interceptor.install(HttpClients.custom()), url);
+
+            assertTrue(unthrottled[1] > 0, "Without client-side limiting the job should trip the partner limit.");
+            assertEquals(0, limited[1], "The interceptor should keep the job under the partner limit.");
+            long expectedCeiling = 20 + 400 * (RUN_MILLIS / 1_000) + 20;
+            assertTrue(limited[0] <= expectedCeiling, "Requests sent should not exceed the client-side budget: " + limited[0]);
+        } finally {
+            partner.stop(0);
+        }
+    }
+
+    /**
+     * Run the job on every thread for the run time.
+     *
+     * @return Successful and throttled response counts.
+     */
+    private long[] runJob(HttpClientBuilder builder, String url) throws Exception {
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong throttled = new AtomicLong();
+        try (CloseableHttpClient client = builder.setMaxConnPerRoute(JOB_THREADS).setMaxConnTotal(JOB_THREADS).build()) {
+            long end = System.currentTimeMillis() + RUN_MILLIS;
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < JOB_THREADS; t++) {
+                threads.add(new Thread(() -> {
+                    while (System.currentTimeMillis() < end) {
+                        try {
+                            HttpResponse response = client.execute(new HttpGet(url));
+                            EntityUtils.consume(response.getEntity());
+                            (response.getStatusLine().getStatusCode() == 429 ? throttled : succeeded).incrementAndGet();
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        return new long[]{succeeded.get(), throttled.get()};
+    }
+}
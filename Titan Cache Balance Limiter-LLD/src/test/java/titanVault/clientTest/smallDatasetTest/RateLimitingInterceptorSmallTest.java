@@ -0,0 +1,276 @@
+package titanVault.clientTest.smallDatasetTest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import titanVault.client.RateLimitedRequestException;
+import titanVault.client.RateLimitingInterceptor;
+import titanVault.client.RequestKeyResolver;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingInterceptorSmallTest {
+
+    private HttpServer stubServer;
+    private final AtomicInteger hits = new AtomicInteger(); // Requests that reached the stub
+    private volatile int nextStatus = 200; // Status the stub answers with
+    private volatile String nextRetryAfter; // Retry-After the stub sends with a 429, if any
+    private String stubHost;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 16);
+        stubServer.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            if (nextRetryAfter != null) {
+                exchange.getResponseHeaders().set("Retry-After", nextRetryAfter);
+            }
+            exchange.sendResponseHeaders(nextStatus, 2);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write("ok".getBytes());
+            }
+        });
+        stubServer.start();
+        stubHost = "127.0.0.1:" + stubServer.getAddress().getPort();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stubServer.stop(0);
+    }
+
+    @Test
+    public void testFailFastStopsRequestsBeforeTheWire() throws IOException {
+        /* Positive Test Case: Requests beyond the local limit fail at once and never reach the server. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        RateLimitingInterceptor interceptor = interceptor(new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 2, clock),
+                RateLimitingInterceptor.Mode.FAIL_FAST, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            assertEquals(200, get(client, "/a"));
+            assertEquals(200, get(client, "/b"));
+            RateLimitedRequestException thrown = assertThrows(RateLimitedRequestException.class, () -> get(client, "/c"));
+            assertEquals(stubHost, thrown.getKey(), "Requests are keyed by host and port.");
+            assertEquals(2, hits.get());
+        }
+    }
+
+    @Test
+    public void testBlockingModeWaitsForTokens() throws IOException {
+        /* Positive Test Case: In blocking mode, requests over the limit wait for refills instead of failing. */
+        Clock clock = Clock.systemUTC();
+        RateLimitingInterceptor interceptor = interceptor(new TokenBucketServiceRateLimiter(1, Duration.ofMillis(50), 1, clock),
+                RateLimitingInterceptor.Mode.BLOCKING, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 4; i++) {
+                assertEquals(200, get(client, "/"));
+            }
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(140).toNanos(), "Three refills of 50 ms should be waited for.");
+        }
+    }
+
+    @Test
+    public void testBlockingModeTimesOut() throws IOException {
+        /* Negative Test Case: A blocked request gives up once the acquire timeout passes. */
+        Clock clock = Clock.systemUTC();
+        RateLimiter neverAllows = userId -> false;
+        RateLimitingInterceptor interceptor = interceptor(neverAllows, RateLimitingInterceptor.Mode.BLOCKING, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            assertThrows(RateLimitedRequestException.class, () -> get(client, "/"));
+            assertEquals(0, hits.get());
+        }
+    }
+
+    @Test
+    public void testRetryAfterBacksOffTheHost() throws IOException {
+        /* Positive Test Case: A 429 with Retry-After holds further requests to the host until it passes. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        RateLimitingInterceptor interceptor = interceptor(userId -> true, RateLimitingInterceptor.Mode.FAIL_FAST, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            nextStatus = 429;
+            nextRetryAfter = "1";
+            assertEquals(429, get(client, "/"));
+            assertEquals(Duration.ofSeconds(1), interceptor.getBackoff(stubHost));
+            RateLimitedRequestException thrown = assertThrows(RateLimitedRequestException.class, () -> get(client, "/"));
+            assertEquals(Duration.ofSeconds(1), thrown.getRetryAfter());
+
+            nextStatus = 200;
+            nextRetryAfter = null;
+            clock.advance(Duration.ofSeconds(1));
+            assertEquals(200, get(client, "/"));
+            assertEquals(2, hits.get());
+
+            nextStatus = 429;
+            nextRetryAfter = "3600";
+            assertEquals(429, get(client, "/"));
+            assertEquals(Duration.ofSeconds(1), interceptor.getBackoff(stubHost), "Retry-After is capped at the maximum back-off.");
+        }
+    }
+
+    @Test
+    public void testBackoffDoublesWithoutRetryAfter() throws IOException {
+        /* Positive Test Case: Repeated 429s without Retry-After double the back-off up to the cap. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        RateLimitingInterceptor interceptor = interceptor(userId -> true, RateLimitingInterceptor.Mode.FAIL_FAST, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            nextStatus = 429;
+            long[] expectedMillis = {100, 200, 400, 800, 1_000};
+            for (long expected : expectedMillis) {
+                assertEquals(429, get(client, "/"));
+                assertEquals(Duration.ofMillis(expected), interceptor.getBackoff(stubHost));
+                clock.advance(Duration.ofMillis(expected));
+            }
+            nextStatus = 200;
+            assertEquals(200, get(client, "/"));
+            nextStatus = 429;
+            assertEquals(429, get(client, "/"));
+            assertEquals(Duration.ofMillis(100), interceptor.getBackoff(stubHost), "A success resets the back-off.");
+        }
+    }
+
+    @Test
+    public void testServerErrorsOpenTheCircuit() throws IOException {
+        /* Positive Test Case: Repeated 5xx open the host's circuit; a successful trial after the reset closes it. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        RateLimitingInterceptor interceptor = interceptor(userId -> true, RateLimitingInterceptor.Mode.FAIL_FAST, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            nextStatus = 503;
+            for (int i = 0; i < 3; i++) {
+                assertEquals(503, get(client, "/"));
+            }
+            assertTrue(interceptor.isCircuitOpen(stubHost));
+            assertThrows(RateLimitedRequestException.class, () -> get(client, "/"));
+            assertEquals(3, hits.get());
+
+            clock.advance(Duration.ofSeconds(2));
+            nextStatus = 200;
+            assertEquals(200, get(client, "/"), "One trial request is let through after the reset timeout.");
+            assertFalse(interceptor.isCircuitOpen(stubHost));
+        }
+    }
+
+    @Test
+    public void testTrialIsReleasedWhenTheLocalLimiterThrows() throws IOException {
+        /* Negative Test Case: A half-open trial that fails before the wire does not keep the circuit shut for another reset timeout. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        AtomicInteger failLimiter = new AtomicInteger();
+        RateLimiter flakyLimiter = userId -> {
+            if (failLimiter.getAndSet(0) != 0) {
+                throw new IllegalStateException("Limiter store unavailable");
+            }
+            return true;
+        };
+        RateLimitingInterceptor interceptor = interceptor(flakyLimiter, RateLimitingInterceptor.Mode.FAIL_FAST, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            nextStatus = 503;
+            for (int i = 0; i < 3; i++) {
+                get(client, "/");
+            }
+            clock.advance(Duration.ofSeconds(2));
+            failLimiter.set(1);
+            assertThrows(IllegalStateException.class, () -> get(client, "/"));
+
+            nextStatus = 200;
+            assertEquals(200, get(client, "/"), "The unsent trial is given back to the next request.");
+            assertFalse(interceptor.isCircuitOpen(stubHost));
+        }
+    }
+
+    @Test
+    public void testTrackedKeysAreBounded() throws IOException {
+        /* Positive Test Case: Idle keys are dropped once the bound is reached, while a key in back-off is kept. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        RateLimitingInterceptor interceptor = new RateLimitingInterceptor(userId -> true, RequestKeyResolver.byRoute(),
+                RateLimitingInterceptor.Mode.FAIL_FAST, Duration.ZERO, Duration.ofMillis(5),
+                Duration.ofMillis(100), Duration.ofMinutes(1), 3, 1_000, clock, 2);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            nextStatus = 429;
+            nextRetryAfter = "60";
+            assertEquals(429, get(client, "/throttled"));
+            nextStatus = 200;
+            nextRetryAfter = null;
+            for (int i = 0; i < 20; i++) {
+                assertEquals(200, get(client, "/route" + i));
+                clock.advance(Duration.ofSeconds(2));
+                assertTrue(interceptor.getTrackedKeys() <= 2);
+            }
+            assertEquals(20, hits.get() - 1);
+            assertThrows(RateLimitedRequestException.class, () -> get(client, "/throttled"),
+                    "The key in back-off was not dropped.");
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitingInterceptor(userId -> true,
+                RequestKeyResolver.byRoute(), RateLimitingInterceptor.Mode.FAIL_FAST, Duration.ZERO, Duration.ofMillis(5),
+                Duration.ofMillis(100), Duration.ofMinutes(1), 3, 1_000, clock, 0));
+    }
+
+    @Test
+    public void testRouteKeysAreIndependent() throws IOException {
+        /* Negative Test Case: Exhausting one route's budget does not block another route on the same host. */
+        MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+        RateLimitingInterceptor interceptor = new RateLimitingInterceptor(
+                new TokenBucketServiceRateLimiter(1, Duration.ofMinutes(1), 1, clock), RequestKeyResolver.byRoute(),
+                RateLimitingInterceptor.Mode.FAIL_FAST, Duration.ZERO, Duration.ofMillis(5),
+                Duration.ofMillis(100), Duration.ofSeconds(1), 3, 1_000, clock);
+        try (CloseableHttpClient client = interceptor.install(HttpClients.custom()).build()) {
+            assertEquals(200, get(client, "/orders?page=1"));
+            assertThrows(RateLimitedRequestException.class, () -> get(client, "/orders?page=2"));
+            assertEquals(200, get(client, "/payments"));
+        }
+    }
+
+    private RateLimitingInterceptor interceptor(RateLimiter limiter, RateLimitingInterceptor.Mode mode, Clock clock) {
+        return new RateLimitingInterceptor(limiter, RequestKeyResolver.byHost(), mode,
+                Duration.ofMillis(200), Duration.ofMillis(5), Duration.ofMillis(100), Duration.ofSeconds(1), 3, 1_000, clock);
+    }
+
+    private int get(CloseableHttpClient client, String path) throws IOException {
+        HttpResponse response = client.execute(new HttpGet("http://" + stubHost + path));
+        EntityUtils.consume(response.getEntity());
+        return response.getStatusLine().getStatusCode();
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        private MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package titanVault.configTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.config.PolicyFileWatcher;
+import titanVault.controller.RateLimiterRegistryController;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicyFileWatcherLargeTest {
+
+    private static final int KEY_COUNT = 200_000;
+    private static final int RELOADS = 20;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path policyDirectory;
+
+    @Test
+    public void testReloadsUnderTraffic() throws Exception {
+        /* Positive Test Case: Policies with 200,000 tracked users are migrated and swapped while traffic keeps flowing. */
+        Path file = policyDirectory.resolve("limits.properties");
+        Files.writeString(file, policy(1_000));
+        RateLimiterRegistryController registry = new RateLimiterRegistryController();
+        try (PolicyFileWatcher watcher = PolicyFileWatcher.start(file, registry, fixedClock)) {
+            for (int user = 0; user < KEY_COUNT; user++) {
+                registry.handleRequest("search", "user" + user);
+            }
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicLong served = new AtomicLong();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread traffic = new Thread(() -> {
+                int user = 0;
+                try {
+                    while (running.get()) {
+                        registry.handleRequest("search", "user" + (user++ % KEY_COUNT));
+                        served.incrementAndGet();
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            traffic.start();
+
+            long start = System.nanoTime();
+            for (int reload = 1; reload <= RELOADS; reload++) {
+                Files.writeString(file, policy(1_000 + reload * 100));
+                assertTrue(watcher.reload(), watcher.getLastError());
+            }
+            long reloadMillis = (System.nanoTime() - start) / 1_000_000 / RELOADS;
+            running.set(false);
+            traffic.join();
+
+            assertNull(failure.get(), "Requests must never see a missing service during reloads.");
+            assertEquals(1_000 + RELOADS * 100, watcher.getPolicies().get("search").getCapacity());
+            assertTrue(served.get() > 0);
+            assertTrue(reloadMillis < 5_000, "Migrating " + KEY_COUNT + " users takes " + reloadMillis + " ms per reload.");
+        }
+    }
+
+    private static String policy(long capacity) {
+        return "search.algorithm=token-bucket\nsearch.capacity=" + capacity + "\nsearch.period=PT1M\nsearch.refill=10\n";
+    }
+}
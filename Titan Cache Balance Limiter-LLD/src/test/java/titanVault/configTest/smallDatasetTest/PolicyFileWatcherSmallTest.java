@@ -0,0 +1,187 @@
+package titanVault.configTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.config.PolicyFileWatcher;
+import titanVault.config.RateLimitPolicy;
+import titanVault.config.RateLimitPolicyFile;
+import titanVault.controller.RateLimiterRegistryController;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicyFileWatcherSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path policyDirectory;
+
+    @Test
+    public void testParsesBothAlgorithms() throws IOException {
+        /* Positive Test Case: Token bucket and fixed window policies are read from one file. */
+        Path file = write("search.algorithm=token-bucket\nsearch.capacity=100\nsearch.period=PT1M\nsearch.refill=10\n"
+                + "api.upload.algorithm=fixed-window\napi.upload.capacity=1_000\napi.upload.period=PT1H\n");
+        Map<String, RateLimitPolicy> policies = RateLimitPolicyFile.load(file);
+        assertEquals(new RateLimitPolicy("search", RateLimitPolicy.Algorithm.TOKEN_BUCKET, 100, Duration.ofMinutes(1), 10), policies.get("search"));
+        assertEquals(1_000, policies.get("api.upload").getCapacity(), "Service names may contain dots.");
+        assertEquals(RateLimitPolicy.Algorithm.FIXED_WINDOW, policies.get("api.upload").getAlgorithm());
+    }
+
+    @Test
+    public void testRejectsInvalidFiles() throws IOException {
+        /* Negative Test Case: Missing settings, bad values and unknown keys are reported with the service name. */
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyFile.load(write("search.algorithm=token-bucket\nsearch.capacity=1\n")));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyFile.load(write("search.algorithm=leaky\nsearch.capacity=1\nsearch.period=PT1S\n")));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyFile.load(write("search.algorithm=fixed-window\nsearch.capacity=1\nsearch.period=1 minute\n")));
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                () -> RateLimitPolicyFile.load(write("search.algorithm=fixed-window\nsearch.capacity=-5\nsearch.period=PT1S\n")));
+        assertTrue(thrown.getMessage().startsWith("search:"));
+        assertThrows(IllegalArgumentException.class, () -> RateLimitPolicyFile.load(write("search.burst=5\n")));
+    }
+
+    @Test
+    public void testPolicyBuildsAndReconfiguresItsLimiter() {
+        /* Positive Test Case: A policy reconfigures a limiter of its own algorithm and replaces one of another. */
+        RateLimitPolicy tokens = new RateLimitPolicy("search", RateLimitPolicy.Algorithm.TOKEN_BUCKET, 2, Duration.ofMinutes(1), 1);
+        RateLimiter limiter = assertInstanceOf(TokenBucketServiceRateLimiter.class, tokens.newLimiter(fixedClock, null));
+        assertTrue(limiter.validateRequest("user1"));
+        assertTrue(limiter.validateRequest("user1"));
+
+        RateLimitPolicy raised = new RateLimitPolicy("search", RateLimitPolicy.Algorithm.TOKEN_BUCKET, 4, Duration.ofMinutes(1), 1);
+        RateLimiter reconfigured = raised.newLimiter(fixedClock, limiter);
+        assertEquals(4, assertInstanceOf(TokenBucketServiceRateLimiter.class, reconfigured).getMaxCapacity());
+        assertFalse(reconfigured.validateRequest("user1"), "The spent bucket carries over.");
+
+        RateLimitPolicy window = new RateLimitPolicy("search", RateLimitPolicy.Algorithm.FIXED_WINDOW, 1, Duration.ofMinutes(1), 0);
+        RateLimiter replaced = assertInstanceOf(FixedWindowServiceRateLimiter.class, window.newLimiter(fixedClock, reconfigured));
+        assertTrue(replaced.validateRequest("user1"), "A new algorithm starts from fresh windows.");
+    }
+
+    @Test
+    public void testReloadMigratesBucketState() throws IOException {
+        /* Positive Test Case: Raising a limit keeps each user's used share instead of handing out fresh buckets. */
+        Path file = write("search.algorithm=token-bucket\nsearch.capacity=10\nsearch.period=PT1M\nsearch.refill=1\n");
+        RateLimiterRegistryController registry = new RateLimiterRegistryController();
+        try (PolicyFileWatcher watcher = PolicyFileWatcher.start(file, registry, fixedClock)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(registry.handleRequest("search", "user1"));
+            }
+            assertFalse(registry.handleRequest("search", "user1"));
+
+            write("search.algorithm=token-bucket\nsearch.capacity=20\nsearch.period=PT1M\nsearch.refill=2\n");
+            assertTrue(watcher.reload());
+            assertEquals(20, watcher.getPolicies().get("search").getCapacity());
+            assertFalse(registry.handleRequest("search", "user1"), "An empty bucket stays empty at the new capacity.");
+            for (int i = 0; i < 20; i++) {
+                assertTrue(registry.handleRequest("search", "user2"), "New users get the new capacity.");
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidEditKeepsCurrentPolicies() throws IOException {
+        /* Negative Test Case: A broken edit is rejected and the last good policies keep serving. */
+        Path file = write("upload.algorithm=fixed-window\nupload.capacity=2\nupload.period=PT1M\n");
+        RateLimiterRegistryController registry = new RateLimiterRegistryController();
+        try (PolicyFileWatcher watcher = PolicyFileWatcher.start(file, registry, fixedClock)) {
+            write("upload.algorithm=fixed-window\nupload.capacity=lots\nupload.period=PT1M\n");
+            assertFalse(watcher.reload());
+            assertNotNull(watcher.getLastError());
+            assertTrue(registry.handleRequest("upload", "user1"));
+            assertTrue(registry.handleRequest("upload", "user1"));
+            assertFalse(registry.handleRequest("upload", "user1"), "The previous limit of 2 still applies.");
+        }
+    }
+
+    @Test
+    public void testRemovedServiceIsUnregistered() throws IOException {
+        /* Positive Test Case: Services dropped from the file are removed; services added are registered. */
+        Path file = write("a.algorithm=fixed-window\na.capacity=1\na.period=PT1M\n");
+        RateLimiterRegistryController registry = new RateLimiterRegistryController();
+        try (PolicyFileWatcher watcher = PolicyFileWatcher.start(file, registry, fixedClock)) {
+            write("b.algorithm=fixed-window\nb.capacity=1\nb.period=PT1M\n");
+            assertTrue(watcher.reload());
+            assertThrows(IllegalArgumentException.class, () -> registry.handleRequest("a", "user1"));
+            assertTrue(registry.handleRequest("b", "user1"));
+        }
+    }
+
+    @Test
+    public void testWatchServicePicksUpChanges() throws Exception {
+        /* Positive Test Case: Saving the file is enough; the watcher reloads it without being asked. */
+        Path file = write("search.algorithm=fixed-window\nsearch.capacity=1\nsearch.period=PT1M\n");
+        RateLimiterRegistryController registry = new RateLimiterRegistryController();
+        try (PolicyFileWatcher watcher = PolicyFileWatcher.start(file, registry, fixedClock)) {
+            Path staged = policyDirectory.resolve("staged.tmp");
+            Files.writeString(staged, "search.algorithm=fixed-window\nsearch.capacity=5\nsearch.period=PT1M\n");
+            Files.move(staged, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long deadline = System.currentTimeMillis() + 15_000; // Polling watch services can be slow
+            while (watcher.getPolicies().get("search").getCapacity() != 5 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(5, watcher.getPolicies().get("search").getCapacity());
+            assertEquals(2, watcher.getReloadCount());
+        }
+    }
+
+    @Test
+    public void testFailingReloadKeepsWatching() throws Exception {
+        /* Negative Test Case: A reload failing with an unexpected exception is recorded and the watcher goes on to the next change. */
+        Path file = write("search.algorithm=fixed-window\nsearch.capacity=1\nsearch.period=PT1M\n");
+        AtomicBoolean failNextUpdate = new AtomicBoolean();
+        RateLimiterRegistryController registry = new RateLimiterRegistryController() {
+            @Override
+            public void updateServices(Map<String, ? extends RateLimiter> registrations, Collection<String> removals) {
+                if (failNextUpdate.getAndSet(false)) {
+                    throw new IllegalStateException("registry unavailable");
+                }
+                super.updateServices(registrations, removals);
+            }
+        };
+        try (PolicyFileWatcher watcher = PolicyFileWatcher.start(file, registry, fixedClock)) {
+            failNextUpdate.set(true);
+            save(file, "search.algorithm=fixed-window\nsearch.capacity=5\nsearch.period=PT1M\n");
+            long deadline = System.currentTimeMillis() + 15_000; // Polling watch services can be slow
+            while (watcher.getLastError() == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals("registry unavailable", watcher.getLastError());
+            assertEquals(1, watcher.getPolicies().get("search").getCapacity(), "The failed reload changed nothing.");
+
+            save(file, "search.algorithm=fixed-window\nsearch.capacity=7\nsearch.period=PT1M\n");
+            deadline = System.currentTimeMillis() + 15_000;
+            while (watcher.getPolicies().get("search").getCapacity() != 7 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(7, watcher.getPolicies().get("search").getCapacity(), "The watcher is still running.");
+            assertNull(watcher.getLastError());
+        }
+    }
+
+    private void save(Path file, String content) throws IOException {
+        Path staged = policyDirectory.resolve("staged.tmp");
+        Files.writeString(staged, content);
+        Files.move(staged, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = policyDirectory.resolve("limits.properties");
+        Files.writeString(file, content);
+        return file;
+    }
+}
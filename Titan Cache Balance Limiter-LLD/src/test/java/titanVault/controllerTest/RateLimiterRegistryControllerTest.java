@@ -0,0 +1,214 @@
+package titanVault.controllerTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import titanVault.controller.RateLimiterRegistryController;
+import titanVault.distributed.InProcessTokenLeaseCoordinator;
+import titanVault.metrics.HeavyHitterTracker;
+import titanVault.model.EMABucket;
+import titanVault.service.AdaptiveBucketServiceRateLimiter;
+import titanVault.service.CircuitBreakerRateLimiter;
+import titanVault.service.EMABucketServiceRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.LeakyBucketRateLimiter;
+import titanVault.service.LeasedTokenBucketServiceRateLimiter;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+import titanVault.service.SlidingWindowCounterRateLimiter;
+import titanVault.service.SlidingWindowLogRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimiterRegistryControllerTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+    private RateLimiterRegistryController registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new RateLimiterRegistryController();
+        registry.registerService("search", new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 1, fixedClock));
+        registry.registerService("upload", new FixedWindowServiceRateLimiter(3, Duration.ofMinutes(1), fixedClock));
+    }
+
+    /* Positive test case for dispatching to policies of different algorithms */
+    @Test
+    void testDispatchesByService() {
+        assertTrue(registry.handleRequest("search", "user1", 10), "Ten permits fit the token bucket.");
+        assertFalse(registry.handleRequest("search", "user1", 1));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(registry.handleRequest("upload", "user1"));
+        }
+        assertFalse(registry.handleRequest("upload", "user1"), "The fixed window allows 3 requests.");
+    }
+
+    /* Positive test case for multi-permit requests being taken all or none */
+    @Test
+    void testPermitsAreAllOrNothing() {
+        assertTrue(registry.handleRequest("upload", "user1", 2));
+        assertFalse(registry.handleRequest("upload", "user1", 2), "Two permits do not fit in the one left.");
+        assertTrue(registry.handleRequest("upload", "user1", 1), "The failed request took nothing.");
+    }
+
+    /* Positive test case for every bucket policy taking several permits at once, all or none */
+    @Test
+    void testEveryBucketPolicyTakesSeveralPermits() {
+        registry.registerService("log", new SlidingWindowLogRateLimiter(5, Duration.ofMinutes(1), fixedClock));
+        registry.registerService("counter", new SlidingWindowCounterRateLimiter(5, Duration.ofMinutes(1), fixedClock));
+        registry.registerService("adaptive", new AdaptiveBucketServiceRateLimiter(5));
+        registry.registerService("leaky", new LeakyBucketRateLimiter(5, 1, Duration.ofMinutes(1), fixedClock) {
+        });
+        for (String service : new String[]{"log", "counter", "adaptive", "leaky"}) {
+            assertTrue(registry.handleRequest(service, "user1", 3), service + " has room for three permits.");
+            assertFalse(registry.handleRequest(service, "user1", 3), service + " has only two permits left.");
+            assertTrue(registry.handleRequest(service, "user1", 2), service + " took nothing for the denied request.");
+            assertFalse(registry.handleRequest(service, "user1", 1), service + " is full.");
+        }
+    }
+
+    /* Positive test case for the circuit breaker and leased policies taking several permits instead of failing */
+    @Test
+    void testCircuitBreakerAndLeasedPoliciesTakeSeveralPermits() {
+        registry.registerService("breaker", new CircuitBreakerRateLimiter(1, 5, 3, 10_000));
+        assertFalse(registry.handleRequest("breaker", "user1", 6), "Six permits exceed the burst capacity.");
+        assertTrue(registry.handleRequest("breaker", "user1", 5));
+
+        InProcessTokenLeaseCoordinator coordinator = new InProcessTokenLeaseCoordinator(10, Duration.ofMinutes(1), 1, Duration.ofMinutes(1), fixedClock);
+        registry.registerService("leased", new LeasedTokenBucketServiceRateLimiter(coordinator, 1, 4, Duration.ofMinutes(1), fixedClock));
+        assertTrue(registry.handleRequest("leased", "user1", 6), "The lease is topped up beyond its batch size.");
+        assertFalse(registry.handleRequest("leased", "user1", 5), "Only four tokens are left in the global bucket.");
+        assertTrue(registry.handleRequest("leased", "user1", 4), "The denied request kept the tokens it borrowed.");
+        assertFalse(registry.handleRequest("leased", "user1", 1));
+    }
+
+    /* Positive test case for the EMA policy counting the permits as requests arriving at once */
+    @Test
+    void testEmaPolicyTakesSeveralPermits() {
+        registry.registerService("ema", new EMABucketServiceRateLimiter(10, Duration.ofSeconds(10), fixedClock));
+        assertTrue(registry.handleRequest("ema", "user1", 4));
+        EMABucket single = new EMABucket(10, Duration.ofSeconds(10), fixedClock);
+        EMABucket weighted = new EMABucket(10, Duration.ofSeconds(10), fixedClock);
+        for (int i = 0; i < 4; i++) {
+            single.allowRequest();
+        }
+        weighted.allowRequests(4);
+        assertEquals(single.getExponentialMovingAverage(), weighted.getExponentialMovingAverage(), 1e-9,
+                "Four permits move the average like four requests at the same instant.");
+    }
+
+    /* Positive test case for a key override taking precedence over the service default */
+    @Test
+    void testKeyPolicyOverridesDefault() {
+        registry.registerKeyPolicy("upload", "premium", new FixedWindowServiceRateLimiter(100, Duration.ofMinutes(1), fixedClock));
+        for (int i = 0; i < 50; i++) {
+            assertTrue(registry.handleRequest("upload", "premium"));
+        }
+        registry.registerService("upload", new FixedWindowServiceRateLimiter(1, Duration.ofMinutes(1), fixedClock));
+        assertTrue(registry.handleRequest("upload", "premium"), "Replacing the default keeps key overrides.");
+        assertTrue(registry.handleRequest("upload", "user1"));
+        assertFalse(registry.handleRequest("upload", "user1"));
+    }
+
+    /* Positive test case for the quota service receiving the permits as its request amount */
+    @Test
+    void testQuotaPolicyReceivesPermits() {
+        QuotasTokenBucketRateServiceLimiter quotas = new QuotasTokenBucketRateServiceLimiter(
+                100, Duration.ofMinutes(1), 10, fixedClock, 50, Duration.ofHours(1));
+        registry.registerService("export", quotas);
+        assertTrue(registry.handleRequest("export", "user1", 40));
+        assertEquals(10, quotas.getRemainingQuota("user1"));
+    }
+
+    /* Positive test case for swapping the whole policy set while requests are served */
+    @Test
+    void testReplaceAllIsAtomicUnderLoad() throws InterruptedException {
+        TokenBucketServiceRateLimiter unlimited = new TokenBucketServiceRateLimiter(Long.MAX_VALUE, Duration.ofMinutes(1), 1, fixedClock);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        registry.replaceAll(Map.of("a", unlimited, "b", unlimited));
+        Thread traffic = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    registry.handleRequest("a", "user1");
+                    registry.handleRequest("b", "user1");
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        traffic.start();
+        for (int swap = 0; swap < 10_000; swap++) {
+            registry.replaceAll(Map.of("a", unlimited, "b", unlimited, "c" + (swap % 7), unlimited));
+        }
+        running.set(false);
+        traffic.join();
+        assertNull(failure.get(), "Services present in every table must never be missing mid-swap.");
+    }
+
+    /* Negative test case for unknown services, bad arguments and algorithms without weighted requests */
+    @Test
+    void testRejectsInvalidRequests() {
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> registry.handleRequest("missing", "user1"));
+        assertEquals("Service not found: missing", thrown.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> registry.handleRequest("search", ""));
+        assertThrows(IllegalArgumentException.class, () -> registry.handleRequest("search", "user1", 0));
+        assertThrows(IllegalArgumentException.class, () -> registry.registerKeyPolicy("missing", "user1", userId -> true));
+
+        registry.registerService("single", userId -> true);
+        assertTrue(registry.handleRequest("single", "user1", 1));
+        assertThrows(UnsupportedOperationException.class, () -> registry.handleRequest("single", "user1", 2));
+        assertTrue(registry.removeService("single"));
+        assertFalse(registry.removeService("single"));
+    }
+
+    /* Positive test case for the hottest and most throttled keys being tracked across services */
+    @Test
+    void testTracksHeavyHitters() {
+        assertTrue(registry.getHottestKeys(5).isEmpty(), "A registry without a tracker lists nothing.");
+        RateLimiterRegistryController tracked = new RateLimiterRegistryController(new HeavyHitterTracker(4, 256, 4));
+        tracked.registerService("upload", new FixedWindowServiceRateLimiter(3, Duration.ofMinutes(1), fixedClock));
+        tracked.registerService("search", new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 1, fixedClock));
+        for (int i = 0; i < 5; i++) {
+            tracked.handleRequest("upload", "uploader");
+            tracked.handleRequest("search", "searcher");
+            tracked.handleRequest("search", "searcher");
+        }
+        tracked.handleRequest("search", "casual");
+
+        assertEquals(Map.entry("searcher", 10L), tracked.getHottestKeys(1).get(0));
+        assertEquals(Map.entry("uploader", 2L), tracked.getThrottledKeys(5).get(0), "Two uploads went over the window of 3.");
+        assertEquals(1, tracked.getThrottledKeys(5).size());
+    }
+
+    /* Positive test case for the cost of the dispatch table itself */
+    @Test
+    void testDispatchCost() {
+        for (int service = 0; service < 1_000; service++) {
+            registry.registerService("service" + service, userId -> true);
+        }
+        String[] services = new String[1_000];
+        for (int service = 0; service < services.length; service++) {
+            services[service] = "service" + service;
+        }
+        int rounds = 5_000_000;
+        long allowed = 0;
+        for (int warmup = 0; warmup < rounds; warmup++) {
+            allowed += registry.handleRequest(services[warmup % services.length], "user1") ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            allowed += registry.handleRequest(services[round % services.length], "user1") ? 1 : 0;
+        }
+        double nanosPerRequest = (System.nanoTime() - start) / (double) rounds;
+        assertEquals(2L * rounds, allowed);
+        assertTrue(nanosPerRequest < 1_000, "Dispatch should be a couple of hash lookups.");
+    }
+}
@@ -0,0 +1,91 @@
+package titanVault.distributedTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.UdpGossipTransport;
+import titanVault.service.GossipFixedWindowRateLimiter;
+import titanVault.service.GossipWindowRateLimiter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GossipWindowRateLimiterLargeTest {
+
+    private static final int NODES = 5;
+    private static final long LIMIT = 2_000;
+    private static final long REQUEST_INTERVAL_NANOS = 200_000; // 5K requests/s per node
+    private static final long RUN_NANOS = 500_000_000L;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testOvershootGrowsWithGossipInterval() throws Exception {
+        /* Positive Test Case: Over loopback UDP the overshoot shrinks as gossip gets more frequent. */
+        runCluster(Duration.ofMillis(1)); // Warm up the request and gossip paths
+        long[] intervalsMillis = {1, 5, 20, 50};
+        long[] overshoot = new long[intervalsMillis.length];
+        for (int run = 0; run < intervalsMillis.length; run++) {
+            long admitted = runCluster(Duration.ofMillis(intervalsMillis[run]));
+            overshoot[run] = admitted - LIMIT;
+            assertTrue(admitted >= LIMIT, "The cluster should admit at least the limit.");
+            assertTrue(admitted <= NODES * LIMIT, "No node admits more than the limit on its own.");
+        }
+        assertTrue(overshoot[0] < overshoot[3], "Frequent gossip should overshoot less than slow gossip.");
+    }
+
+    private long runCluster(Duration gossipInterval) throws IOException, InterruptedException {
+        InetSocketAddress loopback = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        UdpGossipTransport[] transports = new UdpGossipTransport[NODES];
+        for (int node = 0; node < NODES; node++) {
+            transports[node] = new UdpGossipTransport(loopback);
+        }
+        for (int node = 0; node < NODES; node++) {
+            for (int peer = 0; peer < NODES; peer++) {
+                if (peer != node) {
+                    transports[node].addPeer(transports[peer].getLocalAddress());
+                }
+            }
+        }
+        GossipWindowRateLimiter[] limiters = new GossipWindowRateLimiter[NODES];
+        for (int node = 0; node < NODES; node++) {
+            limiters[node] = new GossipFixedWindowRateLimiter(node, NODES, LIMIT, Duration.ofMinutes(1), fixedClock, transports[node]);
+            limiters[node].startGossip(gossipInterval);
+        }
+        try {
+            LongAdder admitted = new LongAdder();
+            CountDownLatch done = new CountDownLatch(NODES);
+            long start = System.nanoTime();
+            for (int node = 0; node < NODES; node++) {
+                GossipWindowRateLimiter limiter = limiters[node];
+                new Thread(() -> {
+                    try {
+                        for (long scheduled = start; scheduled - start < RUN_NANOS; scheduled += REQUEST_INTERVAL_NANOS) {
+                            while (System.nanoTime() < scheduled) {
+                                Thread.onSpinWait();
+                            }
+                            if (limiter.validateRequest("user1")) {
+                                admitted.increment();
+                            }
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            return admitted.sum();
+        } finally {
+            for (GossipWindowRateLimiter limiter : limiters) {
+                limiter.close();
+            }
+        }
+    }
+}
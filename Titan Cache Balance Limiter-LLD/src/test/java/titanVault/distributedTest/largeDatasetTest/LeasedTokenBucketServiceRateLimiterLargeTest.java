@@ -0,0 +1,87 @@
+package titanVault.distributedTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.InProcessTokenLeaseCoordinator;
+import titanVault.distributed.TokenLease;
+import titanVault.distributed.TokenLeaseCoordinator;
+import titanVault.service.LeasedTokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasedTokenBucketServiceRateLimiterLargeTest {
+
+    private static final int NODES = 20;
+    private static final int KEYS = 10_000;
+    private static final long CAPACITY = 100;
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 500_000;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testTwentyNodesStayWithinGlobalLimit() throws InterruptedException {
+        /* Positive Test Case: Twenty nodes under concurrent load never admit more than the global limit per key. */
+        InProcessTokenLeaseCoordinator coordinator = new InProcessTokenLeaseCoordinator(
+                CAPACITY, Duration.ofMinutes(1), 10, Duration.ofSeconds(10), fixedClock);
+        LongAdder coordinatorCalls = new LongAdder();
+        TokenLeaseCoordinator counting = new TokenLeaseCoordinator() {
+            @Override
+            public TokenLease acquireLease(String key, long requestedTokens) {
+                coordinatorCalls.increment();
+                return coordinator.acquireLease(key, requestedTokens);
+            }
+
+            @Override
+            public void returnTokens(String key, long unusedTokens) {
+                coordinatorCalls.increment();
+                coordinator.returnTokens(key, unusedTokens);
+            }
+        };
+        LeasedTokenBucketServiceRateLimiter[] nodes = new LeasedTokenBucketServiceRateLimiter[NODES];
+        for (int node = 0; node < NODES; node++) {
+            nodes[node] = new LeasedTokenBucketServiceRateLimiter(counting, 1, 64, Duration.ofMillis(50), fixedClock);
+        }
+
+        AtomicIntegerArray admitted = new AtomicIntegerArray(KEYS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int thread = 0; thread < THREADS; thread++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int request = 0; request < REQUESTS_PER_THREAD; request++) {
+                    int key = random.nextInt(KEYS);
+                    // Skew traffic so a few nodes see most requests for a key
+                    int node = (key + (random.nextInt(4) == 0 ? random.nextInt(NODES) : 0)) % NODES;
+                    if (nodes[node].validateRequest("user" + key)) {
+                        admitted.incrementAndGet(key);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+
+        for (int key = 0; key < KEYS; key++) {
+            String userId = "user" + key;
+            long leased = 0;
+            for (LeasedTokenBucketServiceRateLimiter node : nodes) {
+                leased += node.getLeasedTokens(userId);
+            }
+            assertTrue(admitted.get(key) <= CAPACITY, "Key " + key + " admitted " + admitted.get(key));
+            assertEquals(CAPACITY, admitted.get(key) + leased + coordinator.getAvailableTokens(userId),
+                    "Every token is either spent, leased to a node or still in the global bucket.");
+        }
+        long requests = (long) THREADS * REQUESTS_PER_THREAD;
+        assertTrue(coordinatorCalls.sum() < requests / 4, "Most requests should be served from local leases.");
+    }
+}
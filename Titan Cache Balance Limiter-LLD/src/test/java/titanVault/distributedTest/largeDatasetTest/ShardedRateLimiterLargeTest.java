@@ -0,0 +1,90 @@
+package titanVault.distributedTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.ConsistentHashRing;
+import titanVault.distributed.ShardClient;
+import titanVault.distributed.ShardServer;
+import titanVault.service.ShardedRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedRateLimiterLargeTest {
+
+    private static final String[] NODE_IDS = {"node-a", "node-b", "node-c"};
+    private static final int KEYS = 10_000;
+    private static final int CAPACITY = 20;
+    private static final int REQUESTS = 600_000;
+    private static final int MAX_IN_FLIGHT = 512;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testPipelinedClusterOverLoopback() throws Exception {
+        /* Positive Test Case: Three in-process nodes connected over loopback keep per-key limits exact. */
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of(NODE_IDS), 128);
+        ShardedRateLimiter[] nodes = new ShardedRateLimiter[NODE_IDS.length];
+        List<ShardServer> servers = new ArrayList<>();
+        List<ShardClient> clients = new ArrayList<>();
+        try {
+            for (int node = 0; node < nodes.length; node++) {
+                nodes[node] = new ShardedRateLimiter(NODE_IDS[node],
+                        new TokenBucketServiceRateLimiter(CAPACITY, Duration.ofMinutes(1), 1, fixedClock), ring, Duration.ofSeconds(5));
+                servers.add(new ShardServer(nodes[node], new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)));
+            }
+            for (int node = 0; node < nodes.length; node++) {
+                for (int peer = 0; peer < nodes.length; peer++) {
+                    if (peer != node) {
+                        ShardClient client = new ShardClient((InetSocketAddress) servers.get(peer).getAddress(), Duration.ofSeconds(5));
+                        clients.add(client);
+                        nodes[node].addPeer(NODE_IDS[peer], client);
+                    }
+                }
+            }
+
+            AtomicIntegerArray admitted = new AtomicIntegerArray(KEYS);
+            Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+            List<CompletableFuture<Void>> tail = new ArrayList<>();
+            for (int request = 0; request < REQUESTS; request++) {
+                int key = (int) ((request * 2_654_435_761L) % KEYS);
+                inFlight.acquire();
+                CompletableFuture<Void> done = nodes[request % nodes.length].validateRequestAsync("user" + key)
+                        .thenAccept(allowed -> {
+                            if (allowed) {
+                                admitted.incrementAndGet(key);
+                            }
+                            inFlight.release();
+                        });
+                if (request >= REQUESTS - MAX_IN_FLIGHT) {
+                    tail.add(done);
+                }
+            }
+            CompletableFuture.allOf(tail.toArray(new CompletableFuture<?>[0])).join();
+            inFlight.acquire(MAX_IN_FLIGHT);
+
+            for (int key = 0; key < KEYS; key++) {
+                assertEquals(CAPACITY, admitted.get(key), "Every key admits exactly its capacity cluster-wide.");
+            }
+        } finally {
+            for (ShardClient client : clients) {
+                client.close();
+            }
+            for (ShardServer server : servers) {
+                server.close();
+            }
+        }
+    }
+}
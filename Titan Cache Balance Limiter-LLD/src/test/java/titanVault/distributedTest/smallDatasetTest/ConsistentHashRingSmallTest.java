@@ -0,0 +1,67 @@
+package titanVault.distributedTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.ConsistentHashRing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingSmallTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    public void testOwnershipIsDeterministic() {
+        /* Positive Test Case: Rings built from the same members agree on every owner, whatever the order. */
+        ConsistentHashRing first = ConsistentHashRing.of(List.of("node-a", "node-b", "node-c"), 128);
+        ConsistentHashRing second = ConsistentHashRing.of(List.of("node-c", "node-a", "node-b"), 128);
+        for (int user = 0; user < 1_000; user++) {
+            assertEquals(first.ownerOf("user" + user), second.ownerOf("user" + user));
+        }
+    }
+
+    @Test
+    public void testVirtualNodesBalanceShares() {
+        /* Positive Test Case: With 128 virtual nodes every member owns close to a third of the keys. */
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("node-a", "node-b", "node-c"), 128);
+        Map<String, Integer> shares = new HashMap<>();
+        for (int user = 0; user < KEYS; user++) {
+            shares.merge(ring.ownerOf("user" + user), 1, Integer::sum);
+        }
+        for (int share : shares.values()) {
+            assertEquals(KEYS / 3.0, share, KEYS * 0.06, "Shares should be within 6% of even: " + shares);
+        }
+    }
+
+    @Test
+    public void testJoinMovesOnlyKeysToNewNode() {
+        /* Positive Test Case: A joining node takes about a quarter of the keys and no key moves between old nodes. */
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("node-a", "node-b", "node-c"), 128);
+        ConsistentHashRing grown = ring.withNode("node-d");
+        int moved = 0;
+        for (int user = 0; user < KEYS; user++) {
+            String before = ring.ownerOf("user" + user);
+            String after = grown.ownerOf("user" + user);
+            if (!before.equals(after)) {
+                assertEquals("node-d", after, "Keys may only move to the joining node.");
+                moved++;
+            }
+        }
+        assertEquals(KEYS / 4.0, moved, KEYS * 0.05);
+        assertEquals(List.of("node-a", "node-b", "node-c"), grown.withoutNode("node-d").getNodes());
+    }
+
+    @Test
+    public void testInvalidMembership() {
+        /* Negative Test Case: Duplicate, missing and empty memberships are rejected. */
+        ConsistentHashRing ring = ConsistentHashRing.of(List.of("node-a"), 16);
+        assertThrows(IllegalArgumentException.class, () -> ring.withNode("node-a"));
+        assertThrows(IllegalArgumentException.class, () -> ring.withoutNode("node-z"));
+        assertThrows(IllegalArgumentException.class, () -> ConsistentHashRing.of(List.of("node-a", "node-a"), 16));
+        assertThrows(IllegalArgumentException.class, () -> ConsistentHashRing.of(List.of("node-a"), 0));
+        assertThrows(IllegalStateException.class, () -> ConsistentHashRing.of(List.of(), 16).ownerOf("user1"));
+    }
+}
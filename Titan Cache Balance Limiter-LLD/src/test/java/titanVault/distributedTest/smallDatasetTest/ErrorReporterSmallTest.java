@@ -0,0 +1,62 @@
+package titanVault.distributedTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.ErrorReporter;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorReporterSmallTest {
+
+    @Test
+    public void testFailuresGoToUncaughtHandlerByDefault() throws Exception {
+        /* Positive Test Case: Without a handler a failure reaches the uncaught exception handler of its thread. */
+        ErrorReporter<IOException> errors = new ErrorReporter<>();
+        CompletableFuture<Throwable> uncaught = new CompletableFuture<>();
+        Thread thread = new Thread(() -> errors.report(new IOException("Accept failed")));
+        thread.setUncaughtExceptionHandler((failed, failure) -> uncaught.complete(failure));
+        thread.start();
+        assertEquals("Accept failed", uncaught.get(5, TimeUnit.SECONDS).getMessage());
+
+        CompletableFuture<IOException> handled = new CompletableFuture<>();
+        errors.setHandler(handled::complete);
+        errors.report(new IOException("Connection reset"));
+        assertEquals("Connection reset", handled.getNow(null).getMessage());
+        assertThrows(NullPointerException.class, () -> errors.setHandler(null));
+    }
+
+    @Test
+    public void testBackOffGrowsWithFailuresInARow() {
+        /* Positive Test Case: The pause doubles with every failure in a row and is capped. */
+        long start = System.nanoTime();
+        assertTrue(ErrorReporter.backOff(1));
+        long first = System.nanoTime() - start;
+        start = System.nanoTime();
+        assertTrue(ErrorReporter.backOff(7));
+        long seventh = System.nanoTime() - start;
+        assertTrue(seventh >= TimeUnit.MILLISECONDS.toNanos(64), "The seventh failure in a row waits 64 ms.");
+        assertTrue(first < seventh);
+
+        start = System.nanoTime();
+        assertTrue(ErrorReporter.backOff(Integer.MAX_VALUE));
+        long capped = System.nanoTime() - start;
+        assertTrue(capped >= TimeUnit.MILLISECONDS.toNanos(1_000) && capped < TimeUnit.MILLISECONDS.toNanos(3_000),
+                "The pause is capped at a second, was " + capped + " ns");
+    }
+
+    @Test
+    public void testInterruptedBackOffStopsTheLoop() throws InterruptedException {
+        /* Negative Test Case: A loop pausing after a failure is told to stop when its thread is interrupted. */
+        AtomicBoolean retry = new AtomicBoolean(true);
+        Thread loop = new Thread(() -> retry.set(ErrorReporter.backOff(Integer.MAX_VALUE)));
+        loop.start();
+        loop.interrupt();
+        loop.join(5_000);
+        assertFalse(loop.isAlive());
+        assertFalse(retry.get());
+    }
+}
@@ -0,0 +1,112 @@
+package titanVault.distributedTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.GCounter;
+import titanVault.distributed.GossipDeltaCodec;
+import titanVault.distributed.PNCounter;
+import titanVault.distributed.WindowDelta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GossipCountersSmallTest {
+
+    @Test
+    public void testGCounterMergeIsIdempotentAndCommutative() {
+        /* Positive Test Case: Merging in any order, any number of times, gives the same value. */
+        GCounter first = new GCounter(3);
+        GCounter second = new GCounter(3);
+        first.increment(0, 5);
+        second.increment(1, 7);
+        second.merge(0, 2); // Stale view of node 0
+
+        GCounter left = new GCounter(3);
+        left.merge(first);
+        left.merge(second);
+        left.merge(second);
+        GCounter right = new GCounter(3);
+        right.merge(second);
+        right.merge(first);
+
+        assertEquals(12, left.value());
+        assertEquals(12, right.value());
+        assertEquals(5, left.get(0), "The larger slot value wins.");
+    }
+
+    @Test
+    public void testGCounterRejectsNegativeIncrement() {
+        /* Negative Test Case: A grow-only counter cannot be decremented. */
+        GCounter counter = new GCounter(2);
+        assertThrows(IllegalArgumentException.class, () -> counter.increment(0, -1));
+        assertThrows(IllegalArgumentException.class, () -> new GCounter(0));
+    }
+
+    @Test
+    public void testPNCounterDecrements() {
+        /* Positive Test Case: Decrements from any node reduce the merged value, never below zero. */
+        PNCounter first = new PNCounter(2);
+        PNCounter second = new PNCounter(2);
+        first.increment(0, 10);
+        second.increment(1, 4);
+        second.decrement(1, 3);
+        first.merge(second);
+        assertEquals(11, first.value());
+
+        PNCounter empty = new PNCounter(2);
+        assertTrue(empty.isEmpty());
+        empty.decrement(0, 2);
+        assertEquals(0, empty.value());
+        assertFalse(empty.isEmpty(), "A decrement still has to be gossiped.");
+    }
+
+    @Test
+    public void testCodecRoundTrip() {
+        /* Positive Test Case: Deltas survive encoding, including epochs before the base epoch. */
+        List<WindowDelta> deltas = List.of(
+                new WindowDelta("user1", 28_800_000L, 3, 0),
+                new WindowDelta("user2", 28_799_999L, 1_000_000L, 2),
+                new WindowDelta("ключ", 28_800_001L, 0, 0));
+        List<byte[]> packets = GossipDeltaCodec.encode(4, deltas, 1400);
+        assertEquals(1, packets.size());
+
+        List<String> decoded = new ArrayList<>();
+        byte[] packet = packets.get(0);
+        int entries = GossipDeltaCodec.decode(packet, packet.length, (sender, key, epoch, increments, decrements) ->
+                decoded.add(sender + ":" + key + ":" + epoch + ":" + increments + ":" + decrements));
+        assertEquals(3, entries);
+        assertEquals(List.of("4:user1:28800000:3:0", "4:user2:28799999:1000000:2", "4:ключ:28800001:0:0"), decoded);
+    }
+
+    @Test
+    public void testCodecIsCompactAndSplitsPackets() {
+        /* Positive Test Case: Small counters cost a few bytes beyond the key, and large batches are split. */
+        List<WindowDelta> deltas = new ArrayList<>();
+        for (int user = 0; user < 1_000; user++) {
+            deltas.add(new WindowDelta("user" + user, 28_800_000L, user % 100, 0));
+        }
+        List<byte[]> packets = GossipDeltaCodec.encode(1, deltas, 1400);
+        int totalBytes = 0;
+        int totalEntries = 0;
+        for (byte[] packet : packets) {
+            assertTrue(packet.length <= 1400);
+            totalBytes += packet.length;
+            totalEntries += GossipDeltaCodec.decode(packet, packet.length, (sender, key, epoch, increments, decrements) -> { });
+        }
+        assertEquals(1_000, totalEntries);
+        assertTrue(packets.size() > 1);
+        assertTrue(totalBytes / 1_000.0 < 13, "Entries for 'userNNN' keys should average under 13 bytes.");
+    }
+
+    @Test
+    public void testCodecRejectsMalformedPackets() {
+        /* Negative Test Case: Truncated or foreign packets are rejected. */
+        byte[] packet = GossipDeltaCodec.encode(0, List.of(new WindowDelta("user1", 1, 1, 0)), 1400).get(0);
+        assertThrows(IllegalArgumentException.class, () -> GossipDeltaCodec.decode(packet, packet.length - 2,
+                (sender, key, epoch, increments, decrements) -> { }));
+        byte[] foreign = {9, 0, 0, 0};
+        assertThrows(IllegalArgumentException.class, () -> GossipDeltaCodec.decode(foreign, foreign.length,
+                (sender, key, epoch, increments, decrements) -> { }));
+    }
+}
@@ -0,0 +1,325 @@
+package titanVault.distributedTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.GossipTransport;
+import titanVault.service.GossipFixedWindowRateLimiter;
+import titanVault.service.GossipSlidingWindowRateLimiter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GossipWindowRateLimiterSmallTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+    private final InMemoryHub hub = new InMemoryHub();
+
+    private GossipFixedWindowRateLimiter fixedNode(int nodeId, int clusterSize, long capacity) {
+        return new GossipFixedWindowRateLimiter(nodeId, clusterSize, capacity, Duration.ofMinutes(1), clock, hub.join());
+    }
+
+    @Test
+    public void testNodesEnforceMergedCount() throws IOException {
+        /* Positive Test Case: After gossip a node counts the requests admitted by its peers. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 10);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 10);
+        for (int i = 0; i < 6; i++) {
+            assertTrue(first.validateRequest("user1"));
+        }
+        assertEquals(1, first.gossip());
+        assertEquals(6, second.getEstimatedCount("user1"));
+        for (int i = 0; i < 4; i++) {
+            assertTrue(second.validateRequest("user1"));
+        }
+        assertFalse(second.validateRequest("user1"), "The merged count has reached the limit.");
+    }
+
+    @Test
+    public void testWeightedRequestsAreMergedAllOrNothing() throws IOException {
+        /* Positive Test Case: A request of several permits counts all of them on every node, or none when denied. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 10);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 10);
+        assertTrue(first.validateRequest("user1", 7));
+        first.gossip();
+        assertEquals(7, second.getEstimatedCount("user1"));
+        assertFalse(second.validateRequest("user1", 4), "Four permits do not fit in the three left.");
+        assertTrue(second.validateRequest("user1", 3), "The denied request took nothing.");
+        assertFalse(second.validateRequest("user1"));
+    }
+
+    @Test
+    public void testOvershootWithoutGossip() {
+        /* Negative Test Case: Without a gossip round each node only sees its own traffic. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 10);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 10);
+        int admitted = 0;
+        for (int i = 0; i < 20; i++) {
+            admitted += first.validateRequest("user1") ? 1 : 0;
+            admitted += second.validateRequest("user1") ? 1 : 0;
+        }
+        assertEquals(20, admitted, "Each node admits the full limit until it hears from the other.");
+    }
+
+    @Test
+    public void testDuplicateAndReorderedGossipIsHarmless() throws IOException {
+        /* Positive Test Case: Re-delivered and stale packets do not inflate the merged count. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 100);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 100);
+        first.validateRequest("user1");
+        first.gossip();
+        byte[] stale = hub.lastPacket();
+        for (int i = 0; i < 4; i++) {
+            first.validateRequest("user1");
+        }
+        first.gossip();
+        hub.redeliver(stale);
+        hub.redeliver(hub.lastPacket());
+        assertEquals(5, second.getEstimatedCount("user1"));
+    }
+
+    @Test
+    public void testFullStateRoundRepairsLostPacket() throws IOException {
+        /* Positive Test Case: A delta lost for a key that then goes idle reaches the peers in the next full state round. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 10);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 10);
+        for (int i = 0; i < 4; i++) {
+            first.validateRequest("user1");
+        }
+        hub.dropNext();
+        assertEquals(1, first.gossip());
+        assertEquals(0, second.getEstimatedCount("user1"), "The only packet for the key was lost.");
+        assertEquals(0, first.gossip(), "An idle key is not sent again by change-driven rounds.");
+
+        assertEquals(1, first.gossipFullState());
+        assertEquals(4, second.getEstimatedCount("user1"));
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(0, first.gossipFullState(), "Windows that no longer count are not sent.");
+    }
+
+    @Test
+    public void testFullStateRoundDropsIdleKeys() throws IOException {
+        /* Positive Test Case: Keys whose windows have ended are dropped, and count again from zero when they come back. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 2);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 2);
+        for (int i = 0; i < 100; i++) {
+            first.validateRequest("user" + i);
+        }
+        first.gossip();
+        assertEquals(100, second.getTrackedKeys());
+        first.gossipFullState();
+        assertEquals(100, first.getTrackedKeys(), "Windows that still count are kept.");
+
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(0, first.gossipFullState());
+        assertEquals(0, first.getTrackedKeys());
+        second.gossipFullState();
+        assertEquals(0, second.getTrackedKeys(), "Windows holding only remote counts are dropped too.");
+        assertTrue(first.validateRequest("user1"));
+        assertTrue(first.validateRequest("user1"));
+        assertFalse(first.validateRequest("user1"));
+    }
+
+    @Test
+    public void testDeltasFromSkewedClocksAreIgnored() throws IOException {
+        /* Negative Test Case: A peer far ahead cannot move a window on, and ended windows are not brought back. */
+        MutableClock aheadClock = new MutableClock(clock.instant().plus(Duration.ofMinutes(10)));
+        GossipFixedWindowRateLimiter ahead = new GossipFixedWindowRateLimiter(0, 2, 3, Duration.ofMinutes(1),
+                aheadClock, hub.join());
+        GossipFixedWindowRateLimiter local = fixedNode(1, 2, 3);
+        assertTrue(local.validateRequest("user1"));
+        for (int i = 0; i < 3; i++) {
+            ahead.validateRequest("user1");
+            ahead.validateRequest("user2");
+        }
+        ahead.gossip();
+        assertEquals(1, local.getEstimatedCount("user1"), "The local window keeps its count.");
+        assertEquals(0, local.getEstimatedCount("user2"));
+        assertEquals(1, local.getTrackedKeys(), "A key only heard of from the future is not created.");
+
+        GossipFixedWindowRateLimiter behind = fixedNode(0, 2, 3);
+        behind.validateRequest("user3");
+        clock.advance(Duration.ofMinutes(3));
+        local.gossipFullState();
+        behind.gossip(); // Sends the count of a window that ended two windows ago
+        assertEquals(0, local.getTrackedKeys());
+    }
+
+    @Test
+    public void testBackgroundFailuresGoToErrorHandler() throws Exception {
+        /* Negative Test Case: A gossip round that cannot send is reported to the error handler, not the console. */
+        GossipFixedWindowRateLimiter node = new GossipFixedWindowRateLimiter(0, 2, 10, Duration.ofMinutes(1), clock,
+                new GossipTransport() {
+                    @Override
+                    public void start(PacketReceiver receiver) {
+                    }
+
+                    @Override
+                    public void broadcast(byte[] packet) throws IOException {
+                        throw new IOException("Network unreachable");
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                });
+        CompletableFuture<IOException> reported = new CompletableFuture<>();
+        node.setErrorHandler(reported::complete);
+        node.validateRequest("user1");
+        node.startGossip(Duration.ofMillis(5), 1);
+        try {
+            assertEquals("Network unreachable", reported.get(5, TimeUnit.SECONDS).getMessage());
+        } finally {
+            node.close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> fixedNode(1, 2, 10).startGossip(Duration.ofMillis(5), 0));
+    }
+
+    @Test
+    public void testRefundIsGossiped() throws IOException {
+        /* Positive Test Case: A refund on one node frees capacity on every node. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 2);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 2);
+        assertTrue(first.validateRequest("user1"));
+        assertTrue(first.validateRequest("user1"));
+        first.gossip();
+        assertFalse(second.validateRequest("user1"));
+        first.refund("user1");
+        first.gossip();
+        assertTrue(second.validateRequest("user1"));
+    }
+
+    @Test
+    public void testFixedWindowResets() throws IOException {
+        /* Positive Test Case: Counts from the previous fixed window no longer apply. */
+        GossipFixedWindowRateLimiter first = fixedNode(0, 2, 3);
+        GossipFixedWindowRateLimiter second = fixedNode(1, 2, 3);
+        for (int i = 0; i < 3; i++) {
+            first.validateRequest("user1");
+        }
+        first.gossip();
+        assertFalse(second.validateRequest("user1"));
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(second.validateRequest("user1"));
+    }
+
+    @Test
+    public void testSlidingWindowWeighsPreviousWindow() throws IOException {
+        /* Positive Test Case: Half way into a window, half of the previous window still counts. */
+        GossipSlidingWindowRateLimiter first = new GossipSlidingWindowRateLimiter(0, 2, 10, Duration.ofMinutes(1), clock, hub.join());
+        GossipSlidingWindowRateLimiter second = new GossipSlidingWindowRateLimiter(1, 2, 10, Duration.ofMinutes(1), clock, hub.join());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(first.validateRequest("user1"));
+        }
+        clock.advance(Duration.ofSeconds(90)); // Next window, half elapsed
+        first.gossip(); // The counts are gossiped only after the window moved on
+        assertEquals(5.0, second.getEstimatedCount("user1"), 1e-9);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(second.validateRequest("user1"));
+        }
+        assertFalse(second.validateRequest("user1"));
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        /* Negative Test Case: Node indexes must fall inside the cluster. */
+        assertThrows(IllegalArgumentException.class, () -> fixedNode(2, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> fixedNode(-1, 2, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GossipFixedWindowRateLimiter(0, 1, 10, Duration.ZERO, clock, hub.join()));
+    }
+
+    /**
+     * Delivers every broadcast synchronously to all other members.
+     */
+    private static final class InMemoryHub {
+        private final List<Member> members = new ArrayList<>();
+        private byte[] lastPacket;
+        private boolean dropNext;
+
+        private GossipTransport join() {
+            Member member = new Member();
+            members.add(member);
+            return member;
+        }
+
+        private byte[] lastPacket() {
+            return lastPacket;
+        }
+
+        private void dropNext() {
+            dropNext = true;
+        }
+
+        private void redeliver(byte[] packet) {
+            for (Member member : members) {
+                member.receiver.receive(packet, packet.length);
+            }
+        }
+
+        private final class Member implements GossipTransport {
+            private PacketReceiver receiver;
+
+            @Override
+            public void start(PacketReceiver receiver) {
+                this.receiver = receiver;
+            }
+
+            @Override
+            public void broadcast(byte[] packet) {
+                lastPacket = packet;
+                if (dropNext) {
+                    dropNext = false;
+                    return;
+                }
+                for (Member member : members) {
+                    if (member != this) {
+                        member.receiver.receive(packet, packet.length);
+                    }
+                }
+            }
+
+            @Override
+            public void close() {
+                members.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Clock that only moves when the test advances it.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        private MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
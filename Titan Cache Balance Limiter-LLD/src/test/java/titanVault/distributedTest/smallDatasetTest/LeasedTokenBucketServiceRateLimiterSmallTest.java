@@ -0,0 +1,253 @@
+package titanVault.distributedTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.InProcessTokenLeaseCoordinator;
+import titanVault.distributed.RemoteTokenLeaseCoordinator;
+import titanVault.distributed.TokenLease;
+import titanVault.distributed.TokenLeaseCoordinator;
+import titanVault.distributed.TokenLeaseServer;
+import titanVault.service.LeasedTokenBucketServiceRateLimiter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasedTokenBucketServiceRateLimiterSmallTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-08-01T00:00:00Z"));
+
+    private InProcessTokenLeaseCoordinator newCoordinator(long capacity) {
+        return new InProcessTokenLeaseCoordinator(capacity, Duration.ofMinutes(1), 10, Duration.ofSeconds(1), clock);
+    }
+
+    private LeasedTokenBucketServiceRateLimiter newNode(TokenLeaseCoordinator coordinator) {
+        return new LeasedTokenBucketServiceRateLimiter(coordinator, 1, 32, Duration.ofMillis(100), clock);
+    }
+
+    @Test
+    public void testNodesShareGlobalLimit() {
+        /* Positive Test Case: Three nodes together admit exactly the global capacity. */
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(100);
+        LeasedTokenBucketServiceRateLimiter[] nodes = {newNode(coordinator), newNode(coordinator), newNode(coordinator)};
+        int admitted = 0;
+        for (int request = 0; request < 1_000; request++) {
+            if (nodes[request % nodes.length].validateRequest("user1")) {
+                admitted++;
+            }
+        }
+        assertEquals(100, admitted, "The cluster must not admit more than the global bucket holds.");
+    }
+
+    @Test
+    public void testLeaseGrowsWithDemand() {
+        /* Positive Test Case: A key that spends its batches before they expire gets larger batches. */
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(1_000);
+        LeasedTokenBucketServiceRateLimiter node = newNode(coordinator);
+        assertEquals(1, node.getLeaseSize("user1"));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(node.validateRequest("user1"));
+        }
+        assertEquals(32, node.getLeaseSize("user1"), "The lease size should double up to the maximum.");
+    }
+
+    @Test
+    public void testExpiredLeaseReturnsUnusedTokens() {
+        /* Positive Test Case: Tokens left in an expired lease go back to the coordinator and the next lease shrinks. */
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(1_000);
+        LeasedTokenBucketServiceRateLimiter node = newNode(coordinator);
+        for (int i = 0; i < 63; i++) {
+            node.validateRequest("user1"); // Leases of 1, 2, 4, 8, 16, 32
+        }
+        node.validateRequest("user1"); // Opens a fresh lease of 32 and spends one token
+        assertEquals(31, node.getLeasedTokens("user1"));
+        long available = coordinator.getAvailableTokens("user1");
+
+        clock.advance(Duration.ofSeconds(2));
+        assertEquals(31, node.releaseExpiredLeases());
+        assertEquals(available + 31, coordinator.getAvailableTokens("user1"));
+        assertEquals(0, node.getLeasedTokens("user1"));
+        assertEquals(16, node.getLeaseSize("user1"), "A mostly unused lease halves the next request.");
+    }
+
+    @Test
+    public void testEmptyCoordinatorIsNotPolledOnEveryRequest() {
+        /* Negative Test Case: After an empty grant the node denies locally until the retry interval passes. */
+        AtomicInteger leaseCalls = new AtomicInteger();
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(1);
+        TokenLeaseCoordinator counting = new TokenLeaseCoordinator() {
+            @Override
+            public TokenLease acquireLease(String key, long requestedTokens) {
+                leaseCalls.incrementAndGet();
+                return coordinator.acquireLease(key, requestedTokens);
+            }
+
+            @Override
+            public void returnTokens(String key, long unusedTokens) {
+                coordinator.returnTokens(key, unusedTokens);
+            }
+        };
+        LeasedTokenBucketServiceRateLimiter node = newNode(counting);
+        assertTrue(node.validateRequest("user1"));
+        for (int i = 0; i < 50; i++) {
+            assertFalse(node.validateRequest("user1"));
+        }
+        assertEquals(2, leaseCalls.get(), "Only the first empty grant should reach the coordinator.");
+        clock.advance(Duration.ofMillis(100));
+        assertFalse(node.validateRequest("user1"));
+        assertEquals(3, leaseCalls.get());
+    }
+
+    @Test
+    public void testLoopbackCoordinator() throws IOException {
+        /* Positive Test Case: Nodes borrowing over a loopback socket still share the global limit. */
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(50);
+        try (TokenLeaseServer server = new TokenLeaseServer(coordinator, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             RemoteTokenLeaseCoordinator first = new RemoteTokenLeaseCoordinator((InetSocketAddress) server.getAddress(), Duration.ofSeconds(5));
+             RemoteTokenLeaseCoordinator second = new RemoteTokenLeaseCoordinator((InetSocketAddress) server.getAddress(), Duration.ofSeconds(5))) {
+            LeasedTokenBucketServiceRateLimiter[] nodes = {newNode(first), newNode(second)};
+            int admitted = 0;
+            for (int request = 0; request < 200; request++) {
+                if (nodes[request % 2].validateRequest("user1")) {
+                    admitted++;
+                }
+            }
+            assertEquals(50, admitted);
+
+            for (int request = 0; request < 4; request++) {
+                assertTrue(nodes[0].validateRequest("user2")); // Leases of 1, 2 and 4 tokens
+            }
+            clock.advance(Duration.ofSeconds(2));
+            assertEquals(3, nodes[0].releaseExpiredLeases());
+            assertEquals(46, coordinator.getAvailableTokens("user2"), "Returned tokens reach the coordinator over the socket.");
+        }
+    }
+
+    @Test
+    public void testUnreachableCoordinatorFailsClosed() throws IOException {
+        /* Negative Test Case: A node that cannot reach its coordinator denies requests instead of failing. */
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(50);
+        RemoteTokenLeaseCoordinator remote;
+        try (TokenLeaseServer server = new TokenLeaseServer(coordinator, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            remote = new RemoteTokenLeaseCoordinator((InetSocketAddress) server.getAddress(), Duration.ofSeconds(1));
+        }
+        try (remote) {
+            assertFalse(newNode(remote).validateRequest("user1"));
+        }
+    }
+
+    @Test
+    public void testTimedOutReplyIsNotReadByNextRequest() throws Exception {
+        /* Negative Test Case: After a timeout the client reconnects, so the late reply never answers the next request. */
+        try (ServerSocket fake = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<Void> served = CompletableFuture.runAsync(() -> {
+                try (Socket slow = fake.accept()) {
+                    DataInputStream request = new DataInputStream(slow.getInputStream());
+                    DataOutputStream reply = new DataOutputStream(slow.getOutputStream());
+                    request.readByte();
+                    request.readUTF();
+                    request.readLong();
+                    try (Socket fresh = fake.accept()) {
+                        try {
+                            reply.writeLong(999); // Late reply to the timed out request
+                            reply.writeLong(1000);
+                            reply.flush();
+                        } catch (IOException e) {
+                            // The client already hung up on the old connection
+                        }
+                        DataInputStream nextRequest = new DataInputStream(fresh.getInputStream());
+                        DataOutputStream nextReply = new DataOutputStream(fresh.getOutputStream());
+                        nextRequest.readByte();
+                        nextRequest.readUTF();
+                        nextRequest.readLong();
+                        nextReply.writeLong(7);
+                        nextReply.writeLong(1000);
+                        nextReply.flush();
+                        nextRequest.read(); // Wait for the client to hang up
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try (RemoteTokenLeaseCoordinator remote = new RemoteTokenLeaseCoordinator((InetSocketAddress) fake.getLocalSocketAddress(), Duration.ofMillis(200))) {
+                assertThrows(UncheckedIOException.class, () -> remote.acquireLease("user1", 10));
+                assertEquals(7, remote.acquireLease("user1", 10).getGrantedTokens(), "The second request is answered on a new connection.");
+            }
+            served.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testBadRequestGoesToErrorHandler() throws Exception {
+        /* Negative Test Case: A connection dropped for an unknown operation is reported to the error handler. */
+        CompletableFuture<Exception> reported = new CompletableFuture<>();
+        try (TokenLeaseServer server = new TokenLeaseServer(newCoordinator(50), new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.setErrorHandler(reported::complete);
+            try (Socket socket = new Socket()) {
+                socket.connect(server.getAddress());
+                DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+                output.writeByte(42);
+                output.writeUTF("user1");
+                output.writeLong(1);
+                output.flush();
+                assertEquals("Unknown token lease operation: 42", reported.get(5, TimeUnit.SECONDS).getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        /* Negative Test Case: Lease sizes and requests must be positive. */
+        InProcessTokenLeaseCoordinator coordinator = newCoordinator(10);
+        assertThrows(IllegalArgumentException.class,
+                () -> new LeasedTokenBucketServiceRateLimiter(coordinator, 0, 10, Duration.ofMillis(100), clock));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LeasedTokenBucketServiceRateLimiter(coordinator, 8, 4, Duration.ofMillis(100), clock));
+        assertThrows(IllegalArgumentException.class, () -> coordinator.acquireLease("user1", 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new InProcessTokenLeaseCoordinator(10, Duration.ofMinutes(1), 1, Duration.ZERO, clock));
+    }
+
+    /**
+     * Clock that only moves when the test advances it.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        private MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        private void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
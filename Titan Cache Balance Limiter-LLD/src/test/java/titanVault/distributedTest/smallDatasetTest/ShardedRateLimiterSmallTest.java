@@ -0,0 +1,261 @@
+package titanVault.distributedTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.ConsistentHashRing;
+import titanVault.distributed.ShardClient;
+import titanVault.distributed.ShardServer;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.ShardedRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedRateLimiterSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+    private final ConsistentHashRing ring = ConsistentHashRing.of(List.of("node-a", "node-b", "node-c"), 128);
+
+    private ShardedRateLimiter[] inProcessCluster(ConsistentHashRing clusterRing, String... nodeIds) {
+        ShardedRateLimiter[] nodes = new ShardedRateLimiter[nodeIds.length];
+        for (int node = 0; node < nodeIds.length; node++) {
+            nodes[node] = new ShardedRateLimiter(nodeIds[node],
+                    new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock), clusterRing, Duration.ofSeconds(1));
+        }
+        for (ShardedRateLimiter node : nodes) {
+            for (ShardedRateLimiter peer : nodes) {
+                if (peer != node) {
+                    node.addPeer(peer.getNodeId(), peer);
+                }
+            }
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testLimitIsExactAcrossNodes() {
+        /* Positive Test Case: Requests spread over three nodes share one bucket per key. */
+        ShardedRateLimiter[] nodes = inProcessCluster(ring, "node-a", "node-b", "node-c");
+        int admitted = 0;
+        for (int request = 0; request < 30; request++) {
+            if (nodes[request % 3].validateRequest("user1")) {
+                admitted++;
+            }
+        }
+        assertEquals(10, admitted, "The owner's bucket is the only one used.");
+    }
+
+    @Test
+    public void testHandoffOnJoin() throws IOException {
+        /* Positive Test Case: Keys moving to a joining node keep their bucket state. */
+        ShardedRateLimiter[] nodes = inProcessCluster(ring, "node-a", "node-b", "node-c", "node-d");
+        ConsistentHashRing grown = ring.withNode("node-d");
+        String movingKey = null;
+        for (int user = 0; movingKey == null; user++) {
+            if (grown.ownerOf("user" + user).equals("node-d")) {
+                movingKey = "user" + user;
+            }
+        }
+        for (int i = 0; i < 7; i++) {
+            assertTrue(nodes[0].validateRequest(movingKey));
+        }
+
+        int handedOff = 0;
+        for (ShardedRateLimiter node : nodes) {
+            handedOff += node.updateRing(grown);
+        }
+        assertEquals(1, handedOff);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(nodes[1].validateRequest(movingKey), "The new owner continues from the handed-off state.");
+        }
+        assertFalse(nodes[2].validateRequest(movingKey));
+    }
+
+    @Test
+    public void testUnknownOwnerIsDenied() {
+        /* Negative Test Case: A node that cannot reach the owner denies the request. */
+        ShardedRateLimiter lonely = new ShardedRateLimiter("node-a",
+                new FixedWindowServiceRateLimiter(10, Duration.ofMinutes(1), fixedClock), ring, Duration.ofSeconds(1));
+        String foreignKey = null;
+        for (int user = 0; foreignKey == null; user++) {
+            if (!ring.ownerOf("user" + user).equals("node-a")) {
+                foreignKey = "user" + user;
+            }
+        }
+        assertFalse(lonely.validateRequest(foreignKey));
+        assertFalse(lonely.validateRequestAsync(foreignKey).join());
+    }
+
+    @Test
+    public void testPipelinedForwardingOverLoopback() throws IOException {
+        /* Positive Test Case: Many forwarded requests can be in flight on one connection and stay exact. */
+        ConsistentHashRing twoNodes = ConsistentHashRing.of(List.of("node-a", "node-b"), 128);
+        ShardedRateLimiter owner = new ShardedRateLimiter("node-b",
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock), twoNodes, Duration.ofSeconds(1));
+        ShardedRateLimiter forwarder = new ShardedRateLimiter("node-a",
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock), twoNodes, Duration.ofSeconds(5));
+        try (ShardServer server = new ShardServer(owner, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             ShardClient client = new ShardClient((InetSocketAddress) server.getAddress(), Duration.ofSeconds(5))) {
+            forwarder.addPeer("node-b", client);
+            List<String> ownedByB = new ArrayList<>();
+            for (int user = 0; ownedByB.size() < 20; user++) {
+                if (twoNodes.ownerOf("user" + user).equals("node-b")) {
+                    ownedByB.add("user" + user);
+                }
+            }
+            List<CompletableFuture<Boolean>> inFlight = new ArrayList<>();
+            for (int round = 0; round < 15; round++) {
+                for (String userId : ownedByB) {
+                    inFlight.add(forwarder.validateRequestAsync(userId));
+                }
+            }
+            long admitted = inFlight.stream().filter(CompletableFuture::join).count();
+            assertEquals(20 * 10, admitted, "Each forwarded key admits exactly its capacity.");
+
+            forwarder.updateRing(twoNodes.withoutNode("node-b")); // Nothing owned locally moves
+            assertEquals(List.of("node-a"), forwarder.getRing().getNodes());
+        }
+    }
+
+    @Test
+    public void testHandoffOverLoopback() throws IOException {
+        /* Positive Test Case: Bucket state is handed off to a remote owner over the pipelined connection. */
+        ConsistentHashRing single = ConsistentHashRing.of(List.of("node-a"), 128);
+        ConsistentHashRing grown = single.withNode("node-b");
+        TokenBucketServiceRateLimiter remoteShard = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        ShardedRateLimiter remote = new ShardedRateLimiter("node-b", remoteShard, grown, Duration.ofSeconds(1));
+        TokenBucketServiceRateLimiter localShard = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        ShardedRateLimiter local = new ShardedRateLimiter("node-a", localShard, single, Duration.ofSeconds(1));
+        try (ShardServer server = new ShardServer(remote, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             ShardClient client = new ShardClient((InetSocketAddress) server.getAddress(), Duration.ofSeconds(5))) {
+            local.addPeer("node-b", client);
+            int moving = 0;
+            for (int user = 0; user < 100; user++) {
+                for (int i = 0; i < 10; i++) {
+                    local.validateRequest("user" + user);
+                }
+                if (grown.ownerOf("user" + user).equals("node-b")) {
+                    moving++;
+                }
+            }
+            assertEquals(moving, local.updateRing(grown));
+            assertEquals(moving, remoteShard.snapshotKeys().size());
+            assertEquals(100 - moving, localShard.snapshotKeys().size(), "The old owner forgets the handed-off buckets.");
+            for (String userId : remoteShard.snapshotKeys()) {
+                assertFalse(local.validateRequest(userId), "Handed-off buckets arrive depleted.");
+            }
+        }
+    }
+
+    @Test
+    public void testMultiplePermitsAreForwarded() throws IOException {
+        /* Positive Test Case: A request for several permits is decided all or nothing by the remote owner. */
+        ConsistentHashRing twoNodes = ConsistentHashRing.of(List.of("node-a", "node-b"), 128);
+        ShardedRateLimiter owner = new ShardedRateLimiter("node-b",
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock), twoNodes, Duration.ofSeconds(1));
+        ShardedRateLimiter forwarder = new ShardedRateLimiter("node-a",
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock), twoNodes, Duration.ofSeconds(5));
+        try (ShardServer server = new ShardServer(owner, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+             ShardClient client = new ShardClient((InetSocketAddress) server.getAddress(), Duration.ofSeconds(5))) {
+            forwarder.addPeer("node-b", client);
+            String remoteKey = null;
+            String localKey = null;
+            for (int user = 0; remoteKey == null || localKey == null; user++) {
+                if (twoNodes.ownerOf("user" + user).equals("node-b")) {
+                    remoteKey = "user" + user;
+                } else {
+                    localKey = "user" + user;
+                }
+            }
+            assertTrue(forwarder.validateRequest(remoteKey, 6));
+            assertFalse(forwarder.validateRequest(remoteKey, 5), "Only 4 permits are left at the owner.");
+            assertTrue(forwarder.validateRequest(remoteKey, 4));
+            assertTrue(forwarder.validateRequest(localKey, 10));
+            assertFalse(forwarder.validateRequest(localKey, 1));
+        }
+    }
+
+    @Test
+    public void testUnansweredRequestTimesOut() throws Exception {
+        /* Negative Test Case: A request the owner never answers fails after the client timeout. */
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             ShardClient client = new ShardClient((InetSocketAddress) silent.getLocalSocketAddress(), Duration.ofMillis(200));
+             Socket accepted = silent.accept()) {
+            CompletableFuture<Boolean> response = client.forwardRequest("user1", 1);
+            ExecutionException thrown = assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, thrown.getCause());
+            assertTrue(accepted.isConnected());
+        }
+    }
+
+    @Test
+    public void testReconnectsAfterLostConnection() throws Exception {
+        /* Positive Test Case: After the owner drops the connection, the next request opens a new one. */
+        try (ServerSocket owner = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+             ShardClient client = new ShardClient((InetSocketAddress) owner.getLocalSocketAddress(), Duration.ofSeconds(5))) {
+            CompletableFuture<Boolean> lost = client.forwardRequest("user1", 1);
+            try (Socket dropped = owner.accept()) {
+                DataInputStream request = new DataInputStream(dropped.getInputStream());
+                request.readInt();
+                request.readByte();
+                request.readUTF();
+                request.readLong(); // Drop the connection without answering
+            }
+            assertThrows(CompletionException.class, lost::join);
+
+            CompletableFuture<Boolean> response = client.forwardRequest("user1", 3);
+            try (Socket reopened = owner.accept()) {
+                DataInputStream request = new DataInputStream(reopened.getInputStream());
+                int requestId = request.readInt();
+                assertEquals(1, request.readByte()); // Validate
+                assertEquals("user1", request.readUTF());
+                assertEquals(3, request.readLong());
+                DataOutputStream reply = new DataOutputStream(reopened.getOutputStream());
+                reply.writeInt(requestId);
+                reply.writeByte(1); // Allowed
+                reply.flush();
+                assertTrue(response.get(5, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedFrameGoesToErrorHandler() throws Exception {
+        /* Negative Test Case: A connection dropped for an oversized handoff is reported to the error handler. */
+        ConsistentHashRing single = ConsistentHashRing.of(List.of("node-a"), 128);
+        ShardedRateLimiter owner = new ShardedRateLimiter("node-a",
+                new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock), single, Duration.ofSeconds(1));
+        CompletableFuture<Exception> reported = new CompletableFuture<>();
+        try (ShardServer server = new ShardServer(owner, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            server.setErrorHandler(reported::complete);
+            try (Socket socket = new Socket()) {
+                socket.connect(server.getAddress());
+                DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+                output.writeInt(1);
+                output.writeByte(2); // Handoff
+                output.writeUTF("user1");
+                output.writeInt(Integer.MAX_VALUE);
+                output.flush();
+                assertEquals("Handoff state too large: " + Integer.MAX_VALUE, reported.get(5, TimeUnit.SECONDS).getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package titanVault.eventsTest.largeDatasetTest;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import titanVault.events.LockWaitEvent;
+import titanVault.events.SlowDecisionEvent;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.service.InstrumentedRateLimiter;
+import titanVault.service.RateLimiter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Measures what the flight recorder events add to a decision. Production runs keep a
+ * recording going with the limiter events off, so that case, and the time after a
+ * recording that had them on, must cost nothing over never recording at all. Turning
+ * the slow decision event on costs two clock reads per call.
+ */
+class LimiterEventsLargeTest {
+
+    private static final int CALLS = 10_000_000;
+    private static final int ATTEMPTS = 10;
+
+    @Test
+    public void testDisabledEventsCostNothing() {
+        /* Positive Test Case: Disabled limiter events add under 2 ns per call, during and after recordings. */
+        long[] keys = new long[1_024];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+        RateLimiter nearlyFree = new RateLimiter() {
+            @Override
+            public boolean validateRequest(String userId) {
+                return true;
+            }
+
+            @Override
+            public boolean validateRequest(long key) {
+                return (key & 1) == 0;
+            }
+        };
+        InstrumentedRateLimiter instrumented = new InstrumentedRateLimiter(nearlyFree, new LimiterMetrics(256));
+
+        long withoutRecording = bestRun(instrumented, keys);
+        long eventsDisabled;
+        try (Recording recording = new Recording()) {
+            recording.disable(SlowDecisionEvent.class);
+            recording.disable(LockWaitEvent.class);
+            recording.start();
+            eventsDisabled = bestRun(instrumented, keys);
+        }
+        try (Recording recording = new Recording()) {
+            recording.enable(SlowDecisionEvent.class); // Default 1 ms threshold, so nothing is written
+            recording.start();
+            bestRun(instrumented, keys);
+        }
+        long afterRecording = bestRun(instrumented, keys);
+
+        double disabledOverhead = (double) (eventsDisabled - withoutRecording) / CALLS;
+        double afterOverhead = (double) (afterRecording - withoutRecording) / CALLS;
+        assertTrue(disabledOverhead < 2, "Disabled events should cost nothing, cost " + disabledOverhead + " ns per call");
+        assertTrue(afterOverhead < 2, "Events should cost nothing once recording stops, cost " + afterOverhead + " ns per call");
+    }
+
+    private static long bestRun(RateLimiter limiter, long[] keys) {
+        long best = Long.MAX_VALUE;
+        long allowed = 0;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                if (limiter.validateRequest(keys[i & 1_023])) {
+                    allowed++;
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        assertEquals((long) ATTEMPTS * CALLS / 2, allowed);
+        return best;
+    }
+}
@@ -0,0 +1,206 @@
+package titanVault.eventsTest.smallDatasetTest;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import titanVault.events.BucketCreatedEvent;
+import titanVault.events.CircuitBreakerTransitionEvent;
+import titanVault.events.ConfigReloadEvent;
+import titanVault.events.KeysEvictedEvent;
+import titanVault.events.LockWaitEvent;
+import titanVault.events.SlowDecisionEvent;
+import titanVault.management.ManagedRateLimiter;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.model.CircuitBreaker;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.InstrumentedRateLimiter;
+import titanVault.service.KeyRuleRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterEventsSmallTest {
+
+    private final AtomicLong currentMillis = new AtomicLong(Instant.parse("2024-08-01T00:00:00Z").toEpochMilli());
+    private final Clock movingClock = new Clock() {
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(currentMillis.get()); }
+    };
+
+    @Test
+    public void testDecisionAndBucketEvents() throws Exception {
+        /* Positive Test Case: With the threshold at zero every decision is written, with its algorithm and key hash. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(1, Duration.ofMinutes(1), 1, movingClock);
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter(tokenBucket, new LimiterMetrics(1));
+
+        List<RecordedEvent> events = record(Duration.ZERO, () -> {
+            limiter.validateRequest("user1");
+            limiter.validateRequest("user1");
+            limiter.validateRequest(42L);
+        });
+
+        List<RecordedEvent> decisions = named(events, "titanVault.SlowDecision");
+        assertEquals(3, decisions.size());
+        assertEquals("TokenBucketServiceRateLimiter", decisions.get(0).getString("algorithm"));
+        assertEquals("user1".hashCode(), decisions.get(0).getInt("keyHash"), "Keys are written as hashes.");
+        assertTrue(decisions.get(0).getBoolean("allowed"));
+        assertFalse(decisions.get(1).getBoolean("allowed"));
+        assertEquals(Long.hashCode(42L), decisions.get(2).getInt("keyHash"));
+
+        List<RecordedEvent> created = named(events, "titanVault.BucketCreated");
+        assertEquals(2, created.size(), "One bucket per new key.");
+        assertEquals("user1".hashCode(), created.get(0).getInt("keyHash"));
+        assertEquals(3, named(events, "titanVault.LockWait").size(), "Every lock acquisition passes a zero threshold.");
+    }
+
+    @Test
+    public void testThresholdKeepsFastDecisionsOut() throws Exception {
+        /* Positive Test Case: At the default threshold only the decision that takes longer than 1 ms is written. */
+        RateLimiter slowForOneUser = new RateLimiter() {
+            @Override
+            public boolean validateRequest(String userId) {
+                if (userId.equals("slow")) {
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return true;
+            }
+        };
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter(slowForOneUser, new LimiterMetrics(1));
+
+        List<RecordedEvent> events = record(null, () -> {
+            for (int i = 0; i < 100; i++) {
+                limiter.validateRequest("fast");
+            }
+            limiter.validateRequest("slow");
+        });
+
+        List<RecordedEvent> decisions = named(events, "titanVault.SlowDecision");
+        assertEquals(1, decisions.size());
+        assertEquals("slow".hashCode(), decisions.get(0).getInt("keyHash"));
+        assertTrue(decisions.get(0).getDuration().toMillis() >= 5, "The event duration is the decision time.");
+    }
+
+    @Test
+    public void testCircuitBreakerTransitions() throws Exception {
+        /* Positive Test Case: Each state change is written once, repeated outcomes are not. */
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 1_000, movingClock);
+
+        List<RecordedEvent> events = record(null, () -> {
+            circuitBreaker.recordSuccess();
+            circuitBreaker.recordFailure();
+            circuitBreaker.recordFailure();
+            circuitBreaker.recordFailure();
+            currentMillis.addAndGet(2_000);
+            circuitBreaker.isCallAllowed();
+            circuitBreaker.recordSuccess();
+        });
+
+        List<String> transitions = named(events, "titanVault.CircuitBreakerTransition").stream()
+                .map(event -> event.getString("fromState") + "->" + event.getString("toState"))
+                .collect(Collectors.toList());
+        assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+    }
+
+    @Test
+    public void testReloadAndEvictionEvents() throws Exception {
+        /* Positive Test Case: Reconfigurations and dropped keys are written with their source and size. */
+        ManagedRateLimiter managed = new ManagedRateLimiter("api",
+                new FixedWindowServiceRateLimiter(5, Duration.ofMinutes(1), movingClock), new LimiterMetrics(1), movingClock);
+        TokenBucketServiceRateLimiter rule = new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 1, movingClock);
+        KeyRuleRateLimiter keyRules = new KeyRuleRateLimiter(Map.of("acme:*", rule), rule, 2);
+
+        List<RecordedEvent> events = record(null, () -> {
+            managed.updateConfiguration(10, 30_000);
+            keyRules.validateRequest("acme:1");
+            keyRules.validateRequest("acme:2");
+            keyRules.validateRequest("acme:3");
+            keyRules.updateRules(Map.of("acme:*", rule, "beta:*", rule));
+        });
+
+        List<RecordedEvent> reloads = named(events, "titanVault.ConfigReload");
+        assertEquals(2, reloads.size());
+        assertEquals("api", reloads.get(0).getString("source"));
+        assertEquals("FixedWindowServiceRateLimiter", reloads.get(0).getString("algorithm"));
+        assertTrue(reloads.get(0).getBoolean("applied"));
+        assertEquals(2, reloads.get(1).getInt("limitersChanged"));
+
+        List<RecordedEvent> evictions = named(events, "titanVault.KeysEvicted");
+        assertEquals(1, evictions.size());
+        assertEquals(2, evictions.get(0).getLong("keys"));
+    }
+
+    @Test
+    public void testDisabledEventsAreNotWritten() throws Exception {
+        /* Negative Test Case: A recording that does not enable the events gets none of them. */
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter(
+                new FixedWindowServiceRateLimiter(5, Duration.ofMinutes(1), movingClock), new LimiterMetrics(1));
+        Path dump = Files.createTempFile("limiter-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.disable(SlowDecisionEvent.class);
+            recording.disable(LockWaitEvent.class);
+            recording.disable(BucketCreatedEvent.class);
+            recording.start();
+            limiter.validateRequest("user1");
+            recording.stop();
+            recording.dump(dump);
+            assertTrue(RecordingFile.readAllEvents(dump).stream()
+                    .noneMatch(event -> event.getEventType().getName().startsWith("titanVault.")));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    /**
+     * Run an action under a recording of the limiter events and read back what was written.
+     *
+     * @param threshold Threshold of the duration events, or null for their defaults.
+     */
+    private static List<RecordedEvent> record(Duration threshold, Runnable action) throws Exception {
+        Path dump = Files.createTempFile("limiter-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            if (threshold == null) {
+                recording.enable(SlowDecisionEvent.class);
+                recording.enable(LockWaitEvent.class);
+            } else {
+                recording.enable(SlowDecisionEvent.class).withThreshold(threshold);
+                recording.enable(LockWaitEvent.class).withThreshold(threshold);
+            }
+            recording.enable(BucketCreatedEvent.class);
+            recording.enable(KeysEvictedEvent.class);
+            recording.enable(CircuitBreakerTransitionEvent.class);
+            recording.enable(ConfigReloadEvent.class);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+            return RecordingFile.readAllEvents(dump);
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((first, second) -> first.getStartTime().compareTo(second.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
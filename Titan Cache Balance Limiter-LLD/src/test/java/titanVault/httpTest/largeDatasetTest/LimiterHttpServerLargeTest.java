@@ -0,0 +1,87 @@
+package titanVault.httpTest.largeDatasetTest;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.Test;
+import titanVault.controller.TokenBucketRateLimiterController;
+import titanVault.http.LimiterHttpServer;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterHttpServerLargeTest {
+
+    private static final int CLIENT_THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 5_000;
+    private static final int KEY_COUNT = 1_000;
+    private static final int CAPACITY = 20;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testKeepAliveLoad() throws Exception {
+        /* Positive Test Case: Pooled keep-alive clients measure requests/s and latency with exact limits. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(CAPACITY, Duration.ofDays(1), 1, fixedClock);
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(CLIENT_THREADS);
+        connections.setDefaultMaxPerRoute(CLIENT_THREADS);
+        try (LimiterHttpServer server = new LimiterHttpServer(new InetSocketAddress("127.0.0.1", 0), 4);
+             CloseableHttpClient client = HttpClients.custom().setConnectionManager(connections).build()) {
+            server.addRoute("token", new TokenBucketRateLimiterController(limiter)::handleRequest, limiter);
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/limiters/token/check?user=user";
+
+            AtomicLong allowed = new AtomicLong();
+            AtomicLong limitedWithRetryAfter = new AtomicLong();
+            long[][] latencies = new long[CLIENT_THREADS][REQUESTS_PER_THREAD];
+            List<Thread> threads = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < CLIENT_THREADS; t++) {
+                int thread = t;
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            long sent = System.nanoTime();
+                            HttpResponse response = client.execute(new HttpGet(url + ((thread * REQUESTS_PER_THREAD + i) % KEY_COUNT)));
+                            EntityUtils.consume(response.getEntity());
+                            latencies[thread][i] = System.nanoTime() - sent;
+                            if (response.getStatusLine().getStatusCode() == 200) {
+                                allowed.incrementAndGet();
+                            } else if (response.getFirstHeader("Retry-After") != null) {
+                                limitedWithRetryAfter.incrementAndGet();
+                            }
+                        }
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            int total = CLIENT_THREADS * REQUESTS_PER_THREAD;
+            assertEquals((long) KEY_COUNT * CAPACITY, allowed.get(), "Every key admits exactly its capacity.");
+            assertEquals(total - allowed.get(), limitedWithRetryAfter.get(), "Every 429 carries Retry-After.");
+            double requestsPerSecond = total * 1_000_000_000.0 / elapsedNanos;
+            assertTrue(requestsPerSecond > 1_000, "Keep-alive connections serve " + requestsPerSecond + " requests/s.");
+            assertTrue(all[total * 99 / 100] < 100_000_000L, "The p99 latency is " + all[total * 99 / 100] / 1_000 + " us.");
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package titanVault.httpTest.smallDatasetTest;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import titanVault.controller.FixedWindowRateLimiterController;
+import titanVault.controller.TokenBucketRateLimiterController;
+import titanVault.http.LimiterHttpServer;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterHttpServerSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    private LimiterHttpServer server;
+    private CloseableHttpClient client;
+    private String baseUrl;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        TokenBucketServiceRateLimiter tokenLimiter = new TokenBucketServiceRateLimiter(3, Duration.ofSeconds(10), 1, fixedClock);
+        FixedWindowServiceRateLimiter windowLimiter = new FixedWindowServiceRateLimiter(2, Duration.ofMinutes(1), fixedClock);
+        server = new LimiterHttpServer(new InetSocketAddress("127.0.0.1", 0), 2);
+        server.addRoute("token", new TokenBucketRateLimiterController(tokenLimiter)::handleRequest, tokenLimiter);
+        server.addRoute("window", new FixedWindowRateLimiterController(windowLimiter)::validateRequest);
+        client = HttpClients.createDefault();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/limiters/";
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testAllowedRequestCarriesRateLimitHeaders() throws IOException {
+        /* Positive Test Case: An allowed request returns 200 with the limit and remaining tokens. */
+        HttpResponse response = client.execute(new HttpGet(baseUrl + "token/check?user=user1"));
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals("allowed\n", EntityUtils.toString(response.getEntity()));
+        assertEquals("3", response.getFirstHeader("RateLimit-Limit").getValue());
+        assertEquals("2", response.getFirstHeader("RateLimit-Remaining").getValue());
+        assertEquals("10", response.getFirstHeader("RateLimit-Reset").getValue(), "One token refills in one 10 s period.");
+        assertNull(response.getFirstHeader("Retry-After"));
+    }
+
+    @Test
+    public void testLimitedRequestReturns429WithRetryAfter() throws IOException {
+        /* Positive Test Case: Once the bucket is empty the server answers 429 with Retry-After from the refill time. */
+        for (int i = 0; i < 3; i++) {
+            EntityUtils.consume(client.execute(new HttpGet(baseUrl + "token/check?user=user1")).getEntity());
+        }
+        HttpResponse response = client.execute(new HttpGet(baseUrl + "token/check?user=user1"));
+        assertEquals(429, response.getStatusLine().getStatusCode());
+        EntityUtils.consume(response.getEntity());
+        assertEquals("0", response.getFirstHeader("RateLimit-Remaining").getValue());
+        assertEquals("10", response.getFirstHeader("Retry-After").getValue());
+        assertEquals("30", response.getFirstHeader("RateLimit-Reset").getValue(), "Three refills are needed to fill the bucket.");
+    }
+
+    @Test
+    public void testRouteWithoutStateSourceOmitsHeaders() throws IOException {
+        /* Positive Test Case: A route registered without a limiter still decides but sends no RateLimit headers. */
+        for (int i = 0; i < 2; i++) {
+            EntityUtils.consume(client.execute(new HttpGet(baseUrl + "window/check?user=user1")).getEntity());
+        }
+        HttpResponse response = client.execute(new HttpGet(baseUrl + "window/check?user=user1"));
+        EntityUtils.consume(response.getEntity());
+        assertEquals(429, response.getStatusLine().getStatusCode());
+        assertNull(response.getFirstHeader("RateLimit-Limit"));
+    }
+
+    @Test
+    public void testBatchEndpointDecidesEveryLine() throws IOException {
+        /* Positive Test Case: The batch endpoint answers one line per user id in order. */
+        HttpPost post = new HttpPost(baseUrl + "token/batch");
+        post.setEntity(new StringEntity("user1\nuser1\nuser1\nuser1\nuser2\n"));
+        HttpResponse response = client.execute(post);
+        assertEquals(200, response.getStatusLine().getStatusCode());
+        assertEquals("allowed\nallowed\nallowed\nlimited\nallowed\n", EntityUtils.toString(response.getEntity()));
+    }
+
+    @Test
+    public void testUnknownRouteAndMissingUser() throws IOException {
+        /* Negative Test Case: Unknown limiters return 404 and a missing user id returns 400. */
+        HttpResponse unknown = client.execute(new HttpGet(baseUrl + "missing/check?user=user1"));
+        EntityUtils.consume(unknown.getEntity());
+        assertEquals(404, unknown.getStatusLine().getStatusCode());
+
+        HttpResponse noUser = client.execute(new HttpGet(baseUrl + "token/check"));
+        EntityUtils.consume(noUser.getEntity());
+        assertEquals(400, noUser.getStatusLine().getStatusCode());
+    }
+
+    @Test
+    public void testHeadersShowTheStateTheirDecisionLeft() throws Exception {
+        /* Positive Test Case: Concurrent requests of one key each see the tokens their own decision left. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(200, Duration.ofDays(1), 1, fixedClock);
+        server.addRoute("shared", new TokenBucketRateLimiterController(limiter)::handleRequest, limiter);
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setDefaultMaxPerRoute(4);
+        Set<Long> remainingAfterAllowed = ConcurrentHashMap.newKeySet();
+        try (CloseableHttpClient pooled = HttpClients.custom().setConnectionManager(connections).build()) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < 60; i++) {
+                        try {
+                            HttpResponse response = pooled.execute(new HttpGet(baseUrl + "shared/check?user=user1"));
+                            EntityUtils.consume(response.getEntity());
+                            if (response.getStatusLine().getStatusCode() == 200) {
+                                remainingAfterAllowed.add(Long.parseLong(response.getFirstHeader("RateLimit-Remaining").getValue()));
+                            }
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        assertEquals(LongStream.range(0, 200).boxed().collect(Collectors.toSet()), remainingAfterAllowed,
+                "Each of the 200 admitted requests reports a different number of tokens left.");
+    }
+
+    @Test
+    public void testBadInputIs400AndFailedControllerIs500() throws Exception {
+        /* Negative Test Case: An empty user id is a client error; a controller failing otherwise is a server error. */
+        CompletableFuture<RuntimeException> reported = new CompletableFuture<>();
+        server.setErrorHandler(reported::complete);
+        server.addRoute("broken", userId -> {
+            throw new IllegalStateException("Limiter unavailable");
+        });
+
+        HttpResponse emptyUser = client.execute(new HttpGet(baseUrl + "token/check?user=%20"));
+        EntityUtils.consume(emptyUser.getEntity());
+        assertEquals(400, emptyUser.getStatusLine().getStatusCode());
+
+        HttpResponse failed = client.execute(new HttpGet(baseUrl + "broken/check?user=user1"));
+        assertEquals(500, failed.getStatusLine().getStatusCode());
+        assertEquals("internal error\n", EntityUtils.toString(failed.getEntity()));
+        assertEquals("Limiter unavailable", reported.get(5, TimeUnit.SECONDS).getMessage());
+    }
+
+    @Test
+    public void testRejectsInvalidRouteName() {
+        /* Negative Test Case: Route names must be a single path segment. */
+        assertThrows(IllegalArgumentException.class, () -> server.addRoute("a/b", userId -> true));
+    }
+}
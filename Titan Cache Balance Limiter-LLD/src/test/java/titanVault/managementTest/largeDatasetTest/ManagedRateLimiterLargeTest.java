@@ -0,0 +1,57 @@
+package titanVault.managementTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.management.ManagedRateLimiter;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagedRateLimiterLargeTest {
+
+    private static final int KEYS = 100_000;
+    private static final int RECONFIGURATIONS = 5;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testReconfigureWhileServingTraffic() throws InterruptedException {
+        /* Positive Test Case: Requests keep being served while 100,000 buckets are copied into new limiters. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(1_000_000, Duration.ofMinutes(1), 1, fixedClock);
+        ManagedRateLimiter limiter = new ManagedRateLimiter("api", tokenBucket, new LimiterMetrics(256), fixedClock);
+        for (int key = 0; key < KEYS; key++) {
+            limiter.validateRequest("user" + key);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong served = new AtomicLong();
+        Thread traffic = new Thread(() -> {
+            int key = 0;
+            while (running.get()) {
+                assertTrue(limiter.validateRequest("user" + (key++ % KEYS)));
+                served.incrementAndGet();
+            }
+        });
+        traffic.start();
+        try {
+            for (int i = 1; i <= RECONFIGURATIONS; i++) {
+                limiter.updateConfiguration(1_000_000L + i, 60_000);
+            }
+        } finally {
+            running.set(false);
+            traffic.join();
+        }
+
+        assertEquals(1_000_000L + RECONFIGURATIONS, ((TokenBucketServiceRateLimiter) limiter.getLimiter()).getMaxCapacity());
+        assertEquals(KEYS, limiter.getKeyCount());
+        assertTrue(served.get() > 0, "Traffic should keep flowing during the reconfigurations.");
+        assertEquals(KEYS + served.get(), limiter.getAllowedRequests());
+    }
+}
@@ -0,0 +1,132 @@
+package titanVault.managementTest.smallDatasetTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import titanVault.management.LimiterMXBean;
+import titanVault.management.ManagedRateLimiter;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.service.AdaptiveBucketServiceRateLimiter;
+import titanVault.service.EMABucketServiceRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagedRateLimiterSmallTest {
+
+    private final AtomicLong currentMillis = new AtomicLong(Instant.parse("2024-08-01T00:00:00Z").toEpochMilli());
+    private final Clock movingClock = new Clock() {
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(currentMillis.get()); }
+    };
+
+    private MBeanServer server;
+
+    @BeforeEach
+    public void setUp() {
+        server = MBeanServerFactory.newMBeanServer(); // Private server, so tests do not share registrations
+    }
+
+    @Test
+    public void testAttributesOverJmx() throws Exception {
+        /* Positive Test Case: Counts, rates, key count and hot keys are readable through an MXBean proxy. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, movingClock);
+        ManagedRateLimiter limiter = new ManagedRateLimiter("api", tokenBucket, new LimiterMetrics(1), movingClock);
+        ObjectName objectName = limiter.register(server);
+        LimiterMXBean proxy = JMX.newMXBeanProxy(server, objectName, LimiterMXBean.class);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.validateRequest("hot");
+        }
+        limiter.validateRequest("cold");
+        currentMillis.addAndGet(2_000);
+
+        assertEquals("TokenBucketServiceRateLimiter", proxy.getAlgorithm());
+        assertEquals(3, proxy.getAllowedRequests());
+        assertEquals(1, proxy.getDeniedRequests());
+        assertEquals(2, proxy.getKeyCount());
+        assertEquals(2.0, proxy.getThroughput(), 1e-9, "Four decisions over two seconds.");
+        assertEquals(0.25, proxy.getDenyRate(), 1e-9);
+        assertEquals("hot=3", proxy.getHotKeys()[0]);
+        assertEquals(3L, server.getAttribute(objectName, "AllowedRequests"));
+    }
+
+    @Test
+    public void testUpdateConfigurationSwapsTokenBucket() throws Exception {
+        /* Positive Test Case: Reconfiguring over JMX swaps in a new token bucket limiter that keeps each user's share. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, movingClock);
+        ManagedRateLimiter limiter = new ManagedRateLimiter("api", tokenBucket, new LimiterMetrics(1), movingClock);
+        ObjectName objectName = limiter.register(server);
+        limiter.validateRequest("user1");
+
+        server.invoke(objectName, "updateConfiguration", new Object[]{10L, 60_000L}, new String[]{"long", "long"});
+
+        assertNotSame(tokenBucket, limiter.getLimiter());
+        assertEquals(10, ((TokenBucketServiceRateLimiter) limiter.getLimiter()).getMaxCapacity());
+        int allowed = 0;
+        while (limiter.validateRequest("user1")) {
+            allowed++;
+        }
+        assertEquals(5, allowed, "Half of the old bucket was left, so half of the new one is.");
+        assertEquals(1, limiter.getKeyCount());
+    }
+
+    @Test
+    public void testUpdateConfigurationOfOtherAlgorithms() {
+        /* Positive Test Case: Fixed windows are swapped and EMA buckets are updated in place. */
+        FixedWindowServiceRateLimiter fixedWindow = new FixedWindowServiceRateLimiter(1, Duration.ofMinutes(1), movingClock);
+        ManagedRateLimiter windowLimiter = new ManagedRateLimiter("window", fixedWindow, new LimiterMetrics(1), movingClock);
+        windowLimiter.updateConfiguration(3, 60_000);
+        assertNotSame(fixedWindow, windowLimiter.getLimiter());
+        assertTrue(windowLimiter.validateRequest("user1"));
+
+        EMABucketServiceRateLimiter ema = new EMABucketServiceRateLimiter(5, Duration.ofMinutes(1), movingClock);
+        ManagedRateLimiter emaLimiter = new ManagedRateLimiter("ema", ema, new LimiterMetrics(1), movingClock);
+        emaLimiter.validateRequest("user1");
+        emaLimiter.updateConfiguration(10, 30_000);
+        assertSame(ema, emaLimiter.getLimiter());
+        assertEquals(10, ema.getMaxCapacity(), "Buckets created after the update use the new capacity.");
+        assertEquals(Duration.ofSeconds(30), ema.getAveragingPeriod());
+    }
+
+    @Test
+    public void testPerUserOperationsOnAdaptiveLimiter() throws Exception {
+        /* Positive Test Case: User limits can be changed and reset over JMX. */
+        AdaptiveBucketServiceRateLimiter adaptive = new AdaptiveBucketServiceRateLimiter(1);
+        ManagedRateLimiter limiter = new ManagedRateLimiter("adaptive", adaptive, new LimiterMetrics(1), movingClock);
+        LimiterMXBean proxy = JMX.newMXBeanProxy(server, limiter.register(server), LimiterMXBean.class);
+        limiter.validateRequest("user1");
+
+        proxy.updateUserLimit("user1", 3);
+        assertTrue(limiter.validateRequest("user1"), "The raised limit should allow another request.");
+        proxy.resetUserLimiter("user1");
+        assertThrows(IllegalArgumentException.class, () -> proxy.resetUserLimiter("unknown"));
+    }
+
+    @Test
+    public void testUnsupportedOperationsAndInvalidArguments() throws Exception {
+        /* Negative Test Case: Operations a limiter lacks and invalid settings are rejected. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, movingClock);
+        ManagedRateLimiter limiter = new ManagedRateLimiter("api", tokenBucket, new LimiterMetrics(1), movingClock);
+        assertThrows(UnsupportedOperationException.class, () -> limiter.updateUserLimit("user1", 5));
+        assertThrows(UnsupportedOperationException.class, () -> limiter.resetUserLimiter("user1"));
+        assertThrows(IllegalArgumentException.class, () -> limiter.updateConfiguration(5, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ManagedRateLimiter("", tokenBucket, new LimiterMetrics(1), movingClock));
+
+        limiter.register(server);
+        assertThrows(InstanceAlreadyExistsException.class, () -> limiter.register(server),
+                "A name can only be registered once.");
+    }
+}
@@ -0,0 +1,104 @@
+package titanVault.metricsTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.HeavyHitterTracker;
+import titanVault.metrics.HeavyHitters;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Feeds heavy hitter tracking Zipf-distributed traffic over a million keys, the shape of
+ * real API traffic, and checks that the top keys are found in fixed memory at a cost that
+ * allows every request to be recorded.
+ */
+class HeavyHittersLargeTest {
+
+    private static final int KEYS = 1_000_000;
+    private static final int REQUESTS = 20_000_000;
+    private static final int TOP = 20;
+
+    @Test
+    public void testFindsTopKeysOfZipfTraffic() {
+        /* Positive Test Case: The 20 hottest of a million Zipf-distributed keys are found with a 64K-counter sketch. */
+        long[] stream = zipfStream(new Random(42), REQUESTS);
+        HeavyHitters heavyHitters = new HeavyHitters(64, 16_384, 4);
+
+        for (long key : stream) {
+            heavyHitters.record(key); // Warm up
+        }
+        heavyHitters = new HeavyHitters(64, 16_384, 4);
+        long start = System.nanoTime();
+        for (long key : stream) {
+            heavyHitters.record(key);
+        }
+        double nanosPerRecord = (System.nanoTime() - start) / (double) stream.length;
+
+        Set<String> expected = new HashSet<>();
+        for (int rank = 0; rank < TOP; rank++) {
+            expected.add(Long.toString(rank));
+        }
+        Set<String> found = heavyHitters.topKeys(TOP).stream().map(Map.Entry::getKey).collect(Collectors.toSet());
+        found.retainAll(expected);
+        assertEquals(TOP, found.size(), "Every one of the top keys should be found.");
+        assertEquals("0", heavyHitters.topKeys(1).get(0).getKey());
+        assertTrue(nanosPerRecord < 500, "Recording should be cheap enough for every request, was " + nanosPerRecord + " ns");
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        /* Positive Test Case: Threads recording at once lose no counts and agree on the hottest keys. */
+        HeavyHitterTracker tracker = new HeavyHitterTracker(32, 16_384, 4);
+        int threads = 4;
+        int perThread = 1_000_000;
+        Thread[] workers = new Thread[threads];
+        long deniedRequests = 0;
+        for (int t = 0; t < threads; t++) {
+            long[] stream = zipfStream(new Random(t), perThread);
+            deniedRequests += Arrays.stream(stream).filter(key -> key == 1).count();
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    tracker.recordDecision(stream[i], stream[i] != 1);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Map.Entry<String, Long>> hottest = tracker.getHottestKeys(2);
+        assertEquals("0", hottest.get(0).getKey());
+        assertEquals("1", hottest.get(1).getKey());
+        Map.Entry<String, Long> throttled = tracker.getThrottledKeys(1).get(0);
+        assertEquals("1", throttled.getKey(), "Only key 1 is denied.");
+        assertEquals(deniedRequests, throttled.getValue(), "No count is lost, and key 1 shares no counter when it is the only key.");
+        assertTrue(hottest.get(1).getValue() >= deniedRequests, "Estimates never fall below the true count.");
+    }
+
+    /**
+     * Draw keys with a Zipf distribution of exponent 1: key 0 is the most frequent, key n
+     * about n + 1 times rarer.
+     */
+    private static long[] zipfStream(Random random, int length) {
+        double[] cumulative = new double[KEYS];
+        double total = 0;
+        for (int rank = 0; rank < KEYS; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        long[] stream = new long[length];
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            stream[i] = index >= 0 ? index : -index - 1;
+        }
+        return stream;
+    }
+}
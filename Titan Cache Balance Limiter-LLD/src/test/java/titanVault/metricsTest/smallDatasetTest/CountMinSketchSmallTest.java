@@ -0,0 +1,66 @@
+package titanVault.metricsTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.CountMinSketch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchSmallTest {
+
+    @Test
+    public void testEstimatesNeverUnderestimate() {
+        /* Positive Test Case: Every estimate is at least the true count, and close to it in a wide sketch. */
+        CountMinSketch sketch = new CountMinSketch(1_024, 4);
+        for (int key = 0; key < 200; key++) {
+            for (int i = 0; i <= key % 10; i++) {
+                sketch.add(CountMinSketch.hash(key));
+            }
+        }
+        for (int key = 0; key < 200; key++) {
+            long estimate = sketch.estimate(CountMinSketch.hash(key));
+            assertTrue(estimate >= key % 10 + 1, "Key " + key + " was estimated at " + estimate);
+            assertTrue(estimate <= key % 10 + 1 + 10, "A 1,024-wide sketch with 1,100 counts should be close.");
+        }
+        assertTrue(sketch.estimate(CountMinSketch.hash(1_000)) <= 10, "An unseen key should estimate near zero.");
+    }
+
+    @Test
+    public void testAddReturnsEstimate() {
+        /* Positive Test Case: add returns the estimate including the new occurrence. */
+        CountMinSketch sketch = new CountMinSketch(64, 2);
+        long hash = CountMinSketch.hash(42);
+        assertEquals(1, sketch.add(hash));
+        assertEquals(2, sketch.add(hash));
+        assertEquals(2, sketch.estimate(hash));
+    }
+
+    @Test
+    public void testDecayHalvesCounts() {
+        /* Positive Test Case: Decay halves every counter. */
+        CountMinSketch sketch = new CountMinSketch(64, 3);
+        long hash = CountMinSketch.hash(7);
+        for (int i = 0; i < 9; i++) {
+            sketch.add(hash);
+        }
+        sketch.decay();
+        assertEquals(4, sketch.estimate(hash));
+    }
+
+    @Test
+    public void testStringHashUsesCharactersAndSeed() {
+        /* Positive Test Case: Strings with equal hash codes hash apart, and the seed changes every hash. */
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        assertNotEquals(CountMinSketch.hash(7, "Aa"), CountMinSketch.hash(7, "BB"));
+        assertEquals(CountMinSketch.hash(7, "Aa"), CountMinSketch.hash(7, new StringBuilder("Aa")));
+        assertNotEquals(CountMinSketch.hash(7, "Aa"), CountMinSketch.hash(8, "Aa"));
+    }
+
+    @Test
+    public void testWidthIsRoundedAndValidated() {
+        /* Negative Test Case: Widths round up to a power of two and invalid sizes are rejected. */
+        assertEquals(128 * 3, new CountMinSketch(100, 3).getCounterCount());
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(64, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(64, 17));
+    }
+}
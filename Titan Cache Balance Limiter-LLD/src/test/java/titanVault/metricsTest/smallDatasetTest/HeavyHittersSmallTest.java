@@ -0,0 +1,103 @@
+package titanVault.metricsTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.HeavyHitterTracker;
+import titanVault.metrics.HeavyHitters;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersSmallTest {
+
+    @Test
+    public void testRanksKeysByCount() {
+        /* Positive Test Case: The most frequent keys are listed first with their counts. */
+        HeavyHitters heavyHitters = new HeavyHitters(4, 256, 4);
+        for (int i = 0; i < 5; i++) {
+            heavyHitters.record("a");
+        }
+        heavyHitters.record("b");
+        heavyHitters.record("b");
+        heavyHitters.record("c");
+
+        List<Map.Entry<String, Long>> top = heavyHitters.topKeys(2);
+        assertEquals(List.of(Map.entry("a", 5L), Map.entry("b", 2L)), top);
+        assertEquals(5, heavyHitters.estimate("a"));
+    }
+
+    @Test
+    public void testHotKeysSurviveManyRareKeys() {
+        /* Positive Test Case: Three hot keys hold their places among ten thousand keys seen once each. */
+        HeavyHitters heavyHitters = new HeavyHitters(8, 1_024, 4);
+        for (int i = 0; i < 10_000; i++) {
+            heavyHitters.record("rare" + i);
+            if (i % 4 == 0) {
+                heavyHitters.record("hot1");
+            }
+            if (i % 8 == 0) {
+                heavyHitters.record("hot2");
+                heavyHitters.record(99L);
+            }
+        }
+        List<String> top = heavyHitters.topKeys(3).stream().map(Map.Entry::getKey).collect(Collectors.toList());
+        assertEquals("hot1", top.get(0));
+        assertTrue(top.containsAll(List.of("hot2", "99")), "Primitive keys are reported in their String form: " + top);
+        assertTrue(heavyHitters.topKeys(3).get(0).getValue() >= 2_500, "Count-min estimates never underestimate.");
+    }
+
+    @Test
+    public void testDecayLetsNewKeysTakeOver() {
+        /* Positive Test Case: After decay, new traffic outweighs old traffic. */
+        HeavyHitters heavyHitters = new HeavyHitters(1, 256, 4);
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record("old");
+        }
+        for (int round = 0; round < 4; round++) {
+            heavyHitters.decay();
+        }
+        for (int i = 0; i < 20; i++) {
+            heavyHitters.record("new");
+        }
+        assertEquals("new", heavyHitters.topKeys(1).get(0).getKey());
+    }
+
+    @Test
+    public void testTrackerSeparatesThrottledKeys() {
+        /* Positive Test Case: Denied requests are ranked separately from all requests. */
+        HeavyHitterTracker tracker = new HeavyHitterTracker(4, 256, 4);
+        for (int i = 0; i < 10; i++) {
+            tracker.recordDecision("busy", true);
+        }
+        for (int i = 0; i < 3; i++) {
+            tracker.recordDecision("abuser", false);
+        }
+        tracker.recordDecision(7L, false);
+
+        assertEquals("busy", tracker.getHottestKeys(1).get(0).getKey());
+        assertEquals(Map.entry("abuser", 3L), tracker.getThrottledKeys(1).get(0));
+        assertEquals(2, tracker.getThrottledKeys(5).size(), "Keys that were never denied are not throttled.");
+    }
+
+    @Test
+    public void testKeysWithEqualHashCodesAreCountedApart() {
+        /* Negative Test Case: Flooding a key with the same String hash code as a victim does not inflate the victim's count. */
+        HeavyHitters heavyHitters = new HeavyHitters(4, 1_024, 4);
+        for (int i = 0; i < 1_000; i++) {
+            heavyHitters.record("BB");
+        }
+        heavyHitters.record("Aa");
+        assertEquals(1, heavyHitters.estimate("Aa"));
+        assertEquals(List.of(Map.entry("BB", 1_000L), Map.entry("Aa", 1L)), heavyHitters.topKeys(2));
+    }
+
+    @Test
+    public void testInvalidSizes() {
+        /* Negative Test Case: Capacity and sketch sizes are validated. */
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(0, 256, 4));
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters(4, 0, 4));
+        assertTrue(new HeavyHitters(4, 256, 4).topKeys(3).isEmpty());
+    }
+}
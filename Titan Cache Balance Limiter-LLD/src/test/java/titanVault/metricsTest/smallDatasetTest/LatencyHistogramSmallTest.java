@@ -0,0 +1,119 @@
+package titanVault.metricsTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.LatencyHistogram;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.metrics.MetricsSnapshot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramSmallTest {
+
+    @Test
+    public void testSmallValuesAreExact() {
+        /* Positive Test Case: Values below 32 each have their own bucket. */
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10; value++) {
+            histogram.record(value);
+        }
+        assertEquals(10, histogram.getTotalCount());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+        assertEquals(5.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void testLargeValuesWithinRelativeError() {
+        /* Positive Test Case: Percentiles of large values are within about 3% of the recorded values. */
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        long p99 = histogram.getValueAtPercentile(99);
+        assertEquals(99_000_000, p99, 99_000_000 * 0.035);
+        assertEquals(100_000_000, histogram.getMaxValue(), "The maximum should be exact.");
+        assertTrue(histogram.getValueAtPercentile(100) <= histogram.getMaxValue());
+    }
+
+    @Test
+    public void testExtremeValuesAreCounted() {
+        /* Positive Test Case: The full long range fits the table and negative values count as 0. */
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+        assertEquals(2, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testEmptyHistogramAndInvalidPercentile() {
+        /* Negative Test Case: An empty histogram reports 0 and percentiles outside 0-100 are rejected. */
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMean());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        /* Positive Test Case: Values recorded after a copy do not change it, and reset empties the original. */
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(100);
+        LatencyHistogram copy = histogram.copy();
+        histogram.record(200);
+        assertEquals(1, copy.getTotalCount());
+        assertEquals(100, copy.getMaxValue());
+        histogram.reset();
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getMaxValue());
+    }
+
+    @Test
+    public void testConcurrentRecordsAreNotLost() throws InterruptedException {
+        /* Positive Test Case: Lock-free recording from several threads keeps every value. */
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(400_000, histogram.getTotalCount());
+    }
+
+    @Test
+    public void testPrometheusExport() {
+        /* Positive Test Case: A snapshot exports counters, the key gauge and latency summaries. */
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        metrics.recordDecision(true);
+        metrics.recordDecision(true);
+        metrics.recordDecision(false);
+        metrics.recordCreated();
+        metrics.recordDecisionLatency(2_000);
+        MetricsSnapshot snapshot = metrics.snapshot(1);
+
+        String text = snapshot.toPrometheus("api");
+        assertTrue(text.contains("titan_limiter_decisions_total{limiter=\"api\",result=\"allowed\"} 2\n"));
+        assertTrue(text.contains("titan_limiter_decisions_total{limiter=\"api\",result=\"denied\"} 1\n"));
+        assertTrue(text.contains("titan_limiter_buckets_created_total{limiter=\"api\"} 1\n"));
+        assertTrue(text.contains("titan_limiter_tracked_keys{limiter=\"api\"} 1\n"));
+        assertTrue(text.contains("titan_limiter_decision_seconds_count{limiter=\"api\"} 1\n"));
+        assertFalse(metrics.snapshot(-1).toPrometheus("api").contains("tracked_keys"),
+                "An unknown key count should not be exported.");
+    }
+
+    @Test
+    public void testSampleRateMustBePositive() {
+        /* Negative Test Case: Sample rates outside 1 to 2^30 are rejected. */
+        assertThrows(IllegalArgumentException.class, () -> new LimiterMetrics(0));
+        assertThrows(IllegalArgumentException.class, () -> new LimiterMetrics(-64));
+        assertTrue(new LimiterMetrics(1).sample(), "A rate of 1 samples every call.");
+    }
+}
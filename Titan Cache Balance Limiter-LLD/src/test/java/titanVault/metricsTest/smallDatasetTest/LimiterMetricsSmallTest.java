@@ -0,0 +1,101 @@
+package titanVault.metricsTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.LimiterMetrics;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterMetricsSmallTest {
+
+    @Test
+    public void testCountsOfEndedThreadsAreKept() throws InterruptedException {
+        /* Positive Test Case: Decisions of short-lived threads are still counted after their stripes are folded. */
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        for (int i = 0; i < 1_000; i++) {
+            boolean allowedRequest = i % 4 != 0;
+            Thread thread = Thread.ofVirtual().start(() -> metrics.recordDecision(allowedRequest));
+            thread.join();
+        }
+        metrics.recordDecision(true);
+
+        assertEquals(751, metrics.getAllowed());
+        assertEquals(250, metrics.getDenied());
+        assertEquals(751, metrics.snapshot(-1).getAllowed());
+    }
+
+    @Test
+    public void testLiveThreadsKeepCounting() throws InterruptedException {
+        /* Positive Test Case: A thread that records across many folds has every decision counted once. */
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        Thread longLived = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                metrics.recordDecision(true);
+            }
+        });
+        longLived.start();
+        for (int i = 0; i < 500; i++) {
+            Thread thread = Thread.ofVirtual().start(() -> metrics.recordDecision(false));
+            thread.join();
+        }
+        longLived.join();
+
+        assertEquals(10_000, metrics.getAllowed());
+        assertEquals(500, metrics.getDenied());
+    }
+
+    @Test
+    public void testReadsDuringFoldsNeverCountTwice() throws InterruptedException {
+        /* Positive Test Case: Totals read while ended stripes are folded never go back nor past the decisions made. */
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        int decisions = 2_000;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> violation = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            long previous = 0;
+            while (!done.get() && violation.get() == null) {
+                long allowed = metrics.getAllowed();
+                if (allowed < previous || allowed > decisions) {
+                    violation.set("Read " + allowed + " after " + previous);
+                }
+                previous = allowed;
+            }
+        });
+        reader.start();
+        for (int i = 0; i < decisions; i++) {
+            Thread thread = Thread.ofVirtual().start(() -> metrics.recordDecision(true));
+            thread.join();
+        }
+        done.set(true);
+        reader.join();
+
+        assertNull(violation.get());
+        assertEquals(decisions, metrics.getAllowed());
+    }
+
+    @Test
+    public void testDroppedMetricsAreNotKeptByLiveThreads() throws InterruptedException {
+        /* Positive Test Case: Metrics a live thread recorded into can be collected once nothing else holds them. */
+        WeakReference<LimiterMetrics> dropped = recordAndDrop();
+        for (int i = 0; i < 50 && dropped.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(dropped.get(), "The recorder of this thread should not keep its metrics alive.");
+    }
+
+    private static WeakReference<LimiterMetrics> recordAndDrop() {
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        metrics.recordDecision(true);
+        return new WeakReference<>(metrics);
+    }
+
+    @Test
+    public void testRejectsInvalidSampleRate() {
+        /* Negative Test Case: The sample rate must be positive. */
+        assertThrows(IllegalArgumentException.class, () -> new LimiterMetrics(0));
+    }
+}
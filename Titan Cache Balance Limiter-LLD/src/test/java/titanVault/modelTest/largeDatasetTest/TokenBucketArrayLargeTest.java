@@ -0,0 +1,127 @@
+package titanVault.modelTest.largeDatasetTest;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import titanVault.model.TokenBucket;
+import titanVault.model.TokenBucketArray;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Compares columnar buckets with one TokenBucket object per key on a million buckets.
+ * Random slots are visited so nearly every check misses the CPU caches; the time per
+ * check and the bytes per bucket stand in for hardware cache-miss counters.
+ */
+class TokenBucketArrayLargeTest {
+
+    private static final int BUCKETS = 1_000_000;
+    private static final int CHECKS = 5_000_000;
+
+    private static com.sun.management.ThreadMXBean threadBean; // Per-thread allocation counter
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @BeforeAll
+    public static void setUpAllocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation counters are not available on this JVM.");
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+    }
+
+    @Test
+    public void testColumnarBucketsUseLessMemory() {
+        /* Positive Test Case: A million columnar buckets take a fraction of the memory of bucket objects. */
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        TokenBucket[] objects = new TokenBucket[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            objects[i] = new TokenBucket(Long.MAX_VALUE / 2, 1, Duration.ofMinutes(1), fixedClock);
+        }
+        long objectBytes = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        before = threadBean.getThreadAllocatedBytes(threadId);
+        TokenBucketArray columns = new TokenBucketArray(BUCKETS, Long.MAX_VALUE / 2, 1, Duration.ofMinutes(1), fixedClock);
+        for (int i = 0; i < BUCKETS; i++) {
+            columns.allocateSlot();
+        }
+        long columnarBytes = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(columnarBytes * 2 < objectBytes, "Columnar buckets should take less than half the memory.");
+        assertNotNull(objects[BUCKETS - 1]);
+    }
+
+    @Test
+    public void testRandomAccessAcrossMillionBuckets() {
+        /* Positive Test Case: Random checks over a million buckets are timed for both layouts. */
+        TokenBucket[] objects = new TokenBucket[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            objects[i] = new TokenBucket(Long.MAX_VALUE / 2, 1, Duration.ofMinutes(1), fixedClock);
+        }
+        TokenBucketArray columns = new TokenBucketArray(BUCKETS, Long.MAX_VALUE / 2, 1, Duration.ofMinutes(1), fixedClock);
+        for (int i = 0; i < BUCKETS; i++) {
+            columns.allocateSlot();
+        }
+        int[] order = new int[CHECKS];
+        Random random = new Random(42);
+        for (int i = 0; i < CHECKS; i++) {
+            order[i] = random.nextInt(BUCKETS);
+        }
+
+        long bestObjects = Long.MAX_VALUE;
+        long bestColumns = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long start = System.nanoTime();
+            for (int slot : order) {
+                assertTrue(objects[slot].consume());
+            }
+            bestObjects = Math.min(bestObjects, (System.nanoTime() - start) / CHECKS);
+
+            start = System.nanoTime();
+            for (int slot : order) {
+                assertTrue(columns.tryConsume(slot));
+            }
+            bestColumns = Math.min(bestColumns, (System.nanoTime() - start) / CHECKS);
+        }
+        assertEquals(Long.MAX_VALUE / 2 - 3 * countOf(order, 0), columns.getTokens(0), "Every check should take exactly one token.");
+        assertTrue(bestColumns <= 2 * bestObjects, "Columnar checks take " + bestColumns + " ns, object checks " + bestObjects + " ns.");
+    }
+
+    @Test
+    public void testBulkRefillAndSnapshotOfMillionBuckets() throws IOException {
+        /* Positive Test Case: One sequential pass refills and snapshots every bucket. */
+        TokenBucketArray columns = new TokenBucketArray(BUCKETS, 10, 5, Duration.ofMinutes(1), fixedClock);
+        for (int i = 0; i < BUCKETS; i++) {
+            columns.allocateSlot();
+        }
+        long start = System.nanoTime();
+        columns.refillAll();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUCKETS * 16 + 4);
+        int written = columns.writeSnapshot(new DataOutputStream(bytes));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(BUCKETS, written);
+        assertEquals(4 + 16L * BUCKETS, bytes.size(), "Each bucket should take two longs in the snapshot.");
+        assertTrue(elapsedMillis < 5_000, "One pass over every bucket took " + elapsedMillis + " ms.");
+    }
+
+    private static long countOf(int[] order, int slot) {
+        long count = 0;
+        for (int visited : order) {
+            if (visited == slot) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
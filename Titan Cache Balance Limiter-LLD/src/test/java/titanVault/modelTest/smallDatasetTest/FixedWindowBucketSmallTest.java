@@ -3,6 +3,7 @@ package titanVault.modelTest.smallDatasetTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import titanVault.model.FixedWindowBucket;
+import titanVault.model.RateLimitState;
 
 import java.time.Clock;
 import java.time.Duration;
@@ -85,4 +86,17 @@ class FixedWindowBucketSmallTest {
         fixedWindowBucket = new FixedWindowBucket(1_000, 0L, 0L, Duration.ofMinutes(1), fixedClock);
         assertTrue(fixedWindowBucket.allowRequest(), "Request should be allowed after the window has reset.");
     }
+
+    @Test
+    public void testStateOfFullWindow() {
+        /* Positive Test Case: A full window reports no remaining requests and waits for the window to reset. */
+        for (int i = 0; i < 1_000; i++) {
+            fixedWindowBucket.allowRequest();
+        }
+        RateLimitState state = fixedWindowBucket.getState();
+        assertEquals(1_000, state.getLimit());
+        assertEquals(0, state.getRemaining());
+        assertEquals(state.getResetAfter(), state.getRetryAfter());
+        assertTrue(state.getRetryAfter().compareTo(Duration.ofMinutes(1)) > 0, "The window resets just after its interval.");
+    }
 }
@@ -0,0 +1,197 @@
+package titanVault.modelTest.smallDatasetTest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import titanVault.model.TokenBucketArray;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketArraySmallTest {
+
+    private TokenBucketArray buckets;
+    private Clock fixedClock;
+
+    @BeforeEach
+    public void setUp() {
+        fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+        buckets = new TokenBucketArray(4, 10, 5, Duration.ofMinutes(1), fixedClock);
+    }
+
+    @Test
+    public void testNewSlotStartsFull() {
+        /* Positive Test Case: A newly allocated slot holds the full capacity. */
+        int slot = buckets.allocateSlot();
+        assertEquals(0, slot);
+        assertEquals(10, buckets.getTokens(slot));
+        assertEquals(1, buckets.getAllocatedSlots());
+    }
+
+    @Test
+    public void testSlotsAreIndependent() {
+        /* Positive Test Case: Draining one slot leaves the others untouched. */
+        int first = buckets.allocateSlot();
+        int second = buckets.allocateSlot();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(buckets.tryConsume(first));
+        }
+        assertFalse(buckets.tryConsume(first), "The drained slot should deny.");
+        assertEquals(10, buckets.getTokens(second));
+    }
+
+    @Test
+    public void testRefillIsCappedAtCapacity() {
+        /* Positive Test Case: Elapsed periods add tokens up to the capacity only. */
+        Clock[] current = {fixedClock};
+        TokenBucketArray moving = new TokenBucketArray(1, 10, 5, Duration.ofMinutes(1), new Clock() {
+            @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+            @Override public Clock withZone(ZoneId zone) { return this; }
+            @Override public Instant instant() { return current[0].instant(); }
+        });
+        int slot = moving.allocateSlot();
+        for (int i = 0; i < 8; i++) {
+            moving.tryConsume(slot);
+        }
+        current[0] = Clock.offset(fixedClock, Duration.ofMinutes(1));
+        assertEquals(7, moving.getTokens(slot), "One period should add 5 tokens.");
+        current[0] = Clock.offset(fixedClock, Duration.ofDays(365_000));
+        assertEquals(10, moving.getTokens(slot), "A long idle period should only fill the bucket.");
+    }
+
+    @Test
+    public void testConsumeSeveralPermitsIsAllOrNone() {
+        /* Negative Test Case: A request for more tokens than available takes none. */
+        int slot = buckets.allocateSlot();
+        assertTrue(buckets.tryConsume(slot, 7));
+        assertFalse(buckets.tryConsume(slot, 4));
+        assertEquals(3, buckets.getTokens(slot), "A denied request should not take any tokens.");
+    }
+
+    @Test
+    public void testFullArrayThrows() {
+        /* Negative Test Case: Allocating beyond the number of slots fails. */
+        for (int i = 0; i < 4; i++) {
+            buckets.allocateSlot();
+        }
+        assertThrows(IllegalStateException.class, () -> buckets.allocateSlot());
+        assertEquals(-1, buckets.tryAllocateSlot());
+        assertEquals(4, buckets.getAllocatedSlots());
+    }
+
+    @Test
+    public void testInvalidConfigurationThrows() {
+        /* Negative Test Case: Non-positive sizes are rejected. */
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketArray(0, 10, 5, Duration.ofMinutes(1), fixedClock));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketArray(4, 10, 5, Duration.ZERO, fixedClock));
+    }
+
+    @Test
+    public void testSnapshotRoundTrip() throws IOException {
+        /* Positive Test Case: A restored array keeps every slot's tokens. */
+        for (int i = 0; i < 3; i++) {
+            buckets.allocateSlot();
+        }
+        buckets.tryConsume(0, 10);
+        buckets.tryConsume(1, 4);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        assertEquals(3, buckets.writeSnapshot(new DataOutputStream(bytes)));
+
+        TokenBucketArray restored = new TokenBucketArray(4, 10, 5, Duration.ofMinutes(1), fixedClock);
+        assertEquals(3, restored.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        assertEquals(0, restored.getTokens(0));
+        assertEquals(6, restored.getTokens(1));
+        assertEquals(10, restored.getTokens(2));
+        assertEquals(3, restored.allocateSlot(), "New slots should follow the restored ones.");
+    }
+
+    @Test
+    public void testSnapshotLargerThanArrayIsRejected() throws IOException {
+        /* Negative Test Case: A snapshot with more buckets than slots cannot be restored. */
+        for (int i = 0; i < 4; i++) {
+            buckets.allocateSlot();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        buckets.writeSnapshot(new DataOutputStream(bytes));
+
+        TokenBucketArray smaller = new TokenBucketArray(2, 10, 5, Duration.ofMinutes(1), fixedClock);
+        assertThrows(IOException.class,
+                () -> smaller.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+    }
+
+    @Test
+    public void testConcurrentConsumersNeverOverspend() throws InterruptedException {
+        /* Positive Test Case: Concurrent CAS updates grant exactly the capacity of a slot. */
+        TokenBucketArray shared = new TokenBucketArray(1, 10_000, 5, Duration.ofMinutes(1), fixedClock);
+        int slot = shared.allocateSlot();
+        AtomicInteger granted = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    if (shared.tryConsume(slot)) {
+                        granted.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10_000, granted.get());
+        assertEquals(0, shared.getTokens(slot));
+    }
+
+    @Test
+    public void testConcurrentRefillIsSeenByEveryConsumer() throws InterruptedException {
+        /* Positive Test Case: Consumers racing a refill see its tokens, so none is denied while the refill is half done. */
+        Clock[] current = {fixedClock};
+        TokenBucketArray moving = new TokenBucketArray(1, 8, 8, Duration.ofMinutes(1), new Clock() {
+            @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+            @Override public Clock withZone(ZoneId zone) { return this; }
+            @Override public Instant instant() { return current[0].instant(); }
+        });
+        int slot = moving.allocateSlot();
+        assertTrue(moving.tryConsume(slot, 8));
+        for (int round = 1; round <= 200; round++) {
+            current[0] = Clock.offset(fixedClock, Duration.ofMinutes(round));
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger granted = new AtomicInteger();
+            Thread[] threads = new Thread[8];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (moving.tryConsume(slot)) {
+                        granted.incrementAndGet();
+                    }
+                });
+                threads[t].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(8, granted.get(), "Every consumer should get one of the refilled tokens.");
+            assertEquals(0, moving.getTokens(slot), "The period should be refilled exactly once.");
+        }
+    }
+}
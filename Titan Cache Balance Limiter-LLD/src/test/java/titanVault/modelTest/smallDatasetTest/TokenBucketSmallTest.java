@@ -3,6 +3,7 @@ package titanVault.modelTest.smallDatasetTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import titanVault.model.RateLimitState;
 import titanVault.model.TokenBucket;
 
 import java.time.Clock;
@@ -112,4 +113,17 @@ class TokenBucketSmallTest {
         tokenBucket.addToken(200); // Add 200 tokens
         assertEquals(100, tokenBucket.getToken(), "Token count should be capped at 100 after adding excessive tokens.");
     }
+
+    @Test
+    public void testStateOfDrainedBucket() {
+        /* Positive Test Case: A drained bucket reports the wait for the next refill and for a full bucket. */
+        for (int i = 0; i < 100; i++) {
+            tokenBucket.consume();
+        }
+        RateLimitState state = tokenBucket.getState();
+        assertEquals(100, state.getLimit());
+        assertEquals(0, state.getRemaining());
+        assertEquals(Duration.ofMinutes(1), state.getRetryAfter(), "The next refill is one period away.");
+        assertEquals(Duration.ofMinutes(10), state.getResetAfter(), "Ten refills of 10 tokens fill the bucket.");
+    }
 }
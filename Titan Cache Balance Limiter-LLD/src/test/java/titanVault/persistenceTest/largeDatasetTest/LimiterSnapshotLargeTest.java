@@ -0,0 +1,83 @@
+package titanVault.persistenceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.persistence.LimiterSnapshot;
+import titanVault.service.ColumnarTokenBucketServiceRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterSnapshotLargeTest {
+
+    private static final int KEY_COUNT = 1_000_000;
+    private static final int COLUMNAR_KEY_COUNT = 10_000_000;
+    private static final long SPENT_KEY = 4_242_424L; // Key whose bucket is emptied before the snapshot
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path snapshotDirectory;
+
+    @Test
+    public void testParallelRestoreOfMillionKeys() throws IOException {
+        /* Positive Test Case: 1,000,000 token buckets are written and restored in parallel. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(100, Duration.ofMinutes(1), 10, fixedClock);
+        for (int user = 0; user < KEY_COUNT; user++) {
+            limiter.validateRequest("user" + user);
+        }
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Path snapshotFile = snapshotDirectory.resolve("token.snapshot");
+        assertEquals(KEY_COUNT, LimiterSnapshot.write(limiter, snapshotFile, parallelism));
+
+        TokenBucketServiceRateLimiter restored = new TokenBucketServiceRateLimiter(100, Duration.ofMinutes(1), 10, fixedClock);
+        assertEquals(KEY_COUNT, LimiterSnapshot.restore(restored, snapshotFile, parallelism));
+
+        for (int i = 0; i < 99; i++) {
+            assertTrue(restored.validateRequest("user424242"));
+        }
+        assertFalse(restored.validateRequest("user424242"), "Restored buckets keep the token already spent.");
+    }
+
+    @Test
+    public void testParallelRestoreOfTenMillionKeys() throws IOException {
+        /* Positive Test Case: 10,000,000 columnar buckets are written and restored in parallel. */
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        Path snapshotFile = snapshotDirectory.resolve("columnar.snapshot");
+        assertEquals(COLUMNAR_KEY_COUNT, writeColumnarSnapshot(snapshotFile, parallelism));
+
+        ColumnarTokenBucketServiceRateLimiter restored = new ColumnarTokenBucketServiceRateLimiter(
+                COLUMNAR_KEY_COUNT, 100, Duration.ofMinutes(1), 10, fixedClock);
+        assertEquals(COLUMNAR_KEY_COUNT, LimiterSnapshot.restore(restored, snapshotFile, parallelism));
+
+        assertFalse(restored.validateRequest(SPENT_KEY), "Restored buckets keep the tokens already spent.");
+        for (int i = 0; i < 99; i++) {
+            assertTrue(restored.validateRequest(COLUMNAR_KEY_COUNT - 1L));
+        }
+        assertFalse(restored.validateRequest(COLUMNAR_KEY_COUNT - 1L));
+        assertFalse(restored.validateRequest((long) COLUMNAR_KEY_COUNT), "Every slot is taken by a restored key.");
+    }
+
+    /**
+     * Fill a columnar limiter with one request per key and snapshot it. The limiter is
+     * unreachable once this returns, so the one restored from the file fits the heap beside it.
+     */
+    private long writeColumnarSnapshot(Path snapshotFile, int parallelism) throws IOException {
+        ColumnarTokenBucketServiceRateLimiter limiter = new ColumnarTokenBucketServiceRateLimiter(
+                COLUMNAR_KEY_COUNT, 100, Duration.ofMinutes(1), 10, fixedClock);
+        for (long key = 0; key < COLUMNAR_KEY_COUNT; key++) {
+            limiter.validateRequest(key);
+        }
+        for (int i = 0; i < 99; i++) {
+            assertTrue(limiter.validateRequest(SPENT_KEY));
+        }
+        return LimiterSnapshot.write(limiter, snapshotFile, parallelism);
+    }
+}
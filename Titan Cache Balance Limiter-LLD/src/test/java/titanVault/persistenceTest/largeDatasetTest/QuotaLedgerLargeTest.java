@@ -0,0 +1,74 @@
+package titanVault.persistenceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.model.Quota;
+import titanVault.persistence.QuotaLedger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaLedgerLargeTest {
+
+    private static final int KEY_COUNT = 1_000_000;
+    private static final int CONSUME_ROUNDS = 20_000_000;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path ledgerDirectory;
+
+    @Test
+    public void testRecoverMillionKeys() throws IOException {
+        /* Positive Test Case: A ledger with 1,000,000 keys is recovered by mapping, not replaying. */
+        Path ledgerFile = ledgerDirectory.resolve("quota.ledger");
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerFile, KEY_COUNT, Duration.ofMillis(100))) {
+            for (int user = 0; user < KEY_COUNT; user++) {
+                int slot = ledger.slotFor("user" + user);
+                ledger.write(slot, fixedClock.millis(), user % 1_000);
+            }
+        }
+
+        long start = System.nanoTime();
+        try (QuotaLedger reopened = QuotaLedger.open(ledgerFile, KEY_COUNT, Duration.ofMillis(100))) {
+            long recoveryMillis = (System.nanoTime() - start) / 1_000_000;
+            assertEquals(KEY_COUNT, reopened.getSlotCount());
+            int slot = reopened.slotFor("user123456");
+            assertEquals(456, reopened.readUsedQuota(slot));
+            assertTrue(recoveryMillis < 5_000, "Mapping " + KEY_COUNT + " slots took " + recoveryMillis + " ms.");
+        }
+    }
+
+    @Test
+    public void testConsumeCostWithLedger() throws IOException {
+        /* Positive Test Case: Writing through the mapped slot adds only a few nanoseconds to consume. */
+        Quota inMemory = new Quota(Long.MAX_VALUE, Duration.ofDays(1), fixedClock);
+        long inMemoryNanos = timeConsume(inMemory);
+
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerDirectory.resolve("quota.ledger"), 16, Duration.ofMillis(10))) {
+            Quota persisted = new Quota(Long.MAX_VALUE, Duration.ofDays(1), fixedClock, ledger, ledger.slotFor("user1"));
+            long persistedNanos = timeConsume(persisted);
+
+            double inMemoryPerCall = inMemoryNanos / (double) CONSUME_ROUNDS;
+            double persistedPerCall = persistedNanos / (double) CONSUME_ROUNDS;
+            assertTrue(persistedPerCall - inMemoryPerCall < 50, "Ledger writes should stay close to the in-memory cost.");
+        }
+    }
+
+    private long timeConsume(Quota quota) {
+        for (int warmup = 0; warmup < CONSUME_ROUNDS; warmup++) {
+            quota.consume(1);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < CONSUME_ROUNDS; round++) {
+            quota.consume(1);
+        }
+        return System.nanoTime() - start;
+    }
+}
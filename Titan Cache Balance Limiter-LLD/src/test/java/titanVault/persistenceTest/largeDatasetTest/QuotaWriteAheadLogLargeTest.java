@@ -0,0 +1,99 @@
+package titanVault.persistenceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.persistence.QuotaWriteAheadLog;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaWriteAheadLogLargeTest {
+
+    private static final int DEBITS_PER_SECOND = 200_000;
+    private static final int THREADS = 4;
+    private static final int DEBITS_PER_THREAD = 200_000; // Four seconds of load
+    private static final int USERS = 100_000;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path logDirectory;
+
+    private QuotasTokenBucketRateServiceLimiter newLimiter(QuotaWriteAheadLog log) {
+        return new QuotasTokenBucketRateServiceLimiter(Long.MAX_VALUE, Duration.ofMinutes(1), 10, fixedClock,
+                Long.MAX_VALUE, Duration.ofDays(1), log);
+    }
+
+    @Test
+    public void testAddedP99At200kDebitsPerSecond() throws Exception {
+        /* Positive Test Case: Group commit keeps the added p99 below 50 microseconds at 200K debits/s. */
+        long[] baseline = measureLatencies(newLimiter(null));
+        long[] journaled;
+        try (QuotaWriteAheadLog log = new QuotaWriteAheadLog(logDirectory, Duration.ofMillis(2), 1 << 20)) {
+            journaled = measureLatencies(newLimiter(log));
+            assertEquals((long) THREADS * DEBITS_PER_THREAD * 2, log.getLastSequence(), "Warm-up and measured debits are all journaled.");
+        }
+        long baselineP99 = percentile(baseline, 0.99);
+        long journaledP99 = percentile(journaled, 0.99);
+        assertTrue(journaledP99 - baselineP99 < 50_000, "Group commit should add less than 50us at p99.");
+
+        try (QuotaWriteAheadLog log = new QuotaWriteAheadLog(logDirectory, Duration.ofMillis(2), 1 << 20)) {
+            long start = System.nanoTime();
+            long replayed = log.recover(newLimiter(log), 1);
+            assertEquals((long) THREADS * DEBITS_PER_THREAD * 2, replayed);
+        }
+    }
+
+    /**
+     * Drive the limiter at a paced 200K debits/s from several threads, once to warm up
+     * and once measured, and collect the latency of every measured debit.
+     */
+    private long[] measureLatencies(QuotasTokenBucketRateServiceLimiter limiter) throws InterruptedException {
+        runPaced(limiter, null);
+        long[] latencies = new long[THREADS * DEBITS_PER_THREAD];
+        runPaced(limiter, latencies);
+        return latencies;
+    }
+
+    private void runPaced(QuotasTokenBucketRateServiceLimiter limiter, long[] latencies) throws InterruptedException {
+        long intervalNanos = 1_000_000_000L * THREADS / DEBITS_PER_SECOND;
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long start = System.nanoTime();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int threadIndex = thread;
+            new Thread(() -> {
+                try {
+                    for (int debit = 0; debit < DEBITS_PER_THREAD; debit++) {
+                        long scheduled = start + debit * intervalNanos + threadIndex * (intervalNanos / THREADS);
+                        while (System.nanoTime() < scheduled) {
+                            Thread.onSpinWait();
+                        }
+                        long before = System.nanoTime();
+                        limiter.validateRequest("user" + ((debit * THREADS + threadIndex) % USERS), 1);
+                        if (latencies != null) {
+                            latencies[threadIndex * DEBITS_PER_THREAD + debit] = System.nanoTime() - before;
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+    }
+
+    private static long percentile(long[] latencies, double quantile) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(quantile * sorted.length))];
+    }
+}
@@ -0,0 +1,219 @@
+package titanVault.persistenceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.persistence.LimiterSnapshot;
+import titanVault.service.ColumnarTokenBucketServiceRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+import titanVault.service.SlidingWindowLogRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterSnapshotSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path snapshotDirectory;
+
+    @Test
+    public void testTokenBucketRestoresDepletedBuckets() throws IOException {
+        /* Positive Test Case: A restored token bucket does not start full again. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        for (int i = 0; i < 10; i++) {
+            limiter.validateRequest("user1");
+        }
+        limiter.validateRequest("user2");
+
+        Path snapshotFile = snapshotDirectory.resolve("token.snapshot");
+        assertEquals(2, LimiterSnapshot.write(limiter, snapshotFile, 2));
+
+        TokenBucketServiceRateLimiter restored = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        assertEquals(2, LimiterSnapshot.restore(restored, snapshotFile, 2));
+        assertFalse(restored.validateRequest("user1"), "The depleted bucket should stay depleted after restore.");
+        for (int i = 0; i < 9; i++) {
+            assertTrue(restored.validateRequest("user2"), "The partially used bucket keeps its remaining tokens.");
+        }
+        assertFalse(restored.validateRequest("user2"));
+    }
+
+    @Test
+    public void testTokenBucketCreditsDowntime() throws IOException {
+        /* Positive Test Case: Tokens that would have refilled during the downtime are available after restore. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        for (int i = 0; i < 10; i++) {
+            limiter.validateRequest("user1");
+        }
+        Path snapshotFile = snapshotDirectory.resolve("token.snapshot");
+        LimiterSnapshot.write(limiter, snapshotFile, 1);
+
+        Clock afterRestart = Clock.offset(fixedClock, Duration.ofMinutes(1));
+        TokenBucketServiceRateLimiter restored = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, afterRestart);
+        LimiterSnapshot.restore(restored, snapshotFile, 1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(restored.validateRequest("user1"), "One refill period of downtime should add 5 tokens.");
+        }
+        assertFalse(restored.validateRequest("user1"));
+    }
+
+    @Test
+    public void testSlidingWindowLogDropsExpiredTimestamps() throws IOException {
+        /* Positive Test Case: Logged requests are restored, and those that left the window are dropped. */
+        SlidingWindowLogRateLimiter limiter = new SlidingWindowLogRateLimiter(3, Duration.ofMinutes(1), fixedClock);
+        for (int i = 0; i < 3; i++) {
+            limiter.validateRequest("user1");
+        }
+        Path snapshotFile = snapshotDirectory.resolve("log.snapshot");
+        LimiterSnapshot.write(limiter, snapshotFile, 1);
+
+        SlidingWindowLogRateLimiter restored = new SlidingWindowLogRateLimiter(3, Duration.ofMinutes(1), fixedClock);
+        LimiterSnapshot.restore(restored, snapshotFile, 1);
+        assertFalse(restored.validateRequest("user1"), "The restored log should still be full.");
+
+        Clock afterWindow = Clock.offset(fixedClock, Duration.ofMinutes(2));
+        SlidingWindowLogRateLimiter late = new SlidingWindowLogRateLimiter(3, Duration.ofMinutes(1), afterWindow);
+        LimiterSnapshot.restore(late, snapshotFile, 1);
+        assertTrue(late.validateRequest("user1"), "Timestamps older than the window should be dropped.");
+    }
+
+    @Test
+    public void testQuotaServiceRestoresBucketAndQuota() throws IOException {
+        /* Positive Test Case: Both the token bucket and the quota of a user are restored. */
+        QuotasTokenBucketRateServiceLimiter limiter = new QuotasTokenBucketRateServiceLimiter(
+                100, Duration.ofMinutes(1), 10, fixedClock, 50, Duration.ofHours(1));
+        assertTrue(limiter.validateRequest("user1", 40));
+        Path snapshotFile = snapshotDirectory.resolve("quota.snapshot");
+        LimiterSnapshot.write(limiter, snapshotFile, 1);
+
+        QuotasTokenBucketRateServiceLimiter restored = new QuotasTokenBucketRateServiceLimiter(
+                100, Duration.ofMinutes(1), 10, fixedClock, 50, Duration.ofHours(1));
+        LimiterSnapshot.restore(restored, snapshotFile, 1);
+        assertEquals(10, restored.getRemainingQuota("user1"));
+    }
+
+    @Test
+    public void testPrimitiveKeysAreSnapshottedInTheirOwnKeySpace() throws IOException {
+        /* Positive Test Case: Buckets and quotas of primitive keys survive a restore without merging into String keys. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        for (int i = 0; i < 10; i++) {
+            limiter.validateRequest(42L);
+        }
+        Path snapshotFile = snapshotDirectory.resolve("token.snapshot");
+        assertEquals(1, LimiterSnapshot.write(limiter, snapshotFile, 2));
+
+        TokenBucketServiceRateLimiter restored = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        assertEquals(1, LimiterSnapshot.restore(restored, snapshotFile, 2));
+        assertFalse(restored.validateRequest(42L), "The depleted primitive-key bucket should stay depleted.");
+        assertTrue(restored.validateRequest("42"), "The String key \"42\" is a different bucket.");
+
+        QuotasTokenBucketRateServiceLimiter quotas = new QuotasTokenBucketRateServiceLimiter(
+                100, Duration.ofMinutes(1), 10, fixedClock, 50, Duration.ofHours(1));
+        for (int i = 0; i < 30; i++) {
+            quotas.validateRequest(7L);
+        }
+        quotas.validateRequest("7", 5);
+        Path quotaFile = snapshotDirectory.resolve("quota.snapshot");
+        assertEquals(2, LimiterSnapshot.write(quotas, quotaFile, 2));
+
+        QuotasTokenBucketRateServiceLimiter restoredQuotas = new QuotasTokenBucketRateServiceLimiter(
+                100, Duration.ofMinutes(1), 10, fixedClock, 50, Duration.ofHours(1));
+        assertEquals(2, LimiterSnapshot.restore(restoredQuotas, quotaFile, 2));
+        assertEquals(20, restoredQuotas.getRemainingQuota(7L));
+        assertEquals(45, restoredQuotas.getRemainingQuota("7"));
+    }
+
+    @Test
+    public void testColumnarBucketsAreRestoredIntoSlots() throws IOException {
+        /* Positive Test Case: Buckets of a columnar limiter, by user id and by primitive key, survive a restore. */
+        ColumnarTokenBucketServiceRateLimiter limiter = new ColumnarTokenBucketServiceRateLimiter(
+                4, 10, Duration.ofMinutes(1), 5, fixedClock);
+        for (int i = 0; i < 10; i++) {
+            limiter.validateRequest(42L);
+        }
+        limiter.validateRequest("user1", 4);
+        Path snapshotFile = snapshotDirectory.resolve("columnar.snapshot");
+        assertEquals(2, LimiterSnapshot.write(limiter, snapshotFile, 2));
+
+        ColumnarTokenBucketServiceRateLimiter restored = new ColumnarTokenBucketServiceRateLimiter(
+                4, 10, Duration.ofMinutes(1), 5, fixedClock);
+        assertEquals(2, LimiterSnapshot.restore(restored, snapshotFile, 2));
+        assertFalse(restored.validateRequest(42L), "The depleted primitive-key bucket should stay depleted.");
+        assertTrue(restored.validateRequest("user1", 6));
+        assertFalse(restored.validateRequest("user1"));
+
+        ColumnarTokenBucketServiceRateLimiter tooSmall = new ColumnarTokenBucketServiceRateLimiter(
+                1, 10, Duration.ofMinutes(1), 5, fixedClock);
+        assertThrows(IOException.class, () -> LimiterSnapshot.restore(tooSmall, snapshotFile, 1),
+                "A limiter with fewer slots than the snapshot has keys cannot restore it.");
+    }
+
+    @Test
+    public void testSnapshotTimeIsReadFromTheLimitersClock() throws IOException {
+        /* Positive Test Case: The header records the time of the limiter's clock, not the wall clock. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        limiter.validateRequest("user1");
+        Path snapshotFile = snapshotDirectory.resolve("token.snapshot");
+        LimiterSnapshot.write(limiter, snapshotFile, 1);
+
+        try (InputStream file = Files.newInputStream(snapshotFile)) {
+            DataInputStream header = new DataInputStream(file);
+            header.readInt(); // Magic
+            header.readInt(); // Version
+            assertEquals(TokenBucketServiceRateLimiter.class.getName(), header.readUTF());
+            assertEquals(fixedClock.millis(), header.readLong());
+        }
+    }
+
+    @Test
+    public void testSnapshotWhileServingTraffic() throws Exception {
+        /* Positive Test Case: A snapshot can be taken while other threads keep creating and using buckets. */
+        FixedWindowServiceRateLimiter limiter = new FixedWindowServiceRateLimiter(1_000, Duration.ofMinutes(1), fixedClock);
+        for (int user = 0; user < 1_000; user++) {
+            limiter.validateRequest("user" + user);
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread traffic = new Thread(() -> {
+            int user = 0;
+            while (running.get()) {
+                limiter.validateRequest("user" + (user++ % 5_000));
+            }
+        });
+        traffic.start();
+        try {
+            Path snapshotFile = snapshotDirectory.resolve("window.snapshot");
+            long written = LimiterSnapshot.write(limiter, snapshotFile, 4);
+            assertTrue(written >= 1_000, "Every key present before the snapshot started should be written.");
+
+            FixedWindowServiceRateLimiter restored = new FixedWindowServiceRateLimiter(1_000, Duration.ofMinutes(1), fixedClock);
+            assertEquals(written, LimiterSnapshot.restore(restored, snapshotFile, 4));
+        } finally {
+            running.set(false);
+            traffic.join();
+        }
+    }
+
+    @Test
+    public void testRejectsSnapshotOfOtherAlgorithm() throws IOException {
+        /* Negative Test Case: A snapshot cannot be restored into a different limiter type. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 5, fixedClock);
+        limiter.validateRequest("user1");
+        Path snapshotFile = snapshotDirectory.resolve("token.snapshot");
+        LimiterSnapshot.write(limiter, snapshotFile, 1);
+
+        FixedWindowServiceRateLimiter other = new FixedWindowServiceRateLimiter(10, Duration.ofMinutes(1), fixedClock);
+        assertThrows(IOException.class, () -> LimiterSnapshot.restore(other, snapshotFile, 1));
+    }
+}
@@ -0,0 +1,151 @@
+package titanVault.persistenceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.model.Quota;
+import titanVault.persistence.QuotaLedger;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaLedgerSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path ledgerDirectory;
+
+    @Test
+    public void testSlotsAreStableForKeys() throws IOException {
+        /* Positive Test Case: The same key always maps to the same slot. */
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerDirectory.resolve("quota.ledger"), 16, Duration.ofSeconds(1))) {
+            int first = ledger.slotFor("user1");
+            int second = ledger.slotFor("user2");
+            assertNotEquals(first, second, "Different keys should own different slots.");
+            assertEquals(first, ledger.slotFor("user1"), "A key should keep its slot.");
+            assertEquals(2, ledger.getSlotCount());
+        }
+    }
+
+    @Test
+    public void testUsageSurvivesReopen() throws IOException {
+        /* Positive Test Case: Quota usage is recovered by mapping the ledger again. */
+        Path ledgerFile = ledgerDirectory.resolve("quota.ledger");
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerFile, 16, Duration.ofSeconds(1))) {
+            Quota quota = new Quota(100, Duration.ofHours(1), fixedClock, ledger, ledger.slotFor("user1"));
+            assertTrue(quota.consume(60));
+        }
+
+        try (QuotaLedger reopened = QuotaLedger.open(ledgerFile, 16, Duration.ofSeconds(1))) {
+            Quota quota = new Quota(100, Duration.ofHours(1), fixedClock, reopened, reopened.slotFor("user1"));
+            assertEquals(40, quota.getRemainingQuota(), "Usage should be restored after a restart.");
+            assertFalse(quota.consume(50), "Restored usage should still be enforced.");
+            assertEquals(1, reopened.getSlotCount());
+        }
+    }
+
+    @Test
+    public void testServiceLimiterKeepsQuotaAcrossRestart() throws IOException {
+        /* Positive Test Case: The quota service does not hand out a fresh quota after a restart. */
+        Path ledgerFile = ledgerDirectory.resolve("quota.ledger");
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerFile, 16, Duration.ofSeconds(1))) {
+            QuotasTokenBucketRateServiceLimiter limiter = new QuotasTokenBucketRateServiceLimiter(
+                    100, Duration.ofMinutes(1), 10, fixedClock, 10, Duration.ofHours(1), ledger);
+            assertTrue(limiter.validateRequest("user1", 10));
+        }
+
+        try (QuotaLedger reopened = QuotaLedger.open(ledgerFile, 16, Duration.ofSeconds(1))) {
+            QuotasTokenBucketRateServiceLimiter limiter = new QuotasTokenBucketRateServiceLimiter(
+                    100, Duration.ofMinutes(1), 10, fixedClock, 10, Duration.ofHours(1), reopened);
+            assertFalse(limiter.validateRequest("user1"), "The exhausted quota should be enforced after a restart.");
+            assertEquals(0, limiter.getRemainingQuota("user1"));
+        }
+    }
+
+    @Test
+    public void testExpiredPeriodResetsRestoredUsage() throws IOException {
+        /* Positive Test Case: A restored quota still resets once its period has elapsed. */
+        Path ledgerFile = ledgerDirectory.resolve("quota.ledger");
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerFile, 16, Duration.ofSeconds(1))) {
+            Quota quota = new Quota(100, Duration.ofHours(1), fixedClock, ledger, ledger.slotFor("user1"));
+            assertTrue(quota.consume(100));
+        }
+
+        Clock later = Clock.offset(fixedClock, Duration.ofHours(2));
+        try (QuotaLedger reopened = QuotaLedger.open(ledgerFile, 16, Duration.ofSeconds(1))) {
+            Quota quota = new Quota(100, Duration.ofHours(1), later, reopened, reopened.slotFor("user1"));
+            assertTrue(quota.consume(100), "A new period should start with a full quota.");
+        }
+    }
+
+    @Test
+    public void testLedgerFull() throws IOException {
+        /* Negative Test Case: A full ledger has no slot for a new key, while known keys keep theirs. */
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerDirectory.resolve("quota.ledger"), 2, Duration.ofSeconds(1))) {
+            int first = ledger.slotFor("user1");
+            ledger.slotFor("user2");
+            assertEquals(-1, ledger.slotFor("user3"));
+            assertEquals(first, ledger.slotFor("user1"));
+            assertEquals(2, ledger.getSlotCount());
+        }
+    }
+
+    @Test
+    public void testServiceLimiterDeniesKeysBeyondFullLedger() throws IOException {
+        /* Negative Test Case: Once the ledger is full the quota service denies new keys instead of failing, and serves known ones. */
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerDirectory.resolve("quota.ledger"), 1, Duration.ofSeconds(1))) {
+            QuotasTokenBucketRateServiceLimiter limiter = new QuotasTokenBucketRateServiceLimiter(
+                    100, Duration.ofMinutes(1), 10, fixedClock, 10, Duration.ofHours(1), ledger);
+            assertTrue(limiter.validateRequest("user1"));
+            assertFalse(limiter.validateRequest("user2"));
+            assertFalse(limiter.validateRequest(42L));
+            assertTrue(limiter.validateRequest("user1"));
+            assertEquals(0, limiter.getRemainingQuota("user2"));
+        }
+    }
+
+    @Test
+    public void testReadsSeeWholeWrites() throws Exception {
+        /* Positive Test Case: A reader racing the writer of a slot always sees a start time and usage written together. */
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerDirectory.resolve("quota.ledger"), 1, Duration.ofSeconds(1))) {
+            int slot = ledger.slotFor("user1");
+            ledger.write(slot, 1, 1);
+            Thread writer = new Thread(() -> {
+                for (long round = 2; round < 200_000; round++) {
+                    ledger.write(slot, round, round);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                long[] usage = ledger.readUsage(slot);
+                assertEquals(usage[0], usage[1], "The start time and usage should come from the same write.");
+            }
+            writer.join();
+            assertArrayEquals(new long[]{199_999, 199_999}, ledger.readUsage(slot));
+        }
+    }
+
+    @Test
+    public void testKeyTooLong() throws IOException {
+        /* Negative Test Case: Keys longer than a slot can hold are rejected. */
+        try (QuotaLedger ledger = QuotaLedger.open(ledgerDirectory.resolve("quota.ledger"), 2, Duration.ofSeconds(1))) {
+            assertThrows(IllegalArgumentException.class, () -> ledger.slotFor("x".repeat(QuotaLedger.MAX_KEY_BYTES + 1)));
+        }
+    }
+
+    @Test
+    public void testRejectsForeignFile() throws IOException {
+        /* Negative Test Case: A file that is not a ledger is not silently overwritten. */
+        Path foreignFile = ledgerDirectory.resolve("foreign.bin");
+        Files.write(foreignFile, "not a quota ledger at all, just some bytes padding padding padding padding".getBytes());
+        assertThrows(IOException.class, () -> QuotaLedger.open(foreignFile, 2, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,244 @@
+package titanVault.persistenceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.model.Quota;
+import titanVault.persistence.QuotaWriteAheadLog;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuotaWriteAheadLogSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @TempDir
+    Path logDirectory;
+
+    private QuotaWriteAheadLog openLog() throws IOException {
+        return new QuotaWriteAheadLog(logDirectory, Duration.ofMillis(2), 64 * 1024);
+    }
+
+    private QuotasTokenBucketRateServiceLimiter newLimiter(QuotaWriteAheadLog log) {
+        return new QuotasTokenBucketRateServiceLimiter(1_000, Duration.ofMinutes(1), 10, fixedClock, 100, Duration.ofHours(1), log);
+    }
+
+    @Test
+    public void testReplayRestoresDebitsAfterCrash() throws IOException {
+        /* Positive Test Case: Debits written before a restart are replayed into a fresh limiter. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter = newLimiter(log);
+            assertTrue(limiter.validateRequest("user1", 30));
+            assertTrue(limiter.validateRequest("user1", 20));
+            assertTrue(limiter.validateRequest("user2", 5));
+            assertFalse(limiter.validateRequest("user2", 500), "Denied requests are not journaled.");
+        }
+
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter recovered = newLimiter(log);
+            assertEquals(3, log.recover(recovered, 1));
+            assertEquals(50, recovered.getRemainingQuota("user1"));
+            assertEquals(95, recovered.getRemainingQuota("user2"));
+            assertTrue(recovered.validateRequest("user1", 50));
+            assertFalse(recovered.validateRequest("user1", 1), "The replayed usage still counts against the quota.");
+        }
+    }
+
+    @Test
+    public void testPrimitiveKeysReplayIntoTheirOwnKeySpace() throws IOException {
+        /* Positive Test Case: Debits of primitive key 123 and of user ids "123" and "\0123" are journaled and replayed apart. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter = newLimiter(log);
+            for (int i = 0; i < 10; i++) {
+                assertTrue(limiter.validateRequest(123L));
+            }
+            assertTrue(limiter.validateRequest("123", 5));
+            assertTrue(limiter.validateRequest("\u0000123", 7));
+        }
+
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter recovered = newLimiter(log);
+            assertEquals(12, log.recover(recovered, 1));
+            assertEquals(90, recovered.getRemainingQuota(123L));
+            assertEquals(95, recovered.getRemainingQuota("123"));
+            assertEquals(93, recovered.getRemainingQuota("\u0000123"));
+        }
+    }
+
+    @Test
+    public void testCheckpointTruncatesSegments() throws IOException {
+        /* Positive Test Case: A checkpoint deletes covered segments and recovery combines checkpoint and log. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter = newLimiter(log);
+            for (int i = 0; i < 10; i++) {
+                assertTrue(limiter.validateRequest("user1", 5));
+            }
+            log.checkpoint(limiter, 1);
+            assertEquals(1, countSegments(), "Only the segment opened by the checkpoint should remain.");
+            assertEquals(0, log.replay((key, sequence, start, amount) -> fail("Checkpointed debits should be gone")));
+
+            assertTrue(limiter.validateRequest("user1", 7));
+            assertTrue(limiter.validateRequest("user3", 9));
+        }
+
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter recovered = newLimiter(log);
+            assertEquals(2, log.recover(recovered, 1));
+            assertEquals(43, recovered.getRemainingQuota("user1"));
+            assertEquals(91, recovered.getRemainingQuota("user3"));
+        }
+    }
+
+    @Test
+    public void testReplaySkipsDebitsAlreadyInCheckpoint() throws IOException {
+        /* Positive Test Case: Replaying a log over a checkpoint that already holds its debits changes nothing. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter = newLimiter(log);
+            assertTrue(limiter.validateRequest("user1", 40));
+            log.checkpoint(limiter, 1);
+            assertTrue(limiter.validateRequest("user1", 10));
+            log.checkpoint(limiter, 1); // Snapshot now holds the debit that is also in the log
+        }
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter recovered = newLimiter(log);
+            log.recover(recovered, 1);
+            log.recover(recovered, 1); // Recovering twice is harmless
+            assertEquals(50, recovered.getRemainingQuota("user1"));
+        }
+    }
+
+    @Test
+    public void testTornTailIsIgnored() throws IOException {
+        /* Positive Test Case: A record cut short by a crash is dropped and appending continues after it. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter = newLimiter(log);
+            assertTrue(limiter.validateRequest("user1", 10));
+        }
+        Path segment = listSegments().get(0);
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (QuotaWriteAheadLog log = openLog()) {
+            assertEquals(1, log.getLastSequence());
+            QuotasTokenBucketRateServiceLimiter recovered = newLimiter(log);
+            assertEquals(1, log.recover(recovered, 1));
+            assertTrue(recovered.validateRequest("user1", 15));
+        }
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter recovered = newLimiter(log);
+            assertEquals(2, log.recover(recovered, 1));
+            assertEquals(75, recovered.getRemainingQuota("user1"));
+        }
+    }
+
+    @Test
+    public void testCorruptRecordStopsReplay() throws IOException {
+        /* Negative Test Case: A record whose checksum does not match ends the replay of its segment. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter = newLimiter(log);
+            assertTrue(limiter.validateRequest("user1", 10));
+            assertTrue(limiter.validateRequest("user1", 10));
+        }
+        Path segment = listSegments().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 8] ^= 0x7F; // Flip a byte inside the key of the second record
+        Files.write(segment, bytes);
+
+        try (QuotaWriteAheadLog log = openLog()) {
+            List<String> keys = new ArrayList<>();
+            assertEquals(1, log.replay((key, sequence, start, amount) -> keys.add(key)));
+            assertEquals(List.of("user1"), keys);
+        }
+    }
+
+    @Test
+    public void testReplayStartsNewPeriod() throws IOException {
+        /* Positive Test Case: Debits from a later period reset the usage of the earlier one. */
+        Clock later = Clock.offset(fixedClock, Duration.ofHours(2));
+        try (QuotaWriteAheadLog log = openLog()) {
+            Quota quota = new Quota(100, Duration.ofHours(1), fixedClock, log, "user1");
+            assertTrue(quota.consume(80));
+            Quota laterQuota = new Quota(100, Duration.ofHours(1), later, log, "user1");
+            assertTrue(laterQuota.consume(30));
+        }
+        try (QuotaWriteAheadLog log = openLog()) {
+            Quota recovered = new Quota(100, Duration.ofHours(1), later);
+            log.replay((key, sequence, start, amount) -> recovered.replayDebit(sequence, start, amount));
+            assertEquals(70, recovered.getRemainingQuota());
+        }
+    }
+
+    @Test
+    public void testAwaitDurable() throws IOException {
+        /* Positive Test Case: Waiting on a sequence returns once its group is forced. */
+        try (QuotaWriteAheadLog log = new QuotaWriteAheadLog(logDirectory, Duration.ofSeconds(30), 64 * 1024)) {
+            long sequence = log.append("user1", fixedClock.millis(), 1);
+            log.awaitDurable(sequence);
+            assertTrue(log.getDurableSequence() >= sequence, "A durability wait should not sit out the commit interval.");
+        }
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        /* Negative Test Case: The commit interval must be positive and a group must fit the largest record. */
+        assertThrows(IllegalArgumentException.class, () -> new QuotaWriteAheadLog(logDirectory, Duration.ZERO, 64 * 1024));
+        assertThrows(IllegalArgumentException.class, () -> new QuotaWriteAheadLog(logDirectory, Duration.ofMillis(1), 128));
+    }
+
+    @Test
+    public void testAppendAfterClose() throws IOException {
+        /* Negative Test Case: A closed log refuses new debits. */
+        QuotaWriteAheadLog log = openLog();
+        log.close();
+        assertThrows(IllegalStateException.class, () -> log.append("user1", fixedClock.millis(), 1));
+    }
+
+    @Test
+    public void testBucketDenialLeavesQuotaUntouched() throws IOException {
+        /* Negative Test Case: A request the token bucket denies neither debits nor journals the quota. */
+        try (QuotaWriteAheadLog log = openLog()) {
+            QuotasTokenBucketRateServiceLimiter limiter =
+                    new QuotasTokenBucketRateServiceLimiter(2, Duration.ofMinutes(1), 1, fixedClock, 100, Duration.ofHours(1), log);
+            assertTrue(limiter.validateRequest("user1", 10));
+            assertTrue(limiter.validateRequest("user1", 10));
+            assertFalse(limiter.validateRequest("user1", 10), "The bucket holds only 2 tokens.");
+            assertEquals(80, limiter.getRemainingQuota("user1"));
+            assertEquals(2, log.getLastSequence());
+        }
+    }
+
+    @Test
+    public void testFailedAppendLeavesQuotaUntouched() throws IOException {
+        /* Negative Test Case: A debit the log refuses is not applied in memory and does not use up a token. */
+        QuotaWriteAheadLog log = openLog();
+        QuotasTokenBucketRateServiceLimiter limiter =
+                new QuotasTokenBucketRateServiceLimiter(2, Duration.ofMinutes(1), 1, fixedClock, 100, Duration.ofHours(1), log);
+        assertTrue(limiter.validateRequest("user1", 10));
+        log.close();
+        assertThrows(IllegalStateException.class, () -> limiter.validateRequest("user1", 10));
+        assertEquals(90, limiter.getRemainingQuota("user1"));
+        assertThrows(IllegalStateException.class, () -> limiter.validateRequest("user1", 10),
+                "The refunded token lets the next request reach the quota again.");
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(logDirectory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private long countSegments() throws IOException {
+        return listSegments().size();
+    }
+}
@@ -0,0 +1,84 @@
+package titanVault.serverTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.server.LimiterClient;
+import titanVault.server.LimiterServer;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterServerLargeTest {
+
+    private static final int KEY_COUNT = 10_000;
+    private static final int BATCH_SIZE = 512;
+    private static final int IN_FLIGHT = 32;
+    private static final int DECISIONS = 4_000_000;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testLoopbackThroughput() throws Exception {
+        /* Positive Test Case: Batched, pipelined checks over loopback sustain a high decision rate with exact limits. */
+        int capacity = DECISIONS / KEY_COUNT;
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(capacity, Duration.ofDays(1), 1, fixedClock);
+        int processors = Runtime.getRuntime().availableProcessors();
+        try (LimiterServer server = new LimiterServer(Map.of("token", limiter), new InetSocketAddress("127.0.0.1", 0), Math.max(1, processors / 2));
+             LimiterClient client = new LimiterClient((InetSocketAddress) server.getAddress(), Math.max(2, processors / 2), Duration.ofSeconds(30))) {
+            List<List<String>> batches = new ArrayList<>();
+            for (int batch = 0; batch < KEY_COUNT / 16; batch++) {
+                List<String> keys = new ArrayList<>(BATCH_SIZE);
+                for (int key = 0; key < BATCH_SIZE; key++) {
+                    keys.add("user" + ((batch * BATCH_SIZE + key) % KEY_COUNT));
+                }
+                batches.add(keys);
+            }
+            client.checkBatch("token", batches.get(0)).join(); // Resolves the limiter and warms the path
+
+            Semaphore inFlight = new Semaphore(IN_FLIGHT);
+            AtomicLong allowed = new AtomicLong();
+            List<CompletableFuture<boolean[]>> tail = new ArrayList<>();
+            int frames = (DECISIONS + KEY_COUNT) / BATCH_SIZE; // Enough to run every bucket dry
+            long start = System.nanoTime();
+            for (int frame = 0; frame < frames; frame++) {
+                inFlight.acquire();
+                CompletableFuture<boolean[]> response = client.checkBatch("token", batches.get(frame % batches.size()));
+                response.whenComplete((decisions, failure) -> {
+                    if (decisions != null) {
+                        long count = 0;
+                        for (boolean decision : decisions) {
+                            count += decision ? 1 : 0;
+                        }
+                        allowed.addAndGet(count);
+                    }
+                    inFlight.release();
+                });
+                if (frame >= frames - IN_FLIGHT) {
+                    tail.add(response);
+                }
+            }
+            for (CompletableFuture<boolean[]> response : tail) {
+                response.join();
+            }
+            inFlight.acquire(IN_FLIGHT);
+            long elapsedNanos = System.nanoTime() - start;
+
+            double decisionsPerSecond = (double) frames * BATCH_SIZE * 1_000_000_000L / elapsedNanos;
+            long allowedWithWarmup = allowed.get() + BATCH_SIZE;
+            assertEquals((long) capacity * KEY_COUNT, allowedWithWarmup, "Every bucket admits exactly its capacity.");
+            assertTrue(decisionsPerSecond > 100_000, "Batching should keep loopback throughput well above one round trip per key.");
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package titanVault.serverTest.smallDatasetTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import titanVault.server.LimiterClient;
+import titanVault.server.LimiterProtocol;
+import titanVault.server.LimiterServer;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterServerSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    private LimiterServer server;
+    private LimiterClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Map<String, RateLimiter> limiters = new LinkedHashMap<>();
+        limiters.put("token", new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 1, fixedClock));
+        limiters.put("window", new FixedWindowServiceRateLimiter(3, Duration.ofMinutes(1), fixedClock));
+        server = new LimiterServer(limiters, new InetSocketAddress("127.0.0.1", 0), 2);
+        client = new LimiterClient((InetSocketAddress) server.getAddress(), 2, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.close();
+        server.close();
+    }
+
+    @Test
+    public void testSingleCheckReachesServiceLimiter() {
+        /* Positive Test Case: Single checks are decided by the named limiter on the server. */
+        for (int i = 0; i < 3; i++) {
+            assertTrue(client.check("window", "user1").join());
+        }
+        assertFalse(client.check("window", "user1").join(), "The fourth request exceeds the window limit of 3.");
+        assertTrue(client.check("token", "user1").join(), "Limiters keep separate state for the same key.");
+    }
+
+    @Test
+    public void testBatchDecidesEveryKeyInOrder() {
+        /* Positive Test Case: A batch frame returns one decision per key in request order. */
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            keys.add("user1");
+        }
+        keys.add("user2");
+        boolean[] decisions = client.checkBatch("token", keys).join();
+        assertArrayEquals(new boolean[]{true, true, true, true, true, false, false, true}, decisions);
+    }
+
+    @Test
+    public void testPipelinedRequestsAllComplete() {
+        /* Positive Test Case: Many requests in flight on the same connections complete with exact limits. */
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(client.check("window", "user" + (i % 10)));
+        }
+        long allowed = futures.stream().filter(CompletableFuture::join).count();
+        assertEquals(30, allowed, "Each of the 10 users gets exactly 3 requests.");
+    }
+
+    @Test
+    public void testUnknownLimiterFailsFuture() {
+        /* Negative Test Case: Asking for a limiter the server does not serve fails the future. */
+        CompletionException thrown = assertThrows(CompletionException.class, () -> client.check("missing", "user1").join());
+        assertInstanceOf(IllegalArgumentException.class, thrown.getCause());
+    }
+
+    @Test
+    public void testMalformedFrameIsAnsweredWithBadRequest() throws IOException {
+        /* Negative Test Case: A frame with an unknown operation is answered with BAD_REQUEST and the connection keeps serving. */
+        try (Socket socket = new Socket()) {
+            socket.connect(server.getAddress());
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            output.writeInt(5);
+            output.writeInt(1);
+            output.writeByte(99);
+            writeResolve(output, 2, "window");
+            output.flush();
+            assertEquals(7, input.readInt());
+            assertEquals(1, input.readInt());
+            assertEquals(LimiterProtocol.BAD_REQUEST, input.readByte());
+            input.readShort();
+            assertEquals(7, input.readInt());
+            assertEquals(2, input.readInt(), "The frame after the bad one is still answered.");
+            assertEquals(LimiterProtocol.OK, input.readByte());
+            assertEquals(1, input.readShort());
+        }
+        assertTrue(client.check("token", "user3").join());
+    }
+
+    @Test
+    public void testOversizedFrameIsSkipped() throws IOException {
+        /* Negative Test Case: A frame longer than the protocol allows is rejected and its bytes skipped. */
+        try (Socket socket = new Socket()) {
+            socket.connect(server.getAddress());
+            DataOutputStream output = new DataOutputStream(socket.getOutputStream());
+            DataInputStream input = new DataInputStream(socket.getInputStream());
+            int frameLength = LimiterProtocol.MAX_FRAME_BYTES + 1;
+            output.writeInt(frameLength);
+            output.writeInt(1);
+            output.write(new byte[frameLength - 4]);
+            writeResolve(output, 2, "token");
+            output.flush();
+            input.readInt();
+            assertEquals(1, input.readInt());
+            assertEquals(LimiterProtocol.BAD_REQUEST, input.readByte());
+            input.readShort();
+            input.readInt();
+            assertEquals(2, input.readInt());
+            assertEquals(LimiterProtocol.OK, input.readByte());
+        }
+    }
+
+    @Test
+    public void testFailingLimiterAnswersBadRequest() throws IOException {
+        /* Negative Test Case: A limiter that throws fails only its own request; the connection keeps serving. */
+        Map<String, RateLimiter> limiters = new LinkedHashMap<>();
+        limiters.put("broken", userId -> {
+            throw new IllegalStateException("Limiter failure");
+        });
+        limiters.put("token", new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 1, fixedClock));
+        try (LimiterServer failing = new LimiterServer(limiters, new InetSocketAddress("127.0.0.1", 0), 1);
+             LimiterClient failingClient = new LimiterClient((InetSocketAddress) failing.getAddress(), 1, Duration.ofSeconds(5))) {
+            CompletionException thrown = assertThrows(CompletionException.class, () -> failingClient.check("broken", "user1").join());
+            assertInstanceOf(IllegalStateException.class, thrown.getCause());
+            assertTrue(failingClient.check("token", "user1").join(), "The same connection still serves other requests.");
+        }
+    }
+
+    @Test
+    public void testOversizedBatchRejectedBeforeSending() {
+        /* Negative Test Case: A batch that does not fit in one frame is rejected by the client. */
+        String key = "k".repeat(60_000);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            keys.add(key);
+        }
+        assertThrows(IllegalArgumentException.class, () -> client.checkBatch("token", keys));
+        assertTrue(client.check("token", "user4").join());
+    }
+
+    @Test
+    public void testBrokenConnectionIsReopened() throws Exception {
+        /* Positive Test Case: After the server restarts, the client reopens its connections and carries on. */
+        InetSocketAddress address = (InetSocketAddress) server.getAddress();
+        assertTrue(client.check("token", "user5").join());
+        server.close();
+        assertThrows(CompletionException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                client.check("token", "user5").join();
+                Thread.sleep(50);
+            }
+        });
+        server = new LimiterServer(Map.of("token", new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 1, fixedClock)), address, 1);
+        boolean allowed = false;
+        for (int attempt = 0; attempt < 10 && !allowed; attempt++) {
+            try {
+                allowed = client.check("token", "user5").join();
+            } catch (CompletionException e) {
+                Thread.sleep(50); // A connection whose reader has not yet seen the close
+            }
+        }
+        assertTrue(allowed, "A request on a reopened connection reaches the restarted server.");
+    }
+
+    @Test
+    public void testCloseReportsNoErrors() throws Exception {
+        /* Negative Test Case: Closing the server stops the acceptor and loops without reporting their shutdown as failures. */
+        List<Exception> reported = new CopyOnWriteArrayList<>();
+        LimiterServer closing = new LimiterServer(Map.of("token", new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 1, fixedClock)),
+                new InetSocketAddress("127.0.0.1", 0), 2);
+        closing.setErrorHandler(reported::add);
+        closing.close();
+        Thread.sleep(100); // Let the acceptor and loops notice
+        assertEquals(List.of(), reported);
+        assertThrows(NullPointerException.class, () -> server.setErrorHandler(null));
+    }
+
+    private static void writeResolve(DataOutputStream output, int requestId, String limiterName) throws IOException {
+        byte[] name = limiterName.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(4 + 1 + 2 + name.length);
+        output.writeInt(requestId);
+        output.writeByte(LimiterProtocol.RESOLVE);
+        output.writeShort(name.length);
+        output.write(name);
+    }
+
+    @Test
+    public void testRejectsInvalidArguments() {
+        /* Negative Test Case: Empty batches and empty limiter sets are rejected. */
+        assertThrows(IllegalArgumentException.class, () -> client.checkBatch("token", List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LimiterServer(Map.of(), new InetSocketAddress("127.0.0.1", 0), 1));
+    }
+}
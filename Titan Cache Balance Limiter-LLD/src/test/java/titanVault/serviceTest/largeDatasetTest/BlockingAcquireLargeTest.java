@@ -0,0 +1,102 @@
+package titanVault.serviceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.BlockingRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.LeakyBucketRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * 100,000 virtual threads parked in acquire at once, a thousand per key, admitted as the
+ * buckets refill. Waiting holds no platform thread and nothing polls, so the platform
+ * thread count stays at the scheduler's carriers.
+ */
+public class BlockingAcquireLargeTest {
+
+    private static final int WAITERS = 100_000;
+    private static final int KEYS = 100;
+    private static final Clock systemClock = Clock.systemUTC();
+
+    @Test
+    public void testHundredThousandVirtualWaitersOnTokenBucket() throws InterruptedException {
+        /* Positive Test Case: Every waiter is admitted as the buckets refill, without a platform thread per waiter. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(100, Duration.ofMillis(20), 100, systemClock);
+        runWaiters("token-bucket", limiter, WAITERS, 100, 20);
+    }
+
+    @Test
+    public void testVirtualWaitersOnFixedWindowAndLeakyBucket() throws InterruptedException {
+        /* Positive Test Case: The fixed window and leaky bucket limiters admit their waiters the same way. */
+        runWaiters("fixed-window", new FixedWindowServiceRateLimiter(10, Duration.ofMillis(20), systemClock), WAITERS / 10, 10, 21);
+        runWaiters("leaky-bucket", new LeakyBucketRateLimiter(10, 10, Duration.ofMillis(20), systemClock) {
+        }, WAITERS / 10, 10, 20);
+    }
+
+    @Test
+    public void testWaitersLeavingMidQueueDoNotStrandTheOthers() throws InterruptedException {
+        /* Positive Test Case: Impatient waiters leaving while heads are admitted never leave a patient waiter parked until its deadline. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(1, Duration.ofMillis(1), 1, systemClock);
+        AtomicLong patientAdmitted = new AtomicLong();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < WAITERS / 5; i++) {
+                String userId = "user" + (i % 8);
+                boolean patient = i % 10 == 0;
+                executor.execute(() -> {
+                    try {
+                        if (limiter.acquire(userId, 1, patient ? Duration.ofMinutes(1) : Duration.ofNanos(200_000)) && patient) {
+                            patientAdmitted.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(WAITERS / 50, patientAdmitted.get(), "Every patient waiter is admitted.");
+        assertTrue(elapsedMillis < 30_000, "Each leaving waiter wakes the head behind it, took " + elapsedMillis + " ms.");
+    }
+
+    private void runWaiters(String name, BlockingRateLimiter limiter, int waiters, int capacity, long refillMillis) throws InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        int platformThreadsBefore = threads.getThreadCount();
+        AtomicLong admitted = new AtomicLong();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < waiters; i++) {
+                String userId = "user" + (i % KEYS);
+                executor.execute(() -> {
+                    try {
+                        if (limiter.acquire(userId, 1, Duration.ofMinutes(2))) {
+                            admitted.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(3, TimeUnit.MINUTES), "Every waiter finishes.");
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long minimumMillis = (waiters / KEYS / capacity - 1) * refillMillis; // Refills needed after the first full bucket
+        int extraPlatformThreads = threads.getPeakThreadCount() - platformThreadsBefore;
+
+        assertEquals(waiters, admitted.get(), "Every waiter is admitted before its timeout.");
+        assertTrue(elapsedMillis >= minimumMillis * 3 / 4, "Waiters are held until the buckets refill.");
+        assertTrue(extraPlatformThreads < 64, "Parked virtual threads do not hold platform threads.");
+    }
+}
@@ -0,0 +1,143 @@
+package titanVault.serviceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import titanVault.controller.QuotasTokenBucketRateLimiterController;
+import titanVault.service.AdaptiveBucketServiceRateLimiter;
+import titanVault.service.EMABucketServiceRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.KeyRuleRateLimiter;
+import titanVault.service.LeakyBucketRateLimiter;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.SlidingWindowCounterRateLimiter;
+import titanVault.service.SlidingWindowLogRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/*
+ * Steady-state validateRequest must not allocate. Each test warms a limiter up so buckets
+ * exist and the JIT has compiled the path, then counts the bytes this thread allocates
+ * over a million requests. A few hundred bytes of slack cover the measurement itself;
+ * a single boxed Long or captured lambda per request would be megabytes.
+ */
+public class HotPathAllocationLargeTest {
+
+    private static final int USERS = 100;
+    private static final int WARMUP_REQUESTS = 500_000;
+    private static final int MEASURED_REQUESTS = 1_000_000;
+    private static final long ALLOWED_BYTES = 1_024;
+
+    private static final Clock systemClock = Clock.systemUTC(); // millis() does not allocate
+    private static final String[] userIds = new String[USERS];
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    @BeforeAll
+    public static void setUp() {
+        for (int user = 0; user < USERS; user++) {
+            userIds[user] = "user" + user;
+        }
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "Allocation counters are not available on this JVM.");
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void testTokenBucketDoesNotAllocate() {
+        /* Positive Test Case: Token bucket requests allocate nothing once the buckets exist. */
+        assertAllocationFree("token-bucket", new TokenBucketServiceRateLimiter(100, Duration.ofMillis(10), 50, systemClock));
+    }
+
+    @Test
+    public void testFixedWindowDoesNotAllocate() {
+        /* Positive Test Case: Fixed window requests allocate nothing, including across window resets. */
+        assertAllocationFree("fixed-window", new FixedWindowServiceRateLimiter(100, Duration.ofMillis(10), systemClock));
+    }
+
+    @Test
+    public void testSlidingWindowLogDoesNotAllocate() {
+        /* Positive Test Case: The sliding log reuses its ring of timestamps instead of boxing each one. */
+        assertAllocationFree("sliding-log", new SlidingWindowLogRateLimiter(100, Duration.ofMillis(10), systemClock));
+    }
+
+    @Test
+    public void testSlidingWindowCounterDoesNotAllocate() {
+        /* Positive Test Case: Sliding window counter requests allocate nothing. */
+        assertAllocationFree("sliding-counter", new SlidingWindowCounterRateLimiter(100, Duration.ofMillis(10), systemClock));
+    }
+
+    @Test
+    public void testEMABucketDoesNotAllocate() {
+        /* Positive Test Case: EMA requests allocate nothing. */
+        assertAllocationFree("ema", new EMABucketServiceRateLimiter(100, Duration.ofMillis(10), systemClock));
+    }
+
+    @Test
+    public void testLeakyBucketDoesNotAllocate() {
+        /* Positive Test Case: Leaky bucket requests allocate nothing. */
+        assertAllocationFree("leaky-bucket", new LeakyBucketRateLimiter(100, 50, Duration.ofMillis(10), systemClock) {
+        });
+    }
+
+    @Test
+    public void testAdaptiveBucketDoesNotAllocate() {
+        /* Positive Test Case: Adaptive bucket requests allocate nothing. */
+        assertAllocationFree("adaptive", new AdaptiveBucketServiceRateLimiter(100));
+    }
+
+    @Test
+    public void testQuotaServiceDoesNotAllocate() {
+        /* Positive Test Case: Requests checked against both the token bucket and the quota allocate nothing. */
+        assertAllocationFree("quota", new QuotasTokenBucketRateServiceLimiter(
+                100, Duration.ofMillis(10), 50, systemClock, 1_000, Duration.ofMillis(100)));
+    }
+
+    @Test
+    public void testKeyRulesDoNotAllocate() {
+        /* Positive Test Case: Cached rule matches add no allocation to the limiter they dispatch to. */
+        RateLimiter bucket = new TokenBucketServiceRateLimiter(100, Duration.ofMillis(10), 50, systemClock);
+        assertAllocationFree("key-rules", new KeyRuleRateLimiter(Map.of("user1", bucket, "*", bucket), bucket, 1_000));
+    }
+
+    @Test
+    public void testPrimitiveKeysDoNotAllocate() {
+        /* Positive Test Case: Primitive keys are checked without creating a String. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(100, Duration.ofMillis(10), 50, systemClock);
+        assertAllocationFree("long-keys", userId -> limiter.validateRequest(userId.length() * 31L + userId.charAt(userId.length() - 1)));
+    }
+
+    @Test
+    public void testQuotaControllerDoesNotAllocate() {
+        /* Positive Test Case: The controller returns prebuilt responses instead of concatenating them per request. */
+        QuotasTokenBucketRateLimiterController controller = new QuotasTokenBucketRateLimiterController(
+                100, Duration.ofMillis(10), 50, systemClock, 1_000, Duration.ofMillis(100));
+        assertAllocationFree("quota-controller", userId -> controller.handleRequest(userId, 1).startsWith("Request allowed"));
+    }
+
+    private static void assertAllocationFree(String algorithm, RateLimiter limiter) {
+        runRequests(limiter, WARMUP_REQUESTS);
+        long before = threadBean.getCurrentThreadAllocatedBytes();
+        int allowed = runRequests(limiter, MEASURED_REQUESTS);
+        long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < ALLOWED_BYTES, algorithm + " allocated " + allocated + " bytes on the hot path.");
+    }
+
+    private static int runRequests(RateLimiter limiter, int requests) {
+        int allowed = 0;
+        for (int request = 0; request < requests; request++) {
+            if (limiter.validateRequest(userIds[request % USERS])) {
+                allowed++;
+            }
+        }
+        return allowed;
+    }
+}
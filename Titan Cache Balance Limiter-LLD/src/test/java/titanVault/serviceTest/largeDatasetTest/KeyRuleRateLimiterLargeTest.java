@@ -0,0 +1,68 @@
+package titanVault.serviceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.KeyRuleRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyRuleRateLimiterLargeTest {
+
+    private static final int TENANTS = 1_000;
+    private static final int ROUTES = 10;
+    private static final int KEYS = 1_000;
+    private static final int ROUNDS = 2_000;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testMatchingOverheadWithTenThousandRules() {
+        /* Positive Test Case: With 10,000 rules, rule matching adds less than 100ns to each request. */
+        TokenBucketServiceRateLimiter bucket = new TokenBucketServiceRateLimiter(Long.MAX_VALUE / 2, Duration.ofMinutes(1), 1, fixedClock);
+        Map<String, RateLimiter> rules = new HashMap<>();
+        for (int tenant = 0; tenant < TENANTS; tenant++) {
+            for (int route = 0; route < ROUTES - 1; route++) {
+                rules.put("tenant" + tenant + ":route" + route, bucket);
+            }
+            rules.put("tenant" + tenant + ":*", bucket);
+        }
+        assertEquals(TENANTS * ROUTES, rules.size());
+        KeyRuleRateLimiter limiter = new KeyRuleRateLimiter(rules, bucket, 100_000);
+
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "tenant" + (i * 7 % TENANTS) + ":route" + (i % (ROUTES + 5)) + ":10.0.0." + (i % 256);
+        }
+
+        long bestOverhead = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 5; attempt++) {
+            long direct = timePerCall(bucket, keys);
+            long matched = timePerCall(limiter, keys);
+            bestOverhead = Math.min(bestOverhead, matched - direct);
+        }
+        assertTrue(bestOverhead < 100, "Rule matching should add less than 100ns, added " + bestOverhead + " ns.");
+    }
+
+    private static long timePerCall(RateLimiter limiter, String[] keys) {
+        int allowed = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String key : keys) {
+                if (limiter.validateRequest(key)) {
+                    allowed++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(ROUNDS * keys.length, allowed);
+        return elapsed / ((long) ROUNDS * keys.length);
+    }
+}
@@ -0,0 +1,62 @@
+package titanVault.serviceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongKeyMapLargeTest {
+
+    private static final int KEYS = 100_000;
+    private static final int ROUNDS = 20;
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testTokenBucketPrimitiveKeysBeatStringKeys() {
+        /* Positive Test Case: With 100,000 keys, primitive keys are checked faster than String ids. */
+        compare("token-bucket", new TokenBucketServiceRateLimiter(Long.MAX_VALUE / 2, Duration.ofMinutes(1), 1, fixedClock));
+    }
+
+    @Test
+    public void testFixedWindowPrimitiveKeysBeatStringKeys() {
+        /* Positive Test Case: The fixed window service gains the same way. */
+        compare("fixed-window", new FixedWindowServiceRateLimiter(Long.MAX_VALUE / 2, Duration.ofMinutes(1), fixedClock));
+    }
+
+    private static void compare(String algorithm, RateLimiter limiter) {
+        long[] keys = new long[KEYS];
+        String[] userIds = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = i * 0x9E3779B97F4A7C15L; // Spread like hashed ids
+            userIds[i] = Long.toString(keys[i]);
+        }
+        long bestString = Long.MAX_VALUE;
+        long bestPrimitive = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long start = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (String userId : userIds) {
+                    assertTrue(limiter.validateRequest(userId));
+                }
+            }
+            bestString = Math.min(bestString, (System.nanoTime() - start) / ((long) ROUNDS * KEYS));
+
+            start = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (long key : keys) {
+                    assertTrue(limiter.validateRequest(key));
+                }
+            }
+            bestPrimitive = Math.min(bestPrimitive, (System.nanoTime() - start) / ((long) ROUNDS * KEYS));
+        }
+        assertTrue(bestPrimitive < bestString, "Primitive keys should be faster than String ids.");
+    }
+}
@@ -0,0 +1,74 @@
+package titanVault.serviceTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.SketchWindowRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * A spoofed flood: 100 million requests, each from a new source, mixed with ten real
+ * heavy sources. Behind the sketch, the exact fixed window limiter only ever holds buckets
+ * for the keys that cross the threshold, so memory stays at the three sketches.
+ */
+public class SketchWindowRateLimiterLargeTest {
+
+    private static final long FLOOD_REQUESTS = 100_000_000L;
+    private static final int REQUESTS_PER_MILLI = 10_000; // 10 million requests per one-second window
+    private static final int HEAVY_KEYS = 10;
+    private static final int HEAVY_EVERY = 100; // Each heavy key sends 1% of the flood
+    private static final long THRESHOLD = 100;
+    private static final long EXACT_LIMIT = 200;
+
+    private final AtomicLong currentMillis = new AtomicLong(Instant.parse("2024-08-01T00:00:00Z").toEpochMilli());
+    private final Clock movingClock = new Clock() {
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(currentMillis.get()); }
+        @Override public long millis() { return currentMillis.get(); }
+    };
+
+    @Test
+    public void testHundredMillionDistinctKeysInFixedMemory() {
+        /* Positive Test Case: 100M distinct sources create no bucket; only the heavy sources are promoted and limited. */
+        FixedWindowServiceRateLimiter exact = new FixedWindowServiceRateLimiter(EXACT_LIMIT, Duration.ofSeconds(1), movingClock);
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        exact.setMetrics(metrics);
+        SketchWindowRateLimiter limiter = new SketchWindowRateLimiter(THRESHOLD, Duration.ofSeconds(1),
+                1 << 20, 4, movingClock, exact);
+
+        long floodAllowed = 0;
+        long heavyAllowed = 0;
+        long heavyRequests = 0;
+        for (long request = 0; request < FLOOD_REQUESTS; request++) {
+            if (request % REQUESTS_PER_MILLI == 0) {
+                currentMillis.incrementAndGet();
+            }
+            if (limiter.validateRequest(1_000_000_000L + request)) {
+                floodAllowed++;
+            }
+            if (request % HEAVY_EVERY == 0) {
+                heavyRequests++;
+                if (limiter.validateRequest(request / HEAVY_EVERY % HEAVY_KEYS)) {
+                    heavyAllowed++;
+                }
+            }
+        }
+        long windows = FLOOD_REQUESTS / REQUESTS_PER_MILLI / 1_000;
+        long promoted = metrics.snapshot(-1).getCreated();
+
+        assertEquals(FLOOD_REQUESTS, floodAllowed, "A source seen once is never over a threshold of 100.");
+        assertEquals(HEAVY_KEYS, promoted, "Only the heavy sources get an exact bucket.");
+        assertTrue(heavyAllowed <= HEAVY_KEYS * windows * (THRESHOLD + EXACT_LIMIT),
+                "Each heavy key gets at most the threshold plus the exact limit per window.");
+        assertTrue(heavyAllowed >= HEAVY_KEYS * (windows - 1) * EXACT_LIMIT, "Each heavy key gets its exact limit per window.");
+        assertTrue(heavyAllowed < heavyRequests, "The heavy sources are limited.");
+    }
+}
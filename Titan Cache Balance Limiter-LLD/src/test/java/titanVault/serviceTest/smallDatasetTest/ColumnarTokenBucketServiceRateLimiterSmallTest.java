@@ -0,0 +1,91 @@
+package titanVault.serviceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.ColumnarTokenBucketServiceRateLimiter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTokenBucketServiceRateLimiterSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testEachUserGetsOwnBucket() {
+        /* Positive Test Case: Users are limited independently, as with the object-per-bucket limiter. */
+        ColumnarTokenBucketServiceRateLimiter limiter = new ColumnarTokenBucketServiceRateLimiter(
+                10, 3, Duration.ofMinutes(1), 1, fixedClock);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.validateRequest("user1"));
+        }
+        assertFalse(limiter.validateRequest("user1"));
+        assertTrue(limiter.validateRequest("user2"));
+        assertEquals(2, limiter.getBuckets().getAllocatedSlots());
+    }
+
+    @Test
+    public void testPrimitiveKeysAndPermits() {
+        /* Positive Test Case: Primitive keys and multi-token requests are served from the same columns. */
+        ColumnarTokenBucketServiceRateLimiter limiter = new ColumnarTokenBucketServiceRateLimiter(
+                10, 3, Duration.ofMinutes(1), 1, fixedClock);
+        assertTrue(limiter.validateRequest(42L));
+        assertTrue(limiter.validateRequest(42L));
+        assertTrue(limiter.validateRequest(42L));
+        assertFalse(limiter.validateRequest(42L));
+        assertTrue(limiter.validateRequest("user1", 3));
+        assertFalse(limiter.validateRequest("user1", 1));
+    }
+
+    @Test
+    public void testSnapshotRestoresEachKeysOwnBucket() throws IOException {
+        /* Positive Test Case: After a restore every key finds its own bucket, whatever order keys arrive in. */
+        ColumnarTokenBucketServiceRateLimiter limiter = new ColumnarTokenBucketServiceRateLimiter(
+                10, 3, Duration.ofMinutes(1), 1, fixedClock);
+        for (int i = 0; i < 3; i++) {
+            limiter.validateRequest("user1");
+        }
+        limiter.validateRequest("user2");
+        limiter.validateRequest(42L);
+        limiter.validateRequest(42L);
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        assertEquals(3, limiter.writeSnapshot(new DataOutputStream(snapshot)));
+
+        ColumnarTokenBucketServiceRateLimiter restored = new ColumnarTokenBucketServiceRateLimiter(
+                10, 3, Duration.ofMinutes(1), 1, fixedClock);
+        assertEquals(3, restored.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray()))));
+        assertTrue(restored.validateRequest("user3"), "A new key gets a fresh slot, not a restored one.");
+        assertTrue(restored.validateRequest(42L));
+        assertFalse(restored.validateRequest(42L), "Key 42 had one token left.");
+        assertTrue(restored.validateRequest("user2"));
+        assertTrue(restored.validateRequest("user2"));
+        assertFalse(restored.validateRequest("user2"), "user2 had two tokens left.");
+        assertFalse(restored.validateRequest("user1"), "user1 was depleted.");
+        assertEquals(4, restored.getBuckets().getAllocatedSlots());
+
+        assertThrows(IllegalStateException.class,
+                () -> restored.readSnapshot(new DataInputStream(new ByteArrayInputStream(snapshot.toByteArray()))));
+    }
+
+    @Test
+    public void testTooManyKeysIsDenied() {
+        /* Negative Test Case: A key beyond the configured maximum is denied instead of sharing a bucket, and known keys are still served. */
+        ColumnarTokenBucketServiceRateLimiter limiter = new ColumnarTokenBucketServiceRateLimiter(
+                1, 3, Duration.ofMinutes(1), 1, fixedClock);
+        assertTrue(limiter.validateRequest("user1"));
+        assertFalse(limiter.validateRequest("user2"));
+        assertFalse(limiter.validateRequest("user2", 2));
+        assertFalse(limiter.validateRequest(42L));
+        assertTrue(limiter.validateRequest("user1"), "The key holding the slot keeps its bucket.");
+        assertEquals(1, limiter.getBuckets().getAllocatedSlots());
+        assertThrows(IllegalArgumentException.class, () -> limiter.validateRequest("user1", 0));
+    }
+}
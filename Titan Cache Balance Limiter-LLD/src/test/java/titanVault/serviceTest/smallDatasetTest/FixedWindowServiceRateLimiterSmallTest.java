@@ -8,8 +8,10 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class FixedWindowServiceRateLimiterSmallTest {
@@ -106,4 +108,51 @@ public class FixedWindowServiceRateLimiterSmallTest {
         assertFalse(fixedWindowServiceRateLimiter.validateRequest(""), "Request with an empty user ID should be denied.");
         assertFalse(fixedWindowServiceRateLimiter.validateRequest(null), "Request with a null user ID should be denied.");
     }
+
+    @Test
+    public void testUpdateConfigurationKeepsWindowState() {
+        /* Positive Test Case: The updated limiter carries the current window over, scaled to the new capacity. */
+        for (int i = 0; i < 100; i++) {
+            fixedWindowServiceRateLimiter.validateRequest("user1");
+        }
+        FixedWindowServiceRateLimiter updated = fixedWindowServiceRateLimiter.updateConfiguration(50, Duration.ofMinutes(1));
+        assertFalse(updated.validateRequest("user1"), "A full window stays full after the update.");
+        assertTrue(updated.validateRequest("user2"));
+    }
+
+    @Test
+    public void testAcquireWaitsForNextWindow() throws InterruptedException {
+        /* Positive Test Case: Acquire parks until the full window resets. */
+        FixedWindowServiceRateLimiter limiter = new FixedWindowServiceRateLimiter(1, Duration.ofMillis(50), Clock.systemUTC());
+        assertTrue(limiter.validateRequest("user1"));
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire("user1", 1, Duration.ofSeconds(5)), "The next window starts before the timeout.");
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(waitedMillis >= 30 && waitedMillis < 2_000, "Woken at the window reset, waited " + waitedMillis + " ms.");
+    }
+
+    @Test
+    public void testInterruptedAcquireLeavesTheQueue() throws InterruptedException {
+        /* Negative Test Case: An interrupted waiter throws and no longer holds up the key. */
+        for (int i = 0; i < 100; i++) {
+            fixedWindowServiceRateLimiter.validateRequest("user1");
+        }
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                fixedWindowServiceRateLimiter.acquire("user1", 1, Duration.ofMinutes(5));
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.onSpinWait();
+        }
+        waiter.interrupt();
+        waiter.join();
+        assertInstanceOf(InterruptedException.class, failure.get());
+        assertFalse(fixedWindowServiceRateLimiter.acquire("user1", 1, Duration.ZERO), "The window is still full.");
+        assertTrue(fixedWindowServiceRateLimiter.acquire("user2", 1, Duration.ZERO));
+    }
 }
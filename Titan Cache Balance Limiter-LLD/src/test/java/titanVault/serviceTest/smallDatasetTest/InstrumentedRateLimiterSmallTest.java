@@ -0,0 +1,172 @@
+package titanVault.serviceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.metrics.MetricsSnapshot;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.BlockingRateLimiter;
+import titanVault.service.InspectableRateLimiter;
+import titanVault.service.InstrumentedRateLimiter;
+import titanVault.service.LeakyBucketRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedRateLimiterSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testCountsDecisionsAndKeys() {
+        /* Positive Test Case: Allowed and denied decisions, created buckets and tracked keys are reported. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, fixedClock);
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        tokenBucket.setMetrics(metrics);
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter(tokenBucket, metrics);
+
+        assertTrue(limiter.validateRequest("user1"));
+        assertTrue(limiter.validateRequest("user1"));
+        assertFalse(limiter.validateRequest("user1"));
+        assertTrue(limiter.validateRequest("user2", 2));
+        assertTrue(limiter.validateRequest(7L));
+
+        MetricsSnapshot snapshot = limiter.snapshot();
+        assertEquals(4, snapshot.getAllowed());
+        assertEquals(1, snapshot.getDenied());
+        assertEquals(3, snapshot.getCreated(), "Two user ids and one primitive key got a bucket.");
+        assertEquals(2, snapshot.getTrackedKeys());
+        assertEquals(5, snapshot.getDecisionLatency().getTotalCount(), "Every call is timed at a sample rate of 1.");
+        assertEquals(5, snapshot.getLockWait().getTotalCount());
+    }
+
+    @Test
+    public void testSamplingTimesFewerCalls() {
+        /* Positive Test Case: With sampling, every decision is counted but only some are timed. */
+        FixedWindowServiceRateLimiter fixedWindow = new FixedWindowServiceRateLimiter(Long.MAX_VALUE, Duration.ofMinutes(1), fixedClock);
+        LimiterMetrics metrics = new LimiterMetrics(64);
+        fixedWindow.setMetrics(metrics);
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter(fixedWindow, metrics);
+        for (int i = 0; i < 64_000; i++) {
+            limiter.validateRequest("user1");
+        }
+        MetricsSnapshot snapshot = limiter.snapshot();
+        assertEquals(64_000, snapshot.getAllowed());
+        assertEquals(1, snapshot.getCreated());
+        long timed = snapshot.getDecisionLatency().getTotalCount();
+        assertTrue(timed > 500 && timed < 2_000, "About one call in 64 should be timed, was " + timed);
+    }
+
+    @Test
+    public void testMetricsFollowReconfiguredLimiter() {
+        /* Positive Test Case: A reconfigured limiter keeps reporting to the same metrics. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, fixedClock);
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        tokenBucket.setMetrics(metrics);
+        TokenBucketServiceRateLimiter reconfigured = tokenBucket.reconfigure(4, Duration.ofMinutes(1), 1);
+        reconfigured.validateRequest("user1");
+        assertEquals(1, metrics.snapshot(-1).getCreated());
+    }
+
+    @Test
+    public void testLockWaitTimesTheContendedBucket() throws InterruptedException {
+        /* Positive Test Case: A request waiting for a bucket another request holds reports the wait. */
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Clock blockingClock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return fixedClock.getZone();
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return fixedClock.instant();
+            }
+
+            @Override
+            public long millis() {
+                if ("holder".equals(Thread.currentThread().getName())) {
+                    holding.countDown();
+                    try {
+                        release.await(); // The refill reads the clock under the bucket lock
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return fixedClock.millis();
+            }
+        };
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 1, blockingClock);
+        tokenBucket.validateRequest("user1"); // Create the bucket on this thread
+        Thread holder = new Thread(() -> tokenBucket.validateRequest("user1"), "holder");
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        tokenBucket.setMetrics(metrics);
+        Thread waiter = new Thread(() -> tokenBucket.validateRequest("user1"));
+        waiter.start();
+        Thread.sleep(50);
+        release.countDown();
+        waiter.join();
+        holder.join();
+
+        assertEquals(1, metrics.snapshot(-1).getLockWait().getTotalCount());
+        assertTrue(metrics.snapshot(-1).getLockWait().getMaxValue() >= TimeUnit.MILLISECONDS.toNanos(40),
+                "The wait for the held bucket should be reported.");
+    }
+
+    @Test
+    public void testWrapKeepsBlockingAndInspection() throws InterruptedException {
+        /* Positive Test Case: A wrapped limiter is blocking and inspectable like its delegate, and counts those calls. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, fixedClock);
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        RateLimiter limiter = InstrumentedRateLimiter.wrap(tokenBucket, metrics);
+        BlockingRateLimiter blocking = assertInstanceOf(BlockingRateLimiter.class, limiter);
+        InspectableRateLimiter inspectable = assertInstanceOf(InspectableRateLimiter.class, limiter);
+
+        assertTrue(blocking.acquire("user1", 1, Duration.ZERO));
+        assertEquals(0, blocking.tryAcquire("user1", 1));
+        assertTrue(blocking.tryAcquire("user1", 1) > 0);
+        assertEquals(0, inspectable.inspect("user1").getRemaining());
+
+        assertEquals(2, metrics.getAllowed());
+        assertEquals(1, metrics.getDenied());
+    }
+
+    @Test
+    public void testWrapOffersOnlyTheDelegatesCapabilities() {
+        /* Negative Test Case: Limiters that cannot block or be inspected are not wrapped as if they could. */
+        RateLimiter plain = InstrumentedRateLimiter.wrap(userId -> true, new LimiterMetrics(1));
+        assertFalse(plain instanceof BlockingRateLimiter);
+        assertFalse(plain instanceof InspectableRateLimiter);
+
+        LeakyBucketRateLimiter leakyBucket = new LeakyBucketRateLimiter(2, 1, Duration.ofMinutes(1), fixedClock) {
+        };
+        RateLimiter blockingOnly = InstrumentedRateLimiter.wrap(leakyBucket, new LimiterMetrics(1));
+        assertInstanceOf(BlockingRateLimiter.class, blockingOnly);
+        assertFalse(blockingOnly instanceof InspectableRateLimiter);
+    }
+
+    @Test
+    public void testLimiterWithoutKeyListingReportsUnknownKeys() {
+        /* Negative Test Case: Limiters that cannot list keys report -1 tracked keys. */
+        InstrumentedRateLimiter limiter = new InstrumentedRateLimiter(userId -> true, new LimiterMetrics(1));
+        limiter.validateRequest("user1");
+        assertEquals(-1, limiter.snapshot().getTrackedKeys());
+        assertEquals(0, limiter.snapshot().getCreated());
+    }
+}
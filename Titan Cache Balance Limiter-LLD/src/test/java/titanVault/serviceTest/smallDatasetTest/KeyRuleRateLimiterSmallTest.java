@@ -0,0 +1,107 @@
+package titanVault.serviceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.KeyRuleRateLimiter;
+import titanVault.service.KeyRuleTrie;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyRuleRateLimiterSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testMostSpecificRuleWins() {
+        /* Positive Test Case: Literal segments beat wildcards, and wildcards beat shorter prefixes. */
+        Map<String, String> rules = new HashMap<>();
+        rules.put("acme", "tenant");
+        rules.put("acme:*", "any-route");
+        rules.put("acme:search", "search");
+        rules.put("acme:search:10.0.0.1", "search-ip");
+        rules.put("*:search", "any-tenant-search");
+        KeyRuleTrie<String> trie = KeyRuleTrie.compile(rules);
+
+        assertEquals("search-ip", trie.match("acme:search:10.0.0.1"));
+        assertEquals("search", trie.match("acme:search:10.0.0.2"));
+        assertEquals("any-route", trie.match("acme:upload:10.0.0.1"));
+        assertEquals("tenant", trie.match("acme"));
+        assertEquals("any-tenant-search", trie.match("globex:search:10.0.0.1"));
+        assertNull(trie.match("globex:upload:10.0.0.1"));
+    }
+
+    @Test
+    public void testBacktracksToWildcardBranch() {
+        /* Positive Test Case: A literal branch that does not match deeper gives way to a wildcard branch that does. */
+        Map<String, String> rules = new HashMap<>();
+        rules.put("acme:search:10.0.0.1", "literal");
+        rules.put("acme:*:*", "wildcard");
+        KeyRuleTrie<String> trie = KeyRuleTrie.compile(rules);
+
+        assertEquals("wildcard", trie.match("acme:search:10.0.0.9"));
+        assertEquals("acme:*:*", trie.matchPattern("acme:search:10.0.0.9"));
+    }
+
+    @Test
+    public void testRulesLimitEachKeySeparately() {
+        /* Positive Test Case: Each key gets its own bucket under the rule it matches, and other keys use the default. */
+        Map<String, RateLimiter> rules = new HashMap<>();
+        rules.put("acme:search", new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, fixedClock));
+        rules.put("acme:*", new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 1, fixedClock));
+        KeyRuleRateLimiter limiter = new KeyRuleRateLimiter(rules,
+                new TokenBucketServiceRateLimiter(1, Duration.ofMinutes(1), 1, fixedClock), 1_000);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(limiter.validateRequest("acme", "search", "10.0.0.1"));
+        }
+        assertFalse(limiter.validateRequest("acme:search:10.0.0.1"), "The search rule allows 2 requests per key.");
+        assertTrue(limiter.validateRequest("acme:search:10.0.0.2"), "Another ip has its own bucket.");
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.validateRequest("acme:upload:10.0.0.1"));
+        }
+        assertFalse(limiter.validateRequest("acme:upload:10.0.0.1"));
+        assertTrue(limiter.validateRequest("globex:search:10.0.0.1"));
+        assertFalse(limiter.validateRequest("globex:search:10.0.0.1"), "Unmatched keys fall back to the default policy.");
+        assertNull(limiter.getMatchingRule("globex:search:10.0.0.1"));
+    }
+
+    @Test
+    public void testUpdateRulesDropsCachedMatches() {
+        /* Positive Test Case: Keys matched before an update are matched again against the new rules. */
+        RateLimiter deny = userId -> false;
+        RateLimiter allow = userId -> true;
+        KeyRuleRateLimiter limiter = new KeyRuleRateLimiter(Map.of("acme:*", deny), allow, 1_000);
+        assertFalse(limiter.validateRequest("acme:search"));
+
+        limiter.updateRules(Map.of("acme:*", deny, "acme:search", allow));
+        assertTrue(limiter.validateRequest("acme:search"));
+        assertEquals("acme:search", limiter.getMatchingRule("acme:search"));
+    }
+
+    @Test
+    public void testCacheBoundKeepsMatching() {
+        /* Positive Test Case: Clearing the bounded cache does not change which rule decides a key. */
+        KeyRuleRateLimiter limiter = new KeyRuleRateLimiter(Map.of("acme:*", userId -> false), userId -> true, 4);
+        for (int i = 0; i < 20; i++) {
+            assertFalse(limiter.validateRequest("acme:route" + i));
+            assertTrue(limiter.validateRequest("globex:route" + i));
+        }
+    }
+
+    @Test
+    public void testInvalidPatterns() {
+        /* Negative Test Case: Empty segments and partial wildcards are rejected. */
+        assertThrows(IllegalArgumentException.class, () -> KeyRuleTrie.compile(Map.of("acme::search", "x")));
+        assertThrows(IllegalArgumentException.class, () -> KeyRuleTrie.compile(Map.of("acme:sea*", "x")));
+        assertThrows(IllegalArgumentException.class, () -> new KeyRuleRateLimiter(Map.of(), null, 10));
+        assertThrows(IllegalArgumentException.class, () -> new KeyRuleRateLimiter(Map.of(), userId -> true, 0));
+    }
+}
@@ -0,0 +1,132 @@
+package titanVault.serviceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.LongKeyMap;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongKeyMapSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testGrowsPastExpectedKeys() {
+        /* Positive Test Case: Every key is still found after the table has doubled several times. */
+        LongKeyMap<String> map = new LongKeyMap<>(4);
+        for (long key = -500; key < 500; key++) {
+            long bucketKey = key;
+            assertEquals("bucket" + key, map.computeIfAbsent(key, id -> "bucket" + bucketKey));
+        }
+        assertEquals(1_000, map.size());
+        for (long key = -500; key < 500; key++) {
+            assertEquals("bucket" + key, map.get(key));
+        }
+        assertNull(map.get(500));
+        assertNull(map.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void testForEachVisitsEveryEntry() {
+        /* Positive Test Case: forEach sees each key with its bucket exactly once. */
+        LongKeyMap<Long> map = new LongKeyMap<>(16);
+        for (long key = 0; key < 100; key++) {
+            map.computeIfAbsent(key * 1_000_003L, id -> id);
+        }
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach((key, bucket) -> assertNull(visited.put(key, bucket)));
+        assertEquals(100, visited.size());
+        visited.forEach((key, bucket) -> assertEquals(key, bucket));
+    }
+
+    @Test
+    public void testConcurrentInsertsCreateOneBucketPerKey() throws InterruptedException {
+        /* Positive Test Case: Threads racing on the same keys share a single bucket per key. */
+        LongKeyMap<AtomicInteger> map = new LongKeyMap<>(8);
+        AtomicInteger created = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            threads.add(new Thread(() -> {
+                for (long key = 0; key < 10_000; key++) {
+                    map.computeIfAbsent(key, id -> {
+                        created.incrementAndGet();
+                        return new AtomicInteger();
+                    }).incrementAndGet();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(10_000, created.get(), "The factory should run once per key.");
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(4, map.get(key).get());
+        }
+    }
+
+    @Test
+    public void testServicesLimitPrimitiveKeys() {
+        /* Positive Test Case: Primitive keys get their own buckets, separate from String user ids. */
+        TokenBucketServiceRateLimiter tokenBucket = new TokenBucketServiceRateLimiter(2, Duration.ofMinutes(1), 1, fixedClock);
+        assertTrue(tokenBucket.validateRequest(42L));
+        assertTrue(tokenBucket.validateRequest(42L));
+        assertFalse(tokenBucket.validateRequest(42L));
+        assertTrue(tokenBucket.validateRequest(43L));
+        assertTrue(tokenBucket.validateRequest("42"), "String ids are a separate key space.");
+
+        FixedWindowServiceRateLimiter fixedWindow = new FixedWindowServiceRateLimiter(1, Duration.ofMinutes(1), fixedClock);
+        assertTrue(fixedWindow.validateRequest(7L));
+        assertFalse(fixedWindow.validateRequest(7L));
+
+        QuotasTokenBucketRateServiceLimiter quotas = new QuotasTokenBucketRateServiceLimiter(
+                10, Duration.ofMinutes(1), 1, fixedClock, 3, Duration.ofHours(1));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(quotas.validateRequest(9L));
+        }
+        assertFalse(quotas.validateRequest(9L), "The quota of the key is used up.");
+    }
+
+    @Test
+    public void testReconfigureCarriesPrimitiveKeys() {
+        /* Positive Test Case: Reconfiguring a limiter migrates the buckets of primitive keys too. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 1, fixedClock);
+        for (int i = 0; i < 10; i++) {
+            limiter.validateRequest(5L);
+        }
+        TokenBucketServiceRateLimiter reconfigured = limiter.reconfigure(20, Duration.ofMinutes(1), 1);
+        assertFalse(reconfigured.validateRequest(5L), "An empty bucket stays empty after rescaling.");
+        assertTrue(reconfigured.validateRequest(6L));
+    }
+
+    @Test
+    public void testDefaultFallsBackToDecimalKey() {
+        /* Positive Test Case: A limiter without a primitive index sees the decimal form of the key. */
+        List<String> seen = new ArrayList<>();
+        RateLimiter limiter = userId -> seen.add(userId);
+        assertTrue(limiter.validateRequest(-17L));
+        assertEquals(List.of("-17"), seen);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        /* Negative Test Case: Negative sizes and factories returning null are rejected. */
+        assertThrows(IllegalArgumentException.class, () -> new LongKeyMap<String>(-1));
+        LongKeyMap<String> map = new LongKeyMap<>(4);
+        assertThrows(IllegalArgumentException.class, () -> map.computeIfAbsent(1L, id -> null));
+        assertNull(map.get(1L));
+    }
+}
@@ -0,0 +1,98 @@
+package titanVault.serviceTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.metrics.LimiterMetrics;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.SketchWindowRateLimiter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchWindowRateLimiterSmallTest {
+
+    private final AtomicLong currentMillis = new AtomicLong(Instant.parse("2024-08-01T00:00:00Z").toEpochMilli());
+    private final Clock movingClock = new Clock() {
+        @Override public ZoneId getZone() { return ZoneId.of("UTC"); }
+        @Override public Clock withZone(ZoneId zone) { return this; }
+        @Override public Instant instant() { return Instant.ofEpochMilli(currentMillis.get()); }
+    };
+
+    @Test
+    public void testDeniesKeysOverThreshold() {
+        /* Positive Test Case: Each key gets the threshold, and keys do not share it. */
+        SketchWindowRateLimiter limiter = new SketchWindowRateLimiter(3, Duration.ofMinutes(1), 1_024, 4, movingClock);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.validateRequest("user1"));
+        }
+        assertFalse(limiter.validateRequest("user1"));
+        assertTrue(limiter.validateRequest("user2"), "Another key has its own count.");
+        assertTrue(limiter.validateRequest(7L));
+        assertEquals(4, limiter.estimate("user1"), "Denied requests count too.");
+    }
+
+    @Test
+    public void testWindowSlides() {
+        /* Positive Test Case: The previous window counts in proportion to the part still covered. */
+        SketchWindowRateLimiter limiter = new SketchWindowRateLimiter(10, Duration.ofSeconds(10), 1_024, 4, movingClock);
+        currentMillis.set(currentMillis.get() / 10_000 * 10_000); // Start of a window
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.validateRequest("user1"));
+        }
+        assertFalse(limiter.validateRequest("user1"));
+
+        currentMillis.addAndGet(12_500); // A quarter into the next window: 75% of the previous one counts
+        assertEquals(8, limiter.estimate("user1"), "Three quarters of 11.");
+        assertTrue(limiter.validateRequest("user1"));
+        assertTrue(limiter.validateRequest("user1"));
+        assertFalse(limiter.validateRequest("user1"));
+
+        currentMillis.addAndGet(20_000); // Two windows later nothing is left
+        assertEquals(0, limiter.estimate("user1"));
+        assertTrue(limiter.validateRequest("user1"));
+    }
+
+    @Test
+    public void testPromotesHeavyKeysToExactLimiter() {
+        /* Positive Test Case: Only keys over the threshold get a bucket in the exact limiter, which then decides them. */
+        FixedWindowServiceRateLimiter exact = new FixedWindowServiceRateLimiter(5, Duration.ofMinutes(1), movingClock);
+        LimiterMetrics metrics = new LimiterMetrics(1);
+        exact.setMetrics(metrics);
+        SketchWindowRateLimiter limiter = new SketchWindowRateLimiter(2, Duration.ofMinutes(1), 1_024, 4, movingClock, exact);
+
+        for (int key = 0; key < 100; key++) {
+            assertTrue(limiter.validateRequest("light" + key));
+        }
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            allowed += limiter.validateRequest("heavy") ? 1 : 0;
+        }
+        assertEquals(2 + 5, allowed, "Two requests on the sketch, then the exact limit of 5.");
+        assertEquals(1, metrics.snapshot(-1).getCreated(), "Only the heavy key has a bucket.");
+        assertSame(exact, limiter.getExactLimiter());
+    }
+
+    @Test
+    public void testPermitsCountTowardsEstimate() {
+        /* Positive Test Case: A request of several permits counts all of them. */
+        SketchWindowRateLimiter limiter = new SketchWindowRateLimiter(10, Duration.ofMinutes(1), 1_024, 4, movingClock);
+        assertTrue(limiter.validateRequest("user1", 8));
+        assertFalse(limiter.validateRequest("user1", 3));
+        assertEquals(11, limiter.estimate("user1"));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        /* Negative Test Case: Invalid settings and permits are rejected. */
+        assertThrows(IllegalArgumentException.class, () -> new SketchWindowRateLimiter(-1, Duration.ofMinutes(1), 1_024, 4, movingClock));
+        assertThrows(IllegalArgumentException.class, () -> new SketchWindowRateLimiter(5, Duration.ZERO, 1_024, 4, movingClock));
+        assertThrows(IllegalArgumentException.class, () -> new SketchWindowRateLimiter(5, Duration.ofMinutes(1), 0, 4, movingClock));
+        SketchWindowRateLimiter limiter = new SketchWindowRateLimiter(5, Duration.ofMinutes(1), 1_000, 4, movingClock);
+        assertThrows(IllegalArgumentException.class, () -> limiter.validateRequest("user1", 0));
+        assertEquals(1_024 * 4, limiter.getCountersPerWindow());
+    }
+}
@@ -9,6 +9,10 @@ import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -101,4 +105,71 @@ class TokenBucketServiceRateLimiterSmallTest {
         assertFalse(tokenBucketServiceRateLimiter.validateRequest(""), "Request with an empty user ID should be denied.");
         assertFalse(tokenBucketServiceRateLimiter.validateRequest(null), "Request with a null user ID should be denied.");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testReconfigureScalesRemainingTokens() {
+        /* Positive Test Case: Reconfiguring keeps each user's share of the bucket instead of refilling it. */
+        for (int i = 0; i < 75; i++) {
+            tokenBucketServiceRateLimiter.validateRequest("user1");
+        }
+        TokenBucketServiceRateLimiter doubled = tokenBucketServiceRateLimiter.reconfigure(200, Duration.ofMinutes(1), 20);
+        for (int i = 0; i < 50; i++) {
+            assertTrue(doubled.validateRequest("user1"), "A quarter of the old bucket is a quarter of the new one.");
+        }
+        assertFalse(doubled.validateRequest("user1"));
+        assertTrue(doubled.validateRequest("user2"), "Users not seen before start full.");
+    }
+
+    @Test
+    public void testAcquireWaitsForRefill() throws InterruptedException {
+        /* Positive Test Case: Acquire parks until the refill that brings the token. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(2, Duration.ofMillis(50), 1, Clock.systemUTC());
+        assertTrue(limiter.acquire("user1", 2, Duration.ZERO), "A full bucket needs no wait.");
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire("user1", 1, Duration.ofSeconds(5)), "The refill brings the token before the timeout.");
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(waitedMillis >= 30 && waitedMillis < 2_000, "Woken at the refill, waited " + waitedMillis + " ms.");
+    }
+
+    @Test
+    public void testAcquireTimesOut() throws InterruptedException {
+        /* Negative Test Case: Acquire gives up at the timeout when no refill comes in time. */
+        for (int i = 0; i < 100; i++) {
+            tokenBucketServiceRateLimiter.validateRequest("user1");
+        }
+        long start = System.nanoTime();
+        assertFalse(tokenBucketServiceRateLimiter.acquire("user1", 1, Duration.ofMillis(20)));
+        assertTrue(System.nanoTime() - start >= 20_000_000L, "Waited the whole timeout.");
+        assertThrows(IllegalArgumentException.class, () -> tokenBucketServiceRateLimiter.acquire("user1", 101, Duration.ZERO));
+    }
+
+    @Test
+    public void testAcquireAdmitsWaitersInArrivalOrder() throws InterruptedException {
+        /* Positive Test Case: Waiters of a key get the refilled tokens in the order they arrived. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(1, Duration.ofMillis(20), 1, Clock.systemUTC());
+        limiter.validateRequest("user1");
+        Queue<Integer> admitted = new ConcurrentLinkedQueue<>();
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int arrival = i;
+            Thread waiter = new Thread(() -> {
+                try {
+                    if (limiter.acquire("user1", 1, Duration.ofSeconds(10))) {
+                        admitted.add(arrival);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            waiter.start();
+            while (waiter.isAlive() && waiter.getState() != Thread.State.TIMED_WAITING) {
+                Thread.onSpinWait(); // Start the next waiter once this one is queued
+            }
+            waiters.add(waiter);
+        }
+        for (Thread waiter : waiters) {
+            waiter.join();
+        }
+        assertEquals(List.of(0, 1, 2, 3, 4), new ArrayList<>(admitted));
+    }
+}
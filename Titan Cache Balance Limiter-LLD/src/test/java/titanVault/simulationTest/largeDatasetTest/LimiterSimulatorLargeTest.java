@@ -0,0 +1,132 @@
+package titanVault.simulationTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.distributed.GossipTransport;
+import titanVault.distributed.InProcessTokenLeaseCoordinator;
+import titanVault.model.BurstRateBucket;
+import titanVault.service.AdaptiveBucketServiceRateLimiter;
+import titanVault.service.BurstRateServiceLimiter;
+import titanVault.service.CircuitBreakerRateLimiter;
+import titanVault.service.ColumnarTokenBucketServiceRateLimiter;
+import titanVault.service.EMABucketServiceRateLimiter;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.GossipFixedWindowRateLimiter;
+import titanVault.service.GossipSlidingWindowRateLimiter;
+import titanVault.service.LeakyBucketRateLimiter;
+import titanVault.service.LeasedTokenBucketServiceRateLimiter;
+import titanVault.service.QuotasTokenBucketRateServiceLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.SketchWindowRateLimiter;
+import titanVault.service.SlidingWindowCounterRateLimiter;
+import titanVault.service.SlidingWindowLogRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.simulation.ArrivalProcess;
+import titanVault.simulation.BurstyArrivals;
+import titanVault.simulation.DiurnalArrivals;
+import titanVault.simulation.LimiterSimulator;
+import titanVault.simulation.PoissonArrivals;
+import titanVault.simulation.SimulationReport;
+import titanVault.simulation.VirtualClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * One simulated day of traffic from 1,000 users and 10 crawlers, about 3 million requests,
+ * through every limiter, each configured for 100 requests per minute or, for the burst limiters,
+ * a burst of 100 refilled at 2 per second.
+ */
+public class LimiterSimulatorLargeTest {
+
+    private static final long LIMIT = 100;
+    private static final Duration PERIOD = Duration.ofMinutes(1);
+    private static final GossipTransport SILENT = new GossipTransport() { // A cluster of one has no peers to gossip to
+        @Override
+        public void start(PacketReceiver receiver) {
+        }
+
+        @Override
+        public void broadcast(byte[] packet) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Test
+    public void testSimulatedDayAcrossAlgorithms() {
+        /* Positive Test Case: A day of mixed traffic runs through each algorithm in seconds, and the reports tell them apart. */
+        Map<String, Function<VirtualClock, RateLimiter>> algorithms = new LinkedHashMap<>();
+        algorithms.put("TokenBucket", clock -> new TokenBucketServiceRateLimiter(LIMIT, PERIOD, LIMIT, clock));
+        algorithms.put("FixedWindow", clock -> new FixedWindowServiceRateLimiter(LIMIT, PERIOD, clock));
+        algorithms.put("SlidingWindowLog", clock -> new SlidingWindowLogRateLimiter(LIMIT, PERIOD, clock));
+        algorithms.put("SlidingWindowCounter", clock -> new SlidingWindowCounterRateLimiter(LIMIT, PERIOD, clock));
+        algorithms.put("SketchWindow", clock -> new SketchWindowRateLimiter(LIMIT, PERIOD, 1 << 16, 4, clock));
+        algorithms.put("Columnar", clock -> new ColumnarTokenBucketServiceRateLimiter(2_048, LIMIT, PERIOD, LIMIT, clock));
+        algorithms.put("Quotas", clock -> new QuotasTokenBucketRateServiceLimiter(LIMIT, PERIOD, LIMIT, clock,
+                LIMIT * 60 * 24, Duration.ofDays(1)));
+        algorithms.put("EMA", clock -> new EMABucketServiceRateLimiter(LIMIT, PERIOD, clock));
+        algorithms.put("LeakyBucket", clock -> new LeakyBucketRateLimiter(LIMIT, LIMIT, PERIOD, clock) { });
+        algorithms.put("Adaptive", clock -> new AdaptiveBucketServiceRateLimiter(LIMIT, PERIOD, clock));
+        algorithms.put("BurstRate", clock -> new BurstRateServiceLimiter(2, LIMIT, clock)::consumeToken);
+        algorithms.put("BurstRateBucket", clock -> new BurstRateBucket(2, LIMIT, clock)::consumeToken);
+        algorithms.put("CircuitBreaker", clock -> new CircuitBreakerRateLimiter(2, LIMIT, 1_000, 1_000, clock));
+        algorithms.put("Leased", clock -> new LeasedTokenBucketServiceRateLimiter(
+                new InProcessTokenLeaseCoordinator(LIMIT, PERIOD, LIMIT, Duration.ofSeconds(10), clock),
+                1, 10, Duration.ofSeconds(1), clock));
+        algorithms.put("GossipFixedWindow", clock -> new GossipFixedWindowRateLimiter(0, 1, LIMIT, PERIOD, clock, SILENT));
+        algorithms.put("GossipSlidingWindow", clock -> new GossipSlidingWindowRateLimiter(0, 1, LIMIT, PERIOD, clock, SILENT));
+
+        Map<String, SimulationReport> reports = new LinkedHashMap<>();
+        for (Map.Entry<String, Function<VirtualClock, RateLimiter>> algorithm : algorithms.entrySet()) {
+            VirtualClock clock = new VirtualClock(Instant.parse("2024-08-01T00:00:00Z"));
+            LimiterSimulator simulator = new LimiterSimulator(clock, LIMIT, PERIOD);
+            SimulationReport report = simulator.run(algorithm.getValue().apply(clock), Duration.ofDays(1), traffic());
+            reports.put(algorithm.getKey(), report);
+            assertTrue(report.getAdmittedRequests() > 0, algorithm.getKey() + " admits requests: " + report);
+            if (!algorithm.getKey().equals("CircuitBreaker")) { // Only checks its bucket, and trips on refusals instead
+                assertTrue(report.getAdmittedRequests() < report.getOfferedRequests(), algorithm.getKey() + " limits crawlers: " + report);
+            }
+            assertTrue(report.getWallNanos() < 60_000_000_000L, "A simulated day takes seconds, not a day.");
+            assertTrue(report.getSpeedup() > 1_000);
+        }
+
+        long offered = reports.get("TokenBucket").getOfferedRequests();
+        for (SimulationReport report : reports.values()) {
+            assertEquals(offered, report.getOfferedRequests(), "Every algorithm sees the same seeded traffic.");
+        }
+        assertEquals(0.0, reports.get("SlidingWindowLog").getOvershoot(), "An exact sliding log never goes over.");
+        assertTrue(reports.get("FixedWindow").getOvershoot() > 0.5, "Crawlers get nearly twice the limit across window changes.");
+        assertTrue(reports.get("TokenBucket").getOvershoot() <= 1.0);
+        assertEquals(reports.get("TokenBucket").getAdmittedRequests(), reports.get("Columnar").getAdmittedRequests(),
+                "Columnar buckets decide like token buckets.");
+        assertTrue(reports.get("GossipFixedWindow").getOvershoot() > 0.5, "Gossiped fixed windows change like local ones.");
+        assertTrue(reports.get("Adaptive").getOvershoot() > 0.5, "Adaptive counts start over like fixed windows.");
+    }
+
+    /**
+     * Users browsing at a steady and at a daily rate, and crawlers in bursts of 100 requests
+     * per second each for about 5 seconds every 5 minutes.
+     */
+    private static ArrivalProcess[] traffic() {
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            users.add("user" + i);
+        }
+        List<ArrivalProcess> processes = new ArrayList<>();
+        processes.add(new PoissonArrivals(10, users, 1));
+        processes.add(new DiurnalArrivals(10, 0.9, Duration.ofDays(1), users, 2));
+        for (int i = 0; i < 10; i++) {
+            processes.add(new BurstyArrivals(100, 0, Duration.ofSeconds(5), Duration.ofMinutes(5), List.of("crawler" + i), 10 + i));
+        }
+        return processes.toArray(new ArrivalProcess[0]);
+    }
+}
@@ -0,0 +1,100 @@
+package titanVault.simulationTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.simulation.MappedTraceReader;
+import titanVault.simulation.ReplaySummary;
+import titanVault.simulation.TraceReplayer;
+import titanVault.simulation.TraceReplayer.Speed;
+import titanVault.simulation.TraceWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * A 10 million request binary trace of 10,000 keys over about 8 minutes, each key asking
+ * for 120 a minute of token buckets granting 100; the per-record scan rate tells how long
+ * a billion-line trace takes.
+ */
+public class TraceReplayerLargeTest {
+
+    private static final int RECORDS = 10_000_000;
+    private static final int KEYS = 10_000;
+    private static final long START = 1722470400000L; // 2024-08-01T00:00:00Z
+
+    @TempDir
+    Path traceDirectory;
+
+    @Test
+    public void testReplayTenMillionRequests() throws IOException, InterruptedException {
+        /* Positive Test Case: The trace replays in seconds, in constant memory, with the same totals however it is sharded. */
+        Path trace = traceDirectory.resolve("trace.bin");
+        try (TraceWriter writer = new TraceWriter(trace)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.write(START + i / 20, "user" + (i * 7_919L) % KEYS, 1);
+            }
+        }
+
+        long scanned = 0;
+        try (MappedTraceReader reader = new MappedTraceReader(trace)) {
+            while (reader.advance() >= 0) {
+                scanned += reader.keyHash() & 1;
+            }
+        }
+        assertTrue(scanned > 0);
+
+        ReplaySummary first = null;
+        for (int shards : new int[]{1, 2}) {
+            LongAdder counted = new LongAdder();
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            ReplaySummary summary = new TraceReplayer(trace,
+                    clock -> new TokenBucketServiceRateLimiter(100, Duration.ofMinutes(1), 100, clock),
+                    shards, Duration.ofMinutes(1), Speed.AS_FAST_AS_POSSIBLE)
+                    .replay((bucket, key, admitted, denied) -> counted.add(admitted + denied));
+            System.gc();
+            long heapGrowth = runtime.totalMemory() - runtime.freeMemory() - heapBefore;
+
+            assertEquals(RECORDS, summary.getRecords());
+            assertEquals(RECORDS, counted.sum(), "Every request is counted in some bucket.");
+            assertTrue(heapGrowth < 64 << 20, "Memory holds the keys, not the requests.");
+            if (first == null) {
+                first = summary;
+            } else {
+                assertEquals(first.getAdmitted(), summary.getAdmitted());
+            }
+        }
+    }
+
+    @Test
+    public void testCsvScanRate() throws IOException {
+        /* Positive Test Case: A CSV trace is read through the mapping at millions of lines per second. */
+        Path trace = traceDirectory.resolve("trace.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(trace)) {
+            for (int i = 0; i < 5_000_000; i++) {
+                writer.write(Long.toString(START + i / 1_000));
+                writer.write(",user");
+                writer.write(Integer.toString(i % KEYS));
+                writer.write(i % 10 == 0 ? ",3\n" : "\n");
+            }
+        }
+        long scanStart = System.nanoTime();
+        long permits = 0;
+        try (MappedTraceReader reader = new MappedTraceReader(trace)) {
+            while (reader.advance() >= 0) {
+                permits += reader.permits();
+            }
+        }
+        double linesPerSecond = 5_000_000 / ((System.nanoTime() - scanStart) / 1e9);
+        assertEquals(6_000_000, permits);
+        assertTrue(linesPerSecond > 1e6);
+    }
+}
@@ -0,0 +1,101 @@
+package titanVault.simulationTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.simulation.ArrivalProcess;
+import titanVault.simulation.BurstyArrivals;
+import titanVault.simulation.DiurnalArrivals;
+import titanVault.simulation.PoissonArrivals;
+import titanVault.simulation.TraceArrivals;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArrivalProcessSmallTest {
+
+    private static final List<String> KEYS = List.of("user1", "user2", "user3");
+
+    @Test
+    public void testPoissonMeanRateAndRepeatability() {
+        /* Positive Test Case: Poisson arrivals come at their mean rate, and a seed repeats them exactly. */
+        PoissonArrivals arrivals = new PoissonArrivals(1_000, KEYS, 42);
+        PoissonArrivals sameSeed = new PoissonArrivals(1_000, KEYS, 42);
+        long last = 0;
+        for (int i = 0; i < 100_000; i++) {
+            long time = arrivals.advance();
+            assertEquals(time, sameSeed.advance());
+            assertEquals(arrivals.key(), sameSeed.key());
+            assertTrue(time >= last);
+            last = time;
+        }
+        assertEquals(100.0, last / 1e9, 3.0, "100,000 arrivals at 1,000 per second take about 100 seconds.");
+    }
+
+    @Test
+    public void testBurstyArrivalsComeInBursts() {
+        /* Positive Test Case: An on/off process with no idle traffic averages the burst rate times the time in bursts. */
+        BurstyArrivals arrivals = new BurstyArrivals(1_000, 0, Duration.ofSeconds(1), Duration.ofSeconds(3), KEYS, 7);
+        long count = 0;
+        long longestGap = 0;
+        long last = 0;
+        long time;
+        while ((time = arrivals.advance()) < 4_000_000_000_000L) {
+            longestGap = Math.max(longestGap, time - last);
+            last = time;
+            count++;
+        }
+        assertEquals(250.0, count / 4_000.0, 25.0, "A quarter of the time at 1,000 per second.");
+        assertTrue(longestGap > 5_000_000_000L, "Idle phases leave long gaps.");
+    }
+
+    @Test
+    public void testDiurnalRateFollowsTheCycle() {
+        /* Positive Test Case: The first half of the cycle, around the peak, gets far more arrivals than the second. */
+        DiurnalArrivals arrivals = new DiurnalArrivals(100, 0.8, Duration.ofDays(1), KEYS, 3);
+        long halfDay = Duration.ofHours(12).toNanos();
+        long firstHalf = 0;
+        long secondHalf = 0;
+        long time;
+        while ((time = arrivals.advance()) < 2 * halfDay) {
+            if (time < halfDay) {
+                firstHalf++;
+            } else {
+                secondHalf++;
+            }
+        }
+        assertEquals(8_640_000.0, firstHalf + secondHalf, 8_640_000 * 0.02, "The mean rate holds over the day.");
+        double expectedRatio = (1 + 0.8 * 2 / Math.PI) / (1 - 0.8 * 2 / Math.PI);
+        assertEquals(expectedRatio, firstHalf / (double) secondHalf, expectedRatio * 0.05);
+        assertEquals(180, arrivals.rateAt(Duration.ofHours(6).toNanos()), 1e-6);
+    }
+
+    @Test
+    public void testTraceReplaysRelativeTimes() {
+        /* Positive Test Case: A trace replays from its first line, with costs, holding back out-of-order lines. */
+        ArrivalProcess trace = new TraceArrivals(new StringReader("1000,alice\n\n1250,bob,5\n1200,alice,2\n"));
+        assertEquals(0, trace.advance());
+        assertEquals("alice", trace.key());
+        assertEquals(1, trace.permits());
+        assertEquals(250_000_000L, trace.advance());
+        assertEquals("bob", trace.key());
+        assertEquals(5, trace.permits());
+        assertEquals(250_000_000L, trace.advance(), "An earlier line replays at the time of the line before it.");
+        assertEquals(2, trace.permits());
+        assertEquals(-1, trace.advance());
+    }
+
+    @Test
+    public void testInvalidArrivals() {
+        /* Negative Test Case: Malformed traces and impossible rates are rejected. */
+        assertThrows(IllegalArgumentException.class, () -> new TraceArrivals(new StringReader("1000\n")).advance());
+        assertThrows(IllegalArgumentException.class, () -> new TraceArrivals(new StringReader("x,alice\n")).advance());
+        assertThrows(IllegalArgumentException.class, () -> new TraceArrivals(new StringReader("1000,alice,0\n")).advance());
+        assertThrows(IllegalArgumentException.class, () -> new PoissonArrivals(0, KEYS, 1));
+        assertThrows(IllegalArgumentException.class, () -> new PoissonArrivals(1, List.of(), 1));
+        assertThrows(IllegalArgumentException.class, () -> new DiurnalArrivals(1, 1.5, Duration.ofDays(1), KEYS, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BurstyArrivals(1, 0, Duration.ZERO, Duration.ofSeconds(1), KEYS, 1));
+    }
+}
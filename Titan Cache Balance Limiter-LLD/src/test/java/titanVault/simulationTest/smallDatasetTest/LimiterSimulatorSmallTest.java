@@ -0,0 +1,100 @@
+package titanVault.simulationTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.FixedWindowServiceRateLimiter;
+import titanVault.service.RateLimiter;
+import titanVault.service.SlidingWindowLogRateLimiter;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.simulation.ArrivalProcess;
+import titanVault.simulation.LimiterSimulator;
+import titanVault.simulation.PoissonArrivals;
+import titanVault.simulation.SimulationReport;
+import titanVault.simulation.TraceArrivals;
+import titanVault.simulation.VirtualClock;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimiterSimulatorSmallTest {
+
+    private final VirtualClock clock = new VirtualClock(Instant.parse("2024-08-01T00:00:00Z"));
+    private final LimiterSimulator simulator = new LimiterSimulator(clock, 10, Duration.ofSeconds(1));
+
+    @Test
+    public void testTokenBucketAdmitsItsRate() {
+        /* Positive Test Case: Over 100 simulated seconds a key gets the refill rate plus the first burst. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofSeconds(1), 10, clock);
+        SimulationReport report = simulator.run(limiter, Duration.ofSeconds(100),
+                new PoissonArrivals(100, List.of("user1"), 1));
+        assertEquals(10_000, report.getOfferedRequests(), 400);
+        assertTrue(report.getAdmittedRequests() <= 1_010 && report.getAdmittedRequests() >= 1_000,
+                "Admitted " + report.getAdmittedRequests());
+        assertEquals(10.0, report.getAdmittedRate(), 0.2);
+        assertTrue(report.getOvershoot() <= 1.0, "A full bucket and a refill fit in one period at most.");
+        assertEquals(Instant.parse("2024-08-01T00:01:40Z"), clock.instant(), "The clock ends at the horizon.");
+    }
+
+    @Test
+    public void testFixedWindowOvershootsAcrossTheBoundary() {
+        /* Negative Test Case: A fixed window lets almost twice its limit through around a window change, a sliding log does not. */
+        String trace = "0,user1\n" + "999,user1\n".repeat(9) + "1001,user1\n".repeat(10);
+        SimulationReport fixed = simulator.run(new FixedWindowServiceRateLimiter(10, Duration.ofSeconds(1), clock),
+                Duration.ofSeconds(2), new TraceArrivals(new StringReader(trace)));
+        SimulationReport sliding = simulator.run(new SlidingWindowLogRateLimiter(10, Duration.ofSeconds(1), clock),
+                Duration.ofSeconds(2), new TraceArrivals(new StringReader(trace)));
+        assertEquals(19, fixed.getMaxWindowAdmitted());
+        assertEquals(0.9, fixed.getOvershoot(), 1e-9);
+        assertEquals(10, sliding.getMaxWindowAdmitted());
+        assertEquals(0.0, sliding.getOvershoot());
+    }
+
+    @Test
+    public void testSharedBucketIsUnfair() {
+        /* Negative Test Case: One bucket shared by every key lets a heavy key starve the light ones; a bucket per key does not. */
+        TokenBucketServiceRateLimiter perKey = new TokenBucketServiceRateLimiter(10, Duration.ofSeconds(1), 10, clock);
+        TokenBucketServiceRateLimiter shared = new TokenBucketServiceRateLimiter(10, Duration.ofSeconds(1), 10, clock);
+        RateLimiter global = userId -> shared.validateRequest("everyone");
+
+        SimulationReport fair = simulator.run(perKey, Duration.ofSeconds(60), traffic());
+        SimulationReport unfair = simulator.run(global, Duration.ofSeconds(60), traffic());
+        assertTrue(fair.getFairness() > 0.95, "Per-key fairness " + fair.getFairness());
+        assertTrue(unfair.getFairness() < 0.5, "Shared fairness " + unfair.getFairness());
+    }
+
+    @Test
+    public void testRunsAreDeterministic() {
+        /* Positive Test Case: The same seeds against the same limiter give the same admissions. */
+        SimulationReport first = simulator.run(new TokenBucketServiceRateLimiter(10, Duration.ofSeconds(1), 10, clock),
+                Duration.ofSeconds(60), traffic());
+        SimulationReport second = simulator.run(new TokenBucketServiceRateLimiter(10, Duration.ofSeconds(1), 10, clock),
+                Duration.ofSeconds(60), traffic());
+        assertEquals(first.getAdmittedByKey(), second.getAdmittedByKey());
+        assertEquals(first.getMaxWindowAdmitted(), second.getMaxWindowAdmitted());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        /* Negative Test Case: A reference limit, period or horizon that is not positive is rejected. */
+        assertThrows(IllegalArgumentException.class, () -> new LimiterSimulator(clock, 0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> new LimiterSimulator(clock, 1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class,
+                () -> simulator.run(userId -> true, Duration.ZERO, new PoissonArrivals(1, List.of("user1"), 1)));
+    }
+
+    /**
+     * One heavy key at 1,000 requests per second and nine light keys at 2 per second.
+     */
+    private static ArrivalProcess[] traffic() {
+        List<ArrivalProcess> processes = new ArrayList<>();
+        processes.add(new PoissonArrivals(1_000, List.of("heavy"), 11));
+        for (int i = 0; i < 9; i++) {
+            processes.add(new PoissonArrivals(2, List.of("light" + i), 100 + i));
+        }
+        return processes.toArray(new ArrivalProcess[0]);
+    }
+}
@@ -0,0 +1,130 @@
+package titanVault.simulationTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.simulation.LimiterSimulator;
+import titanVault.simulation.MappedTraceReader;
+import titanVault.simulation.SimulationReport;
+import titanVault.simulation.TraceWriter;
+import titanVault.simulation.VirtualClock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTraceReaderSmallTest {
+
+    @TempDir
+    Path traceDirectory;
+
+    @Test
+    public void testReadsCsvTrace() throws IOException {
+        /* Positive Test Case: CSV lines are read with their costs, blank lines and \r\n endings. */
+        Path trace = traceDirectory.resolve("trace.csv");
+        Files.writeString(trace, "1722470400000,alice\r\n\n1722470400250,bob,5\n1722470400200,alice,2");
+        try (MappedTraceReader reader = new MappedTraceReader(trace)) {
+            assertFalse(reader.isBinary());
+            assertEquals(0, reader.advance());
+            assertEquals("alice", reader.key());
+            assertEquals(1, reader.permits());
+            assertEquals(1722470400000L, reader.timestampMillis());
+            long aliceHash = reader.keyHash();
+            assertEquals(250_000_000L, reader.advance());
+            assertEquals("bob", reader.key());
+            assertEquals(5, reader.permits());
+            assertEquals(250_000_000L, reader.advance(), "An earlier line replays at the time of the line before it.");
+            assertEquals(aliceHash, reader.keyHash());
+            assertEquals(2, reader.permits());
+            assertEquals(-1, reader.advance());
+            assertEquals(3, reader.getRecordCount());
+        }
+    }
+
+    @Test
+    public void testBinaryTraceMatchesCsvAcrossWindows() throws IOException {
+        /* Positive Test Case: A binary trace reads back as written, with the key hashes of its CSV form, across mapped windows. */
+        Path csv = traceDirectory.resolve("trace.csv");
+        Path binary = traceDirectory.resolve("trace.bin");
+        StringBuilder lines = new StringBuilder();
+        try (TraceWriter writer = new TraceWriter(binary)) {
+            for (int i = 0; i < 50_000; i++) {
+                long millis = 1722470400000L + i * 3L - (i % 7 == 0 ? 5 : 0);
+                String key = "user" + i % 997 + (i % 5 == 0 ? "é" : "");
+                writer.write(millis, key, 1 + i % 3);
+                lines.append(millis).append(',').append(key).append(',').append(1 + i % 3).append('\n');
+            }
+        }
+        Files.writeString(csv, lines);
+        assertTrue(Files.size(binary) < Files.size(csv) / 2, "Binary is under half the CSV size.");
+        try (MappedTraceReader fromCsv = new MappedTraceReader(csv, 256 * 1024);
+             MappedTraceReader fromBinary = new MappedTraceReader(binary, 256 * 1024)) {
+            assertTrue(fromBinary.isBinary());
+            long time;
+            while ((time = fromCsv.advance()) >= 0) {
+                assertEquals(time, fromBinary.advance());
+                assertEquals(fromCsv.key(), fromBinary.key());
+                assertEquals(fromCsv.keyHash(), fromBinary.keyHash());
+                assertEquals(fromCsv.permits(), fromBinary.permits());
+                assertEquals(fromCsv.timestampMillis(), fromBinary.timestampMillis());
+            }
+            assertEquals(-1, fromBinary.advance());
+            assertEquals(50_000, fromCsv.getRecordCount());
+        }
+    }
+
+    @Test
+    public void testReaderDrivesTheSimulator() throws IOException {
+        /* Positive Test Case: A mapped trace is an arrival process of the simulator. */
+        Path trace = traceDirectory.resolve("trace.bin");
+        try (TraceWriter writer = new TraceWriter(trace)) {
+            for (int i = 0; i < 1_000; i++) {
+                writer.write(1722470400000L + i * 10L, "user1", 1);
+            }
+        }
+        VirtualClock clock = new VirtualClock(Instant.parse("2024-08-01T00:00:00Z"));
+        try (MappedTraceReader reader = new MappedTraceReader(trace)) {
+            SimulationReport report = new LimiterSimulator(clock, 10, Duration.ofSeconds(1)).run(
+                    new TokenBucketServiceRateLimiter(10, Duration.ofSeconds(1), 10, clock), Duration.ofSeconds(10), reader);
+            assertEquals(1_000, report.getOfferedRequests());
+            assertEquals(100, report.getAdmittedRequests());
+        }
+    }
+
+    @Test
+    public void testMalformedTraces() throws IOException {
+        /* Negative Test Case: Malformed lines, cut binary records and bad costs are rejected. */
+        Path missingKey = traceDirectory.resolve("missing-key.csv");
+        Files.writeString(missingKey, "1000,alice\n1001,\n");
+        try (MappedTraceReader reader = new MappedTraceReader(missingKey)) {
+            reader.advance();
+            assertThrows(IllegalArgumentException.class, reader::advance);
+        }
+        Path zeroCost = traceDirectory.resolve("zero-cost.csv");
+        Files.writeString(zeroCost, "1000,alice,0\n");
+        try (MappedTraceReader reader = new MappedTraceReader(zeroCost)) {
+            assertThrows(IllegalArgumentException.class, reader::advance);
+        }
+        Path binary = traceDirectory.resolve("cut.bin");
+        try (TraceWriter writer = new TraceWriter(binary)) {
+            writer.write(1000, "alice", 1);
+            writer.write(1001, "bob", 1);
+        }
+        byte[] bytes = Files.readAllBytes(binary);
+        Files.write(binary, Arrays.copyOf(bytes, bytes.length - 2));
+        try (MappedTraceReader reader = new MappedTraceReader(binary)) {
+            reader.advance();
+            assertThrows(IllegalArgumentException.class, reader::advance);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new MappedTraceReader(binary, 1024));
+        try (TraceWriter writer = new TraceWriter(traceDirectory.resolve("bad.bin"))) {
+            assertThrows(IllegalArgumentException.class, () -> writer.write(1000, "", 1));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(1000, "alice", 0));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package titanVault.simulationTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import titanVault.config.RateLimitPolicy;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.simulation.ReplaySink;
+import titanVault.simulation.ReplaySummary;
+import titanVault.simulation.TraceReplayer;
+import titanVault.simulation.TraceReplayer.Speed;
+import titanVault.simulation.TraceWriter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TraceReplayerSmallTest {
+
+    private static final long START = 1722470400000L; // 2024-08-01T00:00:00Z
+
+    @TempDir
+    Path traceDirectory;
+
+    @Test
+    public void testCountsPerKeyAndBucket() throws IOException, InterruptedException {
+        /* Positive Test Case: Counts come out per key and bucket, with the decisions made at trace time. */
+        Path trace = traceDirectory.resolve("trace.csv");
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            lines.append(START + i * 100L).append(",alice\n"); // 10 per second for 3 seconds
+        }
+        lines.append(START + 2_500).append(",bob,3\n");
+        Files.writeString(trace, lines);
+        StringWriter output = new StringWriter();
+        TraceReplayer replayer = new TraceReplayer(trace,
+                clock -> new TokenBucketServiceRateLimiter(5, Duration.ofSeconds(1), 5, clock),
+                2, Duration.ofSeconds(1), Speed.AS_FAST_AS_POSSIBLE);
+        ReplaySummary summary = replayer.replay(ReplaySink.csv(output));
+
+        assertEquals(31, summary.getRecords());
+        assertEquals(16, summary.getAdmitted(), "5 per second for alice and bob's single request.");
+        assertEquals(2_900, summary.getTraceMillis());
+        String counts = output.toString();
+        assertTrue(counts.contains(START + ",alice,5,5\n"), counts);
+        assertTrue(counts.contains((START + 1_000) + ",alice,5,5\n"), counts);
+        assertTrue(counts.contains((START + 2_000) + ",bob,1,0\n"), counts);
+    }
+
+    @Test
+    public void testShardsAgreeWithOneShard() throws IOException, InterruptedException {
+        /* Positive Test Case: Per-key limiters give the same counts however the keys are sharded. */
+        Path trace = traceDirectory.resolve("trace.bin");
+        try (TraceWriter writer = new TraceWriter(trace)) {
+            for (int i = 0; i < 100_000; i++) {
+                writer.write(START + i / 10, "user" + (i * 31) % 500, 1);
+            }
+        }
+        RateLimitPolicy policy = new RateLimitPolicy("api", RateLimitPolicy.Algorithm.TOKEN_BUCKET, 10, Duration.ofSeconds(1), 10);
+        Map<String, Long> oneShard = new ConcurrentHashMap<>();
+        Map<String, Long> fourShards = new ConcurrentHashMap<>();
+        ReplaySummary single = new TraceReplayer(trace, TraceReplayer.limiterFor(policy), 1, Duration.ofSeconds(1),
+                Speed.AS_FAST_AS_POSSIBLE).replay((bucket, key, admitted, denied) -> oneShard.merge(bucket + key, admitted, Long::sum));
+        ReplaySummary sharded = new TraceReplayer(trace, TraceReplayer.limiterFor(policy), 4, Duration.ofSeconds(1),
+                Speed.AS_FAST_AS_POSSIBLE).replay((bucket, key, admitted, denied) -> fourShards.merge(bucket + key, admitted, Long::sum));
+        assertEquals(100_000, sharded.getRecords());
+        assertEquals(single.getAdmitted(), sharded.getAdmitted());
+        assertEquals(oneShard, fourShards);
+    }
+
+    @Test
+    public void testOriginalSpeedKeepsTheGaps() throws IOException, InterruptedException {
+        /* Positive Test Case: At original speed a trace of 300 ms takes 300 ms to replay. */
+        Path trace = traceDirectory.resolve("trace.csv");
+        Files.writeString(trace, START + ",alice\n" + (START + 150) + ",bob\n" + (START + 300) + ",alice\n");
+        ReplaySummary summary = new TraceReplayer(trace,
+                clock -> new TokenBucketServiceRateLimiter(5, Duration.ofSeconds(1), 5, clock),
+                2, Duration.ofSeconds(1), Speed.ORIGINAL).replay((bucket, key, admitted, denied) -> { });
+        assertEquals(3, summary.getAdmitted());
+        assertTrue(summary.getWallNanos() >= 290_000_000L, "Replay took " + summary.getWallNanos() + " ns.");
+    }
+
+    @Test
+    public void testFailingShardStopsTheReplay() throws IOException {
+        /* Negative Test Case: A shard that fails while the reader waits on it ends the whole replay with its failure. */
+        Path trace = traceDirectory.resolve("trace.bin");
+        try (TraceWriter writer = new TraceWriter(trace)) {
+            for (int i = 0; i < 100_000; i++) {
+                writer.write(START + i, i % 2 == 0 ? "alice" : "bob", 1);
+            }
+        }
+        TraceReplayer replayer = new TraceReplayer(trace, clock -> userId -> {
+            if (userId.equals("bob")) {
+                throw new IllegalStateException("Limiter failed for " + userId);
+            }
+            return true;
+        }, 4, Duration.ofSeconds(1), Speed.AS_FAST_AS_POSSIBLE);
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> replayer.replay((bucket, key, admitted, denied) -> { }));
+        assertEquals("Limiter failed for bob", thrown.getMessage());
+    }
+
+    @Test
+    public void testInvalidReplays() throws IOException {
+        /* Negative Test Case: Bad settings and malformed traces fail the replay. */
+        Path trace = traceDirectory.resolve("trace.csv");
+        Files.writeString(trace, START + ",alice\nnot a line\n");
+        assertThrows(IllegalArgumentException.class, () -> new TraceReplayer(trace, clock -> userId -> true, 0,
+                Duration.ofSeconds(1), Speed.ORIGINAL));
+        assertThrows(IllegalArgumentException.class, () -> new TraceReplayer(trace, clock -> userId -> true, 1,
+                Duration.ZERO, Speed.ORIGINAL));
+        TraceReplayer replayer = new TraceReplayer(trace, clock -> userId -> true, 2, Duration.ofSeconds(1),
+                Speed.AS_FAST_AS_POSSIBLE);
+        assertThrows(IllegalArgumentException.class, () -> replayer.replay((bucket, key, admitted, denied) -> { }));
+        TraceReplayer missing = new TraceReplayer(traceDirectory.resolve("missing.csv"), clock -> userId -> true, 2,
+                Duration.ofSeconds(1), Speed.AS_FAST_AS_POSSIBLE);
+        assertThrows(IOException.class, () -> missing.replay((bucket, key, admitted, denied) -> { }));
+    }
+}
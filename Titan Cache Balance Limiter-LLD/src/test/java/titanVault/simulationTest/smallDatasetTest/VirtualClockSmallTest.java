@@ -0,0 +1,51 @@
+package titanVault.simulationTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.simulation.VirtualClock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualClockSmallTest {
+
+    private final VirtualClock clock = new VirtualClock(Instant.parse("2024-08-01T00:00:00Z"));
+
+    @Test
+    public void testBucketRefillsAsClockAdvances() {
+        /* Positive Test Case: A bucket built once sees the clock move and refills, without being rebuilt. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(5, Duration.ofMinutes(1), 5, clock);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.validateRequest("user1"));
+        }
+        assertFalse(limiter.validateRequest("user1"));
+        clock.advance(Duration.ofSeconds(59));
+        assertFalse(limiter.validateRequest("user1"), "No refill before the period is over.");
+        clock.advance(Duration.ofSeconds(1));
+        assertTrue(limiter.validateRequest("user1"), "Refilled once the period is over.");
+    }
+
+    @Test
+    public void testTimeOnlyMovesForward() {
+        /* Negative Test Case: The clock cannot be moved back. */
+        long start = clock.nanos();
+        assertThrows(IllegalArgumentException.class, () -> clock.advance(Duration.ofMillis(-1)));
+        assertEquals(start, clock.advanceTo(start - 1_000_000));
+        assertEquals(start + 1_500_000, clock.advanceTo(start + 1_500_000));
+        assertEquals(Instant.parse("2024-08-01T00:00:00.001500Z"), clock.instant());
+        assertEquals(Instant.parse("2024-08-01T00:00:00.001Z").toEpochMilli(), clock.millis());
+    }
+
+    @Test
+    public void testZoneViewSharesTime() {
+        /* Positive Test Case: A view in another zone advances with the clock. */
+        Clock paris = clock.withZone(ZoneId.of("Europe/Paris"));
+        clock.advance(Duration.ofHours(1));
+        assertEquals(clock.instant(), paris.instant());
+        assertEquals(ZoneId.of("Europe/Paris"), paris.getZone());
+    }
+}
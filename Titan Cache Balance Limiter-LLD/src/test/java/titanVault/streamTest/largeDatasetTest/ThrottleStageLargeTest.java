@@ -0,0 +1,79 @@
+package titanVault.streamTest.largeDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.stream.ThrottleStage;
+import titanVault.stream.ThrottleStage.OverflowPolicy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * 10 million records over 100 tenants through the stage on one thread: with one bucket
+ * debit per batch of 512, the per-record cost is a map lookup and a list append.
+ */
+public class ThrottleStageLargeTest {
+
+    private static final int RECORDS = 10_000_000;
+    private static final int TENANTS = 100;
+    private static final int BATCH_SIZE = 512;
+    private static final String[] TENANT_IDS = new String[TENANTS];
+
+    static {
+        for (int i = 0; i < TENANTS; i++) {
+            TENANT_IDS[i] = "tenant" + i;
+        }
+    }
+
+    @Test
+    public void testTenMillionRecordsWithinLimits() throws InterruptedException {
+        /* Positive Test Case: Records within every tenant's limit pass at millions of records per second. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(Long.MAX_VALUE / 2, Duration.ofSeconds(1), 1, Clock.systemUTC());
+        double recordsPerSecond = 0;
+        for (int round = 0; round < 3; round++) { // The first rounds warm up
+            ThrottleStage<Integer> stage = new ThrottleStage<>(limiter, record -> TENANT_IDS[record % TENANTS],
+                    BATCH_SIZE, 65_536, OverflowPolicy.DROP);
+            long[] emitted = new long[1];
+            long start = System.nanoTime();
+            stage.run(records(RECORDS), batch -> emitted[0] += batch.size());
+            recordsPerSecond = RECORDS / ((System.nanoTime() - start) / 1e9);
+            assertEquals(RECORDS, emitted[0]);
+            assertTrue(stage.getDebits() <= RECORDS / BATCH_SIZE + TENANTS, "One debit per batch.");
+        }
+        assertTrue(recordsPerSecond > 2e6, "Millions of records per second on one thread.");
+    }
+
+    @Test
+    public void testTenMillionRecordsOverLimitsDropped() throws InterruptedException {
+        /* Negative Test Case: Tenants far over their limit get their tokens' worth through and the rest is dropped quickly. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10_000, Duration.ofMinutes(1), 10_000, Clock.systemUTC());
+        ThrottleStage<Integer> stage = new ThrottleStage<>(limiter, record -> TENANT_IDS[record % TENANTS],
+                BATCH_SIZE, 65_536, OverflowPolicy.DROP);
+        long[] emitted = new long[1];
+        long start = System.nanoTime();
+        stage.run(records(RECORDS), batch -> emitted[0] += batch.size());
+        double recordsPerSecond = RECORDS / ((System.nanoTime() - start) / 1e9);
+
+        assertEquals(TENANTS * 10_000L, emitted[0], "Each tenant gets its bucket's worth.");
+        assertEquals(RECORDS - emitted[0], stage.getDroppedRecords());
+    }
+
+    private static Iterator<Integer> records(int count) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public Integer next() {
+                return next++;
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package titanVault.streamTest.smallDatasetTest;
+
+import org.junit.jupiter.api.Test;
+import titanVault.service.TokenBucketServiceRateLimiter;
+import titanVault.stream.ThrottleStage;
+import titanVault.stream.ThrottleStage.OverflowPolicy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThrottleStageSmallTest {
+
+    private final Clock fixedClock = Clock.fixed(Instant.parse("2024-08-01T00:00:00Z"), ZoneId.of("UTC"));
+
+    @Test
+    public void testOneDebitPerBatch() throws InterruptedException {
+        /* Positive Test Case: Each batch of a tenant costs one bucket debit and reaches the sink whole. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10_000, Duration.ofMinutes(1), 10, fixedClock);
+        ThrottleStage<String> stage = new ThrottleStage<>(limiter, record -> record.substring(0, 1), 100, 1_000, OverflowPolicy.DROP);
+        List<List<String>> batches = new ArrayList<>();
+        stage.run(records("a", 500, "b", 500), batches::add);
+        assertEquals(10, stage.getDebits());
+        assertEquals(1_000, stage.getEmittedRecords());
+        for (List<String> batch : batches) {
+            assertEquals(100, batch.size());
+            assertTrue(batch.stream().allMatch(record -> record.charAt(0) == batch.get(0).charAt(0)), "A batch holds one tenant.");
+        }
+    }
+
+    @Test
+    public void testDropPolicyDropsWhatTheBucketCannotCover() throws InterruptedException {
+        /* Negative Test Case: Records past the tokens of the tenant are dropped, other tenants are unaffected. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(150, Duration.ofMinutes(1), 10, fixedClock);
+        ThrottleStage<String> stage = new ThrottleStage<>(limiter, record -> record.substring(0, 1), 100, 1_000, OverflowPolicy.DROP);
+        List<String> emitted = new ArrayList<>();
+        stage.run(records("a", 300, "b", 100), emitted::addAll);
+        assertEquals(250, stage.getEmittedRecords(), "150 of tenant a and all 100 of tenant b.");
+        assertEquals(150, stage.getDroppedRecords());
+        assertEquals(emitted.size(), stage.getEmittedRecords());
+    }
+
+    @Test
+    public void testDelayPolicyWaitsForRefills() throws InterruptedException {
+        /* Positive Test Case: Records past the tokens wait for refills, keep their order, and do not hold other tenants up. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(100, Duration.ofMillis(50), 100, Clock.systemUTC());
+        ThrottleStage<String> stage = new ThrottleStage<>(limiter, record -> record.substring(0, 1), 100, 1_000, OverflowPolicy.DELAY);
+        List<String> emitted = new ArrayList<>();
+        long start = System.nanoTime();
+        stage.run(records("a", 300, "b", 50), emitted::addAll);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(350, emitted.size());
+        assertEquals(0, stage.getDroppedRecords());
+        assertTrue(elapsedMillis >= 80, "Two refills of tenant a were waited for, took " + elapsedMillis + " ms.");
+        List<String> tenantA = emitted.stream().filter(record -> record.startsWith("a")).toList();
+        assertEquals(IntStream.range(0, 300).mapToObj(i -> "a" + i).toList(), tenantA, "Tenant a keeps its order.");
+        assertTrue(emitted.indexOf("b49") < emitted.indexOf("a299"), "Tenant b is not held behind tenant a.");
+    }
+
+    @Test
+    public void testBufferBoundsReadAhead() throws InterruptedException {
+        /* Positive Test Case: While records wait for a refill, the stage reads no more than its buffer ahead of the sink. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(50, Duration.ofMillis(10), 50, Clock.systemUTC());
+        ThrottleStage<Integer> stage = new ThrottleStage<>(limiter, record -> "tenant", 50, 200, OverflowPolicy.DELAY);
+        long[] emitted = new long[1];
+        long[] maxHeld = new long[1];
+        Iterator<Integer> source = new Iterator<>() {
+            private int read;
+
+            @Override
+            public boolean hasNext() {
+                return read < 2_000;
+            }
+
+            @Override
+            public Integer next() {
+                maxHeld[0] = Math.max(maxHeld[0], read - emitted[0]);
+                return read++;
+            }
+        };
+        stage.run(source, batch -> emitted[0] += batch.size());
+        assertEquals(2_000, emitted[0]);
+        assertTrue(maxHeld[0] <= 200, "Held " + maxHeld[0] + " records at most.");
+    }
+
+    @Test
+    public void testPublisherSource() throws InterruptedException {
+        /* Positive Test Case: Records of a publisher pass through the stage with bounded demand. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10_000, Duration.ofMinutes(1), 10, fixedClock);
+        ThrottleStage<Integer> stage = new ThrottleStage<>(limiter, record -> "tenant" + record % 3, 16, 64, OverflowPolicy.DROP);
+        long[] emitted = new long[1];
+        SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>();
+        Thread producer = new Thread(() -> {
+            while (publisher.getNumberOfSubscribers() == 0) {
+                Thread.onSpinWait();
+            }
+            for (int i = 0; i < 1_000; i++) {
+                publisher.submit(i);
+            }
+            publisher.close();
+        });
+        producer.start();
+        stage.run(publisher, batch -> emitted[0] += batch.size());
+        producer.join();
+        assertEquals(1_000, emitted[0]);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        /* Negative Test Case: A batch that is not positive or larger than the buffer is rejected. */
+        TokenBucketServiceRateLimiter limiter = new TokenBucketServiceRateLimiter(10, Duration.ofMinutes(1), 10, fixedClock);
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleStage<String>(limiter, record -> record, 0, 10, OverflowPolicy.DROP));
+        assertThrows(IllegalArgumentException.class, () -> new ThrottleStage<String>(limiter, record -> record, 20, 10, OverflowPolicy.DELAY));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireUpTo("user1", 0));
+    }
+
+    private static Iterator<String> records(String firstTenant, int firstCount, String secondTenant, int secondCount) {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < Math.max(firstCount, secondCount); i++) {
+            if (i < firstCount) {
+                records.add(firstTenant + i);
+            }
+            if (i < secondCount) {
+                records.add(secondTenant + i);
+            }
+        }
+        return records.iterator();
+    }
+}